@@ -0,0 +1,73 @@
+package com.dev.brain2.benchmark;
+
+import android.net.Uri;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera bibliotecas sintéticas de carpetas e imágenes para los benchmarks.
+ * Con la misma semilla siempre genera la misma biblioteca.
+ */
+public final class LibraryGenerator {
+
+    private static final int IMAGES_PER_FOLDER = 250;
+    private static final String[] WORDS = {
+            "vacaciones", "playa", "montaña", "cumpleaños", "familia", "perro", "gato", "café",
+            "viaje", "ciudad", "concierto", "boda", "navidad", "trabajo", "recibo", "documento",
+            "atardecer", "jardín", "comida", "amigos", "escuela", "partido", "museo", "río"
+    };
+    private static final String[] COLORS = {"#000000", "#FF5722", "#4CAF50", "#2196F3", "#9C27B0"};
+
+    private LibraryGenerator() {
+    }
+
+    /**
+     * Genera una biblioteca con el número de imágenes indicado.
+     *
+     * @param imageCount Número total de imágenes.
+     * @param baseDir    Directorio base de las URI de las imágenes (no se crean archivos).
+     * @param seed       Semilla del generador.
+     * @return Lista de carpetas generadas.
+     */
+    public static List<Folder> generate(int imageCount, File baseDir, long seed) {
+        Random random = new Random(seed);
+        int folderCount = Math.max(1, imageCount / IMAGES_PER_FOLDER);
+        List<Folder> folders = new ArrayList<>(folderCount);
+
+        for (int f = 0; f < folderCount; f++) {
+            Folder folder = new Folder(randomWord(random) + " " + f, COLORS[f % COLORS.length]);
+            folder.setId("folder-" + f);
+            folders.add(folder);
+        }
+
+        for (int i = 0; i < imageCount; i++) {
+            Folder folder = folders.get(i % folderCount);
+            String name = randomWord(random) + " " + randomWord(random) + " " + i;
+            File file = new File(new File(baseDir, folder.getName()), name + ".jpg");
+
+            Image image = new Image(Uri.fromFile(file), name);
+            int tagCount = random.nextInt(4);
+            for (int t = 0; t < tagCount; t++) {
+                image.addTag(randomWord(random));
+            }
+            folder.addImage(image);
+        }
+        return folders;
+    }
+
+    /**
+     * Obtiene una palabra aleatoria del vocabulario.
+     *
+     * @param random Generador aleatorio.
+     * @return Palabra.
+     */
+    public static String randomWord(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,156 @@
+package com.dev.brain2.benchmark;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Arnés mínimo de micro-benchmarks al estilo de JMH: calentamiento, medición por tiempo
+ * y bytes asignados por operación. Se ejecuta en la JVM con los tests unitarios.
+ */
+public final class MicroBenchmark {
+
+    private static final long WARMUP_MS = 500;
+    private static final long MEASURE_MS = 1000;
+    private static final int MIN_ITERATIONS = 3;
+
+    // Evita que la JVM elimine operaciones cuyo resultado no se usa
+    private static volatile Object sink;
+
+    /**
+     * Operación a medir. Debe devolver su resultado para que no se optimice.
+     */
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Resultado de medir una operación.
+     */
+    public static final class Result {
+        final String name;
+        final int size;
+        final long iterations;
+        final double opsPerSecond;
+        final double bytesPerOp;
+
+        Result(String name, int size, long iterations, double opsPerSecond, double bytesPerOp) {
+            this.name = name;
+            this.size = size;
+            this.iterations = iterations;
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %8d imgs %12.2f ops/s %14.0f B/op",
+                    name, size, opsPerSecond, bytesPerOp);
+        }
+    }
+
+    private MicroBenchmark() {
+    }
+
+    /**
+     * Indica si los benchmarks están activados (gradle -Pbenchmark).
+     *
+     * @return true si se deben ejecutar.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("brain2.benchmark");
+    }
+
+    /**
+     * Tamaños de biblioteca a medir.
+     *
+     * @return Número de imágenes de cada biblioteca sintética.
+     */
+    public static int[] sizes() {
+        String[] parts = System.getProperty("brain2.benchmark.sizes", "100,1000,10000,100000").split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    /**
+     * Mide una operación.
+     *
+     * @param name      Nombre del benchmark.
+     * @param size      Tamaño de la biblioteca usada.
+     * @param operation Operación a medir.
+     * @return Resultado de la medición.
+     * @throws Exception Si la operación falla.
+     */
+    public static Result measure(String name, int size, Operation operation) throws Exception {
+        runFor(WARMUP_MS, 1, operation);
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long iterations = runFor(MEASURE_MS, MIN_ITERATIONS, operation);
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        Result result = new Result(name, size, iterations,
+                iterations * 1_000_000_000d / elapsedNanos,
+                allocatedBefore < 0 ? -1 : (double) allocated / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Escribe los resultados de una batería en JSON para poder compararlos entre ejecuciones.
+     *
+     * @param suite   Nombre de la batería.
+     * @param results Resultados.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public static void report(String suite, List<Result> results) throws IOException {
+        File outputDir = new File(System.getProperty("brain2.benchmark.output", "build/benchmarks"));
+        outputDir.mkdirs();
+        try (FileWriter writer = new FileWriter(new File(outputDir, suite + ".json"))) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(new ArrayList<>(results), writer);
+        }
+    }
+
+    /**
+     * Ejecuta la operación hasta cumplir el tiempo y el mínimo de iteraciones.
+     *
+     * @param durationMs    Tiempo mínimo en milisegundos.
+     * @param minIterations Mínimo de iteraciones.
+     * @param operation     Operación a ejecutar.
+     * @return Número de iteraciones ejecutadas.
+     * @throws Exception Si la operación falla.
+     */
+    private static long runFor(long durationMs, int minIterations, Operation operation) throws Exception {
+        long deadline = System.nanoTime() + durationMs * 1_000_000L;
+        long iterations = 0;
+        while (iterations < minIterations || System.nanoTime() < deadline) {
+            sink = operation.run();
+            iterations++;
+        }
+        return iterations;
+    }
+
+    /**
+     * Bytes asignados por el hilo actual, si la JVM lo permite.
+     *
+     * @return Bytes asignados, o -1 si no está disponible.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
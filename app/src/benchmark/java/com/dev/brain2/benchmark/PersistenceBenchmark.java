@@ -0,0 +1,98 @@
+package com.dev.brain2.benchmark;
+
+import android.content.Context;
+import android.os.Environment;
+
+import com.dev.brain2.fragments.SettingsFragment;
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.utils.JsonLibraryStore;
+import com.dev.brain2.utils.SettingsPrefHelper;
+import com.google.gson.Gson;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks de la persistencia de la biblioteca: lectura y escritura de folders.json
+ * y obtención de carpetas con y sin el orden de carpetas recientes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class PersistenceBenchmark {
+
+    private static final int RECENT_FOLDERS = 10;
+
+    private Context context;
+    private DataStorage dataStorage;
+    private SettingsPrefHelper settingsPrefHelper;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Benchmarks desactivados (usar -Pbenchmark)", MicroBenchmark.isEnabled());
+        context = RuntimeEnvironment.getApplication();
+        dataStorage = new DataStorage(context);
+        settingsPrefHelper = new SettingsPrefHelper(context);
+    }
+
+    @Test
+    public void benchmarkPersistence() throws Exception {
+        List<MicroBenchmark.Result> results = new ArrayList<>();
+
+        for (int size : MicroBenchmark.sizes()) {
+            List<Folder> library = LibraryGenerator.generate(size,
+                    context.getExternalFilesDir(Environment.DIRECTORY_PICTURES), 42);
+
+            results.add(MicroBenchmark.measure("DataStorage.writeLibrary", size, () -> dataStorage.writeLibrary(library)));
+            results.add(MicroBenchmark.measure("DataStorage.readManifest", size, dataStorage::readManifest));
+
+            // Una modificación solo reescribe el archivo de su carpeta
+            Folder touched = library.get(0);
+            results.add(MicroBenchmark.measure("DataStorage.writeFolderShard", size, () -> {
+                dataStorage.writeFolderShard(touched);
+                return touched;
+            }));
+            results.add(MicroBenchmark.measure("DataStorage.readFolderShard", size,
+                    () -> dataStorage.readFolderShard(touched.getId())));
+
+            settingsPrefHelper.saveBoolean(SettingsFragment.KEY_LAST_OPENED, false);
+            FolderManager folderManager = new FolderManager(context, new JsonLibraryStore(context));
+            results.add(MicroBenchmark.measure("FolderManager.getFolders (recarga)", size, () -> {
+                folderManager.reload();
+                return folderManager.getFolders();
+            }));
+            results.add(MicroBenchmark.measure("FolderManager.getFolders", size, folderManager::getFolders));
+
+            settingsPrefHelper.saveBoolean(SettingsFragment.KEY_LAST_OPENED, true);
+            settingsPrefHelper.saveString("recentFolders", new Gson().toJson(recentFolderIds(library)));
+            FolderManager reorderingManager = new FolderManager(context, new JsonLibraryStore(context));
+            results.add(MicroBenchmark.measure("FolderManager.getFolders (recientes)", size,
+                    reorderingManager::getFolders));
+        }
+
+        MicroBenchmark.report("persistence", results);
+    }
+
+    /**
+     * Elige los IDs de las últimas carpetas como carpetas abiertas recientemente.
+     *
+     * @param library Biblioteca generada.
+     * @return Lista de IDs recientes.
+     */
+    private List<String> recentFolderIds(List<Folder> library) {
+        List<String> ids = new ArrayList<>();
+        for (int i = library.size() - 1; i >= 0 && ids.size() < RECENT_FOLDERS; i--) {
+            ids.add(library.get(i).getId());
+        }
+        return ids;
+    }
+}
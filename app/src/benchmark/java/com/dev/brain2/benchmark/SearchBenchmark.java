@@ -0,0 +1,133 @@
+package com.dev.brain2.benchmark;
+
+import android.content.Context;
+import android.os.Environment;
+
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.managers.ImageManager;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.utils.JsonLibraryStore;
+import com.dev.brain2.utils.SearchHandler;
+import com.dev.brain2.utils.SqliteLibraryStore;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmarks de la búsqueda: filtrado en memoria sobre la biblioteca JSON y consultas
+ * indexadas sobre la biblioteca SQLite.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class SearchBenchmark {
+
+    // Consulta frecuente, consulta corta con muchas coincidencias y consulta sin resultados
+    private static final String[] QUERIES = {"playa", "a", "xyz"};
+    // Biblioteca y núcleos con los que se mide el reparto de la búsqueda entre hilos
+    private static final int PARALLEL_LIBRARY_SIZE = 100_000;
+    private static final int[] PARALLELISM = {1, 2, 4, 8};
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Benchmarks desactivados (usar -Pbenchmark)", MicroBenchmark.isEnabled());
+        context = RuntimeEnvironment.getApplication();
+    }
+
+    @Test
+    public void benchmarkSearch() throws Exception {
+        List<MicroBenchmark.Result> results = new ArrayList<>();
+
+        for (int size : MicroBenchmark.sizes()) {
+            List<Folder> library = LibraryGenerator.generate(size,
+                    context.getExternalFilesDir(Environment.DIRECTORY_PICTURES), 42);
+            new DataStorage(context).writeLibrary(library);
+
+            FolderManager folderManager = new FolderManager(context, new JsonLibraryStore(context));
+            folderManager.reload();
+            ImageManager imageManager = new ImageManager(context, folderManager);
+
+            results.add(MicroBenchmark.measure("ImageManager.getAllImages", size, imageManager::getAllImages));
+
+            List<Image> allImages = imageManager.getAllImages();
+            SearchHandler searchHandler = new SearchHandler(allImages);
+            for (String query : QUERIES) {
+                results.add(MicroBenchmark.measure("SearchHandler.performSearch(\"" + query + "\")", size,
+                        () -> searchHandler.performSearch(query)));
+            }
+
+            SqliteLibraryStore store = SqliteLibraryStore.getInstance(context);
+            replaceLibrary(store, library);
+            for (String query : QUERIES) {
+                results.add(MicroBenchmark.measure("SqliteLibraryStore.searchImages(\"" + query + "\")", size,
+                        () -> store.searchImages(query)));
+            }
+            Folder touched = library.get(0);
+            results.add(MicroBenchmark.measure("SqliteLibraryStore.readFolder", size,
+                    () -> store.readFolder(touched.getId())));
+        }
+
+        MicroBenchmark.report("search", results);
+    }
+
+    /**
+     * Mide cómo escala la comprobación de candidatos con el número de hilos. Con un hilo
+     * SearchHandler no reparte, así que es la referencia secuencial. Los bytes asignados solo
+     * cuentan los del hilo que mide, no los de los hilos del grupo.
+     */
+    @Test
+    public void benchmarkParallelSearch() throws Exception {
+        List<MicroBenchmark.Result> results = new ArrayList<>();
+        List<Image> allImages = new ArrayList<>();
+        for (Folder folder : LibraryGenerator.generate(PARALLEL_LIBRARY_SIZE,
+                context.getExternalFilesDir(Environment.DIRECTORY_PICTURES), 42)) {
+            allImages.addAll(folder.getImages());
+        }
+
+        for (int parallelism : PARALLELISM) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                SearchHandler searchHandler = new SearchHandler(allImages, pool);
+                for (String query : QUERIES) {
+                    results.add(MicroBenchmark.measure("SearchHandler.performSearch(\"" + query + "\") x"
+                            + parallelism + " hilos", allImages.size(), () -> searchHandler.performSearch(query)));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        MicroBenchmark.report("search-parallel", results);
+    }
+
+    /**
+     * Sustituye el contenido de la base de datos por una biblioteca generada.
+     *
+     * @param store   Almacenamiento SQLite.
+     * @param library Carpetas generadas.
+     */
+    private void replaceLibrary(SqliteLibraryStore store, List<Folder> library) {
+        for (FolderSummary summary : store.loadSummaries()) {
+            store.deleteFolder(summary.getId(), Collections.emptyList());
+        }
+        List<FolderSummary> summaries = new ArrayList<>(library.size());
+        for (Folder folder : library) {
+            summaries.add(FolderSummary.of(folder, System.currentTimeMillis()));
+        }
+        store.saveFolders(library, summaries);
+    }
+}
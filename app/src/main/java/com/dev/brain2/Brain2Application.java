@@ -0,0 +1,41 @@
+package com.dev.brain2;
+
+import android.app.Application;
+
+import com.dev.brain2.fragments.SettingsFragment;
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.utils.CacheRegistry;
+import com.dev.brain2.utils.MainThreadIoGuard;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.SettingsPrefHelper;
+
+/**
+ * Clase de aplicación. Lanza en paralelo la carga de las configuraciones y de la biblioteca
+ * antes de que se cree la primera pantalla, y reparte los avisos de falta de memoria entre
+ * las cachés registradas.
+ */
+public class Brain2Application extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        MainThreadIoGuard.install(this);
+
+        SettingsPrefHelper.preload(this);
+        SettingsPrefHelper.whenLoaded(() -> Metrics.setEnabled(
+                new SettingsPrefHelper(this).getBoolean(SettingsFragment.KEY_METRICS_ENABLED, false)));
+        FolderManager.preload(this);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        CacheRegistry.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        CacheRegistry.getInstance().onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+}
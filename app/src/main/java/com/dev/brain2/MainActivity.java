@@ -3,10 +3,16 @@ package com.dev.brain2;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.os.Bundle;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import com.dev.brain2.fragments.SettingsFragment;
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.managers.LibraryReconciler;
 import com.dev.brain2.utils.ColorManager;
+import com.dev.brain2.utils.Metrics;
 import com.dev.brain2.utils.SettingsPrefHelper;
+import com.dev.brain2.utils.StartupTracker;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
@@ -22,6 +28,8 @@ import com.dev.brain2.databinding.ActivityDashboardBinding;
  */
 public class MainActivity extends AppCompatActivity {
 
+    private static final long RECONCILE_DELAY_MS = 2000;
+
     private AppBarConfiguration appBarConfiguration;
     private ActivityDashboardBinding binding;
     private SettingsPrefHelper settingsPrefHelper;
@@ -30,10 +38,22 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        // Las fases se miden siempre; Metrics las descarta si está desactivado
+        long phaseStart = System.nanoTime();
         initializeBinding();
+        phaseStart = recordStartupPhase("startup.binding", phaseStart);
         initializeSettingsHelper();
+        phaseStart = recordStartupPhase("startup.settings", phaseStart);
         applySavedColors();
+        phaseStart = recordStartupPhase("startup.colors", phaseStart);
         setupNavigation();
+        recordStartupPhase("startup.navigation", phaseStart);
+        trackFirstFrame();
+
+        if (savedInstanceState == null) {
+            // La reconciliación necesita la biblioteca completa: se aplaza para no competir con la pantalla inicial
+            binding.getRoot().postDelayed(this::reconcileLibrary, RECONCILE_DELAY_MS);
+        }
     }
 
     /**
@@ -51,10 +71,49 @@ public class MainActivity extends AppCompatActivity {
         settingsPrefHelper = new SettingsPrefHelper(this);
     }
 
+    /**
+     * Registra el primer fotograma del arranque.
+     */
+    private void trackFirstFrame() {
+        View content = binding.getRoot();
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTracker.onFirstFrame();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Registra la duración de una fase del arranque.
+     *
+     * @param name       Nombre de la fase.
+     * @param startNanos Inicio de la fase en nanosegundos.
+     * @return Instante actual, que sirve de inicio para la fase siguiente.
+     */
+    private long recordStartupPhase(String name, long startNanos) {
+        long now = System.nanoTime();
+        Metrics.recordDuration(name, now - startNanos);
+        return now;
+    }
+
     /**
      * Aplica los colores guardados en las preferencias o los valores predeterminados.
      */
     private void applySavedColors() {
+        // Las configuraciones se precargan en Brain2Application; si aún no han llegado, se aplican al llegar
+        SettingsPrefHelper.whenLoaded(this::applyColorsFromSettings);
+    }
+
+    /**
+     * Aplica los colores de las configuraciones ya cargadas.
+     */
+    private void applyColorsFromSettings() {
+        if (isDestroyed()) {
+            return;
+        }
         int defaultBarColorPosition = 0;  // Negro
         int defaultIconColorPosition = 0; // Blanco
 
@@ -86,6 +145,17 @@ public class MainActivity extends AppCompatActivity {
         NavigationUI.setupWithNavController(binding.navView, navController);
     }
 
+    /**
+     * Compara en segundo plano la biblioteca con los archivos en disco y repara las diferencias.
+     */
+    private void reconcileLibrary() {
+        if (isFinishing()) {
+            return;
+        }
+        // Lee las carpetas guardadas en segundo plano; no hace falta cargar la biblioteca
+        new LibraryReconciler(getApplicationContext(), new FolderManager(this)).reconcile(true, null);
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         return navigateUpOrFinish();
@@ -12,8 +12,9 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.dev.brain2.R;
-import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
 import com.dev.brain2.interfaces.OnFolderClickListener;
+import com.dev.brain2.utils.Metrics;
 
 import java.util.List;
 
@@ -22,7 +23,7 @@ import java.util.List;
  */
 public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.FolderViewHolder> {
 
-    private List<Folder> folderList;               // Lista de carpetas a mostrar
+    private List<FolderSummary> folderList;        // Resúmenes de las carpetas a mostrar
     private Context appContext;                    // Contexto de la aplicación
     private OnFolderClickListener clickListener;   // Listener para eventos de clic
 
@@ -30,10 +31,10 @@ public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.FolderView
      * Constructor del adaptador.
      *
      * @param context  Contexto de la aplicación.
-     * @param folders  Lista de carpetas a mostrar.
+     * @param folders  Resúmenes de las carpetas a mostrar.
      * @param listener Listener para manejar eventos de clic en las carpetas.
      */
-    public FolderAdapter(Context context, List<Folder> folders,
+    public FolderAdapter(Context context, List<FolderSummary> folders,
                          OnFolderClickListener listener) {
         this.appContext = context;
         this.folderList = folders;
@@ -64,8 +65,10 @@ public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.FolderView
      */
     @Override
     public void onBindViewHolder(@NonNull FolderViewHolder holder, int position) {
-        Folder folder = folderList.get(position);
+        long start = Metrics.startTimer();
+        FolderSummary folder = folderList.get(position);
         holder.bindFolderData(folder);
+        Metrics.stopTimer("adapter.folder.bind", start);
     }
 
     /**
@@ -121,9 +124,9 @@ public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.FolderView
         /**
          * Vincula los datos de una carpeta con las vistas.
          *
-         * @param folder La carpeta cuyos datos se mostrarán.
+         * @param folder Resumen de la carpeta cuyos datos se mostrarán.
          */
-        public void bindFolderData(Folder folder) {
+        public void bindFolderData(FolderSummary folder) {
             displayFolderName(folder.getName());
             displayImageCount(folder.getImageCount());
             applyFolderIconColor(folder.getColor());
@@ -180,9 +183,9 @@ public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.FolderView
     /**
      * Actualiza la lista de carpetas.
      *
-     * @param newFolders Nueva lista de carpetas.
+     * @param newFolders Nueva lista de resúmenes de carpetas.
      */
-    public void updateFolders(List<Folder> newFolders) {
+    public void updateFolders(List<FolderSummary> newFolders) {
         this.folderList = newFolders;
         notifyDataSetChanged();
     }
@@ -1,7 +1,6 @@
 package com.dev.brain2.adapters;
 
 import android.content.Context;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,7 +12,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.dev.brain2.R;
 import com.dev.brain2.models.Image;
 import com.dev.brain2.interfaces.OnImageClickListener;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.ThumbnailLoader;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,18 +26,21 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
     private List<Image> imageList;              // Lista de imágenes a mostrar
     private Context appContext;                 // Contexto de la aplicación
     private OnImageClickListener clickListener; // Listener para eventos de clic
+    private ThumbnailLoader thumbnailLoader;    // Miniaturas decodificadas en segundo plano
 
     /**
      * Constructor del adaptador.
      *
      * @param context  Contexto de la aplicación.
-     * @param images   Lista de imágenes a mostrar.
+     * @param images   Lista de imágenes a mostrar. Puede ser paginada y devolver null
+     *                 en las posiciones que aún no se han cargado.
      * @param listener Listener para manejar eventos de clic en las imágenes.
      */
     public ImageAdapter(Context context, List<Image> images, OnImageClickListener listener) {
         this.appContext = context;
         this.imageList = images;
         this.clickListener = listener;
+        this.thumbnailLoader = ThumbnailLoader.getInstance(context);
     }
 
     /**
@@ -60,8 +65,10 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
      */
     @Override
     public void onBindViewHolder(@NonNull ImageViewHolder holder, int position) {
+        long start = Metrics.startTimer();
         Image image = imageList.get(position);
         holder.bindImageData(image);
+        Metrics.stopTimer("adapter.image.bind", start);
     }
 
     /**
@@ -74,6 +81,16 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
         return imageList.size();
     }
 
+    /**
+     * Obtiene la imagen de una posición.
+     *
+     * @param position Posición en la lista.
+     * @return Imagen, o null si la posición no existe o aún no está cargada.
+     */
+    public Image getImage(int position) {
+        return position >= 0 && position < imageList.size() ? imageList.get(position) : null;
+    }
+
     /**
      * ViewHolder que contiene la vista de cada elemento de la lista.
      */
@@ -113,20 +130,25 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
         /**
          * Vincula los datos de una imagen con las vistas.
          *
-         * @param image La imagen cuyos datos se mostrarán.
+         * @param image La imagen cuyos datos se mostrarán, o null si todavía se está cargando.
          */
         public void bindImageData(Image image) {
-            displayImage(image.getUri());
+            if (image == null) {
+                thumbnailLoader.showPlaceholder(imageViewItem);
+                displayImageName("");
+                return;
+            }
+            displayImage(image);
             displayImageName(image.getName());
         }
 
         /**
-         * Muestra la imagen en el ImageView.
+         * Muestra la miniatura de la imagen en el ImageView.
          *
-         * @param imageUri URI de la imagen a mostrar.
+         * @param image Imagen a mostrar.
          */
-        private void displayImage(Uri imageUri) {
-            imageViewItem.setImageURI(imageUri);
+        private void displayImage(Image image) {
+            thumbnailLoader.load(image, imageViewItem);
         }
 
         /**
@@ -141,7 +163,7 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
         @Override
         public void onClick(View v) {
             int position = getAdapterPosition();
-            if (position != RecyclerView.NO_POSITION) {
+            if (position != RecyclerView.NO_POSITION && imageList.get(position) != null) {
                 clickListener.onImageClick(imageList.get(position));
             }
         }
@@ -149,7 +171,7 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
         @Override
         public boolean onLongClick(View v) {
             int position = getAdapterPosition();
-            if (position != RecyclerView.NO_POSITION) {
+            if (position != RecyclerView.NO_POSITION && imageList.get(position) != null) {
                 clickListener.onImageLongClick(imageList.get(position));
                 return true;
             }
@@ -157,6 +179,22 @@ public class ImageAdapter extends RecyclerView.Adapter<ImageAdapter.ImageViewHol
         }
     }
 
+    /**
+     * Añade imágenes al final de la lista, por ejemplo la siguiente página de resultados.
+     *
+     * @param moreImages Imágenes a añadir.
+     */
+    public void appendImages(List<Image> moreImages) {
+        if (moreImages.isEmpty()) {
+            return;
+        }
+        int start = imageList.size();
+        List<Image> updated = new ArrayList<>(imageList);
+        updated.addAll(moreImages);
+        imageList = updated;
+        notifyItemRangeInserted(start, moreImages.size());
+    }
+
     /**
      * Actualiza la lista de imágenes.
      *
@@ -14,6 +14,7 @@ import com.dev.brain2.models.Folder;
 import com.dev.brain2.models.Image;
 import com.dev.brain2.utils.Notifier;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -116,12 +117,22 @@ public class ImageDialog {
      * @param onMoveComplete Callback al completar el movimiento.
      */
     private void handleImageMoveSelection(Folder targetFolder, Folder currentFolder, Image image, Runnable onMoveComplete) {
-        if (imageManager.moveImage(image, currentFolder, targetFolder)) {
-            Notifier.showInfo(appContext, "Imagen movida a " + targetFolder.getName());
-            onMoveComplete.run();
-        } else {
-            Notifier.showError(appContext, "Error al mover la imagen");
-        }
+        imageManager.moveImagesAsync(Collections.singletonList(image), currentFolder, targetFolder,
+                new ImageManager.MoveListener() {
+                    @Override
+                    public void onProgress(int movedCount, int totalCount) { }
+
+                    @Override
+                    public void onComplete(ImageManager.BatchMoveResult result) {
+                        if (result.isComplete()) {
+                            Notifier.showInfo(appContext, "Imagen movida a " + targetFolder.getName());
+                            onMoveComplete.run();
+                        } else {
+                            Notifier.showError(appContext, "Error al mover la imagen: "
+                                    + result.getFailures().get(image));
+                        }
+                    }
+                });
     }
 
     /**
@@ -20,7 +20,9 @@ import com.dev.brain2.managers.FolderManager;
 import com.dev.brain2.managers.ImageManager;
 import com.dev.brain2.managers.PermissionManager;
 import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
 import com.dev.brain2.utils.ImageFileHandler;
+import com.dev.brain2.utils.MainThreadIoGuard;
 import com.dev.brain2.utils.Notifier;
 
 /**
@@ -180,6 +182,7 @@ public class AddPhotoFragment extends Fragment {
      */
     private void updateImagePreview() {
         if (selectedImageUri != null) {
+            MainThreadIoGuard.onBitmapDecode();
             binding.imageView.setImageURI(selectedImageUri);
             binding.confirmButton.setEnabled(true);
         }
@@ -208,12 +211,26 @@ public class AddPhotoFragment extends Fragment {
      * @param imageName Nombre de la imagen.
      */
     private void saveImageToFolder(Folder folder, String imageName) {
-        try {
-            imageManager.saveImage(selectedImageUri, imageName, folder);
-            Notifier.showInfo(requireContext(), "Imagen guardada en " + folder.getName());
-        } catch (Exception e) {
-            Notifier.showError(requireContext(), "Error al guardar la imagen: " + e.getMessage());
-        }
+        binding.confirmButton.setEnabled(false);
+        imageManager.saveImageAsync(selectedImageUri, imageName, folder, new ImageManager.SaveListener() {
+            @Override
+            public void onSaved(Image image) {
+                if (binding == null) {
+                    return;
+                }
+                binding.confirmButton.setEnabled(true);
+                Notifier.showInfo(requireContext(), "Imagen guardada en " + folder.getName());
+            }
+
+            @Override
+            public void onError(String message) {
+                if (binding == null) {
+                    return;
+                }
+                binding.confirmButton.setEnabled(true);
+                Notifier.showError(requireContext(), "Error al guardar la imagen: " + message);
+            }
+        });
     }
 
     /**
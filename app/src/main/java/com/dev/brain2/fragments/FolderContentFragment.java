@@ -10,17 +10,21 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.dev.brain2.R;
 import com.dev.brain2.adapters.ImageAdapter;
 import com.dev.brain2.databinding.FragmentFolderContentBinding;
 import com.dev.brain2.interfaces.OnImageClickListener;
 import com.dev.brain2.managers.DialogManager;
+import com.dev.brain2.managers.FolderImagePager;
 import com.dev.brain2.managers.FolderManager;
 import com.dev.brain2.managers.ImageManager;
 import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
 import com.dev.brain2.models.Image;
 import com.dev.brain2.utils.Notifier;
-import java.util.List;
+import com.dev.brain2.utils.ScrollPrefetcher;
+import com.dev.brain2.utils.ThumbnailLoader;
 
 /**
  * Fragmento que muestra el contenido de una carpeta.
@@ -35,8 +39,8 @@ public class FolderContentFragment extends Fragment implements OnImageClickListe
     private ImageManager imageManager;
     private DialogManager dialogManager;
 
-    private Folder currentFolder;
-    private List<Image> imageList;
+    private String folderId;
+    private FolderImagePager imagePager;
     private ImageAdapter imageAdapter;
 
     public FolderContentFragment() {
@@ -81,51 +85,66 @@ public class FolderContentFragment extends Fragment implements OnImageClickListe
 
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
-        loadFolderFromArguments();
-        setupRecyclerView();
-        displayFolderContent();
-    }
-
-    /**
-     * Carga la carpeta actual desde los argumentos proporcionados.
-     */
-    private void loadFolderFromArguments() {
-        if (getArguments() != null && getArguments().containsKey(ARG_FOLDER_ID)) {
-            String folderId = getArguments().getString(ARG_FOLDER_ID);
-            currentFolder = folderManager.getFolderById(folderId);
-
-            if (currentFolder != null) {
-                binding.folderTitle.setText(currentFolder.getName());
-            } else {
-                showToast("Error al cargar la carpeta");
-                requireActivity().onBackPressed();
-            }
-        } else {
+        if (getArguments() == null || !getArguments().containsKey(ARG_FOLDER_ID)) {
             showToast("No se proporcionó un ID de carpeta");
             requireActivity().onBackPressed();
+            return;
         }
+        folderId = getArguments().getString(ARG_FOLDER_ID);
+        setupRecyclerView();
     }
 
     /**
-     * Configura el RecyclerView para mostrar las imágenes.
+     * Configura el RecyclerView con una lista paginada: solo se cargan las imágenes
+     * cercanas a la posición visible, y se liberan las que quedan lejos. Las miniaturas
+     * se piden por adelantado según el desplazamiento.
      */
     private void setupRecyclerView() {
-        binding.imagesRecyclerView.setLayoutManager(new GridLayoutManager(requireContext(), 3));
-        imageList = currentFolder != null ? currentFolder.getImages() : null;
-        imageAdapter = new ImageAdapter(requireContext(), imageList, this);
+        GridLayoutManager layoutManager = new GridLayoutManager(requireContext(), 3);
+        binding.imagesRecyclerView.setLayoutManager(layoutManager);
+        ThumbnailLoader thumbnailLoader = ThumbnailLoader.getInstance(requireContext());
+        imagePager = new FolderImagePager(folderManager, thumbnailLoader, folderId, new FolderImagePager.Listener() {
+            @Override
+            public void onSizeChanged(FolderSummary summary) {
+                if (binding != null) {
+                    displayFolderContent(summary);
+                }
+            }
+
+            @Override
+            public void onRangeLoaded(int start, int count) {
+                if (binding != null) {
+                    imageAdapter.notifyItemRangeChanged(start, count);
+                }
+            }
+        });
+        imageAdapter = new ImageAdapter(requireContext(), imagePager, this);
         binding.imagesRecyclerView.setAdapter(imageAdapter);
+        binding.imagesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                imagePager.onVisibleRangeChanged(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
+        ScrollPrefetcher.attach(binding.imagesRecyclerView, imageAdapter, thumbnailLoader);
     }
 
     /**
-     * Muestra el contenido de la carpeta.
+     * Muestra el contenido de la carpeta a partir de su resumen.
+     *
+     * @param summary Resumen de la carpeta, o null si ya no existe.
      */
-    private void displayFolderContent() {
-        if (currentFolder == null) {
+    private void displayFolderContent(FolderSummary summary) {
+        if (summary == null) {
+            showToast("La carpeta ya no existe");
             requireActivity().onBackPressed();
             return;
         }
 
-        if (currentFolder.getImages().isEmpty()) {
+        binding.folderTitle.setText(summary.getName());
+        imageAdapter.notifyDataSetChanged();
+        if (summary.getImageCount() == 0) {
             showToast("La carpeta está vacía");
         }
         binding.imagesRecyclerView.setVisibility(View.VISIBLE);
@@ -135,17 +154,38 @@ public class FolderContentFragment extends Fragment implements OnImageClickListe
      * Refresca el contenido del fragmento.
      */
     private void refreshContent() {
-        if (currentFolder != null && imageAdapter != null) {
-            currentFolder = folderManager.getFolderById(currentFolder.getId());
-            if (currentFolder == null) {
-                showToast("La carpeta ya no existe");
-                requireActivity().onBackPressed();
+        if (imagePager != null) {
+            imagePager.refresh();
+        }
+    }
+
+    /**
+     * Carga la carpeta completa antes de modificarla. Las páginas solo tienen copias
+     * de las imágenes, así que las acciones trabajan sobre la imagen de la carpeta cargada.
+     *
+     * @param image  Imagen sobre la que se actuará.
+     * @param action Acción que recibe la carpeta y su imagen.
+     */
+    private void withLoadedImage(Image image, ImageAction action) {
+        folderManager.loadFolderAsync(folderId, folder -> {
+            if (binding == null) {
                 return;
             }
-            imageList = currentFolder.getImages();
-            imageAdapter.updateImages(imageList);
-            displayFolderContent();
-        }
+            Image loadedImage = folder != null ? folder.findImageById(image.getId()) : null;
+            if (loadedImage == null) {
+                showToast("La imagen ya no existe");
+                refreshContent();
+                return;
+            }
+            action.run(folder, loadedImage);
+        });
+    }
+
+    /**
+     * Acción sobre una imagen de la carpeta cargada.
+     */
+    private interface ImageAction {
+        void run(Folder folder, Image image);
     }
 
     @Override
@@ -209,13 +249,15 @@ public class FolderContentFragment extends Fragment implements OnImageClickListe
     private void handleImageOptionSelected(int which, Image image) {
         switch (which) {
             case 0:
-                dialogManager.showImageMoveDialog(currentFolder, image, this::refreshContent);
+                withLoadedImage(image, (folder, loadedImage) ->
+                        dialogManager.showImageMoveDialog(folder, loadedImage, this::refreshContent));
                 break;
             case 1:
                 confirmImageDeletion(image);
                 break;
             case 2:
-                dialogManager.showImageRenameDialog(currentFolder, image, this::refreshContent);
+                withLoadedImage(image, (folder, loadedImage) ->
+                        dialogManager.showImageRenameDialog(folder, loadedImage, this::refreshContent));
                 break;
         }
     }
@@ -228,16 +270,17 @@ public class FolderContentFragment extends Fragment implements OnImageClickListe
     private void confirmImageDeletion(Image image) {
         Notifier.showDeleteConfirmation(requireContext(),
                 "¿Está seguro de eliminar esta imagen?",
-                () -> deleteImage(image));
+                () -> withLoadedImage(image, this::deleteImage));
     }
 
     /**
      * Elimina la imagen y actualiza el contenido.
      *
-     * @param image Imagen a eliminar.
+     * @param folder Carpeta donde está la imagen.
+     * @param image  Imagen a eliminar.
      */
-    private void deleteImage(Image image) {
-        if (imageManager.deleteImage(image, currentFolder)) {
+    private void deleteImage(Folder folder, Image image) {
+        if (imageManager.deleteImage(image, folder)) {
             showToast("Imagen eliminada");
             refreshContent();
         } else {
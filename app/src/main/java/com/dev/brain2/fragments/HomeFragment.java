@@ -15,9 +15,12 @@ import com.dev.brain2.databinding.FragmentHomeBinding;
 import com.dev.brain2.interfaces.OnFolderClickListener;
 import com.dev.brain2.managers.DialogManager;
 import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.managers.TrashManager;
 import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
 import com.dev.brain2.utils.Notifier;
 import com.dev.brain2.utils.SettingsPrefHelper;
+import com.dev.brain2.utils.StartupTracker;
 import com.google.gson.Gson;
 
 import androidx.navigation.Navigation;
@@ -38,7 +41,7 @@ public class HomeFragment extends Fragment implements OnFolderClickListener {
     private FolderManager folderManager;
     private DialogManager dialogManager;
     private FolderAdapter folderAdapter;
-    private List<Folder> folderList;
+    private List<FolderSummary> folderList;
     private SettingsPrefHelper settingsPrefHelper;
 
     @Nullable
@@ -118,13 +121,20 @@ public class HomeFragment extends Fragment implements OnFolderClickListener {
     }
 
     /**
-     * Carga las carpetas y actualiza el adaptador.
+     * Carga los resúmenes de las carpetas y actualiza el adaptador.
+     * Las listas de imágenes no se leen hasta que se abre una carpeta.
      */
     private void loadFolders() {
-        folderList = folderManager.getFolders();
-        if (folderAdapter != null) {
-            folderAdapter.updateFolders(folderList);
-        }
+        folderManager.loadFolderSummariesAsync(folders -> {
+            if (binding == null) {
+                return;
+            }
+            folderList = folders;
+            if (folderAdapter != null) {
+                folderAdapter.updateFolders(folderList);
+            }
+            recyclerView.post(StartupTracker::onFoldersVisible);
+        });
     }
 
     @Override
@@ -139,7 +149,7 @@ public class HomeFragment extends Fragment implements OnFolderClickListener {
      * @param clickedFolder Carpeta que fue clickeada.
      */
     @Override
-    public void onFolderClick(Folder clickedFolder) {
+    public void onFolderClick(FolderSummary clickedFolder) {
         updateRecentFoldersList(clickedFolder.getId());
         navigateToFolderContent(clickedFolder);
     }
@@ -149,7 +159,7 @@ public class HomeFragment extends Fragment implements OnFolderClickListener {
      *
      * @param folder Carpeta seleccionada.
      */
-    private void navigateToFolderContent(Folder folder) {
+    private void navigateToFolderContent(FolderSummary folder) {
         Bundle args = new Bundle();
         args.putString("folderId", folder.getId());
         Navigation.findNavController(requireView())
@@ -180,8 +190,13 @@ public class HomeFragment extends Fragment implements OnFolderClickListener {
      * @param longClickedFolder Carpeta que fue presionada.
      */
     @Override
-    public void onFolderLongClick(Folder longClickedFolder) {
-        showFolderOptionsDialog(longClickedFolder);
+    public void onFolderLongClick(FolderSummary longClickedFolder) {
+        // Editar o eliminar necesita la carpeta completa
+        folderManager.loadFolderAsync(longClickedFolder.getId(), folder -> {
+            if (folder != null && binding != null) {
+                showFolderOptionsDialog(folder);
+            }
+        });
     }
 
     /**
@@ -222,13 +237,34 @@ public class HomeFragment extends Fragment implements OnFolderClickListener {
     private void confirmFolderDeletion(Folder folder) {
         Notifier.showDeleteConfirmation(requireContext(),
                 "¿Eliminar esta carpeta?", () -> {
-                    folderManager.deleteFolder(folder);
+                    TrashManager.TrashEntry entry = folderManager.deleteFolder(folder);
                     loadFolders();
-                    Notifier.showInfo(requireContext(),
-                            "Carpeta eliminada: " + folder.getName());
+                    showFolderDeletedMessage(folder, entry);
                 });
     }
 
+    /**
+     * Informa de la eliminación y permite deshacerla mientras la carpeta siga en la papelera.
+     *
+     * @param folder Carpeta eliminada.
+     * @param entry  Entrada de la papelera, o null si no se puede deshacer.
+     */
+    private void showFolderDeletedMessage(Folder folder, TrashManager.TrashEntry entry) {
+        String message = "Carpeta eliminada: " + folder.getName();
+        if (entry == null || binding == null) {
+            Notifier.showInfo(requireContext(), message);
+            return;
+        }
+
+        Notifier.showUndo(binding.getRoot(), message, TrashManager.UNDO_WINDOW_MS, () -> {
+            if (folderManager.restoreFolder(entry)) {
+                loadFolders();
+            } else if (isAdded()) {
+                Notifier.showError(requireContext(), "No se pudo restaurar la carpeta");
+            }
+        });
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
@@ -1,5 +1,8 @@
 package com.dev.brain2.fragments;
 
+import android.content.ComponentCallbacks2;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
@@ -11,6 +14,9 @@ import android.view.View;
 import android.view.ViewGroup;
 import com.dev.brain2.R;
 import com.dev.brain2.databinding.FragmentImageViewerBinding;
+import com.dev.brain2.interfaces.TrimmableCache;
+import com.dev.brain2.utils.CacheRegistry;
+import com.dev.brain2.utils.MainThreadIoGuard;
 import com.dev.brain2.utils.Notifier;
 
 /**
@@ -21,6 +27,8 @@ public class ImageViewerFragment extends Fragment {
     public static final String ARG_IMAGE_URI = "imageUri";
 
     private FragmentImageViewerBinding binding;
+    private final TrimmableCache imageCache = this::releaseImageIfHidden;
+    private boolean imageReleased;  // La imagen se liberó y hay que volver a cargarla al mostrarse
 
     public ImageViewerFragment() {
 
@@ -36,6 +44,39 @@ public class ImageViewerFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         loadImageFromArguments();
+        CacheRegistry.getInstance().register("viewer.image", CacheRegistry.Tier.MEDIUM, imageCache);
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        if (imageReleased) {
+            imageReleased = false;
+            loadImageFromArguments();
+        }
+    }
+
+    /**
+     * Libera la imagen decodificada si la aplicación ya no está a la vista.
+     * Se vuelve a cargar al mostrar de nuevo el fragmento.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados.
+     */
+    private long releaseImageIfHidden(int level) {
+        if (binding == null || level < ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return 0;
+        }
+        Drawable drawable = binding.fullImageView.getDrawable();
+        if (drawable == null) {
+            return 0;
+        }
+        long freed = drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() != null
+                ? ((BitmapDrawable) drawable).getBitmap().getAllocationByteCount()
+                : 0;
+        binding.fullImageView.setImageDrawable(null);
+        imageReleased = true;
+        return freed;
     }
 
     /**
@@ -61,6 +102,7 @@ public class ImageViewerFragment extends Fragment {
      * @param imageUri URI de la imagen a mostrar.
      */
     private void displayImage(Uri imageUri) {
+        MainThreadIoGuard.onBitmapDecode();
         binding.fullImageView.setImageURI(imageUri);
 
         if (binding.fullImageView.getDrawable() == null) {
@@ -80,6 +122,7 @@ public class ImageViewerFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        CacheRegistry.getInstance().unregister(imageCache);
         binding = null;
     }
 }
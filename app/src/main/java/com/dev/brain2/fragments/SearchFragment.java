@@ -12,31 +12,53 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.dev.brain2.R;
 import com.dev.brain2.databinding.FragmentSearchBinding;
 import com.dev.brain2.interfaces.OnImageClickListener;
 import com.dev.brain2.interfaces.Searchable;
 import com.dev.brain2.managers.FolderManager;
-import com.dev.brain2.managers.ImageManager;
-import com.dev.brain2.models.Folder;
 import com.dev.brain2.models.Image;
+import com.dev.brain2.models.SearchResult;
+import com.dev.brain2.models.Suggestion;
+import com.dev.brain2.models.TagFacet;
+import com.dev.brain2.models.TagFilter;
+import com.dev.brain2.utils.AppExecutors;
 import com.dev.brain2.utils.RecyclerViewHandler;
-import com.dev.brain2.utils.SearchHandler;
+import com.google.android.material.chip.Chip;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Fragmento para buscar imágenes con autocompletado.
+ * Fragmento para buscar imágenes con autocompletado. Debajo del campo de búsqueda se sugieren
+ * los nombres y etiquetas más usados que empiezan por lo escrito, y después se muestran
+ * las etiquetas de los resultados: un toque exige la etiqueta y una pulsación larga la excluye.
+ * Los resultados llegan ordenados por relevancia y por páginas, según se desplaza la lista.
  */
 public class SearchFragment extends Fragment implements Searchable, OnImageClickListener {
 
+    // Resultados por página
+    private static final int RESULT_PAGE_SIZE = 60;
+    // Espera desde la última tecla antes de buscar
+    private static final long SEARCH_DEBOUNCE_MS = 200;
+
     private FragmentSearchBinding binding;
-    private SearchHandler searchHandler;
     private RecyclerViewHandler recyclerViewHandler;
-    private ImageManager imageManager;
     private FolderManager folderManager;
-    private List<Image> allImages;
+    private String currentQuery = "";
+    private volatile int searchGeneration;                          // Descarta búsquedas y resultados antiguos
+    private final Runnable pendingSearch = this::runSearch;         // Búsqueda que espera a que se deje de escribir
+    private SearchResult currentResult;                             // Resultado con páginas por entregar
+    private boolean loadingPage;
+    private final Set<String> includedTags = new LinkedHashSet<>(); // Etiquetas exigidas (AND)
+    private final Set<String> excludedTags = new LinkedHashSet<>(); // Etiquetas excluidas (NOT)
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -48,9 +70,10 @@ public class SearchFragment extends Fragment implements Searchable, OnImageClick
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         initializeManagers();
-        initializeImageList();
         setupRecyclerViewHandler();
         setupSearchEditText();
+        // La primera búsqueda no espera: todavía no se está escribiendo
+        runSearch();
     }
 
     /**
@@ -58,23 +81,25 @@ public class SearchFragment extends Fragment implements Searchable, OnImageClick
      */
     private void initializeManagers() {
         folderManager = new FolderManager(requireContext());
-        imageManager = new ImageManager(requireContext(), folderManager);
-    }
-
-    /**
-     * Inicializa la lista de todas las imágenes.
-     */
-    private void initializeImageList() {
-        allImages = imageManager.getAllImages();
     }
 
     /**
-     * Configura el RecyclerViewHandler y el SearchHandler.
+     * Configura el RecyclerViewHandler. Empieza vacío hasta que llega la primera búsqueda.
      */
     private void setupRecyclerViewHandler() {
-        searchHandler = new SearchHandler(allImages);
         recyclerViewHandler = new RecyclerViewHandler(requireContext(), binding.imageRecyclerView, this);
-        recyclerViewHandler.setupRecyclerView(allImages);
+        recyclerViewHandler.setupRecyclerView(new ArrayList<>());
+        binding.imageRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+                if (layoutManager != null && adapter != null
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - RESULT_PAGE_SIZE / 2) {
+                    loadNextPage();
+                }
+            }
+        });
     }
 
     /**
@@ -96,14 +121,164 @@ public class SearchFragment extends Fragment implements Searchable, OnImageClick
     }
 
     /**
-     * Realiza la búsqueda y actualiza la interfaz.
+     * Realiza la búsqueda en segundo plano y actualiza la interfaz. Mientras se escribe, solo
+     * se busca cuando pasan SEARCH_DEBOUNCE_MS sin cambios.
      *
      * @param query Consulta de búsqueda.
      */
     @Override
     public void onSearch(String query) {
-        List<Image> filteredImages = searchHandler.performSearch(query.toLowerCase());
-        recyclerViewHandler.updateUIWithResults(filteredImages);
+        // Cada índice normaliza la consulta (acentos y mayúsculas) a su manera
+        currentQuery = query;
+        binding.searchEditText.removeCallbacks(pendingSearch);
+        binding.searchEditText.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    /**
+     * Busca con la consulta y las etiquetas seleccionadas, y calcula las sugerencias para
+     * la consulta. Una búsqueda que ya no es la última no empieza si seguía en cola, y sus
+     * resultados se descartan si ya había empezado.
+     */
+    private void runSearch() {
+        if (binding != null) {
+            binding.searchEditText.removeCallbacks(pendingSearch);
+        }
+        String query = currentQuery;
+        TagFilter filter = new TagFilter(new ArrayList<>(includedTags), Collections.emptyList(),
+                new ArrayList<>(excludedTags));
+        int generation = ++searchGeneration;
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.searchIO().execute(() -> {
+            if (generation != searchGeneration) {
+                return;
+            }
+            SearchResult result = folderManager.searchImages(query, filter);
+            List<Image> firstPage = result.nextPage(RESULT_PAGE_SIZE);
+            List<Suggestion> suggestions = folderManager.suggest(query);
+            executors.runOnMainThread(() -> {
+                if (binding != null && generation == searchGeneration) {
+                    currentResult = result;
+                    recyclerViewHandler.updateUIWithResults(firstPage);
+                    showSuggestions(suggestions);
+                    showTagFacets(result.getFacets());
+                }
+            });
+        });
+    }
+
+    /**
+     * Pide la siguiente página de resultados si quedan y no se está pidiendo ya.
+     */
+    private void loadNextPage() {
+        SearchResult result = currentResult;
+        if (result == null || loadingPage || !result.hasMore()) {
+            return;
+        }
+        loadingPage = true;
+        int generation = searchGeneration;
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.searchIO().execute(() -> {
+            List<Image> page = result.nextPage(RESULT_PAGE_SIZE);
+            executors.runOnMainThread(() -> {
+                loadingPage = false;
+                if (binding != null && generation == searchGeneration) {
+                    recyclerViewHandler.appendResults(page);
+                }
+            });
+        });
+    }
+
+    /**
+     * Muestra las sugerencias de autocompletado, o esconde la fila si no hay.
+     *
+     * @param suggestions Sugerencias para la consulta actual.
+     */
+    private void showSuggestions(List<Suggestion> suggestions) {
+        binding.suggestionGroup.removeAllViews();
+        binding.suggestionScroll.setVisibility(suggestions.isEmpty() ? View.GONE : View.VISIBLE);
+        for (Suggestion suggestion : suggestions) {
+            Chip chip = new Chip(requireContext());
+            boolean isTag = suggestion.getKind() == Suggestion.Kind.TAG;
+            chip.setText(isTag ? "#" + suggestion.getText() : suggestion.getText());
+            chip.setOnClickListener(v -> applySuggestion(suggestion));
+            binding.suggestionGroup.addView(chip);
+        }
+    }
+
+    /**
+     * Aplica una sugerencia: un nombre completa el texto de búsqueda y una etiqueta
+     * pasa a ser un filtro, dejando el texto vacío.
+     *
+     * @param suggestion Sugerencia elegida.
+     */
+    private void applySuggestion(Suggestion suggestion) {
+        if (suggestion.getKind() == Suggestion.Kind.TAG) {
+            excludedTags.remove(suggestion.getText());
+            includedTags.add(suggestion.getText());
+            binding.searchEditText.setText("");
+        } else {
+            binding.searchEditText.setText(suggestion.getText());
+            binding.searchEditText.setSelection(suggestion.getText().length());
+        }
+    }
+
+    /**
+     * Muestra las etiquetas de los resultados. Las seleccionadas van primero aunque
+     * ya no tengan resultados, para poder quitarlas.
+     *
+     * @param facets Etiquetas de los resultados con su recuento.
+     */
+    private void showTagFacets(List<TagFacet> facets) {
+        binding.tagFacetGroup.removeAllViews();
+        Set<String> shown = new HashSet<>();
+        for (String tag : includedTags) {
+            addTagChip(tag, "#" + tag, true);
+            shown.add(tag);
+        }
+        for (String tag : excludedTags) {
+            addTagChip(tag, "-" + tag, true);
+            shown.add(tag);
+        }
+        for (TagFacet facet : facets) {
+            if (!shown.contains(facet.getTag())) {
+                addTagChip(facet.getTag(), facet.getTag() + " (" + facet.getCount() + ")", false);
+            }
+        }
+    }
+
+    /**
+     * Añade una etiqueta a la fila de filtros.
+     *
+     * @param tag      Texto de la etiqueta.
+     * @param label    Texto a mostrar.
+     * @param selected true si la etiqueta ya forma parte del filtro.
+     */
+    private void addTagChip(String tag, String label, boolean selected) {
+        Chip chip = new Chip(requireContext());
+        chip.setText(label);
+        chip.setCheckable(true);
+        chip.setChecked(selected);
+        chip.setOnClickListener(v -> toggleTag(tag, includedTags, excludedTags));
+        chip.setOnLongClickListener(v -> {
+            toggleTag(tag, excludedTags, includedTags);
+            return true;
+        });
+        binding.tagFacetGroup.addView(chip);
+    }
+
+    /**
+     * Pone o quita una etiqueta del filtro y repite la búsqueda.
+     *
+     * @param tag    Etiqueta.
+     * @param target Conjunto donde se pone o se quita.
+     * @param other  Conjunto contrario, del que se quita si estaba.
+     */
+    private void toggleTag(String tag, Set<String> target, Set<String> other) {
+        boolean wasSelected = target.remove(tag) | other.remove(tag);
+        if (!wasSelected) {
+            target.add(tag);
+        }
+        runSearch();
     }
 
     /**
@@ -113,32 +288,37 @@ public class SearchFragment extends Fragment implements Searchable, OnImageClick
      */
     @Override
     public void onImageClick(Image clickedImage) {
-        String matchedFolderId = findFolderIdByImage(clickedImage);
-
-        if (matchedFolderId != null) {
-            navigateToFolderContent(matchedFolderId);
-        } else {
-            Toast.makeText(requireContext(), "No se encontró la imagen en ninguna carpeta.", Toast.LENGTH_SHORT).show();
+        // La búsqueda ya sabe la carpeta de cada resultado
+        SearchResult result = currentResult;
+        String folderId = result != null ? result.getFolderId(clickedImage.getId()) : null;
+        if (folderId != null) {
+            navigateToFolderContent(folderId);
+            return;
         }
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            String matchedFolderId = findFolderIdByImage(clickedImage);
+            executors.runOnMainThread(() -> {
+                if (binding == null) {
+                    return;
+                }
+                if (matchedFolderId != null) {
+                    navigateToFolderContent(matchedFolderId);
+                } else {
+                    Toast.makeText(requireContext(), "No se encontró la imagen en ninguna carpeta.", Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
     }
 
     /**
-     * Encuentra el ID de la carpeta que contiene la imagen.
+     * Encuentra el ID de la carpeta que contiene la imagen. Se llama fuera del hilo principal.
      *
      * @param image Imagen buscada.
      * @return ID de la carpeta o null si no se encuentra.
      */
     private String findFolderIdByImage(Image image) {
-        List<Folder> allFolders = folderManager.getAllFolders();
-
-        for (Folder folder : allFolders) {
-            for (Image img : folder.getImages()) {
-                if (img.getId().equals(image.getId()) && img.getName().equals(image.getName())) {
-                    return folder.getId();
-                }
-            }
-        }
-        return null;
+        return folderManager.getFolderIdByImageId(image.getId());
     }
 
     /**
@@ -161,6 +341,7 @@ public class SearchFragment extends Fragment implements Searchable, OnImageClick
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        binding.searchEditText.removeCallbacks(pendingSearch);
         binding = null;
     }
 }
@@ -1,8 +1,11 @@
 package com.dev.brain2.fragments;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
 
 import android.view.LayoutInflater;
@@ -12,9 +15,18 @@ import android.widget.ArrayAdapter;
 
 import com.dev.brain2.MainActivity;
 import com.dev.brain2.databinding.FragmentSettingsBinding;
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.utils.AppExecutors;
 import com.dev.brain2.utils.ColorManager;
+import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.utils.LibraryStoreFactory;
+import com.dev.brain2.utils.MainThreadIoGuard;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.Notifier;
 import com.dev.brain2.utils.SettingsPrefHelper;
 
+import java.io.File;
+
 /**
  * Fragmento para las configuraciones de la aplicación.
  */
@@ -27,6 +39,14 @@ public class SettingsFragment extends Fragment {
     public static final String KEY_BAR_COLOR = "bar_color";
     public static final String KEY_ICON_COLOR = "icon_color";
     public static final String KEY_LAST_OPENED = "last_opened";
+    public static final String KEY_METRICS_ENABLED = "metrics_enabled";
+    public static final String KEY_FUZZY_DISTANCE = "fuzzy_distance";
+    public static final String KEY_SQLITE_LIBRARY = "sqlite_library";
+
+    // Opciones de tolerancia a errores; la posición es el número de ediciones por palabra
+    private static final String[] FUZZY_DISTANCE_NAMES = {"Ninguna", "1 letra", "2 letras"};
+
+    private static final String METRICS_EXPORT_FILE = "metrics.json";
 
     public SettingsFragment() {
 
@@ -74,6 +94,14 @@ public class SettingsFragment extends Fragment {
         );
         iconColorAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         binding.spinnerIconColors.setAdapter(iconColorAdapter);
+
+        ArrayAdapter<String> fuzzyDistanceAdapter = new ArrayAdapter<>(
+                requireActivity(),
+                android.R.layout.simple_spinner_item,
+                FUZZY_DISTANCE_NAMES
+        );
+        fuzzyDistanceAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        binding.spinnerFuzzyDistance.setAdapter(fuzzyDistanceAdapter);
     }
 
     /**
@@ -90,6 +118,13 @@ public class SettingsFragment extends Fragment {
         binding.spinnerBarColors.setSelection(barColorPosition);
         binding.spinnerIconColors.setSelection(iconColorPosition);
         binding.switchEnableLastFolder.setChecked(lastOpenedFolderEnabled);
+        // Una vez migrada, la biblioteca se queda en la base de datos
+        boolean migrated = LibraryStoreFactory.isSqliteLibrary(requireContext());
+        binding.switchSqliteLibrary.setChecked(migrated || settingsPrefHelper.getBoolean(KEY_SQLITE_LIBRARY, false));
+        binding.switchSqliteLibrary.setEnabled(!migrated);
+        binding.spinnerFuzzyDistance.setSelection(
+                settingsPrefHelper.getInt(KEY_FUZZY_DISTANCE, FolderManager.DEFAULT_FUZZY_DISTANCE));
+        binding.switchEnableMetrics.setChecked(settingsPrefHelper.getBoolean(KEY_METRICS_ENABLED, false));
     }
 
     /**
@@ -100,6 +135,98 @@ public class SettingsFragment extends Fragment {
         binding.spinnerIconColors.setOnItemSelectedListener(new IconColorItemSelectedListener());
         binding.switchEnableLastFolder.setOnCheckedChangeListener((buttonView, isChecked) ->
                 settingsPrefHelper.saveBoolean(KEY_LAST_OPENED, isChecked));
+        binding.switchSqliteLibrary.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            settingsPrefHelper.saveBoolean(KEY_SQLITE_LIBRARY, isChecked);
+            if (isChecked) {
+                Notifier.showInfo(requireContext(), "La biblioteca se pasará a la base de datos al reiniciar la aplicación");
+            }
+        });
+        binding.spinnerFuzzyDistance.setOnItemSelectedListener(new android.widget.AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(android.widget.AdapterView<?> adapterView, View view, int position, long id) {
+                settingsPrefHelper.saveInt(KEY_FUZZY_DISTANCE, position);
+            }
+
+            @Override
+            public void onNothingSelected(android.widget.AdapterView<?> adapterView) {
+
+            }
+        });
+        setupDiagnosticsListeners();
+    }
+
+    /**
+     * Configura la sección de diagnóstico, que se muestra con una pulsación larga en la pantalla.
+     */
+    private void setupDiagnosticsListeners() {
+        binding.getRoot().setOnLongClickListener(v -> {
+            binding.diagnosticsSection.setVisibility(View.VISIBLE);
+            refreshMetrics();
+            return true;
+        });
+        binding.switchEnableMetrics.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            settingsPrefHelper.saveBoolean(KEY_METRICS_ENABLED, isChecked);
+            Metrics.setEnabled(isChecked);
+        });
+        binding.buttonRefreshMetrics.setOnClickListener(v -> refreshMetrics());
+        binding.buttonResetMetrics.setOnClickListener(v -> {
+            Metrics.reset();
+            MainThreadIoGuard.reset();
+            refreshMetrics();
+        });
+        binding.buttonExportMetrics.setOnClickListener(v -> exportMetrics());
+    }
+
+    /**
+     * Muestra el resumen actual de las métricas.
+     */
+    private void refreshMetrics() {
+        String summary = Metrics.summarize();
+        if (MainThreadIoGuard.isEnabled()) {
+            summary = MainThreadIoGuard.summarize() + "\n" + summary;
+        }
+        binding.metricsText.setText(summary.isEmpty() ? "Sin métricas registradas" : summary);
+    }
+
+    /**
+     * Exporta las métricas a un archivo JSON y lo comparte.
+     */
+    private void exportMetrics() {
+        String json = Metrics.exportJson();
+        DataStorage dataStorage = new DataStorage(requireContext());
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            File exported = dataStorage.writeExport(METRICS_EXPORT_FILE, json);
+            AppExecutors.getInstance().runOnMainThread(() -> {
+                if (binding == null || !isAdded()) {
+                    return;
+                }
+                if (exported == null) {
+                    Notifier.showError(requireContext(), "No se pudieron exportar las métricas");
+                    return;
+                }
+                shareExport(exported);
+            });
+        });
+    }
+
+    /**
+     * Comparte un archivo exportado con otras aplicaciones.
+     *
+     * @param file Archivo a compartir.
+     */
+    private void shareExport(File file) {
+        Uri uri = FileProvider.getUriForFile(requireContext(), "com.dev.brain2.fileprovider", file);
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("application/json");
+        intent.putExtra(Intent.EXTRA_STREAM, uri);
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(Intent.createChooser(intent, "Exportar métricas"));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
     }
 
     /**
@@ -0,0 +1,53 @@
+package com.dev.brain2.interfaces;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+
+import java.util.List;
+
+/**
+ * Almacenamiento persistente de la biblioteca. FolderManager trabaja solo con esta interfaz,
+ * así que la biblioteca puede guardarse en archivos JSON o en una base de datos. Los que además
+ * pueden consultar imágenes sin cargar carpetas completas implementan QueryableLibraryStore.
+ */
+public interface LibraryStore {
+
+    /**
+     * Lee los resúmenes de las carpetas. Si la biblioteca está en un formato anterior, la migra primero.
+     *
+     * @return Resúmenes en orden de almacenamiento; nunca es nulo.
+     */
+    List<FolderSummary> loadSummaries();
+
+    /**
+     * Lee una carpeta con todas sus imágenes.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Carpeta, o null si no está guardada.
+     */
+    Folder readFolder(String folderId);
+
+    /**
+     * Guarda las carpetas modificadas y los resúmenes de toda la biblioteca.
+     *
+     * @param folders   Carpetas modificadas.
+     * @param summaries Resúmenes de todas las carpetas, en orden.
+     */
+    void saveFolders(List<Folder> folders, List<FolderSummary> summaries);
+
+    /**
+     * Borra una carpeta y guarda los resúmenes restantes.
+     *
+     * @param folderId  ID de la carpeta.
+     * @param summaries Resúmenes de las carpetas que quedan, en orden.
+     */
+    void deleteFolder(String folderId, List<FolderSummary> summaries);
+
+    /**
+     * Obtiene la generación de la biblioteca: un número que aumenta en uno cada vez que
+     * saveFolders o deleteFolder la modifican, y que se guarda junto con el cambio.
+     *
+     * @return Generación actual.
+     */
+    long getGeneration();
+}
@@ -1,6 +1,6 @@
 package com.dev.brain2.interfaces;
 
-import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
 
 /**
  * Esta interfaz define los métodos para manejar las interacciones del usuario con las carpetas.
@@ -12,12 +12,12 @@ public interface OnFolderClickListener {
      *
      * @param clickedFolder La carpeta que fue clickeada.
      */
-    void onFolderClick(Folder clickedFolder);
+    void onFolderClick(FolderSummary clickedFolder);
 
     /**
      * Se llama cuando el usuario mantiene presionada una carpeta.
      *
      * @param longClickedFolder La carpeta que fue presionada.
      */
-    void onFolderLongClick(Folder longClickedFolder);
+    void onFolderLongClick(FolderSummary longClickedFolder);
 }
@@ -0,0 +1,16 @@
+package com.dev.brain2.interfaces;
+
+import com.dev.brain2.models.Folder;
+
+/**
+ * Esta interfaz recibe una carpeta completa, con sus imágenes, cuando termina de cargarse.
+ */
+public interface OnFolderLoadedListener {
+
+    /**
+     * Se llama en el hilo principal con la carpeta cargada.
+     *
+     * @param folder Carpeta cargada, o null si no existe.
+     */
+    void onFolderLoaded(Folder folder);
+}
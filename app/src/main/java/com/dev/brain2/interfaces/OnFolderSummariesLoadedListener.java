@@ -0,0 +1,18 @@
+package com.dev.brain2.interfaces;
+
+import com.dev.brain2.models.FolderSummary;
+
+import java.util.List;
+
+/**
+ * Esta interfaz recibe los resúmenes de carpetas cuando terminan de cargarse en segundo plano.
+ */
+public interface OnFolderSummariesLoadedListener {
+
+    /**
+     * Se llama en el hilo principal cuando los resúmenes están disponibles.
+     *
+     * @param summaries Lista de resúmenes de carpetas.
+     */
+    void onSummariesLoaded(List<FolderSummary> summaries);
+}
@@ -0,0 +1,18 @@
+package com.dev.brain2.interfaces;
+
+import com.dev.brain2.models.Folder;
+
+import java.util.List;
+
+/**
+ * Esta interfaz recibe la lista de carpetas cuando termina de cargarse en segundo plano.
+ */
+public interface OnFoldersLoadedListener {
+
+    /**
+     * Se llama en el hilo principal cuando las carpetas están disponibles.
+     *
+     * @param folders Lista de carpetas.
+     */
+    void onFoldersLoaded(List<Folder> folders);
+}
@@ -0,0 +1,47 @@
+package com.dev.brain2.interfaces;
+
+import com.dev.brain2.models.Image;
+
+import java.util.List;
+
+/**
+ * Almacenamiento que, además de leer y guardar carpetas completas, puede consultar imágenes
+ * con sus propios índices: por página, por texto o por ID. FolderManager lo usa cuando el
+ * almacenamiento lo implementa, para no tener que cargar la biblioteca en memoria.
+ */
+public interface QueryableLibraryStore extends LibraryStore {
+
+    /**
+     * Lee una página de las imágenes de una carpeta.
+     *
+     * @param folderId ID de la carpeta.
+     * @param offset   Posición de la primera imagen.
+     * @param limit    Número máximo de imágenes.
+     * @return Imágenes de la página, en orden.
+     */
+    List<Image> readImagePage(String folderId, int offset, int limit);
+
+    /**
+     * Busca imágenes por nombre o etiqueta.
+     *
+     * @param query Consulta de búsqueda; vacía para obtener todas las imágenes.
+     * @return Imágenes que coinciden, en el orden de la biblioteca.
+     */
+    List<Image> searchImages(String query);
+
+    /**
+     * Busca una imagen por su ID.
+     *
+     * @param imageId ID de la imagen.
+     * @return Imagen, o null si no existe.
+     */
+    Image findImage(String imageId);
+
+    /**
+     * Obtiene la carpeta que contiene una imagen.
+     *
+     * @param imageId ID de la imagen.
+     * @return ID de la carpeta, o null si la imagen no existe.
+     */
+    String findFolderIdForImage(String imageId);
+}
@@ -0,0 +1,14 @@
+package com.dev.brain2.interfaces;
+
+/**
+ * Interfaz para cachés que pueden liberar memoria cuando el sistema lo pide.
+ */
+public interface TrimmableCache {
+    /**
+     * Libera la memoria que corresponda al nivel de presión.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados (aproximados).
+     */
+    long trimMemory(int level);
+}
@@ -0,0 +1,200 @@
+package com.dev.brain2.managers;
+
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.AppExecutors;
+import com.dev.brain2.utils.ThumbnailLoader;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fuente paginada de las imágenes de una carpeta. Carga por adelantado las páginas cercanas
+ * a la posición visible y libera las que quedan lejos (con sus miniaturas), de modo que abrir
+ * una carpeta cuesta lo mismo tenga cien imágenes o diez mil.
+ * Se usa como lista del adaptador: las posiciones de páginas no cargadas devuelven null.
+ * Todos los métodos se llaman en el hilo principal.
+ */
+public class FolderImagePager extends AbstractList<Image> {
+
+    public static final int PAGE_SIZE = 60;
+    // Páginas que se cargan a cada lado de las visibles
+    private static final int PREFETCH_PAGES = 1;
+    // Páginas que se conservan a cada lado de las visibles antes de liberarlas
+    private static final int RETAIN_PAGES = 3;
+
+    /**
+     * Interfaz para avisar al adaptador de los cambios.
+     */
+    public interface Listener {
+        void onSizeChanged(FolderSummary summary);
+
+        void onRangeLoaded(int start, int count);
+    }
+
+    private final FolderManager folderManager;
+    private final ThumbnailLoader thumbnailLoader;
+    private final String folderId;
+    private final Listener listener;
+    private final AppExecutors executors;
+
+    private final Map<Integer, List<Image>> pages = new HashMap<>();
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private int size;
+    private int generation;     // Cambia al descartar las páginas para ignorar cargas antiguas
+    private int refreshes;      // Cambia en cada refresco para ignorar los anteriores
+    private long libraryGeneration = -1;    // Generación de la biblioteca de las páginas cargadas
+    private int firstVisible;
+    private int lastVisible;
+
+    /**
+     * Constructor.
+     *
+     * @param folderManager   Manager de carpetas.
+     * @param thumbnailLoader Cargador de miniaturas.
+     * @param folderId        ID de la carpeta.
+     * @param listener        Listener que recibe los cambios en el hilo principal.
+     */
+    public FolderImagePager(FolderManager folderManager, ThumbnailLoader thumbnailLoader,
+                            String folderId, Listener listener) {
+        this.folderManager = folderManager;
+        this.thumbnailLoader = thumbnailLoader;
+        this.folderId = folderId;
+        this.listener = listener;
+        this.executors = AppExecutors.getInstance();
+    }
+
+    /**
+     * Obtiene la imagen de una posición.
+     *
+     * @param position Posición en la carpeta.
+     * @return Imagen, o null si su página todavía no está cargada.
+     */
+    @Override
+    public Image get(int position) {
+        List<Image> page = pages.get(position / PAGE_SIZE);
+        int index = position % PAGE_SIZE;
+        return page != null && index < page.size() ? page.get(index) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Comprueba si la biblioteca cambió y, solo en ese caso, vuelve a leer el número de
+     * imágenes y las páginas alrededor de la posición visible. Si no cambió, se conservan las
+     * páginas cargadas. Se llama al abrir la carpeta, al volver a ella y después de modificarla.
+     */
+    public void refresh() {
+        int currentRefresh = ++refreshes;
+
+        executors.parallelIO().execute(() -> {
+            // La generación se lee antes que el resumen: si cambia entre medias, el siguiente
+            // refresco vuelve a cargar
+            long currentLibraryGeneration = folderManager.getLibraryGeneration();
+            FolderSummary summary = folderManager.getFolderSummary(folderId);
+            executors.runOnMainThread(() -> {
+                if (currentRefresh != refreshes) {
+                    return;
+                }
+                if (currentLibraryGeneration == libraryGeneration) {
+                    onVisibleRangeChanged(firstVisible, lastVisible);
+                    return;
+                }
+                // Las miniaturas se conservan: la mayoría seguirán siendo válidas después del cambio
+                generation++;
+                pages.clear();
+                loadingPages.clear();
+                libraryGeneration = currentLibraryGeneration;
+                size = summary != null ? summary.getImageCount() : 0;
+                listener.onSizeChanged(summary);
+                onVisibleRangeChanged(firstVisible, lastVisible);
+            });
+        });
+    }
+
+    /**
+     * Actualiza la posición visible: carga las páginas cercanas y libera las lejanas.
+     *
+     * @param first Primera posición visible.
+     * @param last  Última posición visible.
+     */
+    public void onVisibleRangeChanged(int first, int last) {
+        firstVisible = Math.max(0, first);
+        lastVisible = Math.max(firstVisible, last);
+        if (size == 0) {
+            return;
+        }
+
+        int pageCount = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+        int firstPage = firstVisible / PAGE_SIZE;
+        int lastPage = Math.min(lastVisible / PAGE_SIZE, pageCount - 1);
+
+        for (int page = Math.max(0, firstPage - PREFETCH_PAGES);
+             page <= Math.min(pageCount - 1, lastPage + PREFETCH_PAGES); page++) {
+            loadPage(page);
+        }
+
+        List<Integer> farPages = new ArrayList<>();
+        for (int page : pages.keySet()) {
+            if (page < firstPage - RETAIN_PAGES || page > lastPage + RETAIN_PAGES) {
+                farPages.add(page);
+            }
+        }
+        releasePages(farPages);
+    }
+
+    /**
+     * Carga una página en segundo plano si no está ya cargada. Las miniaturas las pide
+     * el adaptador y el ScrollPrefetcher según lo que se vaya a mostrar.
+     *
+     * @param page Número de página.
+     */
+    private void loadPage(int page) {
+        if (pages.containsKey(page) || !loadingPages.add(page)) {
+            return;
+        }
+        int currentGeneration = generation;
+        executors.parallelIO().execute(() -> {
+            List<Image> images = folderManager.getImagePage(folderId, page * PAGE_SIZE, PAGE_SIZE);
+            executors.runOnMainThread(() -> {
+                if (currentGeneration != generation) {
+                    return;
+                }
+                loadingPages.remove(page);
+                pages.put(page, images);
+                listener.onRangeLoaded(page * PAGE_SIZE, images.size());
+            });
+        });
+    }
+
+    /**
+     * Libera páginas y sus miniaturas.
+     *
+     * @param pageNumbers Páginas a liberar.
+     */
+    private void releasePages(List<Integer> pageNumbers) {
+        for (Integer pageNumber : pageNumbers) {
+            List<Image> page = pages.remove(pageNumber);
+            if (page != null) {
+                thumbnailLoader.release(page);
+            }
+        }
+    }
+
+    /**
+     * Número de páginas en memoria (para pruebas y diagnóstico).
+     *
+     * @return Páginas cargadas.
+     */
+    int getLoadedPageCount() {
+        return pages.size();
+    }
+}
@@ -1,39 +1,99 @@
 package com.dev.brain2.managers;
 
 import android.content.Context;
+import android.net.Uri;
 import android.os.Environment;
+import android.util.Log;
 
 import com.dev.brain2.fragments.SettingsFragment;
+import com.dev.brain2.interfaces.LibraryStore;
+import com.dev.brain2.interfaces.OnFolderLoadedListener;
+import com.dev.brain2.interfaces.OnFolderSummariesLoadedListener;
+import com.dev.brain2.interfaces.OnFoldersLoadedListener;
+import com.dev.brain2.interfaces.QueryableLibraryStore;
 import com.dev.brain2.models.Folder;
-import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.ImageIdSet;
+import com.dev.brain2.models.SearchQuery;
+import com.dev.brain2.models.SearchResult;
+import com.dev.brain2.models.Suggestion;
+import com.dev.brain2.models.TagFilter;
+import com.dev.brain2.utils.AppExecutors;
+import com.dev.brain2.utils.LibraryStoreFactory;
+import com.dev.brain2.utils.MainThreadIoGuard;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.SearchHandler;
 import com.dev.brain2.utils.SettingsPrefHelper;
+import com.dev.brain2.utils.TextNormalizer;
 import com.google.gson.Gson;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Esta clase se encarga de gestionar las carpetas de la aplicación.
  */
 public class FolderManager {
 
+    private static final String TAG = "FolderManager";
+    private static final Object INDEX_LOAD_LOCK = new Object();
+    private static final Object SUMMARY_LOAD_LOCK = new Object();
+    // Se toma antes que INDEX_LOAD_LOCK, nunca después
+    private static final Object SEARCH_INDEX_LOAD_LOCK = new Object();
+    // Etiquetas que se devuelven como filtros en cada búsqueda
+    private static final int FACET_LIMIT = 30;
+    // Sugerencias de autocompletado que se devuelven para cada texto
+    private static final int SUGGESTION_LIMIT = 8;
+    // Ediciones por palabra que admite la búsqueda si no se ha configurado otra cosa
+    public static final int DEFAULT_FUZZY_DISTANCE = 2;
+
     private final Context appContext;
     private final SettingsPrefHelper settingsPrefHelper;
-    private final DataStorage dataStorage;
+    private final LibraryStore store;
+    private final QueryableLibraryStore queryableStore;    // El mismo almacenamiento, o null si no admite consultas
+    private final LibraryIndex libraryIndex;
+    private final TagIndex tagIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final FuzzyIndex fuzzyIndex;
+    private final SearchIndexCache searchIndexCache;
+    private final TrashManager trashManager;
     private final Gson gson;
 
     /**
-     * Constructor.
+     * Constructor. El almacenamiento de la biblioteca lo elige LibraryStoreFactory.
      *
      * @param context Contexto de la aplicación.
      */
     public FolderManager(Context context) {
+        this(context, LibraryStoreFactory.get(context));
+    }
+
+    /**
+     * Constructor con un almacenamiento concreto.
+     *
+     * @param context Contexto de la aplicación.
+     * @param store   Almacenamiento de la biblioteca.
+     */
+    public FolderManager(Context context, LibraryStore store) {
         this.appContext = context.getApplicationContext();
         this.settingsPrefHelper = new SettingsPrefHelper(context);
-        this.dataStorage = new DataStorage(context);
+        this.store = store;
+        this.queryableStore = store instanceof QueryableLibraryStore ? (QueryableLibraryStore) store : null;
+        this.libraryIndex = LibraryIndex.getInstance();
+        this.tagIndex = TagIndex.getInstance();
+        this.suggestionIndex = SuggestionIndex.getInstance();
+        this.fuzzyIndex = FuzzyIndex.getInstance();
+        this.searchIndexCache = new SearchIndexCache(context);
+        this.trashManager = TrashManager.getInstance(context);
         this.gson = new Gson();
     }
 
@@ -47,9 +107,8 @@ public class FolderManager {
             folder.setId(java.util.UUID.randomUUID().toString());
         }
 
-        List<Folder> folders = getFolders();
-        folders.add(folder);
-        saveFolders(folders);
+        libraryIndex.putFolder(folder);
+        saveFolders(Collections.singletonList(folder));
         createFolderOnDisk(folder.getName());
     }
 
@@ -59,46 +118,223 @@ public class FolderManager {
      * @return Lista de carpetas.
      */
     public List<Folder> getFolders() {
-        List<Folder> folders = dataStorage.readFolders();
-        if (folders == null) {
-            folders = new ArrayList<>();
+        ensureIndexLoaded();
+        List<FolderSummary> summaries = ensureSummariesLoaded();
+        List<Folder> folders = new ArrayList<>(summaries.size());
+        for (FolderSummary summary : summaries) {
+            Folder folder = libraryIndex.getFolder(summary.getId());
+            if (folder != null) {
+                folders.add(folder);
+            }
+        }
+        return reorderIfNeeded(folders, Folder::getId);
+    }
+
+    /**
+     * Obtiene la lista de carpetas sin bloquear el hilo principal. Si el índice ya está en memoria
+     * el listener se llama de inmediato; si no, se carga en segundo plano.
+     *
+     * @param listener Listener que recibe las carpetas en el hilo principal.
+     */
+    public void loadFoldersAsync(OnFoldersLoadedListener listener) {
+        if (libraryIndex.isLoaded()) {
+            listener.onFoldersLoaded(getFolders());
+            return;
+        }
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            ensureIndexLoaded();
+            executors.runOnMainThread(() -> listener.onFoldersLoaded(getFolders()));
+        });
+    }
+
+    /**
+     * Obtiene una carpeta completa sin bloquear el hilo principal.
+     *
+     * @param folderId ID de la carpeta.
+     * @param listener Listener que recibe la carpeta (o null si no existe) en el hilo principal.
+     */
+    public void loadFolderAsync(String folderId, OnFolderLoadedListener listener) {
+        Folder loaded = libraryIndex.getFolder(folderId);
+        if (loaded != null || libraryIndex.isLoaded()) {
+            listener.onFolderLoaded(loaded);
+            return;
+        }
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            Folder folder = ensureFolderLoaded(folderId);
+            executors.runOnMainThread(() -> listener.onFolderLoaded(folder));
+        });
+    }
+
+    /**
+     * Obtiene los resúmenes de carpetas para la pantalla principal sin leer las listas de imágenes.
+     * Se leen en el ejecutor paralelo para no esperar detrás de una carga completa de la biblioteca.
+     *
+     * @param listener Listener que recibe los resúmenes en el hilo principal.
+     */
+    public void loadFolderSummariesAsync(OnFolderSummariesLoadedListener listener) {
+        List<FolderSummary> cached = libraryIndex.getSummaries();
+        if (cached != null) {
+            listener.onSummariesLoaded(reorderIfNeeded(cached, FolderSummary::getId));
+            return;
+        }
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.parallelIO().execute(() -> {
+            List<FolderSummary> summaries = ensureSummariesLoaded();
+            executors.runOnMainThread(() ->
+                    listener.onSummariesLoaded(reorderIfNeeded(summaries, FolderSummary::getId)));
+        });
+    }
+
+    /**
+     * Empieza a cargar los resúmenes de carpetas en segundo plano, en paralelo con las configuraciones.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    public static void preload(Context context) {
+        Context appContext = context.getApplicationContext();
+        AppExecutors.getInstance().parallelIO().execute(() -> new FolderManager(appContext).ensureSummariesLoaded());
+    }
+
+    /**
+     * Carga los resúmenes de la biblioteca si aún no están en memoria. Si la biblioteca está en
+     * un formato anterior, el almacenamiento la migra primero.
+     *
+     * @return Resúmenes de las carpetas en orden de almacenamiento.
+     */
+    private List<FolderSummary> ensureSummariesLoaded() {
+        synchronized (SUMMARY_LOAD_LOCK) {
+            List<FolderSummary> summaries = libraryIndex.getSummaries();
+            if (summaries != null) {
+                return summaries;
+            }
+
+            summaries = store.loadSummaries();
+            libraryIndex.setSummaries(summaries);
+            return summaries;
+        }
+    }
+
+    /**
+     * Carga una sola carpeta con sus imágenes si aún no está en memoria.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Carpeta, o null si no está en la biblioteca.
+     */
+    private Folder ensureFolderLoaded(String folderId) {
+        synchronized (INDEX_LOAD_LOCK) {
+            Folder folder = libraryIndex.getFolder(folderId);
+            if (folder != null || libraryIndex.isLoaded()) {
+                return folder;
+            }
+            for (FolderSummary summary : ensureSummariesLoaded()) {
+                if (summary.getId().equals(folderId)) {
+                    folder = readFolderOrPlaceholder(summary);
+                    libraryIndex.putFolder(folder);
+                    return folder;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Carga todas las carpetas de la biblioteca si aún no están en memoria.
+     * Las que ya se cargaron por separado se conservan tal cual.
+     */
+    private void ensureIndexLoaded() {
+        // Cerrojo propio para que leer los archivos no bloquee las consultas rápidas al índice
+        synchronized (INDEX_LOAD_LOCK) {
+            if (libraryIndex.isLoaded()) {
+                return;
+            }
+            List<FolderSummary> summaries = ensureSummariesLoaded();
+            List<Folder> folders = new ArrayList<>(summaries.size());
+            for (FolderSummary summary : summaries) {
+                Folder folder = libraryIndex.getFolder(summary.getId());
+                folders.add(folder != null ? folder : readFolderOrPlaceholder(summary));
+            }
+            libraryIndex.load(folders);
+        }
+    }
+
+    /**
+     * Lee una carpeta del almacenamiento. Si falta, crea una carpeta vacía con los datos del resumen
+     * para no perderla; la reconciliación adoptará después sus archivos.
+     *
+     * @param summary Resumen de la carpeta.
+     * @return Carpeta leída o vacía.
+     */
+    private Folder readFolderOrPlaceholder(FolderSummary summary) {
+        Folder folder = store.readFolder(summary.getId());
+        if (folder == null) {
+            Log.w(TAG, "Faltan los datos de la carpeta " + summary.getName());
+            folder = new Folder(summary.getName(), summary.getColor());
+            folder.setId(summary.getId());
         }
-        return reorderFoldersIfNeeded(folders);
+        return folder;
+    }
+
+    /**
+     * Descarta el índice en memoria para que la próxima lectura recargue el almacenamiento.
+     */
+    public void reload() {
+        libraryIndex.invalidate();
+        tagIndex.invalidate();
+        suggestionIndex.invalidate();
+        fuzzyIndex.invalidate();
+    }
+
+    /**
+     * Obtiene las carpetas abiertas hace poco.
+     *
+     * @return IDs de carpeta, de más a menos reciente.
+     */
+    private List<String> getRecentFolderIds() {
+        String recentFoldersJson = settingsPrefHelper.getString("recentFolders", "[]");
+        return new ArrayList<>(Arrays.asList(
+                gson.fromJson(recentFoldersJson, String[].class)
+        ));
     }
 
     /**
      * Reordena las carpetas si la opción de mostrar las últimas abiertas está activada.
+     * Sirve tanto para carpetas completas como para sus resúmenes.
      *
      * @param folders Lista original de carpetas.
+     * @param idOf    Función que obtiene el ID de cada elemento.
      * @return Lista posiblemente reordenada.
      */
-    private List<Folder> reorderFoldersIfNeeded(List<Folder> folders) {
+    private <T> List<T> reorderIfNeeded(List<T> folders, Function<T, String> idOf) {
         boolean shouldShowLastOpenFirst = settingsPrefHelper.getBoolean(SettingsFragment.KEY_LAST_OPENED, false);
 
         if (!shouldShowLastOpenFirst) {
             return folders;
         }
 
-        String recentFoldersJson = settingsPrefHelper.getString("recentFolders", "[]");
-        List<String> recentFolderIds = new ArrayList<>(Arrays.asList(
-                gson.fromJson(recentFoldersJson, String[].class)
-        ));
+        List<String> recentFolderIds = getRecentFolderIds();
 
-        HashMap<String, Folder> folderMap = new HashMap<>();
-        for (Folder folder : folders) {
-            folderMap.put(folder.getId(), folder);
+        Map<String, T> foldersById = new HashMap<>();
+        for (T folder : folders) {
+            foldersById.put(idOf.apply(folder), folder);
         }
 
-        List<Folder> reorderedFolders = new ArrayList<>();
+        List<T> reorderedFolders = new ArrayList<>(folders.size());
+        Set<String> placedIds = new HashSet<>();
         for (String id : recentFolderIds) {
-            Folder folder = folderMap.get(id);
-            if (folder != null) {
+            T folder = foldersById.get(id);
+            if (folder != null && placedIds.add(id)) {
+                reorderedFolders.add(folder);
+            }
+        }
+
+        for (T folder : folders) {
+            if (!placedIds.contains(idOf.apply(folder))) {
                 reorderedFolders.add(folder);
-                folders.remove(folder);
             }
         }
 
-        reorderedFolders.addAll(folders);
         return reorderedFolders;
     }
 
@@ -108,28 +344,66 @@ public class FolderManager {
      * @param folder Carpeta a actualizar.
      */
     public void updateFolder(Folder folder) {
-        List<Folder> folders = getFolders();
-        updateFolderInList(folders, folder);
-        saveFolders(folders);
+        ensureFolderLoaded(folder.getId());
+        if (updateFolderInIndex(folder)) {
+            saveFolders(Collections.singletonList(folder));
+        }
         checkAndDeleteEmptyFolder(folder);
     }
 
     /**
-     * Actualiza la carpeta en la lista y en el almacenamiento si es necesario.
+     * Actualiza la carpeta en el índice y la renombra en el almacenamiento si es necesario.
      *
-     * @param folders Lista de carpetas.
-     * @param folder  Carpeta a actualizar.
+     * @param folder Carpeta a actualizar.
+     * @return true si la carpeta existía en el índice, false de lo contrario.
      */
-    private void updateFolderInList(List<Folder> folders, Folder folder) {
-        for (int i = 0; i < folders.size(); i++) {
-            if (folders.get(i).getId().equals(folder.getId())) {
-                if (!folders.get(i).getName().equals(folder.getName())) {
-                    renameFolderOnDisk(folders.get(i).getName(), folder.getName());
-                }
-                folders.set(i, folder);
-                break;
+    private boolean updateFolderInIndex(Folder folder) {
+        String persistedName = libraryIndex.getPersistedName(folder.getId());
+        if (persistedName == null) {
+            return false;
+        }
+        if (!persistedName.equals(folder.getName())) {
+            File renamedDir = renameFolderOnDisk(persistedName, folder.getName());
+            if (renamedDir != null) {
+                relinkImages(folder, renamedDir);
             }
         }
+        libraryIndex.putFolder(folder);
+        return true;
+    }
+
+    /**
+     * Actualiza las URI de las imágenes después de renombrar el directorio de su carpeta.
+     *
+     * @param folder     Carpeta renombrada.
+     * @param renamedDir Nuevo directorio de la carpeta.
+     */
+    private void relinkImages(Folder folder, File renamedDir) {
+        for (Image image : folder.getImages()) {
+            String path = image.getUri().getPath();
+            if (path != null) {
+                image.setUri(Uri.fromFile(new File(renamedDir, new File(path).getName())));
+            }
+        }
+    }
+
+    /**
+     * Actualiza varias carpetas guardando una sola vez.
+     * A diferencia de updateFolder, no elimina las carpetas que queden vacías.
+     *
+     * @param folders Carpetas a actualizar.
+     */
+    public void updateFolders(List<Folder> folders) {
+        List<Folder> changed = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            ensureFolderLoaded(folder.getId());
+            if (updateFolderInIndex(folder)) {
+                changed.add(folder);
+            }
+        }
+        if (!changed.isEmpty()) {
+            saveFolders(changed);
+        }
     }
 
     /**
@@ -144,24 +418,106 @@ public class FolderManager {
     }
 
     /**
-     * Elimina una carpeta.
+     * Elimina una carpeta. El directorio se mueve a la papelera y se purga en segundo plano.
      *
      * @param folder Carpeta a eliminar.
+     * @return Entrada de la papelera para deshacer, o null si no había directorio en disco.
+     */
+    public TrashManager.TrashEntry deleteFolder(Folder folder) {
+        ensureFolderLoaded(folder.getId());
+        String persistedName = libraryIndex.getPersistedName(folder.getId());
+        libraryIndex.removeFolder(folder.getId());
+        int position = removeFromLibrary(folder.getId());
+        return moveFolderToTrash(folder, persistedName != null ? persistedName : folder.getName(), position);
+    }
+
+    /**
+     * Deshace la eliminación de una carpeta que todavía está en la papelera.
+     *
+     * @param entry Entrada de la papelera.
+     * @return true si la carpeta se restauró, false si ya no es posible.
      */
-    public void deleteFolder(Folder folder) {
-        List<Folder> folders = getFolders();
-        folders.removeIf(f -> f.getId().equals(folder.getId()));
-        saveFolders(folders);
-        deleteFolderOnDisk(folder.getName());
+    public boolean restoreFolder(TrashManager.TrashEntry entry) {
+        if (!trashManager.restore(entry)) {
+            return false;
+        }
+        Folder folder = entry.getFolder();
+        libraryIndex.putFolder(folder);
+        synchronized (SUMMARY_LOAD_LOCK) {
+            List<FolderSummary> summaries = ensureSummariesLoaded();
+            int position = Math.max(0, Math.min(entry.getPosition(), summaries.size()));
+            summaries.add(position, FolderSummary.of(folder, System.currentTimeMillis()));
+            libraryIndex.setSummaries(summaries);
+            store.saveFolders(Collections.singletonList(folder), summaries);
+            searchIndexCache.putFolders(Collections.singletonList(folder), store.getGeneration());
+            tagIndex.putFolder(folder);
+            suggestionIndex.putFolder(folder);
+            fuzzyIndex.putFolder(folder);
+        }
+        return true;
     }
 
     /**
-     * Guarda la lista de carpetas en el archivo JSON.
+     * Guarda solo las carpetas modificadas y actualiza su resumen.
+     * Los resúmenes que no cambiaron conservan su fecha.
      *
-     * @param folders Lista de carpetas.
+     * @param folders Carpetas modificadas.
      */
     private void saveFolders(List<Folder> folders) {
-        dataStorage.writeFolders(folders);
+        synchronized (SUMMARY_LOAD_LOCK) {
+            List<FolderSummary> summaries = ensureSummariesLoaded();
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < summaries.size(); i++) {
+                positions.put(summaries.get(i).getId(), i);
+            }
+
+            long now = System.currentTimeMillis();
+            for (Folder folder : folders) {
+                FolderSummary summary = FolderSummary.of(folder, now);
+                Integer position = positions.get(folder.getId());
+                if (position == null) {
+                    positions.put(folder.getId(), summaries.size());
+                    summaries.add(summary);
+                } else if (!summary.hasSameContent(summaries.get(position))) {
+                    summaries.set(position, summary);
+                }
+            }
+            libraryIndex.setSummaries(summaries);
+            store.saveFolders(folders, summaries);
+            searchIndexCache.putFolders(folders, store.getGeneration());
+            for (Folder folder : folders) {
+                tagIndex.putFolder(folder);
+                suggestionIndex.putFolder(folder);
+                fuzzyIndex.putFolder(folder);
+            }
+        }
+    }
+
+    /**
+     * Borra una carpeta del almacenamiento y quita su resumen.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Posición que ocupaba, o -1 si no estaba.
+     */
+    private int removeFromLibrary(String folderId) {
+        synchronized (SUMMARY_LOAD_LOCK) {
+            List<FolderSummary> summaries = ensureSummariesLoaded();
+            int position = -1;
+            for (int i = 0; i < summaries.size(); i++) {
+                if (summaries.get(i).getId().equals(folderId)) {
+                    summaries.remove(i);
+                    position = i;
+                    break;
+                }
+            }
+            libraryIndex.setSummaries(summaries);
+            store.deleteFolder(folderId, summaries);
+            searchIndexCache.removeFolder(folderId, store.getGeneration());
+            tagIndex.removeFolder(folderId);
+            suggestionIndex.removeFolder(folderId);
+            fuzzyIndex.removeFolder(folderId);
+            return position;
+        }
     }
 
     /**
@@ -171,6 +527,7 @@ public class FolderManager {
      * @return Archivo de la carpeta creada.
      */
     public File createFolderOnDisk(String folderName) {
+        MainThreadIoGuard.onDiskWrite();
         File baseDir = appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
         File newFolder = new File(baseDir, folderName);
         if (!newFolder.exists()) {
@@ -184,58 +541,334 @@ public class FolderManager {
      *
      * @param oldName Nombre antiguo.
      * @param newName Nuevo nombre.
+     * @return Directorio renombrado, o null si no se pudo renombrar.
      */
-    private void renameFolderOnDisk(String oldName, String newName) {
+    private File renameFolderOnDisk(String oldName, String newName) {
+        MainThreadIoGuard.onDiskWrite();
         File baseDir = appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
         File oldFolder = new File(baseDir, oldName);
         File newFolder = new File(baseDir, newName);
-        if (oldFolder.exists()) {
-            oldFolder.renameTo(newFolder);
+        if (oldFolder.exists() && oldFolder.renameTo(newFolder)) {
+            return newFolder;
         }
+        return null;
     }
 
     /**
-     * Elimina una carpeta del almacenamiento.
+     * Mueve el directorio de una carpeta a la papelera.
      *
-     * @param folderName Nombre de la carpeta.
+     * @param folder     Carpeta eliminada.
+     * @param folderName Nombre del directorio en disco.
+     * @param position   Posición que ocupaba la carpeta.
+     * @return Entrada de la papelera o null si no había directorio.
+     */
+    private TrashManager.TrashEntry moveFolderToTrash(Folder folder, String folderName, int position) {
+        File folderDir = new File(appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES), folderName);
+        return trashManager.moveToTrash(folder, folderDir, position);
+    }
+
+    /**
+     * Busca una carpeta por su ID.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Carpeta encontrada o null si no existe.
      */
-    private void deleteFolderOnDisk(String folderName) {
-        File folder = new File(appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES), folderName);
-        deleteRecursive(folder);
+    public Folder getFolderById(String folderId) {
+        return ensureFolderLoaded(folderId);
     }
 
     /**
-     * Elimina una carpeta y todo su contenido recursivamente.
+     * Obtiene la generación guardada de la biblioteca, que cambia con cada modificación.
+     * Se llama fuera del hilo principal.
      *
-     * @param file Archivo o carpeta a eliminar.
+     * @return Generación actual.
      */
-    private void deleteRecursive(File file) {
-        if (file != null && file.exists()) {
-            if (file.isDirectory()) {
-                File[] children = file.listFiles();
-                if (children != null) {
-                    for (File child : children) {
-                        deleteRecursive(child);
-                    }
-                }
+    public long getLibraryGeneration() {
+        return store.getGeneration();
+    }
+
+    /**
+     * Obtiene el resumen de una carpeta sin leer sus imágenes.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Resumen, o null si la carpeta no existe.
+     */
+    public FolderSummary getFolderSummary(String folderId) {
+        for (FolderSummary summary : ensureSummariesLoaded()) {
+            if (summary.getId().equals(folderId)) {
+                return summary;
             }
-            file.delete();
         }
+        return null;
     }
 
     /**
-     * Busca una carpeta por su ID.
+     * Obtiene una página de las imágenes de una carpeta. Si la carpeta ya está en memoria se toma
+     * de ahí; si no, y el almacenamiento lo permite, se lee solo la página pedida.
      *
      * @param folderId ID de la carpeta.
-     * @return Carpeta encontrada o null si no existe.
+     * @param offset   Posición de la primera imagen.
+     * @param limit    Número máximo de imágenes.
+     * @return Imágenes de la página, en orden.
      */
-    public Folder getFolderById(String folderId) {
-        for (Folder folder : getFolders()) {
-            if (folder.getId().equals(folderId)) {
-                return folder;
+    public List<Image> getImagePage(String folderId, int offset, int limit) {
+        Folder folder = libraryIndex.getFolder(folderId);
+        if (folder == null && queryableStore != null) {
+            return queryableStore.readImagePage(folderId, offset, limit);
+        }
+        if (folder == null) {
+            folder = ensureFolderLoaded(folderId);
+        }
+        if (folder == null) {
+            return new ArrayList<>();
+        }
+        List<Image> images = folder.getImages();
+        int from = Math.min(offset, images.size());
+        int to = Math.min(offset + limit, images.size());
+        return new ArrayList<>(images.subList(from, to));
+    }
+
+    /**
+     * Busca una imagen por su ID.
+     *
+     * @param imageId ID de la imagen.
+     * @return Imagen encontrada o null si no existe.
+     */
+    public Image getImageById(String imageId) {
+        if (!libraryIndex.isLoaded() && queryableStore != null) {
+            return queryableStore.findImage(imageId);
+        }
+        ensureIndexLoaded();
+        return libraryIndex.getImage(imageId);
+    }
+
+    /**
+     * Obtiene el ID de la carpeta que contiene una imagen.
+     *
+     * @param imageId ID de la imagen.
+     * @return ID de la carpeta o null si la imagen no pertenece a ninguna.
+     */
+    public String getFolderIdByImageId(String imageId) {
+        if (!libraryIndex.isLoaded() && queryableStore != null) {
+            return queryableStore.findFolderIdForImage(imageId);
+        }
+        ensureIndexLoaded();
+        return libraryIndex.getFolderIdForImage(imageId);
+    }
+
+    /**
+     * Busca imágenes por texto y por etiquetas, y cuenta las etiquetas de los resultados para
+     * ofrecerlas como filtros. El texto lo busca el almacenamiento si admite consultas, y si no
+     * SearchHandler en memoria (ver searchText). La consulta puede llevar filtros como folder:,
+     * tag:, after: o size: (ver SearchQuery); estos y el filtro de etiquetas se resuelven cruzando los
+     * conjuntos del TagIndex, sin recorrer la biblioteca ni leer los archivos.
+     * Si la búsqueda tolerante a errores está activada, a las coincidencias exactas se añaden
+     * las aproximadas, que puntúan por debajo de las de etiqueta y menos cuantas más ediciones
+     * necesitan. Los resultados se puntúan con SearchHandler.score y se entregan por
+     * páginas de más a menos puntuación.
+     * Se llama fuera del hilo principal.
+     *
+     * @param query  Consulta de texto con filtros opcionales; vacía para no filtrar por texto.
+     * @param filter Filtro de etiquetas.
+     * @return Imágenes encontradas, ordenadas por relevancia, con su carpeta, y etiquetas más
+     * frecuentes entre ellas.
+     */
+    public SearchResult searchImages(String query, TagFilter filter) {
+        ensureSearchIndexesLoaded();
+        SearchQuery parsed = SearchQuery.parse(query);
+        String text = parsed.getText();
+        ImageIdSet selected;
+        List<Image> images;
+        Map<String, Integer> fuzzyDistances = new HashMap<>();   // ID de imagen -> ediciones
+        if (text.trim().isEmpty()) {
+            selected = tagIndex.filter(filter);
+            if (parsed.hasFilters()) {
+                selected = selected.and(tagIndex.filter(parsed, findFolderIds(parsed.getFolders())));
+            }
+            images = tagIndex.resolve(selected);
+        } else {
+            images = searchText(text);
+            int maxDistance = settingsPrefHelper.getInt(SettingsFragment.KEY_FUZZY_DISTANCE, DEFAULT_FUZZY_DISTANCE);
+            if (maxDistance > 0) {
+                images = appendFuzzyMatches(images, fuzzyIndex.search(text, maxDistance, fuzzyDistances));
+            }
+            selected = tagIndex.ordinalsOf(images);
+            if (!filter.isEmpty()) {
+                selected = selected.and(tagIndex.filter(filter));
+            }
+            if (parsed.hasFilters()) {
+                selected = selected.and(tagIndex.filter(parsed, findFolderIds(parsed.getFolders())));
+            }
+            if (!filter.isEmpty() || parsed.hasFilters()) {
+                images = tagIndex.retain(images, selected);
             }
         }
-        return null;
+        String[] folderIds = new String[images.size()];
+        int[] ages = new int[images.size()];
+        tagIndex.fillRankingSignals(images, folderIds, ages);
+        int[] scores = SearchHandler.score(images, text, folderIds, ages, getRecentFolderIds(), fuzzyDistances);
+        return new SearchResult(images, scores, folderIds, selected, tagIndex.getFacets(selected, FACET_LIMIT));
+    }
+
+    /**
+     * Busca un texto en los nombres y las etiquetas de las imágenes. Si el almacenamiento admite
+     * consultas, lo resuelve con su índice de texto y solo se leen las coincidencias; si no, se
+     * comprueban con SearchHandler las imágenes del TagIndex, repartidas en el grupo fork/join.
+     *
+     * @param text Texto libre de la consulta.
+     * @return Imágenes que coinciden, en el orden de la biblioteca.
+     */
+    private List<Image> searchText(String text) {
+        if (queryableStore != null) {
+            return queryableStore.searchImages(text);
+        }
+        List<String> folderOrder = new ArrayList<>();
+        for (FolderSummary summary : ensureSummariesLoaded()) {
+            folderOrder.add(summary.getId());
+        }
+        return new SearchHandler(tagIndex.getImagesInOrder(folderOrder), AppExecutors.getInstance().compute())
+                .performSearch(text);
+    }
+
+    /**
+     * Busca las carpetas cuyo nombre, sin acentos ni mayúsculas, empieza por alguno de los
+     * textos de un filtro folder:. Solo usa los resúmenes.
+     *
+     * @param folderNames Nombres normalizados con TextNormalizer.fold.
+     * @return IDs de las carpetas, o null si no se filtra por carpeta.
+     */
+    private Set<String> findFolderIds(List<String> folderNames) {
+        if (folderNames.isEmpty()) {
+            return null;
+        }
+        Set<String> folderIds = new HashSet<>();
+        for (FolderSummary summary : ensureSummariesLoaded()) {
+            String folded = TextNormalizer.fold(summary.getName().trim());
+            for (String folderName : folderNames) {
+                if (folded.startsWith(folderName)) {
+                    folderIds.add(summary.getId());
+                    break;
+                }
+            }
+        }
+        return folderIds;
+    }
+
+    /**
+     * Añade a las coincidencias exactas las aproximadas que no estaban ya.
+     *
+     * @param exact Coincidencias exactas.
+     * @param fuzzy Coincidencias aproximadas, ordenadas.
+     * @return Lista combinada.
+     */
+    private static List<Image> appendFuzzyMatches(List<Image> exact, List<Image> fuzzy) {
+        List<Image> combined = new ArrayList<>(exact);
+        Set<String> seen = new HashSet<>();
+        for (Image image : exact) {
+            seen.add(image.getId());
+        }
+        for (Image image : fuzzy) {
+            if (seen.add(image.getId())) {
+                combined.add(image);
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * Obtiene los nombres de imagen y etiquetas más usados que empiezan por un texto.
+     * Se llama fuera del hilo principal.
+     *
+     * @param prefix Texto escrito.
+     * @return Sugerencias de autocompletado, de más a menos usadas.
+     */
+    public List<Suggestion> suggest(String prefix) {
+        ensureSearchIndexesLoaded();
+        // Solo se completa el texto libre, no los filtros
+        return suggestionIndex.suggest(SearchQuery.parse(prefix).getText(), SUGGESTION_LIMIT);
+    }
+
+    /**
+     * Construye los índices de búsqueda si aún no existen. Se usa el índice guardado en disco
+     * si corresponde a la generación actual de la biblioteca; si no, se leen las carpetas una
+     * sola vez para todos (ver readFoldersForSearchIndexes) y se guarda un índice nuevo.
+     * Un guardado entre la lectura de la generación y la carga de los índices los encuentra
+     * sin cargar y no los actualiza; por eso, si la generación cambió durante la carga, se
+     * descartan y se vuelven a construir. No se toma SUMMARY_LOAD_LOCK mientras tanto para no
+     * invertir el orden de los cerrojos ni bloquear los guardados del hilo principal.
+     */
+    private void ensureSearchIndexesLoaded() {
+        synchronized (SEARCH_INDEX_LOAD_LOCK) {
+            while (!tagIndex.isLoaded() || !suggestionIndex.isLoaded() || !fuzzyIndex.isLoaded()) {
+                // La generación se lee antes que las carpetas: si cambian entre medias, la copia
+                // guardada parecerá antigua y se reconstruirá, nunca al revés
+                long generation = store.getGeneration();
+                List<Folder> folders = searchIndexCache.load(generation, ensureSummariesLoaded());
+                if (folders == null) {
+                    folders = readFoldersForSearchIndexes();
+                    searchIndexCache.save(folders, generation);
+                }
+                if (!tagIndex.isLoaded()) {
+                    tagIndex.load(folders);
+                }
+                if (!suggestionIndex.isLoaded()) {
+                    suggestionIndex.load(folders);
+                }
+                if (!fuzzyIndex.isLoaded()) {
+                    fuzzyIndex.load(folders);
+                }
+                if (store.getGeneration() != generation) {
+                    Log.i(TAG, "La biblioteca cambió mientras se cargaban los índices de búsqueda");
+                    Metrics.increment("searchIndex.reload", 1);
+                    tagIndex.invalidate();
+                    suggestionIndex.invalidate();
+                    fuzzyIndex.invalidate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee las carpetas con las que se construyen los índices de búsqueda. Se leen del
+     * almacenamiento, no de LibraryIndex: los índices y la copia en disco se construyen en
+     * searchIO y diskIO, y las listas de imágenes de LibraryIndex solo se recorren en el hilo
+     * principal, que es donde cambian. Así LibraryIndex tampoco tiene que cargar la biblioteca
+     * completa.
+     *
+     * @return Copias de las carpetas en orden.
+     */
+    private List<Folder> readFoldersForSearchIndexes() {
+        return readStoredFolders(getFolderSummaries());
+    }
+
+    /**
+     * Obtiene una copia de los resúmenes de las carpetas. Se llama fuera del hilo principal.
+     *
+     * @return Resúmenes en orden de almacenamiento.
+     */
+    public List<FolderSummary> getFolderSummaries() {
+        synchronized (SUMMARY_LOAD_LOCK) {
+            return new ArrayList<>(ensureSummariesLoaded());
+        }
+    }
+
+    /**
+     * Lee las carpetas del almacenamiento como copias propias: no son las de LibraryIndex ni se
+     * cargan en él, así que se pueden recorrer fuera del hilo principal. Se llama fuera del hilo
+     * principal.
+     *
+     * @param summaries Resúmenes de las carpetas a leer.
+     * @return Carpetas leídas, en el orden de los resúmenes.
+     */
+    public List<Folder> readStoredFolders(List<FolderSummary> summaries) {
+        List<Folder> folders = new ArrayList<>(summaries.size());
+        for (FolderSummary summary : summaries) {
+            Folder folder = store.readFolder(summary.getId());
+            if (folder != null) {
+                folders.add(folder);
+            }
+        }
+        return folders;
     }
 
     /**
@@ -0,0 +1,329 @@
+package com.dev.brain2.managers;
+
+import android.content.ComponentCallbacks2;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.TagDictionary;
+import com.dev.brain2.utils.BkTree;
+import com.dev.brain2.utils.CacheRegistry;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Índice para la búsqueda tolerante a errores. Las palabras de los nombres y las etiquetas,
+ * sin acentos ni mayúsculas, están en un árbol BK; cada palabra de la consulta se busca en él
+ * y solo se comparan las imágenes que tienen alguna de las palabras cercanas, nunca toda
+ * la biblioteca.
+ * Se actualiza carpeta a carpeta cada vez que se guarda una, como el TagIndex.
+ */
+public class FuzzyIndex {
+
+    // Tamaño aproximado en memoria de cada imagen y de cada palabra indexadas
+    private static final long ESTIMATED_IMAGE_BYTES = 96;
+    private static final long ESTIMATED_TERM_BYTES = 128;
+
+    private static FuzzyIndex instance;
+
+    private BkTree terms;                                    // Palabras, incluidas las que ya no se usan
+    private final Map<String, Set<String>> imageIdsByTerm;   // Palabra -> IDs de imagen
+    private final Map<String, IndexedImage> imagesById;      // ID de imagen -> imagen y sus palabras
+    private final Map<String, Set<String>> imageIdsByFolder; // ID de carpeta -> IDs de imagen
+    private boolean loaded;
+
+    /**
+     * Constructor.
+     */
+    FuzzyIndex() {
+        this.terms = new BkTree();
+        this.imageIdsByTerm = new HashMap<>();
+        this.imagesById = new HashMap<>();
+        this.imageIdsByFolder = new HashMap<>();
+    }
+
+    /**
+     * Obtiene la instancia compartida del índice.
+     *
+     * @return Índice de búsqueda tolerante a errores.
+     */
+    public static synchronized FuzzyIndex getInstance() {
+        if (instance == null) {
+            instance = new FuzzyIndex();
+            CacheRegistry.getInstance().register("fuzzy.index", CacheRegistry.Tier.COSTLY, instance::trimMemory);
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si el índice ya se construyó.
+     *
+     * @return true si está cargado.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Construye el índice con la biblioteca completa.
+     *
+     * @param folders Carpetas de la biblioteca.
+     */
+    public synchronized void load(List<Folder> folders) {
+        long start = Metrics.startTimer();
+        clear();
+        for (Folder folder : folders) {
+            indexFolder(folder);
+        }
+        loaded = true;
+        Metrics.stopTimer("fuzzyIndex.load", start);
+    }
+
+    /**
+     * Descarta el índice para que se reconstruya la próxima vez.
+     */
+    public synchronized void invalidate() {
+        clear();
+    }
+
+    /**
+     * Actualiza las palabras de una carpeta después de guardarla. Si el índice aún no
+     * se ha construido no hace nada.
+     *
+     * @param folder Carpeta guardada.
+     */
+    public synchronized void putFolder(Folder folder) {
+        if (loaded) {
+            indexFolder(folder);
+            rebuildTreeIfStale();
+        }
+    }
+
+    /**
+     * Quita del índice las imágenes de una carpeta eliminada.
+     *
+     * @param folderId ID de la carpeta.
+     */
+    public synchronized void removeFolder(String folderId) {
+        Set<String> imageIds = imageIdsByFolder.remove(folderId);
+        if (imageIds == null) {
+            return;
+        }
+        for (String imageId : imageIds) {
+            IndexedImage indexed = imagesById.get(imageId);
+            if (indexed != null && folderId.equals(indexed.folderId)) {
+                imagesById.remove(imageId);
+                unindexTerms(imageId, indexed.terms);
+            }
+        }
+        rebuildTreeIfStale();
+    }
+
+    /**
+     * Busca las imágenes que tienen, para cada palabra de la consulta, una palabra a pocas
+     * ediciones en el nombre o en las etiquetas. Las palabras cortas admiten menos errores.
+     *
+     * @param query       Consulta.
+     * @param maxDistance Número máximo de ediciones por palabra.
+     * @param editsOut    Si no es null, recibe las ediciones en total de cada imagen, por ID.
+     * @return Imágenes de menos a más ediciones en total; a igualdad, por nombre.
+     */
+    public synchronized List<Image> search(String query, int maxDistance, Map<String, Integer> editsOut) {
+        long start = Metrics.startTimer();
+        Map<String, Integer> distances = null;   // ID de imagen -> ediciones acumuladas
+        for (String token : new TreeSet<>(TextNormalizer.tokens(query))) {
+            Map<String, Integer> tokenDistances = new HashMap<>();
+            for (BkTree.Match match : terms.search(token, allowedDistance(token, maxDistance))) {
+                Set<String> imageIds = imageIdsByTerm.get(match.getTerm());
+                if (imageIds == null) {
+                    continue;   // Palabra que ya no usa ninguna imagen
+                }
+                for (String imageId : imageIds) {
+                    tokenDistances.merge(imageId, match.getDistance(), Math::min);
+                }
+            }
+            if (distances == null) {
+                distances = tokenDistances;
+            } else {
+                // Tienen que coincidir todas las palabras de la consulta
+                distances.keySet().retainAll(tokenDistances.keySet());
+                for (Map.Entry<String, Integer> entry : distances.entrySet()) {
+                    entry.setValue(entry.getValue() + tokenDistances.get(entry.getKey()));
+                }
+            }
+            if (distances.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Image> results = new ArrayList<>();
+        if (distances != null) {
+            for (String imageId : distances.keySet()) {
+                results.add(imagesById.get(imageId).image);
+            }
+            Map<String, Integer> finalDistances = distances;
+            results.sort(Comparator.<Image>comparingInt(image -> finalDistances.get(image.getId()))
+                    .thenComparing(Image::getName));
+            if (editsOut != null) {
+                editsOut.putAll(distances);
+            }
+        }
+        Metrics.stopTimer("fuzzyIndex.search", start);
+        return results;
+    }
+
+    /**
+     * Ediciones que admite una palabra de la consulta: ninguna hasta 3 letras, una hasta 6
+     * y después las configuradas.
+     *
+     * @param token       Palabra de la consulta.
+     * @param maxDistance Máximo configurado.
+     * @return Ediciones admitidas.
+     */
+    static int allowedDistance(String token, int maxDistance) {
+        int byLength = token.length() <= 3 ? 0 : token.length() <= 6 ? 1 : 2;
+        return Math.min(maxDistance, byLength);
+    }
+
+    /**
+     * Descarta el índice cuando el sistema necesita memoria; se reconstruye la próxima vez.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados (estimados).
+     */
+    public synchronized long trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_MODERATE || !loaded) {
+            return 0;
+        }
+        long freed = imagesById.size() * ESTIMATED_IMAGE_BYTES + terms.size() * ESTIMATED_TERM_BYTES;
+        clear();
+        return freed;
+    }
+
+    /**
+     * Indexa (o reindexa) las imágenes de una carpeta.
+     *
+     * @param folder Carpeta a indexar.
+     */
+    private void indexFolder(Folder folder) {
+        String folderId = folder.getId();
+        Set<String> previous = imageIdsByFolder.get(folderId);
+        Set<String> current = new HashSet<>();
+        for (Image image : folder.getImages()) {
+            String imageId = image.getId();
+            current.add(imageId);
+            IndexedImage indexed = imagesById.get(imageId);
+            String[] imageTerms = termsOf(image);
+            if (indexed != null && !folderId.equals(indexed.folderId)) {
+                // Movida desde otra carpeta
+                Set<String> previousFolder = imageIdsByFolder.get(indexed.folderId);
+                if (previousFolder != null) {
+                    previousFolder.remove(imageId);
+                }
+            }
+            if (indexed == null || !Arrays.equals(indexed.terms, imageTerms)) {
+                if (indexed != null) {
+                    unindexTerms(imageId, indexed.terms);
+                }
+                indexTerms(imageId, imageTerms);
+            }
+            imagesById.put(imageId, new IndexedImage(image, folderId, imageTerms));
+        }
+        if (previous != null) {
+            for (String imageId : previous) {
+                IndexedImage indexed = imagesById.get(imageId);
+                if (!current.contains(imageId) && indexed != null && folderId.equals(indexed.folderId)) {
+                    imagesById.remove(imageId);
+                    unindexTerms(imageId, indexed.terms);
+                }
+            }
+        }
+        imageIdsByFolder.put(folderId, current);
+    }
+
+    /**
+     * Obtiene las palabras distintas del nombre y las etiquetas de una imagen.
+     *
+     * @param image Imagen.
+     * @return Palabras normalizadas, ordenadas.
+     */
+    private static String[] termsOf(Image image) {
+        // El nombre y las etiquetas ya están normalizados; solo se dividen en palabras
+        Set<String> imageTerms = new TreeSet<>(TextNormalizer.split(image.getFoldedName()));
+        TagDictionary dictionary = TagDictionary.getInstance();
+        for (int t = 0; t < image.getTagCount(); t++) {
+            imageTerms.addAll(TextNormalizer.split(dictionary.getFolded(image.getTagId(t))));
+        }
+        return imageTerms.toArray(new String[0]);
+    }
+
+    private void indexTerms(String imageId, String[] imageTerms) {
+        for (String term : imageTerms) {
+            Set<String> imageIds = imageIdsByTerm.get(term);
+            if (imageIds == null) {
+                imageIds = new HashSet<>();
+                imageIdsByTerm.put(term, imageIds);
+                terms.add(term);
+            }
+            imageIds.add(imageId);
+        }
+    }
+
+    private void unindexTerms(String imageId, String[] imageTerms) {
+        for (String term : imageTerms) {
+            Set<String> imageIds = imageIdsByTerm.get(term);
+            if (imageIds != null && imageIds.remove(imageId) && imageIds.isEmpty()) {
+                // La palabra se queda en el árbol, que no admite borrados, hasta reconstruirlo
+                imageIdsByTerm.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Reconstruye el árbol cuando más de la mitad de sus palabras ya no las usa ninguna imagen.
+     */
+    private void rebuildTreeIfStale() {
+        if (terms.size() > 2 * imageIdsByTerm.size() + 64) {
+            BkTree rebuilt = new BkTree();
+            for (String term : imageIdsByTerm.keySet()) {
+                rebuilt.add(term);
+            }
+            terms = rebuilt;
+        }
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    private void clear() {
+        terms = new BkTree();
+        imageIdsByTerm.clear();
+        imagesById.clear();
+        imageIdsByFolder.clear();
+        loaded = false;
+    }
+
+    /**
+     * Imagen indexada con sus palabras.
+     */
+    private static final class IndexedImage {
+        final Image image;
+        final String folderId;
+        final String[] terms;
+
+        IndexedImage(Image image, String folderId, String[] terms) {
+            this.image = image;
+            this.folderId = folderId;
+            this.terms = terms;
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.dev.brain2.managers;
 
 import android.content.Context;
+import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.util.Log;
 
 import com.dev.brain2.models.Folder;
 import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.AppExecutors;
+import com.dev.brain2.utils.FileMover;
+import com.dev.brain2.utils.MainThreadIoGuard;
+import com.dev.brain2.utils.Metrics;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Esta clase se encarga de gestionar las imágenes de la aplicación.
@@ -21,6 +28,60 @@ public class ImageManager {
 
     private final Context appContext;
     private final FolderManager folderManager;
+    private final FileMover fileMover;
+
+    /**
+     * Interfaz para seguir un movimiento de imágenes en lote.
+     */
+    public interface MoveListener {
+        void onProgress(int movedCount, int totalCount);
+
+        void onComplete(BatchMoveResult result);
+    }
+
+    /**
+     * Interfaz para recibir el resultado de guardar una imagen.
+     */
+    public interface SaveListener {
+        void onSaved(Image image);
+
+        void onError(String message);
+    }
+
+    /**
+     * Resultado de un movimiento de imágenes en lote.
+     */
+    public static class BatchMoveResult {
+        private final List<Image> moved = new ArrayList<>();
+        private final Map<Image, String> failures = new LinkedHashMap<>();
+
+        /**
+         * Obtiene las imágenes que se movieron.
+         *
+         * @return Lista de imágenes movidas.
+         */
+        public List<Image> getMoved() {
+            return moved;
+        }
+
+        /**
+         * Obtiene el motivo del fallo de cada imagen que no se pudo mover.
+         *
+         * @return Mapa de imagen a motivo del fallo.
+         */
+        public Map<Image, String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Indica si todas las imágenes se movieron.
+         *
+         * @return true si no hubo fallos.
+         */
+        public boolean isComplete() {
+            return failures.isEmpty();
+        }
+    }
 
     /**
      * Constructor.
@@ -31,18 +92,53 @@ public class ImageManager {
     public ImageManager(Context context, FolderManager folderManager) {
         this.appContext = context;
         this.folderManager = folderManager;
+        this.fileMover = new FileMover();
     }
 
     /**
-     * Guarda una nueva imagen en una carpeta.
+     * Guarda una nueva imagen en una carpeta en segundo plano.
+     * El archivo se copia y se lee fuera del hilo principal; la carpeta se actualiza en él al terminar.
      *
      * @param imageUri  URI de la imagen.
      * @param imageName Nombre de la imagen.
      * @param folder    Carpeta donde se guardará.
-     * @throws IOException Si ocurre un error al guardar la imagen.
+     * @param listener  Listener que recibe el resultado en el hilo principal.
      */
-    public void saveImage(Uri imageUri, String imageName, Folder folder) throws IOException {
-        File folderDir = folderManager.createFolderOnDisk(folder.getName());
+    public void saveImageAsync(Uri imageUri, String imageName, Folder folder, SaveListener listener) {
+        String folderName = folder.getName();
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            Image image;
+            try {
+                image = writeImageFile(imageUri, imageName, folderName);
+            } catch (IOException e) {
+                e.printStackTrace();
+                executors.runOnMainThread(() -> listener.onError(e.getMessage()));
+                return;
+            }
+            executors.runOnMainThread(() -> {
+                if (image == null) {
+                    listener.onError("No se pudo crear el archivo");
+                    return;
+                }
+                folder.addImage(image);
+                folderManager.updateFolder(folder);
+                listener.onSaved(image);
+            });
+        });
+    }
+
+    /**
+     * Copia una imagen nueva al directorio de su carpeta y lee los datos del archivo.
+     *
+     * @param imageUri   URI de la imagen.
+     * @param imageName  Nombre de la imagen.
+     * @param folderName Nombre de la carpeta.
+     * @return Imagen creada, o null si el archivo no llegó a crearse.
+     * @throws IOException Si ocurre un error al copiar la imagen.
+     */
+    private Image writeImageFile(Uri imageUri, String imageName, String folderName) throws IOException {
+        File folderDir = folderManager.createFolderOnDisk(folderName);
         if (!folderDir.exists()) {
             folderDir.mkdirs();
         }
@@ -50,13 +146,29 @@ public class ImageManager {
         File imageFile = createImageFile(folderDir, imageName);
         copyImageToFile(imageUri, imageFile);
 
-        if (imageFile.exists()) {
-            Image image = new Image(Uri.fromFile(imageFile), imageName);
-            folder.addImage(image);
-            folderManager.updateFolder(folder);
-        } else {
+        if (!imageFile.exists()) {
             Log.e("ImageManager", "Error al guardar la imagen.");
+            return null;
         }
+        Image image = new Image(Uri.fromFile(imageFile), imageName);
+        readFileInfo(image, imageFile);
+        return image;
+    }
+
+    /**
+     * Lee el tamaño y las dimensiones del archivo de una imagen y los guarda en ella, para que
+     * las búsquedas por tamaño o dimensiones no tengan que leer los archivos. Solo se decodifica
+     * la cabecera, pero sigue siendo lectura de disco: no debe llamarse en el hilo principal.
+     *
+     * @param image     Imagen.
+     * @param imageFile Archivo de la imagen.
+     */
+    static void readFileInfo(Image image, File imageFile) {
+        MainThreadIoGuard.onBitmapDecode();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imageFile.getPath(), options);
+        image.setFileInfo(imageFile.length(), Math.max(options.outWidth, 0), Math.max(options.outHeight, 0));
     }
 
     /**
@@ -79,6 +191,9 @@ public class ImageManager {
      * @throws IOException Si ocurre un error al copiar.
      */
     private void copyImageToFile(Uri imageUri, File imageFile) throws IOException {
+        MainThreadIoGuard.onDiskWrite();
+        long start = Metrics.startTimer();
+        long copiedBytes = 0;
         try (InputStream inputStream = appContext.getContentResolver().openInputStream(imageUri);
              FileOutputStream outputStream = new FileOutputStream(imageFile)) {
 
@@ -86,55 +201,114 @@ public class ImageManager {
             int length;
             while ((length = inputStream.read(buffer)) > 0) {
                 outputStream.write(buffer, 0, length);
+                copiedBytes += length;
+            }
+        } finally {
+            if (start != 0) {
+                Metrics.stopTimer("image.copy", start);
+                Metrics.recordValue("image.copy.bytes", copiedBytes);
             }
         }
     }
 
     /**
-     * Mueve una imagen de una carpeta a otra.
+     * Mueve varias imágenes de una carpeta a otra en segundo plano.
+     * Los archivos se mueven fuera del hilo principal; las carpetas se actualizan en él al terminar.
      *
-     * @param image        Imagen a mover.
+     * @param images       Imágenes a mover.
      * @param sourceFolder Carpeta origen.
      * @param targetFolder Carpeta destino.
-     * @return Verdadero si se movió exitosamente, falso de lo contrario.
+     * @param listener     Listener que recibe el progreso y el resultado en el hilo principal.
      */
-    public boolean moveImage(Image image, Folder sourceFolder, Folder targetFolder) {
-        File sourceFile = new File(image.getUri().getPath());
-        File targetDir = folderManager.createFolderOnDisk(targetFolder.getName());
-        File targetFile = new File(targetDir, sourceFile.getName());
-
-        if (moveFile(sourceFile, targetFile)) {
-            updateFoldersAfterMove(image, sourceFolder, targetFolder, targetFile);
-            return true;
+    public void moveImagesAsync(List<Image> images, Folder sourceFolder, Folder targetFolder,
+                                MoveListener listener) {
+        List<Image> pending = new ArrayList<>(images);
+        List<String> sourcePaths = new ArrayList<>(pending.size());
+        for (Image image : pending) {
+            sourcePaths.add(image.getUri().getPath());
         }
-        return false;
+        String targetName = targetFolder.getName();
+
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.diskIO().execute(() -> {
+            // El directorio de destino se crea una sola vez, fuera del hilo principal
+            File targetDir = folderManager.createFolderOnDisk(targetName);
+            List<File> targetFiles = new ArrayList<>(pending.size());
+            for (String sourcePath : sourcePaths) {
+                targetFiles.add(new File(targetDir, new File(sourcePath).getName()));
+            }
+            List<FileMover.MoveResult> results = new ArrayList<>(pending.size());
+            int lastReported = -1;
+            for (int i = 0; i < pending.size(); i++) {
+                results.add(moveFile(new File(sourcePaths.get(i)), targetFiles.get(i)));
+
+                int done = i + 1;
+                // Se informa como mucho una vez por cada punto porcentual
+                if (done * 100 / pending.size() != lastReported) {
+                    lastReported = done * 100 / pending.size();
+                    executors.runOnMainThread(() -> listener.onProgress(done, pending.size()));
+                }
+            }
+
+            executors.runOnMainThread(() ->
+                    listener.onComplete(applyMoveResults(pending, results, sourceFolder, targetFolder, targetFiles)));
+        });
     }
 
     /**
-     * Mueve el archivo de imagen al directorio destino.
+     * Actualiza las carpetas con las imágenes que se movieron y construye el resultado del lote.
      *
-     * @param sourceFile Archivo origen.
-     * @param targetFile Archivo destino.
-     * @return Verdadero si se movió, falso de lo contrario.
+     * @param images       Imágenes del lote.
+     * @param results      Resultado de cada imagen, en el orden del lote.
+     * @param sourceFolder Carpeta origen.
+     * @param targetFolder Carpeta destino.
+     * @param targetFiles  Archivos de destino, en el orden del lote.
+     * @return Resultado del lote.
      */
-    private boolean moveFile(File sourceFile, File targetFile) {
-        return sourceFile.renameTo(targetFile);
+    private BatchMoveResult applyMoveResults(List<Image> images, List<FileMover.MoveResult> results,
+                                             Folder sourceFolder, Folder targetFolder, List<File> targetFiles) {
+        BatchMoveResult batchResult = new BatchMoveResult();
+        List<String> movedIds = new ArrayList<>();
+        for (int i = 0; i < images.size(); i++) {
+            if (results.get(i).isSuccess()) {
+                movedIds.add(images.get(i).getId());
+            }
+        }
+        // Se quitan todas de una vez para no recorrer la carpeta origen por cada imagen
+        sourceFolder.removeImagesById(movedIds);
+
+        for (int i = 0; i < images.size(); i++) {
+            Image image = images.get(i);
+            FileMover.MoveResult result = results.get(i);
+            if (result.isSuccess()) {
+                image.setUri(Uri.fromFile(targetFiles.get(i)));
+                targetFolder.addImage(image);
+                batchResult.moved.add(image);
+            } else {
+                batchResult.failures.put(image, result.getReason());
+            }
+        }
+
+        if (!batchResult.moved.isEmpty()) {
+            folderManager.updateFolder(targetFolder);
+            folderManager.updateFolder(sourceFolder);
+        }
+        return batchResult;
     }
 
     /**
-     * Actualiza las carpetas después de mover una imagen.
+     * Mueve el archivo de imagen al directorio destino.
      *
-     * @param image       Imagen movida.
-     * @param sourceFolder Carpeta origen.
-     * @param targetFolder Carpeta destino.
-     * @param targetFile  Archivo en la nueva ubicación.
-     */
-    private void updateFoldersAfterMove(Image image, Folder sourceFolder, Folder targetFolder, File targetFile) {
-        sourceFolder.removeImage(image);
-        image.setUri(Uri.fromFile(targetFile));
-        targetFolder.addImage(image);
-        folderManager.updateFolder(sourceFolder);
-        folderManager.updateFolder(targetFolder);
+     * @param sourceFile Archivo origen.
+     * @param targetFile Archivo destino.
+     * @return Resultado del movimiento, con el motivo si falló.
+     */
+    private FileMover.MoveResult moveFile(File sourceFile, File targetFile) {
+        FileMover.MoveResult result = fileMover.move(sourceFile, targetFile);
+        if (!result.isSuccess()) {
+            Log.w("ImageManager", "No se pudo mover " + sourceFile.getName() + ": " + result.getReason());
+        }
+        return result;
     }
 
     /**
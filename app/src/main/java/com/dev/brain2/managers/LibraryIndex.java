@@ -0,0 +1,255 @@
+package com.dev.brain2.managers;
+
+import android.content.ComponentCallbacks2;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.CacheRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo en memoria de la biblioteca, compartido por todos los FolderManager del proceso.
+ * Mantiene índices hash por ID para que las búsquedas y eliminaciones sean de tiempo constante.
+ */
+public class LibraryIndex {
+
+    // Tamaño aproximado en memoria de cada carpeta y de cada imagen con sus entradas en los índices
+    private static final long ESTIMATED_FOLDER_BYTES = 512;
+    private static final long ESTIMATED_IMAGE_BYTES = 384;
+
+    private static LibraryIndex instance;
+
+    private final Map<String, Folder> foldersById;        // ID de carpeta -> carpeta (en orden de almacenamiento)
+    private final Map<String, String> persistedNames;     // ID de carpeta -> nombre guardado en disco
+    private final Map<String, Image> imagesById;          // ID de imagen -> imagen
+    private final Map<String, String> folderIdByImageId;  // ID de imagen -> ID de la carpeta propietaria
+    private final Map<String, List<String>> imageIdsByFolderId; // Imágenes indexadas por carpeta
+    private List<FolderSummary> summaries;                // Resúmenes de carpetas, o null si no se han leído
+    private boolean loaded;
+
+    /**
+     * Constructor.
+     */
+    LibraryIndex() {
+        this.foldersById = new LinkedHashMap<>();
+        this.persistedNames = new HashMap<>();
+        this.imagesById = new HashMap<>();
+        this.folderIdByImageId = new HashMap<>();
+        this.imageIdsByFolderId = new HashMap<>();
+    }
+
+    /**
+     * Obtiene la instancia compartida del índice.
+     *
+     * @return Índice de la biblioteca.
+     */
+    public static synchronized LibraryIndex getInstance() {
+        if (instance == null) {
+            instance = new LibraryIndex();
+            CacheRegistry.getInstance().register("library.index", CacheRegistry.Tier.COSTLY, instance::trimMemory);
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si el índice ya fue cargado desde el almacenamiento.
+     *
+     * @return true si está cargado, false de lo contrario.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Reemplaza el contenido del índice con las carpetas leídas del almacenamiento.
+     *
+     * @param folders Lista de carpetas leídas.
+     */
+    public synchronized void load(List<Folder> folders) {
+        clearIndexes();
+        if (folders != null) {
+            for (Folder folder : folders) {
+                indexFolder(folder);
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Descarta el contenido del índice para forzar una recarga.
+     */
+    public synchronized void invalidate() {
+        clearIndexes();
+        summaries = null;
+        loaded = false;
+    }
+
+    /**
+     * Descarta las carpetas cargadas cuando la aplicación está en segundo plano y el sistema
+     * necesita memoria. Los cambios ya están guardados, así que se vuelven a leer cuando hagan
+     * falta; los resúmenes se conservan para mostrar la pantalla principal sin esperar.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados (estimados).
+     */
+    public synchronized long trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return 0;
+        }
+        long freed = foldersById.size() * ESTIMATED_FOLDER_BYTES + imagesById.size() * ESTIMATED_IMAGE_BYTES;
+        clearIndexes();
+        loaded = false;
+        return freed;
+    }
+
+    /**
+     * Obtiene una copia de los resúmenes de carpetas.
+     *
+     * @return Lista de resúmenes, o null si todavía no se han cargado.
+     */
+    public synchronized List<FolderSummary> getSummaries() {
+        return summaries != null ? new ArrayList<>(summaries) : null;
+    }
+
+    /**
+     * Reemplaza los resúmenes de carpetas.
+     *
+     * @param folderSummaries Nuevos resúmenes.
+     */
+    public synchronized void setSummaries(List<FolderSummary> folderSummaries) {
+        this.summaries = new ArrayList<>(folderSummaries);
+    }
+
+    /**
+     * Agrega o reemplaza una carpeta y reindexa sus imágenes.
+     *
+     * @param folder Carpeta a indexar.
+     */
+    public synchronized void putFolder(Folder folder) {
+        unindexImages(folder.getId());
+        indexFolder(folder);
+    }
+
+    /**
+     * Elimina una carpeta y todas sus imágenes del índice.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Carpeta eliminada o null si no existía.
+     */
+    public synchronized Folder removeFolder(String folderId) {
+        unindexImages(folderId);
+        persistedNames.remove(folderId);
+        return foldersById.remove(folderId);
+    }
+
+    /**
+     * Obtiene una carpeta por su ID.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Carpeta o null si no existe.
+     */
+    public synchronized Folder getFolder(String folderId) {
+        return foldersById.get(folderId);
+    }
+
+    /**
+     * Obtiene el nombre con el que la carpeta está guardada en disco.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Nombre guardado o null si la carpeta no existe.
+     */
+    public synchronized String getPersistedName(String folderId) {
+        return persistedNames.get(folderId);
+    }
+
+    /**
+     * Obtiene una imagen por su ID.
+     *
+     * @param imageId ID de la imagen.
+     * @return Imagen o null si no existe.
+     */
+    public synchronized Image getImage(String imageId) {
+        return imagesById.get(imageId);
+    }
+
+    /**
+     * Obtiene el ID de la carpeta que contiene una imagen.
+     *
+     * @param imageId ID de la imagen.
+     * @return ID de la carpeta o null si la imagen no existe.
+     */
+    public synchronized String getFolderIdForImage(String imageId) {
+        return folderIdByImageId.get(imageId);
+    }
+
+    /**
+     * Obtiene una copia de la lista de carpetas en orden de almacenamiento.
+     *
+     * @return Lista de carpetas.
+     */
+    public synchronized List<Folder> getFolders() {
+        return new ArrayList<>(foldersById.values());
+    }
+
+    /**
+     * Obtiene el número total de imágenes indexadas.
+     *
+     * @return Número de imágenes.
+     */
+    public synchronized int getImageCount() {
+        return imagesById.size();
+    }
+
+    /**
+     * Indexa una carpeta y sus imágenes.
+     *
+     * @param folder Carpeta a indexar.
+     */
+    private void indexFolder(Folder folder) {
+        foldersById.put(folder.getId(), folder);
+        persistedNames.put(folder.getId(), folder.getName());
+        List<String> imageIds = new ArrayList<>(folder.getImageCount());
+        for (Image image : folder.getImages()) {
+            imagesById.put(image.getId(), image);
+            folderIdByImageId.put(image.getId(), folder.getId());
+            imageIds.add(image.getId());
+        }
+        imageIdsByFolderId.put(folder.getId(), imageIds);
+    }
+
+    /**
+     * Elimina del índice las imágenes que pertenecían a una carpeta.
+     * Se usa la lista de IDs guardada al indexar porque la carpeta pudo modificarse desde entonces.
+     *
+     * @param folderId ID de la carpeta.
+     */
+    private void unindexImages(String folderId) {
+        List<String> imageIds = imageIdsByFolderId.remove(folderId);
+        if (imageIds == null) {
+            return;
+        }
+        for (String imageId : imageIds) {
+            if (folderId.equals(folderIdByImageId.get(imageId))) {
+                imagesById.remove(imageId);
+                folderIdByImageId.remove(imageId);
+            }
+        }
+    }
+
+    /**
+     * Vacía todos los índices.
+     */
+    private void clearIndexes() {
+        foldersById.clear();
+        persistedNames.clear();
+        imagesById.clear();
+        folderIdByImageId.clear();
+        imageIdsByFolderId.clear();
+    }
+}
@@ -0,0 +1,620 @@
+package com.dev.brain2.managers;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Environment;
+import android.util.Log;
+
+import com.dev.brain2.models.DirectorySnapshot;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.ScanCache;
+import com.dev.brain2.utils.AppExecutors;
+import com.dev.brain2.utils.DataStorage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Esta clase compara el índice de la biblioteca con los archivos reales en Pictures
+ * y detecta (o repara) las diferencias entre ambos.
+ */
+public class LibraryReconciler {
+
+    private static final String TAG = "LibraryReconciler";
+
+    // Nombre que ImageFileHandler da a las fotos temporales de la cámara
+    private static final Pattern TEMP_IMAGE_PATTERN = Pattern.compile("JPEG_\\d{8}_\\d{6}_.*\\.jpg");
+    private static final long TEMP_FILE_MAX_AGE_MS = 60 * 60 * 1000L;
+    // Solo se adoptan archivos con extensión de imagen
+    private static final Pattern IMAGE_FILE_PATTERN =
+            Pattern.compile(".*\\.(jpe?g|png|webp|gif|bmp|heic|heif)", Pattern.CASE_INSENSITIVE);
+
+    private final Context appContext;
+    private final FolderManager folderManager;
+    private final DataStorage dataStorage;
+    private final AppExecutors executors;
+
+    /**
+     * Interfaz para recibir el resultado de una reconciliación.
+     */
+    public interface ReconcileListener {
+        void onReconcileComplete(ReconcileReport report);
+    }
+
+    /**
+     * Resultado de una reconciliación.
+     */
+    public static class ReconcileReport {
+        private final Map<String, File> relinkedImages = new HashMap<>();    // ID de imagen -> archivo real
+        private final Map<String, String> danglingImages = new HashMap<>();  // ID de imagen -> ID de carpeta
+        private final Map<File, String> orphanFiles = new HashMap<>();       // Archivo sin imagen -> carpeta que lo puede adoptar (o null)
+        private final List<File> staleTempFiles = new ArrayList<>();
+        private final Map<File, Image> adoptedImages = new HashMap<>();     // Archivo huérfano -> imagen que lo adopta
+        private final Map<String, Image> fileInfo = new HashMap<>();         // ID de imagen sin datos del archivo -> datos leídos
+        private final Map<String, String> scannedPaths = new HashMap<>();    // ID de imagen -> ruta que tenía al revisar
+        private final Map<String, String> scannedFolderIds = new HashMap<>(); // ID de imagen -> carpeta en la que estaba al revisar
+        private boolean pendingTempFiles;  // Hay fotos temporales que aún no se pueden borrar
+        private int scannedDirectories;
+        private int skippedDirectories;
+        private long durationMs;
+
+        public Map<String, File> getRelinkedImages() {
+            return relinkedImages;
+        }
+
+        public Map<String, String> getDanglingImages() {
+            return danglingImages;
+        }
+
+        public Map<File, String> getOrphanFiles() {
+            return orphanFiles;
+        }
+
+        public List<File> getStaleTempFiles() {
+            return staleTempFiles;
+        }
+
+        /**
+         * Datos del archivo leídos para las imágenes guardadas antes de que se registraran.
+         *
+         * @return Mapa de ID de imagen a una imagen con los datos leídos.
+         */
+        public Map<String, Image> getFileInfo() {
+            return fileInfo;
+        }
+
+        public int getScannedDirectories() {
+            return scannedDirectories;
+        }
+
+        public int getSkippedDirectories() {
+            return skippedDirectories;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * Indica si se encontró alguna diferencia.
+         *
+         * @return true si hay algo que reparar o informar.
+         */
+        public boolean hasIssues() {
+            return !relinkedImages.isEmpty() || !danglingImages.isEmpty()
+                    || !orphanFiles.isEmpty() || !staleTempFiles.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "relinked=" + relinkedImages.size()
+                    + " dangling=" + danglingImages.size()
+                    + " orphans=" + orphanFiles.size()
+                    + " temp=" + staleTempFiles.size()
+                    + " fileInfo=" + fileInfo.size()
+                    + " scanned=" + scannedDirectories
+                    + " skipped=" + skippedDirectories
+                    + " ms=" + durationMs;
+        }
+    }
+
+    /**
+     * Lo que el índice espera encontrar en el directorio de una carpeta.
+     * Se toma de una copia de la carpeta leída del almacenamiento, no de la de LibraryIndex.
+     */
+    private static class FolderSnapshot {
+        final String folderId;
+        final String dirName;
+        final Map<String, String> imageIdsByPath = new HashMap<>();
+        final Map<String, String> pathsWithoutInfo = new HashMap<>();  // ID de imagen -> ruta
+
+        FolderSnapshot(String folderId, String dirName) {
+            this.folderId = folderId;
+            this.dirName = dirName;
+        }
+
+        long fingerprint() {
+            long fingerprint = imageIdsByPath.size();
+            for (String path : imageIdsByPath.keySet()) {
+                fingerprint += path.hashCode() * 31L;
+            }
+            return fingerprint;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context       Contexto de la aplicación.
+     * @param folderManager Manager de carpetas.
+     */
+    public LibraryReconciler(Context context, FolderManager folderManager) {
+        this.appContext = context.getApplicationContext();
+        this.folderManager = folderManager;
+        this.dataStorage = new DataStorage(context);
+        this.executors = AppExecutors.getInstance();
+    }
+
+    /**
+     * Reconcilia la biblioteca en segundo plano. Debe llamarse desde el hilo principal.
+     * Los archivos se revisan en diskIO y las reparaciones se aplican después en el hilo
+     * principal, donde se hacen el resto de cambios de las carpetas.
+     * Si ni la biblioteca ni los directorios cambiaron desde la última revisión sin diferencias,
+     * no se lee ninguna carpeta.
+     *
+     * @param repair   Si es true, se reparan las diferencias encontradas.
+     * @param listener Listener que recibe el informe en el hilo principal.
+     */
+    public void reconcile(boolean repair, ReconcileListener listener) {
+        executors.diskIO().execute(() -> {
+            ReconcileReport report = scan();
+            if (repair) {
+                deleteStaleTempFiles(report);
+                prepareAdoptedImages(report);
+                loadRepairedFolders(report);
+            }
+            Log.i(TAG, "Reconciliación: " + report);
+
+            executors.runOnMainThread(() -> {
+                if (repair) {
+                    applyRepairs(report);
+                }
+                if (listener != null) {
+                    listener.onReconcileComplete(report);
+                }
+            });
+        });
+    }
+
+    /**
+     * Copia las rutas que el índice espera encontrar en disco.
+     *
+     * @param storedFolders Carpetas leídas del almacenamiento.
+     * @return Instantáneas de las carpetas.
+     */
+    private List<FolderSnapshot> snapshotFolders(List<Folder> storedFolders) {
+        List<FolderSnapshot> snapshots = new ArrayList<>();
+        for (Folder folder : storedFolders) {
+            FolderSnapshot snapshot = new FolderSnapshot(folder.getId(), folder.getName());
+            for (Image image : folder.getImages()) {
+                String path = image.getUri().getPath();
+                if (path != null) {
+                    snapshot.imageIdsByPath.put(path, image.getId());
+                    if (image.getByteSize() == 0 || image.getImportedAt() == 0) {
+                        snapshot.pathsWithoutInfo.put(image.getId(), path);
+                    }
+                }
+            }
+            snapshots.add(snapshot);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Recorre el directorio Pictures y lo compara con las carpetas guardadas. Se llama en diskIO.
+     *
+     * @return Informe de diferencias.
+     */
+    private ReconcileReport scan() {
+        long start = System.currentTimeMillis();
+        ReconcileReport report = new ReconcileReport();
+        File picturesDir = appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+
+        // La generación se lee antes que las carpetas: si cambian entre medias, la próxima vez
+        // no coincidirá y se volverá a revisar
+        long generation = folderManager.getLibraryGeneration();
+        long picturesModified = picturesDir != null ? picturesDir.lastModified() : 0;
+        List<FolderSummary> summaries = folderManager.getFolderSummaries();
+        ScanCache cache = dataStorage.readScanCache();
+
+        if (isUnchanged(cache, generation, picturesDir, picturesModified, summaries)) {
+            report.skippedDirectories = summaries.size();
+            report.durationMs = System.currentTimeMillis() - start;
+            return report;
+        }
+
+        List<FolderSnapshot> folders = snapshotFolders(folderManager.readStoredFolders(summaries));
+        Map<String, DirectorySnapshot> updatedDirectories = new HashMap<>();
+        Set<String> folderDirNames = new HashSet<>();
+        for (FolderSnapshot folder : folders) {
+            folderDirNames.add(folder.dirName);
+            scanFolder(picturesDir, folder, cache, updatedDirectories, report);
+        }
+        scanTopLevel(picturesDir, folderDirNames, report);
+        readMissingFileInfo(folders, report);
+
+        boolean clean = !report.hasIssues() && report.fileInfo.isEmpty() && !report.pendingTempFiles;
+        dataStorage.writeScanCache(new ScanCache(clean, generation, picturesModified, updatedDirectories));
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    /**
+     * Indica si se puede saltar la revisión: la biblioteca tiene la misma generación que en la
+     * última revisión sin diferencias y ni Pictures ni los directorios de las carpetas cambiaron.
+     *
+     * @param cache            Estado de la reconciliación anterior, o null.
+     * @param generation       Generación actual de la biblioteca.
+     * @param picturesDir      Directorio Pictures.
+     * @param picturesModified Fecha de modificación actual de Pictures.
+     * @param summaries        Resúmenes de las carpetas.
+     * @return true si no hace falta revisar nada.
+     */
+    private static boolean isUnchanged(ScanCache cache, long generation, File picturesDir,
+                                       long picturesModified, List<FolderSummary> summaries) {
+        if (cache == null || picturesDir == null || !cache.isUnchanged(generation, picturesModified)) {
+            return false;
+        }
+        for (FolderSummary summary : summaries) {
+            File dir = new File(picturesDir, summary.getName());
+            DirectorySnapshot snapshot = cache.getDirectory(summary.getName());
+            if (snapshot == null || !snapshot.matchesDirectory(dir.lastModified(), dir.length())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compara el directorio de una carpeta con sus imágenes indexadas.
+     * Si el directorio y el índice no cambiaron desde la última vez, no se lista.
+     *
+     * @param picturesDir  Directorio Pictures.
+     * @param folder       Instantánea de la carpeta.
+     * @param cache        Estado de la reconciliación anterior, o null.
+     * @param updatedCache Instantáneas de esta reconciliación.
+     * @param report       Informe a completar.
+     */
+    private void scanFolder(File picturesDir, FolderSnapshot folder,
+                            ScanCache cache,
+                            Map<String, DirectorySnapshot> updatedCache,
+                            ReconcileReport report) {
+        File dir = new File(picturesDir, folder.dirName);
+        long lastModified = dir.lastModified();
+        long length = dir.length();
+        long fingerprint = folder.fingerprint();
+
+        DirectorySnapshot previous = cache != null ? cache.getDirectory(folder.dirName) : null;
+        if (previous != null && previous.matches(lastModified, length, fingerprint)) {
+            updatedCache.put(folder.dirName, previous);
+            report.skippedDirectories++;
+            return;
+        }
+        report.scannedDirectories++;
+
+        String[] listed = dir.list();
+        Set<String> fileNames = listed != null ? new HashSet<>(Arrays.asList(listed)) : new HashSet<>();
+        Set<String> referencedNames = new HashSet<>();
+        boolean clean = true;
+
+        for (Map.Entry<String, String> entry : folder.imageIdsByPath.entrySet()) {
+            File indexedFile = new File(entry.getKey());
+            String fileName = indexedFile.getName();
+            boolean inFolderDir = dir.getPath().equals(indexedFile.getParent());
+
+            if (inFolderDir && fileNames.contains(fileName)) {
+                referencedNames.add(fileName);
+            } else if (!inFolderDir && fileNames.contains(fileName)) {
+                // La URI quedó apuntando al nombre anterior de la carpeta
+                referencedNames.add(fileName);
+                report.relinkedImages.put(entry.getValue(), new File(dir, fileName));
+                recordScannedImage(report, entry.getValue(), entry.getKey(), folder.folderId);
+                clean = false;
+            } else if (inFolderDir || !indexedFile.exists()) {
+                report.danglingImages.put(entry.getValue(), folder.folderId);
+                recordScannedImage(report, entry.getValue(), entry.getKey(), folder.folderId);
+                clean = false;
+            }
+        }
+
+        for (String fileName : fileNames) {
+            if (!fileName.startsWith(".") && !referencedNames.contains(fileName)) {
+                File orphan = new File(dir, fileName);
+                boolean adoptable = orphan.isFile() && IMAGE_FILE_PATTERN.matcher(fileName).matches();
+                report.orphanFiles.put(orphan, adoptable ? folder.folderId : null);
+                clean = false;
+            }
+        }
+
+        // Solo se guarda la instantánea si no había diferencias; si no, se vuelve a revisar
+        if (clean && dir.exists()) {
+            updatedCache.put(folder.dirName, new DirectorySnapshot(lastModified, length, fingerprint));
+        }
+    }
+
+    /**
+     * Revisa los archivos y directorios de primer nivel de Pictures.
+     *
+     * @param picturesDir    Directorio Pictures.
+     * @param folderDirNames Nombres de los directorios que pertenecen a carpetas.
+     * @param report         Informe a completar.
+     */
+    private void scanTopLevel(File picturesDir, Set<String> folderDirNames, ReconcileReport report) {
+        File[] entries = picturesDir != null ? picturesDir.listFiles() : null;
+        if (entries == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (File entry : entries) {
+            if (entry.getName().startsWith(".") || folderDirNames.contains(entry.getName())) {
+                continue;
+            }
+            if (entry.isFile() && TEMP_IMAGE_PATTERN.matcher(entry.getName()).matches()) {
+                if (now - entry.lastModified() > TEMP_FILE_MAX_AGE_MS) {
+                    report.staleTempFiles.add(entry);
+                } else {
+                    report.pendingTempFiles = true;
+                }
+            } else {
+                report.orphanFiles.put(entry, null);
+            }
+        }
+    }
+
+    /**
+     * Borra las fotos temporales de la cámara que ya no se usan.
+     *
+     * @param report Informe con los archivos temporales.
+     */
+    private void deleteStaleTempFiles(ReconcileReport report) {
+        for (File tempFile : report.staleTempFiles) {
+            if (!tempFile.delete()) {
+                Log.w(TAG, "No se pudo borrar el temporal: " + tempFile);
+            }
+        }
+    }
+
+    /**
+     * Crea las imágenes de los archivos huérfanos que se van a adoptar, leyendo aquí, fuera
+     * del hilo principal, su tamaño y sus dimensiones.
+     *
+     * @param report Informe con los archivos huérfanos.
+     */
+    private void prepareAdoptedImages(ReconcileReport report) {
+        for (Map.Entry<File, String> entry : report.orphanFiles.entrySet()) {
+            if (entry.getValue() != null) {
+                File file = entry.getKey();
+                Image image = new Image(Uri.fromFile(file), stripExtension(file.getName()));
+                ImageManager.readFileInfo(image, file);
+                report.adoptedImages.put(file, image);
+            }
+        }
+    }
+
+    /**
+     * Lee el tamaño, las dimensiones y la fecha de los archivos de las imágenes guardadas antes
+     * de que se registraran, para que los filtros after:, size: y dims: también las encuentren.
+     * Como fecha de importación se toma la de modificación del archivo.
+     *
+     * @param folders Instantáneas de las carpetas.
+     * @param report  Informe a completar.
+     */
+    private void readMissingFileInfo(List<FolderSnapshot> folders, ReconcileReport report) {
+        for (FolderSnapshot folder : folders) {
+            for (Map.Entry<String, String> entry : folder.pathsWithoutInfo.entrySet()) {
+                File file = new File(entry.getValue());
+                if (!file.isFile()) {
+                    continue;
+                }
+                // La imagen solo lleva los datos leídos; se copian en la real al aplicar
+                Image info = new Image(Uri.fromFile(file), file.getName());
+                ImageManager.readFileInfo(info, file);
+                info.setImportedAt(file.lastModified());
+                report.fileInfo.put(entry.getKey(), info);
+                recordScannedImage(report, entry.getKey(), entry.getValue(), folder.folderId);
+            }
+        }
+    }
+
+    /**
+     * Anota dónde estaba una imagen al revisar los archivos, para aplicar su reparación solo
+     * si sigue en el mismo sitio.
+     *
+     * @param report   Informe a completar.
+     * @param imageId  ID de la imagen.
+     * @param path     Ruta de su archivo en la instantánea.
+     * @param folderId ID de su carpeta en la instantánea.
+     */
+    private static void recordScannedImage(ReconcileReport report, String imageId, String path, String folderId) {
+        report.scannedPaths.put(imageId, path);
+        report.scannedFolderIds.put(imageId, folderId);
+    }
+
+    /**
+     * Carga en diskIO las carpetas que se van a reparar, para que el hilo principal no tenga
+     * que leerlas del almacenamiento.
+     *
+     * @param report Informe con las diferencias.
+     */
+    private void loadRepairedFolders(ReconcileReport report) {
+        Set<String> folderIds = new HashSet<>(report.scannedFolderIds.values());
+        for (Map.Entry<File, String> entry : report.orphanFiles.entrySet()) {
+            if (report.adoptedImages.containsKey(entry.getKey())) {
+                folderIds.add(entry.getValue());
+            }
+        }
+        for (String folderId : folderIds) {
+            folderManager.getFolderById(folderId);
+        }
+    }
+
+    /**
+     * Aplica las reparaciones al índice: reenlaza URIs, quita entradas sin archivo,
+     * adopta los archivos huérfanos que están dentro del directorio de una carpeta y completa
+     * los datos del archivo que faltaban.
+     * Entre la instantánea y este momento se han podido guardar o mover imágenes, así que
+     * cada reparación solo se aplica si la imagen sigue en la misma carpeta y con la misma ruta
+     * que al revisar los archivos. Se llama en el hilo principal y no toca el disco.
+     *
+     * @param report Informe con las diferencias.
+     */
+    private void applyRepairs(ReconcileReport report) {
+        Map<String, Folder> changedFolders = new HashMap<>();
+
+        for (Map.Entry<String, File> entry : report.relinkedImages.entrySet()) {
+            Folder folder = findScannedFolder(report, entry.getKey());
+            Image image = findScannedImage(report, folder, entry.getKey());
+            if (image != null) {
+                image.setUri(Uri.fromFile(entry.getValue()));
+                changedFolders.put(folder.getId(), folder);
+            }
+        }
+
+        // Las entradas sin archivo se quitan por carpeta, de una vez
+        Map<Folder, List<String>> danglingByFolder = new HashMap<>();
+        for (String imageId : report.danglingImages.keySet()) {
+            Folder folder = findScannedFolder(report, imageId);
+            if (findScannedImage(report, folder, imageId) != null) {
+                List<String> imageIds = danglingByFolder.get(folder);
+                if (imageIds == null) {
+                    imageIds = new ArrayList<>();
+                    danglingByFolder.put(folder, imageIds);
+                }
+                imageIds.add(imageId);
+            }
+        }
+        for (Map.Entry<Folder, List<String>> entry : danglingByFolder.entrySet()) {
+            if (entry.getKey().removeImagesById(entry.getValue()) > 0) {
+                changedFolders.put(entry.getKey().getId(), entry.getKey());
+            }
+        }
+
+        Map<String, Set<String>> indexedPaths = new HashMap<>();
+        for (Map.Entry<File, String> entry : report.orphanFiles.entrySet()) {
+            Image image = report.adoptedImages.get(entry.getKey());
+            Folder folder = image != null ? folderManager.getFolderById(entry.getValue()) : null;
+            if (folder == null) {
+                continue;
+            }
+            // Un archivo que ya tiene imagen se guardó o se movió después de la instantánea
+            Set<String> paths = indexedPaths.get(folder.getId());
+            if (paths == null) {
+                paths = indexedPathsOf(folder);
+                indexedPaths.put(folder.getId(), paths);
+            }
+            if (paths.add(entry.getKey().getPath())) {
+                folder.addImage(image);
+                changedFolders.put(folder.getId(), folder);
+            }
+        }
+
+        for (Map.Entry<String, Image> entry : report.fileInfo.entrySet()) {
+            Folder folder = findScannedFolder(report, entry.getKey());
+            Image image = findScannedImage(report, folder, entry.getKey());
+            if (image != null && backfillFileInfo(image, entry.getValue())) {
+                changedFolders.put(folder.getId(), folder);
+            }
+        }
+
+        if (!changedFolders.isEmpty()) {
+            folderManager.updateFolders(new ArrayList<>(changedFolders.values()));
+        }
+    }
+
+    /**
+     * Obtiene la carpeta en la que estaba una imagen al revisar los archivos.
+     *
+     * @param report  Informe con las diferencias.
+     * @param imageId ID de la imagen.
+     * @return Carpeta cargada, o null si ya no existe.
+     */
+    private Folder findScannedFolder(ReconcileReport report, String imageId) {
+        String folderId = report.scannedFolderIds.get(imageId);
+        return folderId != null ? folderManager.getFolderById(folderId) : null;
+    }
+
+    /**
+     * Busca una imagen en su carpeta si todavía apunta a la ruta revisada.
+     *
+     * @param report  Informe con las diferencias.
+     * @param folder  Carpeta en la que estaba la imagen.
+     * @param imageId ID de la imagen.
+     * @return Imagen, o null si se movió, se reenlazó o se borró después de la revisión.
+     */
+    private static Image findScannedImage(ReconcileReport report, Folder folder, String imageId) {
+        Image image = folder != null ? folder.findImageById(imageId) : null;
+        if (image == null) {
+            return null;
+        }
+        String path = image.getUri().getPath();
+        return path != null && path.equals(report.scannedPaths.get(imageId)) ? image : null;
+    }
+
+    /**
+     * Obtiene las rutas de las imágenes de una carpeta.
+     *
+     * @param folder Carpeta.
+     * @return Rutas indexadas.
+     */
+    private static Set<String> indexedPathsOf(Folder folder) {
+        Set<String> paths = new HashSet<>();
+        for (Image image : folder.getImages()) {
+            String path = image.getUri().getPath();
+            if (path != null) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Copia en una imagen los datos del archivo que no tenía.
+     *
+     * @param image Imagen.
+     * @param info  Imagen con los datos leídos del archivo.
+     * @return true si la imagen cambió.
+     */
+    private static boolean backfillFileInfo(Image image, Image info) {
+        boolean changed = false;
+        if (image.getByteSize() == 0 && info.getByteSize() != 0) {
+            image.setFileInfo(info.getByteSize(), info.getWidth(), info.getHeight());
+            changed = true;
+        }
+        if (image.getImportedAt() == 0 && info.getImportedAt() != 0) {
+            image.setImportedAt(info.getImportedAt());
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Quita la extensión de un nombre de archivo.
+     *
+     * @param fileName Nombre del archivo.
+     * @return Nombre sin extensión.
+     */
+    private String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,195 @@
+package com.dev.brain2.managers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.SearchIndexSnapshot;
+import com.dev.brain2.utils.AppExecutors;
+import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de búsqueda guardado en disco, para abrir la búsqueda sin leer la biblioteca completa.
+ * Es una copia de las imágenes con sus nombres normalizados y sus etiquetas, más un registro con
+ * las carpetas cambiadas después; cuando el registro ocupa más que la copia, se juntan.
+ * Cada cambio lleva la generación de la biblioteca; si falta alguno o la copia no llega a la
+ * generación actual, se descarta y los índices se construyen desde la biblioteca.
+ */
+public class SearchIndexCache {
+
+    private static final String TAG = "SearchIndexCache";
+    // Todas las instancias escriben los mismos archivos
+    private static final Object LOCK = new Object();
+
+    private final DataStorage dataStorage;
+    private final AppExecutors executors;
+
+    /**
+     * Constructor.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    public SearchIndexCache(Context context) {
+        this.dataStorage = new DataStorage(context);
+        this.executors = AppExecutors.getInstance();
+    }
+
+    /**
+     * Lee las carpetas del índice guardado si corresponde a la generación actual.
+     *
+     * @param generation Generación actual de la biblioteca.
+     * @param summaries  Resúmenes de la biblioteca, en orden.
+     * @return Carpetas con sus imágenes en el orden de los resúmenes, o null si hay que reconstruir.
+     */
+    public List<Folder> load(long generation, List<FolderSummary> summaries) {
+        long start = Metrics.startTimer();
+        List<Folder> folders;
+        synchronized (LOCK) {
+            SearchIndexSnapshot snapshot = dataStorage.readSearchIndex();
+            SearchIndexSnapshot current = snapshot != null
+                    ? snapshot.apply(dataStorage.readSearchIndexChanges())
+                    : null;
+            folders = current != null && current.getGeneration() == generation
+                    ? toFolders(current, summaries)
+                    : null;
+            if (folders == null && snapshot != null) {
+                Log.i(TAG, "Índice de búsqueda guardado desactualizado");
+                dataStorage.deleteSearchIndex();
+            }
+        }
+        if (folders == null) {
+            Metrics.increment("searchIndexCache.miss", 1);
+            return null;
+        }
+        Metrics.increment("searchIndexCache.hit", 1);
+        Metrics.stopTimer("searchIndexCache.load", start);
+        return folders;
+    }
+
+    /**
+     * Guarda en segundo plano una copia nueva del índice, con las carpetas con las que se acaba
+     * de construir. Las carpetas tienen que ser copias propias (leídas del almacenamiento), no
+     * las de LibraryIndex, porque se llama fuera del hilo principal.
+     *
+     * @param folders    Copias de las carpetas de la biblioteca.
+     * @param generation Generación que tenía la biblioteca antes de leer las carpetas.
+     */
+    public void save(List<Folder> folders, long generation) {
+        List<SearchIndexSnapshot.Segment> segments = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            segments.add(SearchIndexSnapshot.Segment.of(folder));
+        }
+        SearchIndexSnapshot snapshot = new SearchIndexSnapshot(generation, segments);
+        executors.diskIO().execute(() -> {
+            synchronized (LOCK) {
+                dataStorage.writeSearchIndex(snapshot);
+            }
+        });
+    }
+
+    /**
+     * Añade al registro, en segundo plano, las carpetas que se acaban de guardar. Las partes
+     * se crean ahora, en el hilo principal al que pertenecen las carpetas, y al ejecutor solo
+     * llegan esas copias. Si no hay copia no hace nada:
+     * el índice se construirá desde la biblioteca la próxima vez.
+     *
+     * @param folders    Carpetas guardadas.
+     * @param generation Generación de la biblioteca tras guardarlas.
+     */
+    public void putFolders(List<Folder> folders, long generation) {
+        List<SearchIndexSnapshot.Segment> segments = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            segments.add(SearchIndexSnapshot.Segment.of(folder));
+        }
+        append(new SearchIndexSnapshot.Change(generation, segments, Collections.emptyList()));
+    }
+
+    /**
+     * Añade al registro, en segundo plano, la eliminación de una carpeta.
+     *
+     * @param folderId   ID de la carpeta eliminada.
+     * @param generation Generación de la biblioteca tras eliminarla.
+     */
+    public void removeFolder(String folderId, long generation) {
+        append(new SearchIndexSnapshot.Change(generation, Collections.emptyList(),
+                Collections.singletonList(folderId)));
+    }
+
+    /**
+     * Añade un cambio en diskIO y junta el registro con la copia si ya ocupa más que ella.
+     * diskIO ejecuta las tareas en orden, así que los cambios llegan al registro en el orden
+     * de sus generaciones.
+     *
+     * @param change Cambio a añadir.
+     */
+    private void append(SearchIndexSnapshot.Change change) {
+        executors.diskIO().execute(() -> {
+            synchronized (LOCK) {
+                if (dataStorage.hasSearchIndex()) {
+                    appendNow(change);
+                }
+            }
+        });
+    }
+
+    /**
+     * Escribe un cambio en el registro y lo compacta si hace falta. Se llama con LOCK tomado.
+     *
+     * @param change Cambio a añadir.
+     */
+    private void appendNow(SearchIndexSnapshot.Change change) {
+        long journalBytes = dataStorage.appendSearchIndexChange(change);
+        if (journalBytes > dataStorage.getSearchIndexSize()) {
+            long start = Metrics.startTimer();
+            SearchIndexSnapshot snapshot = dataStorage.readSearchIndex();
+            SearchIndexSnapshot current = snapshot != null
+                    ? snapshot.apply(dataStorage.readSearchIndexChanges())
+                    : null;
+            if (current != null) {
+                dataStorage.writeSearchIndex(current);
+            } else {
+                dataStorage.deleteSearchIndex();
+            }
+            Metrics.stopTimer("searchIndexCache.compact", start);
+        }
+    }
+
+    /**
+     * Reconstruye las carpetas en el orden de los resúmenes.
+     *
+     * @param snapshot  Copia al día.
+     * @param summaries Resúmenes de la biblioteca.
+     * @return Carpetas, o null si falta alguna o la copia está dañada.
+     */
+    private static List<Folder> toFolders(SearchIndexSnapshot snapshot, List<FolderSummary> summaries) {
+        Map<String, SearchIndexSnapshot.Segment> segmentsById = new HashMap<>();
+        for (SearchIndexSnapshot.Segment segment : snapshot.getFolders()) {
+            segmentsById.put(segment.getFolderId(), segment);
+        }
+        List<Folder> folders = new ArrayList<>(summaries.size());
+        try {
+            for (FolderSummary summary : summaries) {
+                SearchIndexSnapshot.Segment segment = segmentsById.get(summary.getId());
+                if (segment == null) {
+                    return null;
+                }
+                Folder folder = new Folder(summary.getName(), summary.getColor());
+                folder.setId(summary.getId());
+                folder.setImages(segment.toImages());
+                folders.add(folder);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            Log.w(TAG, "Índice de búsqueda guardado dañado", e);
+            return null;
+        }
+        return folders;
+    }
+}
@@ -0,0 +1,311 @@
+package com.dev.brain2.managers;
+
+import android.content.ComponentCallbacks2;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.Suggestion;
+import com.dev.brain2.models.TagDictionary;
+import com.dev.brain2.utils.CacheRegistry;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.PrefixTrie;
+import com.dev.brain2.utils.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice de autocompletado. Guarda los nombres de imagen y las etiquetas en dos árboles de
+ * prefijos, con el número de imágenes que usan cada uno como peso, y devuelve los más usados
+ * que empiezan por lo escrito. Los términos se indexan sin acentos ni mayúsculas, con la forma
+ * normalizada que ya guardan Image y TagDictionary, y se muestran con su texto original.
+ * Se actualiza carpeta a carpeta cada vez que se guarda una, como el TagIndex.
+ */
+public class SuggestionIndex {
+
+    // Tamaño aproximado en memoria de cada imagen y de cada término indexados
+    private static final long ESTIMATED_IMAGE_BYTES = 96;
+    private static final long ESTIMATED_TERM_BYTES = 160;
+
+    private static SuggestionIndex instance;
+
+    private final PrefixTrie names;
+    private final PrefixTrie tags;
+    private final Map<String, String> nameTextByKey;         // Nombre normalizado -> texto original
+    private final Map<String, String> tagTextByKey;          // Etiqueta normalizada -> texto original
+    private final Map<String, IndexedImage> imagesById;      // ID de imagen -> términos indexados
+    private final Map<String, Set<String>> imageIdsByFolder; // ID de carpeta -> IDs de imagen
+    private boolean loaded;
+
+    /**
+     * Constructor.
+     */
+    SuggestionIndex() {
+        this.names = new PrefixTrie();
+        this.tags = new PrefixTrie();
+        this.nameTextByKey = new HashMap<>();
+        this.tagTextByKey = new HashMap<>();
+        this.imagesById = new HashMap<>();
+        this.imageIdsByFolder = new HashMap<>();
+    }
+
+    /**
+     * Obtiene la instancia compartida del índice.
+     *
+     * @return Índice de autocompletado.
+     */
+    public static synchronized SuggestionIndex getInstance() {
+        if (instance == null) {
+            instance = new SuggestionIndex();
+            CacheRegistry.getInstance().register("suggestion.index", CacheRegistry.Tier.COSTLY, instance::trimMemory);
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si el índice ya se construyó.
+     *
+     * @return true si está cargado.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Construye el índice con la biblioteca completa.
+     *
+     * @param folders Carpetas de la biblioteca.
+     */
+    public synchronized void load(List<Folder> folders) {
+        long start = Metrics.startTimer();
+        clear();
+        for (Folder folder : folders) {
+            indexFolder(folder);
+        }
+        loaded = true;
+        Metrics.stopTimer("suggestionIndex.load", start);
+    }
+
+    /**
+     * Descarta el índice para que se reconstruya la próxima vez.
+     */
+    public synchronized void invalidate() {
+        clear();
+    }
+
+    /**
+     * Actualiza los nombres y etiquetas de una carpeta después de guardarla. Si el índice
+     * aún no se ha construido no hace nada.
+     *
+     * @param folder Carpeta guardada.
+     */
+    public synchronized void putFolder(Folder folder) {
+        if (loaded) {
+            indexFolder(folder);
+        }
+    }
+
+    /**
+     * Quita del índice las imágenes de una carpeta eliminada.
+     *
+     * @param folderId ID de la carpeta.
+     */
+    public synchronized void removeFolder(String folderId) {
+        Set<String> imageIds = imageIdsByFolder.remove(folderId);
+        if (imageIds == null) {
+            return;
+        }
+        for (String imageId : imageIds) {
+            IndexedImage indexed = imagesById.get(imageId);
+            if (indexed != null && folderId.equals(indexed.folderId)) {
+                imagesById.remove(imageId);
+                unindexTerms(indexed);
+            }
+        }
+    }
+
+    /**
+     * Busca los nombres y etiquetas más usados que empiezan por un prefijo. Las etiquetas
+     * van antes que los nombres con el mismo número de imágenes.
+     *
+     * @param prefix Texto escrito.
+     * @param limit  Número máximo de sugerencias.
+     * @return Sugerencias de más a menos usadas.
+     */
+    public synchronized List<Suggestion> suggest(String prefix, int limit) {
+        long start = Metrics.startTimer();
+        String key = normalize(prefix);
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (key.isEmpty()) {
+            return suggestions;
+        }
+        List<String> tagTerms = tags.complete(key, limit);
+        List<String> nameTerms = names.complete(key, limit);
+        int t = 0;
+        int n = 0;
+        while (suggestions.size() < limit && (t < tagTerms.size() || n < nameTerms.size())) {
+            int tagWeight = t < tagTerms.size() ? tags.getWeight(tagTerms.get(t)) : -1;
+            int nameWeight = n < nameTerms.size() ? names.getWeight(nameTerms.get(n)) : -1;
+            if (tagWeight >= nameWeight) {
+                String term = tagTerms.get(t++);
+                suggestions.add(new Suggestion(tagTextByKey.get(term), Suggestion.Kind.TAG, tagWeight));
+            } else {
+                String term = nameTerms.get(n++);
+                // Lo escrito que ya es un nombre completo no se sugiere
+                if (!term.equals(key)) {
+                    suggestions.add(new Suggestion(nameTextByKey.get(term), Suggestion.Kind.NAME, nameWeight));
+                }
+            }
+        }
+        Metrics.stopTimer("suggestionIndex.suggest", start);
+        return suggestions;
+    }
+
+    /**
+     * Descarta el índice cuando el sistema necesita memoria; se reconstruye la próxima vez.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados (estimados).
+     */
+    public synchronized long trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_MODERATE || !loaded) {
+            return 0;
+        }
+        long freed = imagesById.size() * ESTIMATED_IMAGE_BYTES
+                + (names.size() + tags.size()) * ESTIMATED_TERM_BYTES;
+        clear();
+        return freed;
+    }
+
+    /**
+     * Indexa (o reindexa) las imágenes de una carpeta. Solo cambian los pesos de los términos
+     * de las imágenes nuevas, renombradas, reetiquetadas o quitadas.
+     *
+     * @param folder Carpeta a indexar.
+     */
+    private void indexFolder(Folder folder) {
+        String folderId = folder.getId();
+        Set<String> previous = imageIdsByFolder.get(folderId);
+        Set<String> current = new HashSet<>();
+        for (Image image : folder.getImages()) {
+            current.add(image.getId());
+            IndexedImage indexed = imagesById.get(image.getId());
+            IndexedImage updated = IndexedImage.of(image, folderId);
+            if (indexed != null && !folderId.equals(indexed.folderId)) {
+                // Movida desde otra carpeta
+                Set<String> previousFolder = imageIdsByFolder.get(indexed.folderId);
+                if (previousFolder != null) {
+                    previousFolder.remove(image.getId());
+                }
+            }
+            if (indexed == null || !indexed.hasSameTerms(updated)) {
+                if (indexed != null) {
+                    unindexTerms(indexed);
+                }
+                indexTerms(updated);
+            }
+            imagesById.put(image.getId(), updated);
+        }
+        if (previous != null) {
+            for (String imageId : previous) {
+                IndexedImage indexed = imagesById.get(imageId);
+                if (!current.contains(imageId) && indexed != null && folderId.equals(indexed.folderId)) {
+                    imagesById.remove(imageId);
+                    unindexTerms(indexed);
+                }
+            }
+        }
+        imageIdsByFolder.put(folderId, current);
+    }
+
+    private void indexTerms(IndexedImage indexed) {
+        names.add(indexed.nameKey, 1);
+        nameTextByKey.putIfAbsent(indexed.nameKey, indexed.nameText);
+        for (int i = 0; i < indexed.tagKeys.length; i++) {
+            tags.add(indexed.tagKeys[i], 1);
+            tagTextByKey.putIfAbsent(indexed.tagKeys[i], indexed.tagTexts[i]);
+        }
+    }
+
+    private void unindexTerms(IndexedImage indexed) {
+        names.add(indexed.nameKey, -1);
+        if (names.getWeight(indexed.nameKey) == 0) {
+            nameTextByKey.remove(indexed.nameKey);
+        }
+        for (String tagKey : indexed.tagKeys) {
+            tags.add(tagKey, -1);
+            if (tags.getWeight(tagKey) == 0) {
+                tagTextByKey.remove(tagKey);
+            }
+        }
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    private void clear() {
+        names.clear();
+        tags.clear();
+        nameTextByKey.clear();
+        tagTextByKey.clear();
+        imagesById.clear();
+        imageIdsByFolder.clear();
+        loaded = false;
+    }
+
+    /**
+     * Pasa lo escrito a la forma con la que se indexa.
+     *
+     * @param text Texto.
+     * @return Texto sin espacios alrededor, sin acentos y en minúsculas.
+     */
+    static String normalize(String text) {
+        return TextNormalizer.fold(text.trim());
+    }
+
+    /**
+     * Términos con los que se indexó una imagen.
+     */
+    private static final class IndexedImage {
+        final String folderId;
+        final String nameKey;
+        final String nameText;
+        final String[] tagKeys;
+        final String[] tagTexts;
+
+        private IndexedImage(String folderId, String nameKey, String nameText, String[] tagKeys, String[] tagTexts) {
+            this.folderId = folderId;
+            this.nameKey = nameKey;
+            this.nameText = nameText;
+            this.tagKeys = tagKeys;
+            this.tagTexts = tagTexts;
+        }
+
+        static IndexedImage of(Image image, String folderId) {
+            // Una etiqueta repetida con otras mayúsculas o acentos cuenta una sola vez por imagen
+            TagDictionary dictionary = TagDictionary.getInstance();
+            Map<String, String> tagsByKey = new TreeMap<>();
+            for (int t = 0; t < image.getTagCount(); t++) {
+                int tagId = image.getTagId(t);
+                tagsByKey.putIfAbsent(dictionary.getFolded(tagId), dictionary.get(tagId));
+            }
+            tagsByKey.remove("");
+            String[] tagKeys = tagsByKey.keySet().toArray(new String[0]);
+            String[] tagTexts = new String[tagKeys.length];
+            for (int i = 0; i < tagKeys.length; i++) {
+                tagTexts[i] = tagsByKey.get(tagKeys[i]);
+            }
+            return new IndexedImage(folderId, image.getFoldedName(), image.getName().trim(), tagKeys, tagTexts);
+        }
+
+        boolean hasSameTerms(IndexedImage other) {
+            return nameKey.equals(other.nameKey) && Arrays.equals(tagKeys, other.tagKeys);
+        }
+    }
+}
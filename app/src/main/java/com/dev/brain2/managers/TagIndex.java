@@ -0,0 +1,596 @@
+package com.dev.brain2.managers;
+
+import android.content.ComponentCallbacks2;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.ImageIdSet;
+import com.dev.brain2.models.SearchQuery;
+import com.dev.brain2.models.TagDictionary;
+import com.dev.brain2.models.TagFacet;
+import com.dev.brain2.models.TagFilter;
+import com.dev.brain2.utils.CacheRegistry;
+import com.dev.brain2.utils.Metrics;
+import com.dev.brain2.utils.RangeIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de etiquetas de la biblioteca. Cada imagen tiene un número (ordinal) denso, que se
+ * reutiliza al quitarla, y cada etiqueta y cada carpeta el conjunto comprimido de ordinales de
+ * sus imágenes (ImageIdSet), así que los filtros AND/OR/NOT son operaciones entre conjuntos
+ * y no recorren las imágenes. La fecha de importación, el tamaño y las dimensiones tienen
+ * además un RangeIndex cada uno, así que las consultas con filtros (SearchQuery) se resuelven
+ * cruzando conjuntos, sin recorrer ni leer los archivos.
+ * Se actualiza carpeta a carpeta cada vez que se guarda una.
+ */
+public class TagIndex {
+
+    // Tamaño aproximado en memoria de cada imagen indexada, sin contar los conjuntos de ordinales
+    private static final long ESTIMATED_IMAGE_BYTES = 64;
+
+    private static TagIndex instance;
+
+    private final Map<String, Integer> ordinalsByImageId; // ID de imagen -> ordinal
+    private final List<Image> imagesByOrdinal;            // Ordinal -> imagen (null si está libre)
+    private final List<String> folderIdsByOrdinal;        // Ordinal -> ID de su carpeta
+    private final List<Integer> agesByOrdinal;            // Ordinal -> imágenes añadidas después en su carpeta
+    private final List<int[]> tagIdsByOrdinal;            // Ordinal -> etiquetas indexadas
+    private final Deque<Integer> freeOrdinals;            // Ordinales libres para reutilizar
+    private final Map<String, ImageIdSet> imagesByFolder; // ID de carpeta -> ordinales
+    private final List<ImageIdSet> imagesByTag;           // Número de etiqueta -> ordinales
+    private final ImageIdSet liveImages;                  // Ordinales en uso
+    private final RangeIndex[] rangeIndexes;              // SearchQuery.Property -> índice de sus valores
+    private final Map<String, List<Image>> folderImages;  // ID de carpeta -> imágenes en su orden
+    private List<String> orderedFolderIds;                // Orden de carpetas de orderedImages
+    private List<Image> orderedImages;                    // Imágenes en el orden de la biblioteca (null si cambió algo)
+    private int[] tagCounts;                              // Número de etiqueta -> imágenes con ella
+    private boolean loaded;
+
+    /**
+     * Constructor.
+     */
+    TagIndex() {
+        this.ordinalsByImageId = new HashMap<>();
+        this.imagesByOrdinal = new ArrayList<>();
+        this.folderIdsByOrdinal = new ArrayList<>();
+        this.agesByOrdinal = new ArrayList<>();
+        this.tagIdsByOrdinal = new ArrayList<>();
+        this.freeOrdinals = new ArrayDeque<>();
+        this.imagesByFolder = new HashMap<>();
+        this.imagesByTag = new ArrayList<>();
+        this.liveImages = new ImageIdSet();
+        this.tagCounts = new int[0];
+        this.folderImages = new HashMap<>();
+        this.rangeIndexes = new RangeIndex[SearchQuery.Property.values().length];
+        for (int i = 0; i < rangeIndexes.length; i++) {
+            rangeIndexes[i] = new RangeIndex();
+        }
+    }
+
+    /**
+     * Obtiene la instancia compartida del índice.
+     *
+     * @return Índice de etiquetas.
+     */
+    public static synchronized TagIndex getInstance() {
+        if (instance == null) {
+            instance = new TagIndex();
+            CacheRegistry.getInstance().register("tag.index", CacheRegistry.Tier.COSTLY, instance::trimMemory);
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si el índice ya se construyó.
+     *
+     * @return true si está cargado.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Construye el índice con la biblioteca completa.
+     *
+     * @param folders Carpetas de la biblioteca.
+     */
+    public synchronized void load(List<Folder> folders) {
+        long start = Metrics.startTimer();
+        clear();
+        for (Folder folder : folders) {
+            indexFolder(folder);
+        }
+        loaded = true;
+        Metrics.stopTimer("tagIndex.load", start);
+    }
+
+    /**
+     * Descarta el índice para que se reconstruya con la próxima búsqueda.
+     */
+    public synchronized void invalidate() {
+        clear();
+    }
+
+    /**
+     * Actualiza las imágenes de una carpeta después de guardarla. Si el índice aún no
+     * se ha construido no hace nada: se construirá con los datos guardados.
+     *
+     * @param folder Carpeta guardada.
+     */
+    public synchronized void putFolder(Folder folder) {
+        if (loaded) {
+            indexFolder(folder);
+        }
+    }
+
+    /**
+     * Quita del índice las imágenes de una carpeta eliminada.
+     *
+     * @param folderId ID de la carpeta.
+     */
+    public synchronized void removeFolder(String folderId) {
+        folderImages.remove(folderId);
+        orderedImages = null;
+        ImageIdSet ordinals = imagesByFolder.remove(folderId);
+        if (ordinals == null) {
+            return;
+        }
+        for (int ordinal = ordinals.nextId(0); ordinal >= 0; ordinal = ordinals.nextId(ordinal + 1)) {
+            if (folderId.equals(folderIdsByOrdinal.get(ordinal))) {
+                releaseOrdinal(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Calcula las imágenes que cumplen un filtro de etiquetas.
+     *
+     * @param filter Filtro de etiquetas.
+     * @return Ordinales de las imágenes que lo cumplen (copia).
+     */
+    public synchronized ImageIdSet filter(TagFilter filter) {
+        long start = Metrics.startTimer();
+        ImageIdSet result = liveImages.copy();
+        for (String tag : filter.getAllOf()) {
+            ImageIdSet tagged = imagesWithTag(tag);
+            if (tagged == null) {
+                result.clear();
+                break;
+            }
+            result = result.and(tagged);
+        }
+        if (!filter.getAnyOf().isEmpty()) {
+            ImageIdSet anyTagged = new ImageIdSet();
+            for (String tag : filter.getAnyOf()) {
+                ImageIdSet tagged = imagesWithTag(tag);
+                if (tagged != null) {
+                    anyTagged = anyTagged.or(tagged);
+                }
+            }
+            result = result.and(anyTagged);
+        }
+        for (String tag : filter.getNoneOf()) {
+            ImageIdSet tagged = imagesWithTag(tag);
+            if (tagged != null) {
+                result = result.andNot(tagged);
+            }
+        }
+        Metrics.stopTimer("tagIndex.filter", start);
+        return result;
+    }
+
+    /**
+     * Calcula las imágenes que cumplen los filtros de una consulta: carpetas, etiquetas
+     * (sin acentos ni mayúsculas) y rangos de fecha, tamaño o dimensiones.
+     * El texto libre de la consulta no se tiene en cuenta.
+     *
+     * @param query     Consulta con filtros.
+     * @param folderIds IDs de las carpetas permitidas, o null para no filtrar por carpeta.
+     * @return Ordinales de las imágenes que los cumplen (copia).
+     */
+    public synchronized ImageIdSet filter(SearchQuery query, Collection<String> folderIds) {
+        long start = Metrics.startTimer();
+        ImageIdSet result = liveImages.copy();
+        if (folderIds != null) {
+            ImageIdSet inFolders = new ImageIdSet();
+            for (String folderId : folderIds) {
+                ImageIdSet ordinals = imagesByFolder.get(folderId);
+                if (ordinals != null) {
+                    inFolders = inFolders.or(ordinals);
+                }
+            }
+            result = result.and(inFolders);
+        }
+        for (String tag : query.getTags()) {
+            result = result.and(imagesWithFoldedTag(tag));
+        }
+        for (String tag : query.getExcludedTags()) {
+            result = result.andNot(imagesWithFoldedTag(tag));
+        }
+        for (SearchQuery.Range range : query.getRanges()) {
+            if (result.isEmpty()) {
+                break;
+            }
+            result = result.and(rangeIndexes[range.getProperty().ordinal()].select(range.getMin(), range.getMax()));
+        }
+        Metrics.stopTimer("tagIndex.filterQuery", start);
+        return result;
+    }
+
+    /**
+     * Obtiene los ordinales de una lista de imágenes, para combinarlos con un filtro.
+     *
+     * @param images Imágenes indexadas.
+     * @return Ordinales de las imágenes que están en el índice.
+     */
+    public synchronized ImageIdSet ordinalsOf(List<Image> images) {
+        ImageIdSet ordinals = new ImageIdSet();
+        for (Image image : images) {
+            Integer ordinal = ordinalsByImageId.get(image.getId());
+            if (ordinal != null) {
+                ordinals.add(ordinal);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Se queda con las imágenes de una lista cuyo ordinal está en un conjunto, sin cambiar
+     * el orden de la lista.
+     *
+     * @param images   Imágenes en el orden deseado.
+     * @param ordinals Ordinales permitidos.
+     * @return Imágenes permitidas, en el mismo orden.
+     */
+    public synchronized List<Image> retain(List<Image> images, ImageIdSet ordinals) {
+        List<Image> retained = new ArrayList<>();
+        for (Image image : images) {
+            Integer ordinal = ordinalsByImageId.get(image.getId());
+            if (ordinal != null && ordinals.contains(ordinal)) {
+                retained.add(image);
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * Obtiene de una vez la carpeta y la antigüedad de varias imágenes, para ordenar resultados.
+     *
+     * @param images    Imágenes.
+     * @param folderIds Donde se escribe el ID de la carpeta de cada imagen (null si no está indexada).
+     * @param ages      Donde se escribe cuántas imágenes se añadieron después a su carpeta.
+     */
+    public synchronized void fillRankingSignals(List<Image> images, String[] folderIds, int[] ages) {
+        for (int i = 0; i < images.size(); i++) {
+            Integer ordinal = ordinalsByImageId.get(images.get(i).getId());
+            folderIds[i] = ordinal != null ? folderIdsByOrdinal.get(ordinal) : null;
+            ages[i] = ordinal != null ? agesByOrdinal.get(ordinal) : Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Obtiene los ordinales de las imágenes de una carpeta.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Ordinales de la carpeta (copia); vacío si no está indexada.
+     */
+    public synchronized ImageIdSet getFolderOrdinals(String folderId) {
+        ImageIdSet ordinals = imagesByFolder.get(folderId);
+        return ordinals != null ? ordinals.copy() : new ImageIdSet();
+    }
+
+    /**
+     * Obtiene todas las imágenes indexadas en el orden de la biblioteca, para verificar
+     * una búsqueda de texto sin leer las carpetas. La lista se reutiliza mientras no cambie
+     * el índice ni el orden de las carpetas.
+     *
+     * @param folderIds IDs de las carpetas, en orden.
+     * @return Imágenes carpeta a carpeta, cada una en su orden (no modificar).
+     */
+    public synchronized List<Image> getImagesInOrder(List<String> folderIds) {
+        if (orderedImages != null && folderIds.equals(orderedFolderIds)) {
+            return orderedImages;
+        }
+        List<Image> images = new ArrayList<>(liveImages.cardinality());
+        for (String folderId : folderIds) {
+            List<Image> inFolder = folderImages.get(folderId);
+            if (inFolder == null) {
+                continue;
+            }
+            for (Image image : inFolder) {
+                // Una imagen movida sigue en la lista de su carpeta anterior hasta que esta se guarda
+                Integer ordinal = ordinalsByImageId.get(image.getId());
+                if (ordinal != null && folderId.equals(folderIdsByOrdinal.get(ordinal))) {
+                    images.add(image);
+                }
+            }
+        }
+        orderedFolderIds = new ArrayList<>(folderIds);
+        orderedImages = Collections.unmodifiableList(images);
+        return orderedImages;
+    }
+
+    /**
+     * Obtiene las imágenes de un conjunto de ordinales.
+     *
+     * @param ordinals Ordinales.
+     * @return Imágenes en orden de ordinal.
+     */
+    public synchronized List<Image> resolve(ImageIdSet ordinals) {
+        List<Image> images = new ArrayList<>(ordinals.cardinality());
+        for (int ordinal = ordinals.nextId(0); ordinal >= 0; ordinal = ordinals.nextId(ordinal + 1)) {
+            Image image = ordinal < imagesByOrdinal.size() ? imagesByOrdinal.get(ordinal) : null;
+            if (image != null) {
+                images.add(image);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Cuenta cuántas imágenes tienen cada etiqueta, de más a menos frecuente.
+     *
+     * @param within Ordinales a los que limitar el recuento, o null para toda la biblioteca.
+     * @param limit  Número máximo de etiquetas.
+     * @return Etiquetas con su número de imágenes, sin las que no tienen ninguna.
+     */
+    public synchronized List<TagFacet> getFacets(ImageIdSet within, int limit) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<TagFacet> facets = new ArrayList<>();
+        for (int tagId = 0; tagId < imagesByTag.size(); tagId++) {
+            ImageIdSet tagged = imagesByTag.get(tagId);
+            if (tagged == null || tagCounts[tagId] == 0) {
+                continue;
+            }
+            int count = within == null ? tagCounts[tagId] : within.andCardinality(tagged);
+            if (count > 0) {
+                facets.add(new TagFacet(dictionary.get(tagId), count));
+            }
+        }
+        facets.sort((a, b) -> a.getCount() != b.getCount()
+                ? Integer.compare(b.getCount(), a.getCount())
+                : a.getTag().compareTo(b.getTag()));
+        return facets.size() > limit ? new ArrayList<>(facets.subList(0, limit)) : facets;
+    }
+
+    /**
+     * Descarta el índice cuando el sistema necesita memoria; se reconstruye la próxima vez.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados (estimados).
+     */
+    public synchronized long trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_MODERATE || !loaded) {
+            return 0;
+        }
+        long freed = liveImages.cardinality() * ESTIMATED_IMAGE_BYTES;
+        for (RangeIndex rangeIndex : rangeIndexes) {
+            freed += rangeIndex.getSizeInBytes();
+        }
+        for (ImageIdSet tagged : imagesByTag) {
+            freed += tagged != null ? tagged.getSizeInBytes() : 0;
+        }
+        clear();
+        return freed;
+    }
+
+    /**
+     * Indexa (o reindexa) las imágenes de una carpeta. Las imágenes que ya no están en ella
+     * se liberan salvo que se hayan movido a otra carpeta.
+     *
+     * @param folder Carpeta a indexar.
+     */
+    private void indexFolder(Folder folder) {
+        String folderId = folder.getId();
+        ImageIdSet previous = imagesByFolder.get(folderId);
+        ImageIdSet current = new ImageIdSet();
+        List<Image> images = folder.getImages();
+        for (int i = 0; i < images.size(); i++) {
+            Image image = images.get(i);
+            int ordinal = ordinalFor(image);
+            current.add(ordinal);
+            imagesByOrdinal.set(ordinal, image);
+            // Las imágenes nuevas se añaden al final de la carpeta
+            agesByOrdinal.set(ordinal, images.size() - 1 - i);
+            String previousFolderId = folderIdsByOrdinal.set(ordinal, folderId);
+            if (previousFolderId != null && !previousFolderId.equals(folderId)) {
+                ImageIdSet previousFolder = imagesByFolder.get(previousFolderId);
+                if (previousFolder != null) {
+                    previousFolder.remove(ordinal);
+                }
+            }
+            reindexTags(ordinal, image);
+            indexProperties(ordinal, image);
+        }
+        if (previous != null) {
+            ImageIdSet removed = previous.andNot(current);
+            for (int ordinal = removed.nextId(0); ordinal >= 0; ordinal = removed.nextId(ordinal + 1)) {
+                if (folderId.equals(folderIdsByOrdinal.get(ordinal))) {
+                    releaseOrdinal(ordinal);
+                }
+            }
+        }
+        imagesByFolder.put(folderId, current);
+        folderImages.put(folderId, new ArrayList<>(images));
+        orderedImages = null;
+    }
+
+    /**
+     * Obtiene el ordinal de una imagen, asignando uno si es nueva.
+     *
+     * @param image Imagen.
+     * @return Ordinal.
+     */
+    private int ordinalFor(Image image) {
+        Integer ordinal = ordinalsByImageId.get(image.getId());
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (freeOrdinals.isEmpty()) {
+            ordinal = imagesByOrdinal.size();
+            imagesByOrdinal.add(null);
+            folderIdsByOrdinal.add(null);
+            agesByOrdinal.add(0);
+            tagIdsByOrdinal.add(null);
+        } else {
+            ordinal = freeOrdinals.pop();
+        }
+        ordinalsByImageId.put(image.getId(), ordinal);
+        liveImages.add(ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Actualiza los mapas de bits de las etiquetas de una imagen.
+     *
+     * @param ordinal Ordinal de la imagen.
+     * @param image   Imagen con sus etiquetas actuales.
+     */
+    private void reindexTags(int ordinal, Image image) {
+        unindexTags(ordinal);
+        int[] tagIds = new int[image.getTagCount()];
+        for (int i = 0; i < tagIds.length; i++) {
+            int tagId = image.getTagId(i);
+            tagIds[i] = tagId;
+            ImageIdSet tagged = ordinalsForTag(tagId);
+            if (tagged.add(ordinal)) {
+                tagCounts[tagId]++;
+            }
+        }
+        tagIdsByOrdinal.set(ordinal, tagIds);
+    }
+
+    /**
+     * Quita una imagen de los mapas de bits de sus etiquetas indexadas.
+     *
+     * @param ordinal Ordinal de la imagen.
+     */
+    private void unindexTags(int ordinal) {
+        int[] tagIds = tagIdsByOrdinal.get(ordinal);
+        if (tagIds == null) {
+            return;
+        }
+        for (int tagId : tagIds) {
+            ImageIdSet tagged = imagesByTag.get(tagId);
+            if (tagged.remove(ordinal)) {
+                tagCounts[tagId]--;
+            }
+        }
+        tagIdsByOrdinal.set(ordinal, null);
+    }
+
+    /**
+     * Actualiza los índices de rango con los datos de una imagen.
+     *
+     * @param ordinal Ordinal de la imagen.
+     * @param image   Imagen.
+     */
+    private void indexProperties(int ordinal, Image image) {
+        rangeIndexes[SearchQuery.Property.IMPORTED_AT.ordinal()].set(ordinal, image.getImportedAt());
+        rangeIndexes[SearchQuery.Property.BYTE_SIZE.ordinal()].set(ordinal, image.getByteSize());
+        rangeIndexes[SearchQuery.Property.WIDTH.ordinal()].set(ordinal, image.getWidth());
+        rangeIndexes[SearchQuery.Property.HEIGHT.ordinal()].set(ordinal, image.getHeight());
+    }
+
+    /**
+     * Libera el ordinal de una imagen que ya no está en la biblioteca.
+     *
+     * @param ordinal Ordinal a liberar.
+     */
+    private void releaseOrdinal(int ordinal) {
+        unindexTags(ordinal);
+        Image image = imagesByOrdinal.set(ordinal, null);
+        if (image != null) {
+            ordinalsByImageId.remove(image.getId());
+        }
+        folderIdsByOrdinal.set(ordinal, null);
+        agesByOrdinal.set(ordinal, 0);
+        for (RangeIndex rangeIndex : rangeIndexes) {
+            rangeIndex.set(ordinal, 0);
+        }
+        liveImages.remove(ordinal);
+        freeOrdinals.push(ordinal);
+    }
+
+    /**
+     * Obtiene los ordinales de una etiqueta por su texto.
+     *
+     * @param tag Texto de la etiqueta.
+     * @return Conjunto de ordinales, o null si ninguna imagen indexada la ha tenido.
+     */
+    private ImageIdSet imagesWithTag(String tag) {
+        int tagId = TagDictionary.getInstance().find(tag);
+        return tagId != TagDictionary.NO_TAG && tagId < imagesByTag.size() ? imagesByTag.get(tagId) : null;
+    }
+
+    /**
+     * Obtiene los ordinales de las etiquetas que, sin acentos ni mayúsculas, son iguales a un texto.
+     *
+     * @param folded Etiqueta normalizada con TextNormalizer.fold.
+     * @return Conjunto de ordinales; vacío si ninguna etiqueta coincide.
+     */
+    private ImageIdSet imagesWithFoldedTag(String folded) {
+        TagDictionary dictionary = TagDictionary.getInstance();
+        ImageIdSet tagged = new ImageIdSet();
+        for (int tagId = 0; tagId < imagesByTag.size(); tagId++) {
+            ImageIdSet ordinals = imagesByTag.get(tagId);
+            if (ordinals != null && tagCounts[tagId] > 0 && folded.equals(dictionary.getFolded(tagId))) {
+                tagged = tagged.or(ordinals);
+            }
+        }
+        return tagged;
+    }
+
+    /**
+     * Obtiene los ordinales de una etiqueta, creando el conjunto si hace falta.
+     *
+     * @param tagId Número de la etiqueta.
+     * @return Conjunto de ordinales de la etiqueta.
+     */
+    private ImageIdSet ordinalsForTag(int tagId) {
+        while (imagesByTag.size() <= tagId) {
+            imagesByTag.add(null);
+        }
+        if (tagCounts.length <= tagId) {
+            tagCounts = Arrays.copyOf(tagCounts, Math.max(tagId + 1, tagCounts.length * 2));
+        }
+        ImageIdSet tagged = imagesByTag.get(tagId);
+        if (tagged == null) {
+            tagged = new ImageIdSet();
+            imagesByTag.set(tagId, tagged);
+        }
+        return tagged;
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    private void clear() {
+        ordinalsByImageId.clear();
+        imagesByOrdinal.clear();
+        folderIdsByOrdinal.clear();
+        agesByOrdinal.clear();
+        tagIdsByOrdinal.clear();
+        freeOrdinals.clear();
+        imagesByFolder.clear();
+        folderImages.clear();
+        orderedImages = null;
+        orderedFolderIds = null;
+        imagesByTag.clear();
+        liveImages.clear();
+        for (RangeIndex rangeIndex : rangeIndexes) {
+            rangeIndex.clear();
+        }
+        tagCounts = new int[0];
+        loaded = false;
+    }
+}
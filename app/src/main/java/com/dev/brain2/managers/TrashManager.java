@@ -0,0 +1,283 @@
+package com.dev.brain2.managers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.utils.AppExecutors;
+import com.dev.brain2.utils.MainThreadIoGuard;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Esta clase mueve las carpetas eliminadas a una papelera con un solo renombrado
+ * y borra su contenido en segundo plano cuando termina el tiempo para deshacer.
+ */
+public class TrashManager {
+
+    private static final String TAG = "TrashManager";
+    private static final String TRASH_DIR_NAME = ".trash";
+
+    public static final int UNDO_WINDOW_MS = 8000;
+
+    private static TrashManager instance;
+
+    private final File trashDir;
+    private final AppExecutors executors;
+    private final Map<File, Future<?>> pendingPurges;   // Directorio -> purga programada o en curso
+
+    /**
+     * Representa una carpeta que está en la papelera esperando a ser purgada.
+     */
+    public static class TrashEntry {
+        private final Folder folder;
+        private final File originalDir;
+        private final File trashedDir;
+        private final int position;
+
+        TrashEntry(Folder folder, File originalDir, File trashedDir, int position) {
+            this.folder = folder;
+            this.originalDir = originalDir;
+            this.trashedDir = trashedDir;
+            this.position = position;
+        }
+
+        public Folder getFolder() {
+            return folder;
+        }
+
+        File getOriginalDir() {
+            return originalDir;
+        }
+
+        File getTrashedDir() {
+            return trashedDir;
+        }
+
+        int getPosition() {
+            return position;
+        }
+    }
+
+    /**
+     * Constructor. Programa la purga de lo que haya quedado en la papelera de sesiones anteriores.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    private TrashManager(Context context) {
+        // La papelera vive en el mismo volumen que Pictures para que mover sea un solo renombrado
+        this.trashDir = new File(context.getApplicationContext().getExternalFilesDir(null), TRASH_DIR_NAME);
+        this.executors = AppExecutors.getInstance();
+        this.pendingPurges = new ConcurrentHashMap<>();
+        executors.scheduledIO().execute(this::purgeLeftovers);
+    }
+
+    /**
+     * Obtiene la instancia compartida de la papelera.
+     *
+     * @param context Contexto de la aplicación.
+     * @return Papelera de la aplicación.
+     */
+    public static synchronized TrashManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new TrashManager(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Mueve una carpeta a la papelera y programa su purga.
+     *
+     * @param folder    Carpeta eliminada.
+     * @param folderDir Directorio de la carpeta en disco.
+     * @param position  Posición que ocupaba la carpeta en la biblioteca.
+     * @return Entrada de la papelera, o null si no había nada que mover.
+     */
+    public TrashEntry moveToTrash(Folder folder, File folderDir, int position) {
+        MainThreadIoGuard.onDiskWrite();
+        if (!folderDir.exists()) {
+            return null;
+        }
+
+        File trashedDir = new File(trashDir, folder.getId() + "-" + System.currentTimeMillis());
+        if (!trashDir.exists()) {
+            trashDir.mkdirs();
+        }
+
+        if (!folderDir.renameTo(trashedDir)) {
+            // Sin renombrado no hay forma de deshacer: se borra directamente en segundo plano
+            Log.w(TAG, "No se pudo mover a la papelera: " + folderDir);
+            executors.scheduledIO().execute(() -> purgeDirectory(folderDir));
+            return null;
+        }
+
+        schedulePurge(trashedDir, UNDO_WINDOW_MS);
+        return new TrashEntry(folder, folderDir, trashedDir, position);
+    }
+
+    /**
+     * Restaura una carpeta de la papelera a su ubicación original.
+     *
+     * @param entry Entrada de la papelera.
+     * @return true si se restauró, false si ya fue purgada o el destino está ocupado.
+     */
+    public boolean restore(TrashEntry entry) {
+        MainThreadIoGuard.onDiskWrite();
+        // Si la purga ya empezó sigue registrada hasta que termine
+        Future<?> purge = pendingPurges.get(entry.getTrashedDir());
+        if (purge == null || !purge.cancel(false)) {
+            return false;
+        }
+        pendingPurges.remove(entry.getTrashedDir());
+
+        if (entry.getOriginalDir().exists() || !entry.getTrashedDir().renameTo(entry.getOriginalDir())) {
+            schedulePurge(entry.getTrashedDir(), 0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Programa la purga de un directorio de la papelera. La purga se registra antes de
+     * programarla, para que purgeLeftovers nunca vea el directorio sin ella aunque empiece
+     * enseguida; sale del registro cuando termina el borrado.
+     *
+     * @param trashedDir Directorio a purgar.
+     * @param delayMs    Retraso en milisegundos.
+     */
+    private void schedulePurge(File trashedDir, long delayMs) {
+        FutureTask<Void> purge = new FutureTask<>(() -> {
+            try {
+                purgeDirectory(trashedDir);
+            } finally {
+                pendingPurges.remove(trashedDir);
+            }
+        }, null);
+        pendingPurges.put(trashedDir, purge);
+        // Si restore la cancela antes, la tarea programada no hace nada
+        executors.scheduledIO().schedule(purge, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Purga los directorios que quedaron en la papelera sin purga programada, como los de
+     * una sesión anterior. Los que se movieron hace menos de UNDO_WINDOW_MS se dejan: aún
+     * se pueden restaurar.
+     */
+    private void purgeLeftovers() {
+        File[] leftovers = trashDir.listFiles();
+        if (leftovers == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File leftover : leftovers) {
+            if (!pendingPurges.containsKey(leftover) && now - trashedAt(leftover) >= UNDO_WINDOW_MS) {
+                purgeDirectory(leftover);
+            }
+        }
+    }
+
+    /**
+     * Obtiene cuándo se movió un directorio a la papelera: la marca de tiempo de su nombre
+     * (ver moveToTrash) o, si es más reciente, su fecha de modificación.
+     *
+     * @param trashedDir Directorio de la papelera.
+     * @return Milisegundos desde 1970.
+     */
+    private static long trashedAt(File trashedDir) {
+        String name = trashedDir.getName();
+        long named = 0;
+        try {
+            named = Long.parseLong(name.substring(name.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            // Nombre sin marca de tiempo: solo cuenta la fecha de modificación
+        }
+        return Math.max(named, trashedDir.lastModified());
+    }
+
+    /**
+     * Borra un directorio repartiendo el borrado de sus archivos entre varios hilos.
+     *
+     * @param root Directorio a borrar.
+     */
+    private void purgeDirectory(File root) {
+        List<File> directories = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        collectFiles(root, directories, files);
+
+        int parallelism = executors.getParallelism();
+        int chunkSize = Math.max(1, (files.size() + parallelism - 1) / parallelism);
+        List<Future<?>> deletions = new ArrayList<>();
+        for (int start = 0; start < files.size(); start += chunkSize) {
+            List<File> chunk = files.subList(start, Math.min(files.size(), start + chunkSize));
+            deletions.add(executors.parallelIO().submit(() -> deleteFiles(chunk)));
+        }
+        awaitAll(deletions);
+
+        // Los directorios se borran de los más profundos a la raíz
+        for (int i = directories.size() - 1; i >= 0; i--) {
+            directories.get(i).delete();
+        }
+    }
+
+    /**
+     * Recorre un directorio y separa sus directorios de sus archivos.
+     *
+     * @param file        Archivo o directorio a recorrer.
+     * @param directories Lista donde se agregan los directorios (padres antes que hijos).
+     * @param files       Lista donde se agregan los archivos.
+     */
+    private void collectFiles(File file, List<File> directories, List<File> files) {
+        if (!file.isDirectory()) {
+            if (file.exists()) {
+                files.add(file);
+            }
+            return;
+        }
+        directories.add(file);
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                collectFiles(child, directories, files);
+            }
+        }
+    }
+
+    /**
+     * Borra una lista de archivos.
+     *
+     * @param files Archivos a borrar.
+     */
+    private void deleteFiles(List<File> files) {
+        for (File file : files) {
+            if (!file.delete()) {
+                Log.w(TAG, "No se pudo borrar: " + file);
+            }
+        }
+    }
+
+    /**
+     * Espera a que terminen todas las tareas de borrado.
+     *
+     * @param deletions Tareas de borrado.
+     */
+    private void awaitAll(List<Future<?>> deletions) {
+        for (Future<?> deletion : deletions) {
+            try {
+                deletion.get();
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Error al purgar la papelera", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
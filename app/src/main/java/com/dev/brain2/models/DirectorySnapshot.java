@@ -0,0 +1,51 @@
+package com.dev.brain2.models;
+
+/**
+ * Estado de un directorio de imágenes en la última reconciliación sin diferencias.
+ * Si nada cambió desde entonces, el directorio se puede saltar sin listarlo.
+ */
+public class DirectorySnapshot {
+
+    private final long lastModified;      // Fecha de modificación del directorio
+    private final long length;            // Tamaño del directorio según el sistema de archivos
+    private final long indexFingerprint;  // Huella de las imágenes que el índice espera encontrar
+
+    /**
+     * Constructor.
+     *
+     * @param lastModified     Fecha de modificación del directorio.
+     * @param length           Tamaño del directorio.
+     * @param indexFingerprint Huella de las imágenes indexadas en el directorio.
+     */
+    public DirectorySnapshot(long lastModified, long length, long indexFingerprint) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.indexFingerprint = indexFingerprint;
+    }
+
+    /**
+     * Indica si el directorio y las imágenes indexadas siguen igual que en esta instantánea.
+     *
+     * @param lastModified     Fecha de modificación actual.
+     * @param length           Tamaño actual.
+     * @param indexFingerprint Huella actual del índice.
+     * @return true si no hubo cambios, false de lo contrario.
+     */
+    public boolean matches(long lastModified, long length, long indexFingerprint) {
+        return this.lastModified == lastModified
+                && this.length == length
+                && this.indexFingerprint == indexFingerprint;
+    }
+
+    /**
+     * Indica si el directorio sigue igual que en esta instantánea, sin mirar el índice.
+     * Solo sirve si se sabe por otro lado que el índice no cambió.
+     *
+     * @param lastModified Fecha de modificación actual.
+     * @param length       Tamaño actual.
+     * @return true si el directorio no cambió.
+     */
+    public boolean matchesDirectory(long lastModified, long length) {
+        return this.lastModified == lastModified && this.length == length;
+    }
+}
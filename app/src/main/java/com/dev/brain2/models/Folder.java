@@ -2,8 +2,11 @@ package com.dev.brain2.models;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Esta clase representa una carpeta que puede contener imágenes.
@@ -14,6 +17,8 @@ public class Folder implements Serializable {
     private String name;        // Nombre de la carpeta
     private String color;       // Color para mostrar en la interfaz
     private List<Image> images; // Lista de imágenes en la carpeta
+    // Imágenes por ID; no se guarda y se construye al usarlo, también tras deserializar
+    private transient Map<String, Image> imagesById;
 
     /**
      * Constructor: crea una nueva carpeta con un nombre y color.
@@ -101,6 +106,7 @@ public class Folder implements Serializable {
      */
     public void setImages(List<Image> images) {
         this.images = new ArrayList<>(images);
+        this.imagesById = null;
     }
 
     /**
@@ -114,6 +120,9 @@ public class Folder implements Serializable {
             throw new IllegalArgumentException("La imagen no puede ser nula");
         }
         images.add(image);
+        if (imagesById != null) {
+            imagesById.put(image.getId(), image);
+        }
     }
 
     /**
@@ -123,7 +132,72 @@ public class Folder implements Serializable {
      * @return true si la imagen fue eliminada, false de lo contrario.
      */
     public boolean removeImage(Image image) {
-        return images.remove(image);
+        return image != null && removeImageById(image.getId());
+    }
+
+    /**
+     * Elimina una imagen de la carpeta a partir de su ID.
+     * Funciona también con copias deserializadas de la imagen.
+     *
+     * @param imageId ID de la imagen a eliminar.
+     * @return true si la imagen fue eliminada, false de lo contrario.
+     */
+    public boolean removeImageById(String imageId) {
+        if (imagesById().remove(imageId) == null) {
+            return false;
+        }
+        for (int i = images.size() - 1; i >= 0; i--) {
+            if (images.get(i).getId().equals(imageId)) {
+                images.remove(i);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Elimina varias imágenes de la carpeta en una sola pasada por la lista.
+     *
+     * @param imageIds IDs de las imágenes a eliminar.
+     * @return Número de imágenes eliminadas.
+     */
+    public int removeImagesById(Collection<String> imageIds) {
+        Map<String, Image> byId = imagesById();
+        int removed = 0;
+        for (String imageId : imageIds) {
+            if (byId.remove(imageId) != null) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            images.removeIf(image -> !byId.containsKey(image.getId()));
+        }
+        return removed;
+    }
+
+    /**
+     * Busca una imagen de la carpeta a partir de su ID.
+     *
+     * @param imageId ID de la imagen.
+     * @return La imagen de esta carpeta, o null si no está.
+     */
+    public Image findImageById(String imageId) {
+        return imagesById().get(imageId);
+    }
+
+    /**
+     * Obtiene el índice de imágenes por ID, construyéndolo si aún no existe.
+     *
+     * @return Mapa de ID a imagen, en paso con la lista.
+     */
+    private Map<String, Image> imagesById() {
+        if (imagesById == null) {
+            imagesById = new HashMap<>();
+            for (Image image : images) {
+                imagesById.put(image.getId(), image);
+            }
+        }
+        return imagesById;
     }
 
     // MÉTODOS DE UTILIDAD
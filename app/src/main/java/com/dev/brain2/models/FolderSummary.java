@@ -0,0 +1,91 @@
+package com.dev.brain2.models;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Resumen de una carpeta con lo que necesita la pantalla principal, sin la lista de imágenes.
+ * Se guarda aparte para poder mostrar las carpetas sin leer toda la biblioteca.
+ */
+public class FolderSummary {
+
+    private final String id;            // Identificador de la carpeta
+    private final String name;          // Nombre de la carpeta
+    private final String color;         // Color de la carpeta
+    private final int imageCount;       // Número de imágenes
+    private final long lastModified;    // Última vez que cambió el resumen
+    private final String coverImageId;  // Imagen más reciente, usada como portada
+
+    /**
+     * Constructor.
+     *
+     * @param id           ID de la carpeta.
+     * @param name         Nombre de la carpeta.
+     * @param color        Color de la carpeta.
+     * @param imageCount   Número de imágenes.
+     * @param lastModified Fecha de la última modificación.
+     * @param coverImageId ID de la imagen de portada, o null si la carpeta está vacía.
+     */
+    public FolderSummary(String id, String name, String color, int imageCount,
+                         long lastModified, String coverImageId) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.imageCount = imageCount;
+        this.lastModified = lastModified;
+        this.coverImageId = coverImageId;
+    }
+
+    /**
+     * Crea el resumen de una carpeta.
+     *
+     * @param folder       Carpeta completa.
+     * @param lastModified Fecha de modificación a registrar.
+     * @return Resumen de la carpeta.
+     */
+    public static FolderSummary of(Folder folder, long lastModified) {
+        List<Image> images = folder.getImages();
+        String coverImageId = images.isEmpty() ? null : images.get(images.size() - 1).getId();
+        return new FolderSummary(folder.getId(), folder.getName(), folder.getColor(),
+                images.size(), lastModified, coverImageId);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public int getImageCount() {
+        return imageCount;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getCoverImageId() {
+        return coverImageId;
+    }
+
+    /**
+     * Indica si el resumen muestra lo mismo que otro, sin tener en cuenta la fecha de modificación.
+     *
+     * @param other Otro resumen.
+     * @return true si el contenido visible coincide.
+     */
+    public boolean hasSameContent(FolderSummary other) {
+        return other != null
+                && Objects.equals(id, other.id)
+                && Objects.equals(name, other.name)
+                && Objects.equals(color, other.color)
+                && imageCount == other.imageCount
+                && Objects.equals(coverImageId, other.coverImageId);
+    }
+}
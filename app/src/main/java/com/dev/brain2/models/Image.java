@@ -1,9 +1,14 @@
 package com.dev.brain2.models;
 
 import android.net.Uri;
+
+import com.dev.brain2.utils.TextNormalizer;
+
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -15,7 +20,15 @@ public class Image implements Serializable {
     private transient Uri uri;      // URI que indica dónde está guardada la imagen
     private String name;            // Nombre de la imagen
     private String uriString;       // URI como String para serialización
-    private List<String> tags;      // Lista de etiquetas asociadas a la imagen
+    private int[] tagIds;           // Etiquetas, como números del TagDictionary
+    private List<String> tags;      // Etiquetas en texto; solo en bibliotecas guardadas antes del diccionario
+    private transient String foldedName;    // Nombre normalizado para las búsquedas; no se guarda
+    private long importedAt;        // Fecha de importación en milisegundos (0 si no se conoce)
+    private long byteSize;          // Tamaño del archivo en bytes (0 si no se conoce)
+    private int width;              // Ancho en píxeles (0 si no se conoce)
+    private int height;             // Alto en píxeles (0 si no se conoce)
+
+    private static final int[] NO_TAGS = new int[0];
 
     /**
      * Constructor: crea una nueva imagen con una URI y un nombre.
@@ -31,7 +44,47 @@ public class Image implements Serializable {
         this.uri = uri;
         this.uriString = uri.toString();         // Guardamos la URI como String
         this.name = name;
-        this.tags = new ArrayList<>();
+        this.foldedName = foldName(name);
+        this.tagIds = NO_TAGS;
+        this.importedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Constructor: reconstruye una imagen ya guardada conservando su ID.
+     *
+     * @param id   ID de la imagen.
+     * @param uri  URI de la imagen.
+     * @param name Nombre de la imagen.
+     * @param tags Etiquetas de la imagen.
+     * @throws IllegalArgumentException Si la URI o el nombre son inválidos.
+     */
+    public Image(String id, Uri uri, String name, List<String> tags) {
+        validateUri(uri);
+        validateName(name);
+        this.id = id;
+        this.uri = uri;
+        this.uriString = uri.toString();
+        this.name = name;
+        this.foldedName = foldName(name);
+        this.tagIds = internAll(tags);
+    }
+
+    /**
+     * Constructor: reconstruye una imagen del índice de búsqueda guardado, con el nombre ya
+     * normalizado. La URI se crea la primera vez que se pide.
+     *
+     * @param id         ID de la imagen.
+     * @param uriString  URI en texto.
+     * @param name       Nombre de la imagen.
+     * @param foldedName Nombre normalizado con TextNormalizer.fold.
+     * @param tagIds     Números de etiqueta en el TagDictionary.
+     */
+    Image(String id, String uriString, String name, String foldedName, int[] tagIds) {
+        this.id = id;
+        this.uriString = uriString;
+        this.name = name;
+        this.foldedName = foldedName;
+        this.tagIds = tagIds.length > 0 ? tagIds : NO_TAGS;
     }
 
     /**
@@ -116,15 +169,144 @@ public class Image implements Serializable {
     public void setName(String name) {
         validateName(name);
         this.name = name;
+        this.foldedName = foldName(name);
+    }
+
+    /**
+     * Obtiene el nombre sin acentos ni mayúsculas, calculado al crear o renombrar la imagen.
+     *
+     * @return Nombre normalizado con TextNormalizer.fold.
+     */
+    public String getFoldedName() {
+        if (foldedName == null) {
+            // Las imágenes leídas del JSON no pasan por el constructor
+            foldedName = foldName(name);
+        }
+        return foldedName;
+    }
+
+    private static String foldName(String name) {
+        return TextNormalizer.fold(name.trim());
+    }
+
+    /**
+     * Obtiene la fecha en que se importó la imagen.
+     *
+     * @return Milisegundos desde 1970, o 0 si la imagen es anterior a que se guardara.
+     */
+    public long getImportedAt() {
+        return importedAt;
+    }
+
+    /**
+     * Establece la fecha de importación. Lo usan el almacenamiento al leer la imagen y la
+     * reconciliación al completar las imágenes antiguas.
+     *
+     * @param importedAt Milisegundos desde 1970, o 0 si no se conoce.
+     */
+    public void setImportedAt(long importedAt) {
+        this.importedAt = importedAt;
+    }
+
+    /**
+     * Obtiene el tamaño del archivo.
+     *
+     * @return Bytes, o 0 si no se conoce.
+     */
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Obtiene el ancho de la imagen.
+     *
+     * @return Píxeles, o 0 si no se conoce.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Obtiene el alto de la imagen.
+     *
+     * @return Píxeles, o 0 si no se conoce.
+     */
+    public int getHeight() {
+        return height;
     }
 
     /**
-     * Obtiene la lista de etiquetas asociadas a la imagen.
+     * Guarda los datos del archivo, para filtrar por ellos sin volver a leerlo.
+     *
+     * @param byteSize Tamaño en bytes (0 si no se conoce).
+     * @param width    Ancho en píxeles (0 si no se conoce).
+     * @param height   Alto en píxeles (0 si no se conoce).
+     */
+    public void setFileInfo(long byteSize, int width, int height) {
+        this.byteSize = byteSize;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Obtiene la lista de etiquetas asociadas a la imagen. Crea una lista nueva en cada llamada;
+     * en bucles usar getTagCount/getTagId o hasTag.
      *
      * @return Lista de etiquetas de la imagen.
      */
     public List<String> getTags() {
-        return new ArrayList<>(tags);
+        int[] ids = ensureTagIds();
+        TagDictionary dictionary = TagDictionary.getInstance();
+        List<String> tagList = new ArrayList<>(ids.length);
+        for (int tagId : ids) {
+            tagList.add(dictionary.get(tagId));
+        }
+        return tagList;
+    }
+
+    /**
+     * Obtiene el número de etiquetas de la imagen.
+     *
+     * @return Número de etiquetas.
+     */
+    public int getTagCount() {
+        return ensureTagIds().length;
+    }
+
+    /**
+     * Obtiene el número en el TagDictionary de una etiqueta de la imagen, sin copiar la lista.
+     *
+     * @param index Posición de la etiqueta.
+     * @return Número de la etiqueta.
+     */
+    public int getTagId(int index) {
+        return ensureTagIds()[index];
+    }
+
+    /**
+     * Indica si la imagen tiene una etiqueta, sin crear objetos.
+     *
+     * @param tagId Número de la etiqueta en el TagDictionary.
+     * @return true si la tiene.
+     */
+    public boolean hasTagId(int tagId) {
+        for (int id : ensureTagIds()) {
+            if (id == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si la imagen tiene una etiqueta, sin crear objetos.
+     *
+     * @param tag Texto de la etiqueta.
+     * @return true si la tiene.
+     */
+    public boolean hasTag(String tag) {
+        int tagId = TagDictionary.getInstance().find(tag);
+        return tagId != TagDictionary.NO_TAG && hasTagId(tagId);
     }
 
     /**
@@ -135,7 +317,55 @@ public class Image implements Serializable {
      */
     public void addTag(String tag) {
         validateTag(tag);
-        tags.add(tag);
+        int[] ids = ensureTagIds();
+        int[] updated = Arrays.copyOf(ids, ids.length + 1);
+        updated[ids.length] = TagDictionary.getInstance().intern(tag);
+        tagIds = updated;
+    }
+
+    /**
+     * Cambia los números de etiqueta de la imagen. Lo usa el almacenamiento al leer
+     * etiquetas guardadas con otra numeración.
+     *
+     * @param ids Números de etiqueta en el TagDictionary.
+     */
+    public void setTagIds(int[] ids) {
+        this.tagIds = ids.length > 0 ? ids.clone() : NO_TAGS;
+        this.tags = null;
+    }
+
+    /**
+     * Devuelve los números de etiqueta, pasando antes al diccionario las etiquetas en texto
+     * de las bibliotecas antiguas.
+     *
+     * @return Números de etiqueta (no modificar).
+     */
+    private int[] ensureTagIds() {
+        if (tags != null) {
+            tagIds = internAll(tags);
+            tags = null;
+        } else if (tagIds == null) {
+            tagIds = NO_TAGS;
+        }
+        return tagIds;
+    }
+
+    /**
+     * Pasa una lista de etiquetas a números del diccionario.
+     *
+     * @param tagList Etiquetas en texto.
+     * @return Números de etiqueta.
+     */
+    private static int[] internAll(List<String> tagList) {
+        if (tagList.isEmpty()) {
+            return NO_TAGS;
+        }
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] ids = new int[tagList.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = dictionary.intern(tagList.get(i));
+        }
+        return ids;
     }
 
     /**
@@ -150,6 +380,28 @@ public class Image implements Serializable {
         }
     }
 
+    /**
+     * Dos imágenes son iguales si tienen el mismo ID, aunque sean copias deserializadas.
+     *
+     * @param other Objeto a comparar.
+     * @return true si ambos representan la misma imagen.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Image)) {
+            return false;
+        }
+        return Objects.equals(id, ((Image) other).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
     /**
      * Este método se llama automáticamente al deserializar la imagen.
      *
@@ -0,0 +1,691 @@
+package com.dev.brain2.models;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto comprimido de ordinales de imagen. Los ordinales se reparten en bloques de 65536
+ * según sus 16 bits altos; cada bloque guarda sus 16 bits bajos como lista ordenada mientras
+ * tiene pocos elementos, y como mapa de bits de 8 KB cuando tiene muchos. Así un conjunto
+ * pequeño ocupa poco y uno denso se combina palabra a palabra.
+ * Las operaciones entre conjuntos devuelven un conjunto nuevo sin modificar los originales.
+ */
+public class ImageIdSet {
+
+    // Elementos a partir de los cuales un bloque pasa de lista a mapa de bits
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys;             // 16 bits altos de cada bloque, ordenados
+    private Container[] containers;  // Bloque de cada clave
+    private int size;                // Número de bloques
+
+    /**
+     * Constructor de un conjunto vacío.
+     */
+    public ImageIdSet() {
+        this(4);
+    }
+
+    private ImageIdSet(int capacity) {
+        this.keys = new char[capacity];
+        this.containers = new Container[capacity];
+    }
+
+    /**
+     * Crea un conjunto con unos ordinales.
+     *
+     * @param ids Ordinales (no negativos).
+     * @return Conjunto nuevo.
+     */
+    public static ImageIdSet of(int... ids) {
+        ImageIdSet set = new ImageIdSet();
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    /**
+     * Añade un ordinal.
+     *
+     * @param id Ordinal (no negativo).
+     * @return true si no estaba.
+     */
+    public boolean add(int id) {
+        char key = highBits(id);
+        int index = indexOf(key);
+        if (index >= 0) {
+            int before = containers[index].cardinality();
+            containers[index] = containers[index].add(lowBits(id));
+            return containers[index].cardinality() != before;
+        }
+        insertAt(-index - 1, key, new ArrayContainer().add(lowBits(id)));
+        return true;
+    }
+
+    /**
+     * Quita un ordinal.
+     *
+     * @param id Ordinal.
+     * @return true si estaba.
+     */
+    public boolean remove(int id) {
+        int index = indexOf(highBits(id));
+        if (index < 0) {
+            return false;
+        }
+        int before = containers[index].cardinality();
+        Container container = containers[index].remove(lowBits(id));
+        if (container.cardinality() == 0) {
+            removeAt(index);
+        } else {
+            containers[index] = container;
+        }
+        return container.cardinality() != before;
+    }
+
+    /**
+     * Indica si contiene un ordinal.
+     *
+     * @param id Ordinal.
+     * @return true si lo contiene.
+     */
+    public boolean contains(int id) {
+        int index = indexOf(highBits(id));
+        return index >= 0 && containers[index].contains(lowBits(id));
+    }
+
+    /**
+     * Número de ordinales del conjunto.
+     *
+     * @return Número de elementos.
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Busca el primer ordinal del conjunto igual o mayor que otro. Sirve para recorrerlo
+     * como un BitSet: {@code for (int id = set.nextId(0); id >= 0; id = set.nextId(id + 1))}.
+     *
+     * @param from Ordinal desde el que buscar.
+     * @return Ordinal encontrado, o -1 si no hay más.
+     */
+    public int nextId(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        char fromKey = highBits(from);
+        int index = indexOf(fromKey);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (; index < size; index++) {
+            int start = keys[index] == fromKey ? lowBits(from) : 0;
+            int low = containers[index].next(start);
+            if (low >= 0) {
+                return (keys[index] << 16) | low;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Intersección con otro conjunto.
+     *
+     * @param other Otro conjunto.
+     * @return Conjunto nuevo con los ordinales que están en los dos.
+     */
+    public ImageIdSet and(ImageIdSet other) {
+        ImageIdSet result = new ImageIdSet(Math.max(1, Math.min(size, other.size)));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tamaño de la intersección con otro conjunto, sin construirla.
+     *
+     * @param other Otro conjunto.
+     * @return Número de ordinales que están en los dos.
+     */
+    public int andCardinality(ImageIdSet other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Unión con otro conjunto.
+     *
+     * @param other Otro conjunto.
+     * @return Conjunto nuevo con los ordinales que están en alguno de los dos.
+     */
+    public ImageIdSet or(ImageIdSet other) {
+        ImageIdSet result = new ImageIdSet(Math.max(1, size + other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Diferencia con otro conjunto.
+     *
+     * @param other Conjunto a restar.
+     * @return Conjunto nuevo con los ordinales de este que no están en el otro.
+     */
+    public ImageIdSet andNot(ImageIdSet other) {
+        ImageIdSet result = new ImageIdSet(Math.max(1, size));
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.append(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copia el conjunto.
+     *
+     * @return Conjunto nuevo con los mismos ordinales.
+     */
+    public ImageIdSet copy() {
+        ImageIdSet copy = new ImageIdSet(Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            copy.append(keys[i], containers[i].copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Vacía el conjunto.
+     */
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Memoria aproximada que ocupa el conjunto.
+     *
+     * @return Bytes estimados.
+     */
+    public long getSizeInBytes() {
+        long bytes = 16 + keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static char highBits(int id) {
+        return (char) (id >>> 16);
+    }
+
+    private static char lowBits(int id) {
+        return (char) id;
+    }
+
+    /**
+     * Busca un bloque por su clave.
+     *
+     * @param key 16 bits altos.
+     * @return Posición del bloque, o (-(posición de inserción) - 1) si no existe.
+     */
+    private int indexOf(char key) {
+        // Se consulta primero el último bloque: los ordinales suelen añadirse en orden
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void append(char key, Container container) {
+        insertAt(size, key, container);
+    }
+
+    private void insertAt(int index, char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Bloque de 65536 valores posibles. Las operaciones que lo cambian devuelven el bloque
+     * resultante, que puede ser de otro tipo si ha cruzado el límite entre lista y mapa de bits.
+     */
+    private abstract static class Container {
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        /**
+         * @param from Valor desde el que buscar (0 a 65535).
+         * @return Primer valor igual o mayor, o -1 si no hay.
+         */
+        abstract int next(int from);
+
+        abstract Container and(Container other);
+
+        abstract int andCardinality(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract long sizeInBytes();
+    }
+
+    /**
+     * Bloque con pocos elementos: sus valores en una lista ordenada.
+     */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality >= ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, values.length * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int next(int from) {
+            int index = Arrays.binarySearch(values, 0, cardinality, (char) from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < cardinality ? values[index] : -1;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        count++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i >= cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_MAX ? union.toBitmap() : union;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24 + values.length * 2L;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Bloque con muchos elementos: un bit por cada uno de los 65536 valores posibles.
+     */
+    private static final class BitmapContainer extends Container {
+
+        private static final int WORDS = 65536 / 64;
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[WORDS], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Crea el bloque adecuado para unas palabras: lista si tienen pocos bits.
+         */
+        static Container fromWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+            return cardinality <= ARRAY_MAX ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int next(int from) {
+            int index = from >>> 6;
+            long word = words[index] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    return index * 64 + Long.numberOfTrailingZeros(word);
+                }
+                if (++index == WORDS) {
+                    return -1;
+                }
+                word = words[index];
+            }
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                count += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    char value = array.values[i];
+                    result[value >>> 6] |= 1L << value;
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] |= otherWords[i];
+                }
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    char value = array.values[i];
+                    result[value >>> 6] &= ~(1L << value);
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] &= ~otherWords[i];
+                }
+            }
+            return fromWords(result);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24 + WORDS * 8L;
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int count = 0;
+            for (int value = next(0); value >= 0; value = value < 65535 ? next(value + 1) : -1) {
+                values[count++] = (char) value;
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
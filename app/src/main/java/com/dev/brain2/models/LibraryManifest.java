@@ -0,0 +1,60 @@
+package com.dev.brain2.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manifiesto raíz de la biblioteca: el orden de las carpetas y su resumen.
+ * Las imágenes de cada carpeta se guardan aparte, en un archivo por carpeta.
+ */
+public class LibraryManifest {
+
+    public static final int CURRENT_VERSION = 1;
+
+    private final int version;                 // Versión del formato
+    private final long generation;             // Aumenta con cada cambio guardado
+    private final List<FolderSummary> folders; // Resúmenes en orden de almacenamiento
+
+    /**
+     * Constructor.
+     *
+     * @param folders Resúmenes de las carpetas en orden.
+     */
+    public LibraryManifest(List<FolderSummary> folders) {
+        this(folders, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param folders    Resúmenes de las carpetas en orden.
+     * @param generation Generación de la biblioteca.
+     */
+    public LibraryManifest(List<FolderSummary> folders, long generation) {
+        this.version = CURRENT_VERSION;
+        this.generation = generation;
+        this.folders = new ArrayList<>(folders);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene la generación de la biblioteca. Los manifiestos anteriores a este campo tienen 0.
+     *
+     * @return Generación.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Obtiene los resúmenes de las carpetas.
+     *
+     * @return Lista de resúmenes; nunca es nula.
+     */
+    public List<FolderSummary> getFolders() {
+        return folders != null ? folders : new ArrayList<>();
+    }
+}
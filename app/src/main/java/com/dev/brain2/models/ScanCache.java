@@ -0,0 +1,56 @@
+package com.dev.brain2.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estado guardado de la última reconciliación: las instantáneas de los directorios sin
+ * diferencias y, si no hubo ninguna, la generación de la biblioteca y la fecha de Pictures.
+ * Si ni la biblioteca ni los directorios cambiaron desde entonces, no hace falta revisar nada.
+ */
+public class ScanCache {
+
+    private final boolean clean;                              // La última revisión no encontró diferencias
+    private final long generation;                            // Generación de la biblioteca en esa revisión
+    private final long picturesModified;                      // Fecha de modificación de Pictures en esa revisión
+    private final Map<String, DirectorySnapshot> directories; // Nombre de directorio -> instantánea
+
+    /**
+     * Constructor.
+     *
+     * @param clean            Si la revisión no encontró diferencias.
+     * @param generation       Generación de la biblioteca.
+     * @param picturesModified Fecha de modificación de Pictures.
+     * @param directories      Instantáneas de los directorios sin diferencias.
+     */
+    public ScanCache(boolean clean, long generation, long picturesModified,
+                     Map<String, DirectorySnapshot> directories) {
+        this.clean = clean;
+        this.generation = generation;
+        this.picturesModified = picturesModified;
+        this.directories = new HashMap<>(directories);
+    }
+
+    /**
+     * Obtiene la instantánea de un directorio.
+     *
+     * @param dirName Nombre del directorio.
+     * @return Instantánea, o null si el directorio se tiene que revisar.
+     */
+    public DirectorySnapshot getDirectory(String dirName) {
+        // Null si el archivo tenía el formato anterior
+        return directories != null ? directories.get(dirName) : null;
+    }
+
+    /**
+     * Indica si la biblioteca y Pictures siguen igual que en la última revisión sin diferencias.
+     * Los directorios de las carpetas se comprueban aparte, con getDirectory.
+     *
+     * @param generation       Generación actual de la biblioteca.
+     * @param picturesModified Fecha de modificación actual de Pictures.
+     * @return true si no cambiaron.
+     */
+    public boolean isUnchanged(long generation, long picturesModified) {
+        return clean && this.generation == generation && this.picturesModified == picturesModified;
+    }
+}
@@ -0,0 +1,225 @@
+package com.dev.brain2.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia en disco de lo que necesitan los índices de búsqueda: las imágenes de cada carpeta con
+ * su nombre ya normalizado, sus etiquetas y los datos de su archivo. Con ella la búsqueda se abre sin leer la biblioteca
+ * completa. Guarda la generación de la biblioteca que refleja; si no es la actual, se descarta.
+ */
+public class SearchIndexSnapshot {
+
+    public static final int CURRENT_VERSION = 2;
+
+    private final int version;                 // Versión del formato
+    private final long generation;             // Generación de la biblioteca que refleja
+    private final List<Segment> folders;       // Una parte por carpeta
+
+    /**
+     * Constructor.
+     *
+     * @param generation Generación de la biblioteca.
+     * @param folders    Partes del índice, una por carpeta.
+     */
+    public SearchIndexSnapshot(long generation, List<Segment> folders) {
+        this.version = CURRENT_VERSION;
+        this.generation = generation;
+        this.folders = new ArrayList<>(folders);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Obtiene las partes del índice.
+     *
+     * @return Partes, una por carpeta; nunca es nula.
+     */
+    public List<Segment> getFolders() {
+        return folders != null ? folders : new ArrayList<>();
+    }
+
+    /**
+     * Aplica los cambios guardados después de esta copia, en orden. Cada cambio debe ser
+     * el de la generación siguiente.
+     *
+     * @param changes Cambios en el orden en que se guardaron.
+     * @return Copia actualizada, o null si falta algún cambio intermedio.
+     */
+    public SearchIndexSnapshot apply(List<Change> changes) {
+        Map<String, Segment> segmentsById = new LinkedHashMap<>();
+        for (Segment segment : getFolders()) {
+            segmentsById.put(segment.folderId, segment);
+        }
+        long current = generation;
+        for (Change change : changes) {
+            if (change.generation <= current) {
+                continue;   // Ya incluido en la copia
+            }
+            if (change.generation != current + 1) {
+                return null;
+            }
+            for (Segment segment : change.getUpdated()) {
+                segmentsById.put(segment.folderId, segment);
+            }
+            for (String folderId : change.getRemoved()) {
+                segmentsById.remove(folderId);
+            }
+            current = change.generation;
+        }
+        return new SearchIndexSnapshot(current, new ArrayList<>(segmentsById.values()));
+    }
+
+    /**
+     * Parte del índice con las imágenes de una carpeta. Cada etiqueta distinta se guarda una
+     * vez y las imágenes guardan su posición, como en el archivo de la carpeta.
+     */
+    public static class Segment {
+
+        private final String folderId;
+        private final List<String> tags;
+        private final List<Entry> images;
+
+        private Segment(String folderId, List<String> tags, List<Entry> images) {
+            this.folderId = folderId;
+            this.tags = tags;
+            this.images = images;
+        }
+
+        /**
+         * Crea la parte del índice de una carpeta.
+         *
+         * @param folder Carpeta.
+         * @return Parte con sus imágenes en orden.
+         */
+        public static Segment of(Folder folder) {
+            TagDictionary dictionary = TagDictionary.getInstance();
+            Map<Integer, Integer> positionsByTagId = new LinkedHashMap<>();
+            List<Entry> entries = new ArrayList<>(folder.getImageCount());
+            for (Image image : folder.getImages()) {
+                int[] tagPositions = new int[image.getTagCount()];
+                for (int t = 0; t < tagPositions.length; t++) {
+                    Integer position = positionsByTagId.get(image.getTagId(t));
+                    if (position == null) {
+                        position = positionsByTagId.size();
+                        positionsByTagId.put(image.getTagId(t), position);
+                    }
+                    tagPositions[t] = position;
+                }
+                entries.add(new Entry(image, tagPositions));
+            }
+            List<String> tagTexts = new ArrayList<>(positionsByTagId.size());
+            for (int tagId : positionsByTagId.keySet()) {
+                tagTexts.add(dictionary.get(tagId));
+            }
+            return new Segment(folder.getId(), tagTexts, entries);
+        }
+
+        public String getFolderId() {
+            return folderId;
+        }
+
+        /**
+         * Reconstruye las imágenes de la carpeta sin volver a normalizar sus nombres.
+         * Las etiquetas se traducen a los números del TagDictionary de este proceso.
+         *
+         * @return Imágenes en orden.
+         */
+        public List<Image> toImages() {
+            TagDictionary dictionary = TagDictionary.getInstance();
+            int[] tagIds = new int[tags != null ? tags.size() : 0];
+            for (int i = 0; i < tagIds.length; i++) {
+                tagIds[i] = dictionary.intern(tags.get(i));
+            }
+            List<Image> result = new ArrayList<>(images != null ? images.size() : 0);
+            if (images == null) {
+                return result;
+            }
+            for (Entry entry : images) {
+                if (entry.id == null || entry.name == null || entry.uri == null) {
+                    continue;   // Entrada dañada: se omite
+                }
+                int[] imageTagIds = new int[entry.tags != null ? entry.tags.length : 0];
+                for (int t = 0; t < imageTagIds.length; t++) {
+                    imageTagIds[t] = tagIds[entry.tags[t]];
+                }
+                Image image = new Image(entry.id, entry.uri, entry.name, entry.folded, imageTagIds);
+                image.setImportedAt(entry.importedAt);
+                image.setFileInfo(entry.byteSize, entry.width, entry.height);
+                result.add(image);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Imagen dentro de una parte del índice.
+     */
+    private static class Entry {
+        final String id;
+        final String name;
+        final String folded;    // Nombre normalizado
+        final String uri;
+        final int[] tags;       // Posiciones en la tabla de etiquetas de la parte
+        final long importedAt;
+        final long byteSize;
+        final int width;
+        final int height;
+
+        Entry(Image image, int[] tags) {
+            this.id = image.getId();
+            this.name = image.getName();
+            this.folded = image.getFoldedName();
+            this.uri = image.getUri().toString();
+            this.tags = tags;
+            this.importedAt = image.getImportedAt();
+            this.byteSize = image.getByteSize();
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+        }
+    }
+
+    /**
+     * Cambio guardado después de la copia: las carpetas que se guardaron juntas en una
+     * generación de la biblioteca, o las que se eliminaron.
+     */
+    public static class Change {
+
+        private final long generation;         // Generación de la biblioteca tras el cambio
+        private final List<Segment> updated;   // Nuevas partes de las carpetas guardadas
+        private final List<String> removed;    // IDs de las carpetas eliminadas
+
+        /**
+         * Constructor.
+         *
+         * @param generation Generación de la biblioteca tras el cambio.
+         * @param updated    Nuevas partes de las carpetas guardadas.
+         * @param removed    IDs de las carpetas eliminadas.
+         */
+        public Change(long generation, List<Segment> updated, List<String> removed) {
+            this.generation = generation;
+            this.updated = new ArrayList<>(updated);
+            this.removed = new ArrayList<>(removed);
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        private List<Segment> getUpdated() {
+            return updated != null ? updated : new ArrayList<>();
+        }
+
+        private List<String> getRemoved() {
+            return removed != null ? removed : new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.dev.brain2.models;
+
+import com.dev.brain2.utils.TextNormalizer;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Consulta de búsqueda con filtros, por ejemplo {@code folder:viajes tag:playa after:2024-01-01 size:>5MB}.
+ * Lo que no es un filtro reconocido queda como texto libre. Filtros:
+ * <ul>
+ *     <li>folder:/carpeta: carpetas cuyo nombre empieza por el valor (si hay varias, cualquiera).</li>
+ *     <li>tag:/etiqueta: etiqueta que debe tener; -tag: etiqueta que no debe tener.</li>
+ *     <li>after:/desde: y before:/hasta: fecha de importación, yyyy-MM-dd; after incluye el día
+ *     y before no.</li>
+ *     <li>size:/tamaño: tamaño del archivo con B, KB, MB o GB, p. ej. {@code size:>5MB}.</li>
+ *     <li>width:/ancho:, height:/alto: y dims: ({@code dims:>=1920x1080}) en píxeles.</li>
+ * </ul>
+ * Los valores numéricos admiten &gt;, &gt;=, &lt;, &lt;= o = (por defecto). Los valores con
+ * espacios van entre comillas: {@code folder:"mis viajes"}.
+ */
+public class SearchQuery {
+
+    /**
+     * Datos de la imagen por los que se puede filtrar por rango.
+     */
+    public enum Property {
+        IMPORTED_AT, BYTE_SIZE, WIDTH, HEIGHT
+    }
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("(-?[\\p{L}]+):\"([^\"]*)\"?|\\S+");
+    private static final Pattern COMPARISON_PATTERN = Pattern.compile("(>=|<=|>|<|=)?(.+)");
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+(?:[.,]\\d+)?)\\s*(b|kb|mb|gb)?");
+    private static final Pattern DIMENSIONS_PATTERN = Pattern.compile("(\\d+)x(\\d+)");
+    private static final String DATE_FORMAT = "yyyy-MM-dd";
+
+    private static final Map<String, String> KEYS = new HashMap<>();
+
+    static {
+        // Nombre del filtro (normalizado) -> nombre interno
+        String[][] aliases = {
+                {"folder", "folder"}, {"carpeta", "folder"},
+                {"tag", "tag"}, {"etiqueta", "tag"},
+                {"-tag", "-tag"}, {"-etiqueta", "-tag"},
+                {"after", "after"}, {"desde", "after"},
+                {"before", "before"}, {"hasta", "before"},
+                {"size", "size"}, {"tamano", "size"},
+                {"width", "width"}, {"ancho", "width"},
+                {"height", "height"}, {"alto", "height"},
+                {"dims", "dims"},
+        };
+        for (String[] alias : aliases) {
+            KEYS.put(alias[0], alias[1]);
+        }
+    }
+
+    private String text;
+    private final List<String> folders = new ArrayList<>();        // Nombres normalizados
+    private final List<String> tags = new ArrayList<>();           // Etiquetas normalizadas
+    private final List<String> excludedTags = new ArrayList<>();   // Etiquetas normalizadas
+    private final List<Range> ranges = new ArrayList<>();
+
+    private SearchQuery() {
+    }
+
+    /**
+     * Interpreta una consulta escrita por el usuario.
+     *
+     * @param query Consulta.
+     * @return Consulta con el texto libre y los filtros reconocidos.
+     */
+    public static SearchQuery parse(String query) {
+        SearchQuery parsed = new SearchQuery();
+        StringBuilder freeText = new StringBuilder();
+        Matcher matcher = TOKEN_PATTERN.matcher(query);
+        while (matcher.find()) {
+            String key;
+            String value;
+            if (matcher.group(1) != null) {
+                key = matcher.group(1);
+                value = matcher.group(2);
+            } else {
+                String token = matcher.group();
+                int colon = token.indexOf(':');
+                key = colon > 0 ? token.substring(0, colon) : null;
+                value = colon > 0 ? token.substring(colon + 1) : null;
+            }
+            String name = key != null ? KEYS.get(TextNormalizer.fold(key)) : null;
+            // Los filtros desconocidos o con valores no válidos se buscan tal cual
+            if (name == null || value.trim().isEmpty() || !parsed.addFilter(name, value.trim())) {
+                appendWord(freeText, matcher.group());
+            }
+        }
+        parsed.text = freeText.toString();
+        return parsed;
+    }
+
+    /**
+     * Texto libre de la consulta, sin los filtros.
+     *
+     * @return Texto, vacío si solo había filtros.
+     */
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getFolders() {
+        return Collections.unmodifiableList(folders);
+    }
+
+    public List<String> getTags() {
+        return Collections.unmodifiableList(tags);
+    }
+
+    public List<String> getExcludedTags() {
+        return Collections.unmodifiableList(excludedTags);
+    }
+
+    public List<Range> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * Indica si la consulta tiene algún filtro además del texto.
+     *
+     * @return true si hay filtros.
+     */
+    public boolean hasFilters() {
+        return !folders.isEmpty() || !tags.isEmpty() || !excludedTags.isEmpty() || !ranges.isEmpty();
+    }
+
+    /**
+     * Añade un filtro reconocido.
+     *
+     * @param name  Nombre interno del filtro.
+     * @param value Valor escrito.
+     * @return false si el valor no es válido.
+     */
+    private boolean addFilter(String name, String value) {
+        switch (name) {
+            case "folder":
+                folders.add(TextNormalizer.fold(value));
+                return true;
+            case "tag":
+                tags.add(TextNormalizer.fold(value));
+                return true;
+            case "-tag":
+                excludedTags.add(TextNormalizer.fold(value));
+                return true;
+            case "after":
+            case "before":
+                return addDateRange(name.equals("after"), value);
+            case "size":
+                return addComparison(Property.BYTE_SIZE, value, true);
+            case "width":
+                return addComparison(Property.WIDTH, value, false);
+            case "height":
+                return addComparison(Property.HEIGHT, value, false);
+            case "dims":
+                return addDimensions(value);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Añade un filtro de fecha de importación. Las fechas se leen en la zona horaria del dispositivo.
+     */
+    private boolean addDateRange(boolean after, String value) {
+        SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT, Locale.ROOT);
+        format.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date date = format.parse(value, position);
+        if (date == null || position.getIndex() != value.length()) {
+            return false;
+        }
+        long dayStart = date.getTime();
+        ranges.add(after
+                ? new Range(Property.IMPORTED_AT, dayStart, Long.MAX_VALUE)
+                : new Range(Property.IMPORTED_AT, Long.MIN_VALUE, dayStart - 1));
+        return true;
+    }
+
+    /**
+     * Añade un filtro de comparación sobre un número.
+     *
+     * @param property Dato de la imagen.
+     * @param value    Valor con operador opcional.
+     * @param isSize   Si el número admite unidades de tamaño.
+     */
+    private boolean addComparison(Property property, String value, boolean isSize) {
+        Matcher comparison = COMPARISON_PATTERN.matcher(value);
+        if (!comparison.matches()) {
+            return false;
+        }
+        long number = isSize ? parseSize(comparison.group(2)) : parseCount(comparison.group(2));
+        if (number < 0) {
+            return false;
+        }
+        ranges.add(Range.of(property, comparison.group(1), number));
+        return true;
+    }
+
+    /**
+     * Añade un filtro de ancho y alto a la vez, como {@code dims:>=1920x1080}.
+     */
+    private boolean addDimensions(String value) {
+        Matcher comparison = COMPARISON_PATTERN.matcher(value);
+        Matcher dimensions = comparison.matches() ? DIMENSIONS_PATTERN.matcher(comparison.group(2).toLowerCase(Locale.ROOT)) : null;
+        if (dimensions == null || !dimensions.matches()) {
+            return false;
+        }
+        long width = parseCount(dimensions.group(1));
+        long height = parseCount(dimensions.group(2));
+        if (width < 0 || height < 0) {
+            return false;
+        }
+        ranges.add(Range.of(Property.WIDTH, comparison.group(1), width));
+        ranges.add(Range.of(Property.HEIGHT, comparison.group(1), height));
+        return true;
+    }
+
+    /**
+     * Lee un tamaño como 5MB o 1,5 gb (múltiplos de 1024).
+     *
+     * @return Bytes, o -1 si no es válido.
+     */
+    private static long parseSize(String value) {
+        Matcher size = SIZE_PATTERN.matcher(value.toLowerCase(Locale.ROOT));
+        if (!size.matches()) {
+            return -1;
+        }
+        double number;
+        try {
+            number = Double.parseDouble(size.group(1).replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        String unit = size.group(2) != null ? size.group(2) : "b";
+        int shift = unit.equals("kb") ? 10 : unit.equals("mb") ? 20 : unit.equals("gb") ? 30 : 0;
+        return (long) (number * (1L << shift));
+    }
+
+    /**
+     * Lee un número entero de píxeles.
+     *
+     * @return Número, o -1 si no es válido.
+     */
+    private static long parseCount(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void appendWord(StringBuilder text, String word) {
+        if (text.length() > 0) {
+            text.append(' ');
+        }
+        text.append(word);
+    }
+
+    /**
+     * Rango cerrado [min, max] de un dato de la imagen. Las imágenes sin ese dato (0) nunca
+     * lo cumplen.
+     */
+    public static class Range {
+
+        private final Property property;
+        private final long min;
+        private final long max;
+
+        /**
+         * Constructor.
+         *
+         * @param property Dato de la imagen.
+         * @param min      Valor mínimo, incluido.
+         * @param max      Valor máximo, incluido.
+         */
+        public Range(Property property, long min, long max) {
+            this.property = property;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * Crea el rango de una comparación.
+         *
+         * @param property Dato de la imagen.
+         * @param operator Operador (&gt;, &gt;=, &lt;, &lt;=, = o null, que equivale a =).
+         * @param value    Valor a comparar.
+         * @return Rango equivalente.
+         */
+        static Range of(Property property, String operator, long value) {
+            if (operator == null) {
+                return new Range(property, value, value);
+            }
+            switch (operator) {
+                case ">":
+                    return new Range(property, value + 1, Long.MAX_VALUE);
+                case ">=":
+                    return new Range(property, value, Long.MAX_VALUE);
+                case "<":
+                    return new Range(property, Long.MIN_VALUE, value - 1);
+                case "<=":
+                    return new Range(property, Long.MIN_VALUE, value);
+                default:
+                    return new Range(property, value, value);
+            }
+        }
+
+        public Property getProperty() {
+            return property;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.dev.brain2.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Resultado de una búsqueda: las imágenes encontradas con su puntuación y su carpeta, sus ordinales para
+ * combinarlos con otros conjuntos sin recorrer las imágenes, y las etiquetas que tienen,
+ * para seguir filtrando.
+ * Las imágenes se entregan por páginas de más a menos puntuación. Cada página se elige con
+ * un montículo del tamaño de la página, sin ordenar todos los resultados.
+ */
+public class SearchResult {
+
+    private final List<Image> candidates;
+    private final int[] scores;
+    private final String[] folderIds;
+    private final ImageIdSet imageIds;
+    private final List<TagFacet> facets;
+
+    private int delivered;          // Imágenes ya entregadas
+    private int lastIndex = -1;     // Posición en candidates de la última entregada
+    private int lastScore = Integer.MAX_VALUE;
+    private final Map<String, String> deliveredFolderIds = new HashMap<>();  // ID de imagen entregada -> ID de carpeta
+
+    /**
+     * Constructor.
+     *
+     * @param candidates Imágenes encontradas, en el orden que desempata las puntuaciones.
+     * @param scores     Puntuación de cada imagen.
+     * @param folderIds  ID de la carpeta de cada imagen (o null si no se conocen).
+     * @param imageIds   Ordinales de las imágenes encontradas.
+     * @param facets     Etiquetas de las imágenes encontradas, con su recuento.
+     */
+    public SearchResult(List<Image> candidates, int[] scores, String[] folderIds, ImageIdSet imageIds,
+                        List<TagFacet> facets) {
+        this.candidates = candidates;
+        this.scores = scores;
+        this.folderIds = folderIds;
+        this.imageIds = imageIds;
+        this.facets = facets;
+    }
+
+    /**
+     * Entrega la siguiente página de imágenes.
+     *
+     * @param pageSize Número máximo de imágenes.
+     * @return Imágenes de más a menos puntuación; vacía si ya se entregaron todas.
+     */
+    public synchronized List<Image> nextPage(int pageSize) {
+        if (!hasMore() || pageSize <= 0) {
+            return Collections.emptyList();
+        }
+        // La cima del montículo es la peor de las elegidas, la primera en salir si llega otra mejor
+        PriorityQueue<Integer> heap = new PriorityQueue<>(pageSize, (a, b) -> isBetter(a, b) ? 1 : -1);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!isPending(i)) {
+                continue;
+            }
+            if (heap.size() < pageSize) {
+                heap.add(i);
+            } else if (isBetter(i, heap.peek())) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        Image[] page = new Image[heap.size()];
+        for (int position = page.length - 1; position >= 0; position--) {
+            int index = heap.poll();
+            page[position] = candidates.get(index);
+            if (folderIds != null && folderIds[index] != null) {
+                deliveredFolderIds.put(page[position].getId(), folderIds[index]);
+            }
+            if (position == page.length - 1) {
+                lastIndex = index;
+                lastScore = scores[index];
+            }
+        }
+        delivered += page.length;
+        List<Image> images = new ArrayList<>(page.length);
+        Collections.addAll(images, page);
+        return images;
+    }
+
+    /**
+     * Indica si quedan imágenes por entregar.
+     *
+     * @return true si quedan.
+     */
+    public synchronized boolean hasMore() {
+        return delivered < candidates.size();
+    }
+
+    /**
+     * Número total de imágenes encontradas.
+     *
+     * @return Número de imágenes.
+     */
+    public int getTotalCount() {
+        return candidates.size();
+    }
+
+    /**
+     * Obtiene la carpeta de una imagen ya entregada, sin buscarla en la biblioteca.
+     *
+     * @param imageId ID de la imagen.
+     * @return ID de la carpeta, o null si no se conoce.
+     */
+    public synchronized String getFolderId(String imageId) {
+        return deliveredFolderIds.get(imageId);
+    }
+
+    public ImageIdSet getImageIds() {
+        return imageIds;
+    }
+
+    public List<TagFacet> getFacets() {
+        return facets;
+    }
+
+    /**
+     * Orden de los resultados: más puntuación primero y, a igualdad, el orden de llegada.
+     */
+    private boolean isBetter(int a, int b) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : a < b;
+    }
+
+    /**
+     * Indica si una imagen va detrás de la última entregada, es decir, si aún no se ha entregado.
+     */
+    private boolean isPending(int index) {
+        return lastIndex < 0 || scores[index] < lastScore || (scores[index] == lastScore && index > lastIndex);
+    }
+}
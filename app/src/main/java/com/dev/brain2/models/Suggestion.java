@@ -0,0 +1,44 @@
+package com.dev.brain2.models;
+
+/**
+ * Sugerencia de autocompletado: un nombre de imagen o una etiqueta que empieza por lo escrito.
+ */
+public class Suggestion {
+
+    /**
+     * Origen de la sugerencia.
+     */
+    public enum Kind {
+        NAME,
+        TAG
+    }
+
+    private final String text;
+    private final Kind kind;
+    private final int weight;
+
+    /**
+     * Constructor.
+     *
+     * @param text   Texto sugerido.
+     * @param kind   Si es un nombre o una etiqueta.
+     * @param weight Número de imágenes con ese nombre o etiqueta.
+     */
+    public Suggestion(String text, Kind kind, int weight) {
+        this.text = text;
+        this.kind = kind;
+        this.weight = weight;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,113 @@
+package com.dev.brain2.models;
+
+import com.dev.brain2.utils.TextNormalizer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de etiquetas de la biblioteca. Cada texto de etiqueta se guarda una sola vez
+ * y las imágenes guardan solo su número. Los números no cambian mientras dura el proceso,
+ * pero no se guardan tal cual: el almacenamiento los traduce al leer y al escribir.
+ * Junto a cada texto se guarda su forma normalizada para las búsquedas, calculada una sola vez.
+ */
+public final class TagDictionary {
+
+    public static final int NO_TAG = -1;
+
+    private static final TagDictionary instance = new TagDictionary();
+
+    private final Map<String, Integer> idsByTag = new ConcurrentHashMap<>();
+    private volatile String[] tagsById = new String[64];
+    private volatile String[] foldedById = new String[64];   // Texto normalizado con TextNormalizer.fold
+    private int size;   // Protegido por this
+
+    /**
+     * Constructor.
+     */
+    TagDictionary() {
+    }
+
+    /**
+     * Obtiene el diccionario compartido.
+     *
+     * @return Diccionario de etiquetas.
+     */
+    public static TagDictionary getInstance() {
+        return instance;
+    }
+
+    /**
+     * Obtiene el número de una etiqueta, y lo asigna si es nueva.
+     *
+     * @param tag Texto de la etiqueta.
+     * @return Número de la etiqueta.
+     */
+    public int intern(String tag) {
+        Integer id = idsByTag.get(tag);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = idsByTag.get(tag);
+            if (id != null) {
+                return id;
+            }
+            String[] tags = tagsById;
+            String[] folded = foldedById;
+            if (size == tags.length) {
+                tags = Arrays.copyOf(tags, size * 2);
+                folded = Arrays.copyOf(folded, size * 2);
+            }
+            tags[size] = tag;
+            folded[size] = TextNormalizer.fold(tag.trim());
+            tagsById = tags;
+            foldedById = folded;
+            // El texto se publica antes que el número para que get() siempre lo encuentre
+            idsByTag.put(tag, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Busca el número de una etiqueta sin asignarlo.
+     *
+     * @param tag Texto de la etiqueta.
+     * @return Número de la etiqueta, o NO_TAG si ninguna imagen la ha usado.
+     */
+    public int find(String tag) {
+        Integer id = idsByTag.get(tag);
+        return id != null ? id : NO_TAG;
+    }
+
+    /**
+     * Obtiene el texto de una etiqueta.
+     *
+     * @param tagId Número de la etiqueta.
+     * @return Texto de la etiqueta.
+     */
+    public String get(int tagId) {
+        return tagsById[tagId];
+    }
+
+    /**
+     * Obtiene el texto de una etiqueta sin acentos ni mayúsculas, para compararlo con
+     * una consulta normalizada.
+     *
+     * @param tagId Número de la etiqueta.
+     * @return Texto normalizado de la etiqueta.
+     */
+    public String getFolded(int tagId) {
+        return foldedById[tagId];
+    }
+
+    /**
+     * Número de etiquetas distintas.
+     *
+     * @return Tamaño del diccionario.
+     */
+    public int size() {
+        return idsByTag.size();
+    }
+}
@@ -0,0 +1,29 @@
+package com.dev.brain2.models;
+
+/**
+ * Etiqueta con el número de imágenes que la tienen, para mostrarla como filtro.
+ */
+public class TagFacet {
+
+    private final String tag;
+    private final int count;
+
+    /**
+     * Constructor.
+     *
+     * @param tag   Texto de la etiqueta.
+     * @param count Número de imágenes con la etiqueta.
+     */
+    public TagFacet(String tag, int count) {
+        this.tag = tag;
+        this.count = count;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
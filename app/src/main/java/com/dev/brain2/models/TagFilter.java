@@ -0,0 +1,59 @@
+package com.dev.brain2.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filtro de imágenes por etiquetas: todas las de allOf, al menos una de anyOf y ninguna de noneOf.
+ * Las listas vacías no filtran.
+ */
+public class TagFilter {
+
+    private final List<String> allOf;
+    private final List<String> anyOf;
+    private final List<String> noneOf;
+
+    /**
+     * Constructor.
+     *
+     * @param allOf  Etiquetas que deben estar todas (AND).
+     * @param anyOf  Etiquetas de las que debe estar al menos una (OR).
+     * @param noneOf Etiquetas que no deben estar (NOT).
+     */
+    public TagFilter(List<String> allOf, List<String> anyOf, List<String> noneOf) {
+        this.allOf = new ArrayList<>(allOf);
+        this.anyOf = new ArrayList<>(anyOf);
+        this.noneOf = new ArrayList<>(noneOf);
+    }
+
+    /**
+     * Crea un filtro que no descarta ninguna imagen.
+     *
+     * @return Filtro vacío.
+     */
+    public static TagFilter none() {
+        return new TagFilter(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+    }
+
+    public List<String> getAllOf() {
+        return Collections.unmodifiableList(allOf);
+    }
+
+    public List<String> getAnyOf() {
+        return Collections.unmodifiableList(anyOf);
+    }
+
+    public List<String> getNoneOf() {
+        return Collections.unmodifiableList(noneOf);
+    }
+
+    /**
+     * Indica si el filtro no descarta nada.
+     *
+     * @return true si las tres listas están vacías.
+     */
+    public boolean isEmpty() {
+        return allOf.isEmpty() && anyOf.isEmpty() && noneOf.isEmpty();
+    }
+}
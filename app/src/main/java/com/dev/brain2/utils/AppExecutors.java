@@ -0,0 +1,159 @@
+package com.dev.brain2.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutores compartidos para sacar el trabajo de disco del hilo principal.
+ */
+public class AppExecutors {
+
+    private static final int PARALLEL_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    // El cálculo no espera al disco: un hilo por núcleo
+    private static final int COMPUTE_THREADS =
+            Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static AppExecutors instance;
+
+    private final ExecutorService diskIO;               // Trabajo de disco en serie
+    private final ExecutorService parallelIO;           // Trabajo de disco que se puede repartir
+    private final ExecutorService searchIO;             // Búsquedas de la interfaz, en serie
+    private final ScheduledExecutorService scheduledIO; // Trabajo de disco diferido
+    private final ThreadPoolExecutor decodeIO;          // Decodificación de imágenes por prioridad
+    private final ForkJoinPool compute;                 // Cálculo repartido en tareas, con robo de trabajo
+    private final Handler mainThread;                   // Entrega de resultados a la interfaz
+
+    /**
+     * Constructor.
+     */
+    private AppExecutors() {
+        this.diskIO = Executors.newSingleThreadExecutor(namedThreadFactory("brain2-disk"));
+        this.parallelIO = Executors.newFixedThreadPool(PARALLEL_THREADS, namedThreadFactory("brain2-parallel"));
+        this.searchIO = Executors.newSingleThreadExecutor(namedThreadFactory("brain2-search"));
+        this.scheduledIO = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("brain2-scheduled"));
+        this.decodeIO = new ThreadPoolExecutor(PARALLEL_THREADS, PARALLEL_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), namedThreadFactory("brain2-decode"));
+        this.compute = new ForkJoinPool(COMPUTE_THREADS, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("brain2-compute-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.mainThread = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Obtiene la instancia compartida.
+     *
+     * @return Ejecutores de la aplicación.
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Ejecutor de un solo hilo para operaciones de disco que deben ir en orden.
+     *
+     * @return Ejecutor de disco.
+     */
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Ejecutor con varios hilos para operaciones de disco independientes.
+     *
+     * @return Ejecutor paralelo.
+     */
+    public ExecutorService parallelIO() {
+        return parallelIO;
+    }
+
+    /**
+     * Ejecutor de un solo hilo para las búsquedas que se lanzan al escribir. Van aparte para
+     * no esperar detrás de las escrituras de diskIO ni retrasarlas.
+     *
+     * @return Ejecutor de búsquedas.
+     */
+    public ExecutorService searchIO() {
+        return searchIO;
+    }
+
+    /**
+     * Ejecutor para operaciones de disco programadas.
+     *
+     * @return Ejecutor programado.
+     */
+    public ScheduledExecutorService scheduledIO() {
+        return scheduledIO;
+    }
+
+    /**
+     * Ejecutor para decodificar imágenes. Su cola es de prioridad: las tareas deben ser
+     * comparables y se ejecutan primero las menores. Las tareas pendientes se pueden quitar
+     * de la cola con remove().
+     *
+     * @return Ejecutor de decodificación.
+     */
+    public ThreadPoolExecutor decodeIO() {
+        return decodeIO;
+    }
+
+    /**
+     * Grupo de hilos para repartir cálculos largos en memoria, como verificar los candidatos de
+     * una búsqueda. Los hilos que acaban antes roban trabajo a los demás.
+     *
+     * @return Grupo fork/join.
+     */
+    public ForkJoinPool compute() {
+        return compute;
+    }
+
+    /**
+     * Número de hilos del ejecutor paralelo.
+     *
+     * @return Número de hilos.
+     */
+    public int getParallelism() {
+        return PARALLEL_THREADS;
+    }
+
+    /**
+     * Ejecuta una acción en el hilo principal.
+     *
+     * @param action Acción a ejecutar.
+     */
+    public void runOnMainThread(Runnable action) {
+        mainThread.post(action);
+    }
+
+    /**
+     * Crea una fábrica de hilos en segundo plano con nombre.
+     *
+     * @param prefix Prefijo del nombre de los hilos.
+     * @return Fábrica de hilos.
+     */
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+    }
+}
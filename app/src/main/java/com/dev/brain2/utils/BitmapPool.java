@@ -0,0 +1,155 @@
+package com.dev.brain2.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserva de bitmaps ya asignados que se pueden reutilizar como destino de una decodificación
+ * (BitmapFactory.Options.inBitmap). Los bitmaps se agrupan por tamaño de asignación y la reserva
+ * se limita a un presupuesto en bytes que depende de la clase de memoria del dispositivo.
+ */
+public class BitmapPool {
+
+    // Fracción de la clase de memoria que puede ocupar la reserva
+    private static final int MEMORY_CLASS_DIVISOR = 16;
+    // Un bitmap se reutiliza solo si no es más del doble de lo que hace falta
+    private static final int MAX_SIZE_MULTIPLE = 2;
+
+    private final long maxBytes;
+    private final TreeMap<Integer, Deque<Bitmap>> buckets = new TreeMap<>();
+    private final Deque<Bitmap> insertionOrder = new ArrayDeque<>();
+    private long currentBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes Bytes que puede ocupar la reserva.
+     */
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Crea una reserva con el presupuesto adecuado para el dispositivo.
+     *
+     * @param context Contexto de la aplicación.
+     * @return Reserva de bitmaps.
+     */
+    public static BitmapPool forDevice(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        long memoryClassBytes = activityManager != null
+                ? activityManager.getMemoryClass() * 1024L * 1024L
+                : Runtime.getRuntime().maxMemory();
+        return new BitmapPool(memoryClassBytes / MEMORY_CLASS_DIVISOR);
+    }
+
+    /**
+     * Devuelve un bitmap a la reserva. Si no cabe en el presupuesto se descartan primero
+     * los más antiguos.
+     *
+     * @param bitmap Bitmap que ya no se muestra en ninguna vista.
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (size > maxBytes) {
+            return;
+        }
+        buckets.computeIfAbsent(size, key -> new ArrayDeque<>()).addLast(bitmap);
+        insertionOrder.addLast(bitmap);
+        currentBytes += size;
+        trimTo(maxBytes);
+    }
+
+    /**
+     * Saca de la reserva un bitmap donde quepa una imagen del tamaño pedido.
+     *
+     * @param width  Ancho de la imagen decodificada.
+     * @param height Alto de la imagen decodificada.
+     * @param config Formato de los píxeles.
+     * @return Bitmap reutilizable, o null si no hay ninguno adecuado.
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        int needed = width * height * bytesPerPixel(config);
+        Map.Entry<Integer, Deque<Bitmap>> entry = buckets.ceilingEntry(needed);
+        if (entry == null || entry.getKey() > (long) needed * MAX_SIZE_MULTIPLE) {
+            Metrics.increment("bitmap.pool.miss", 1);
+            return null;
+        }
+        Bitmap bitmap = entry.getValue().pollLast();
+        if (entry.getValue().isEmpty()) {
+            buckets.remove(entry.getKey());
+        }
+        insertionOrder.remove(bitmap);
+        currentBytes -= entry.getKey();
+        Metrics.increment("bitmap.pool.hit", 1);
+        return bitmap;
+    }
+
+    /**
+     * Retira de la reserva un bitmap concreto porque vuelve a mostrarse.
+     *
+     * @param bitmap Bitmap a retirar.
+     * @return true si estaba en la reserva.
+     */
+    public synchronized boolean remove(Bitmap bitmap) {
+        if (!insertionOrder.remove(bitmap)) {
+            return false;
+        }
+        int size = bitmap.getAllocationByteCount();
+        Deque<Bitmap> bucket = buckets.get(size);
+        if (bucket != null) {
+            bucket.remove(bitmap);
+            if (bucket.isEmpty()) {
+                buckets.remove(size);
+            }
+        }
+        currentBytes -= size;
+        return true;
+    }
+
+    /**
+     * Reduce la reserva hasta un tamaño.
+     *
+     * @param targetBytes Bytes que puede ocupar como máximo.
+     * @return Bytes liberados.
+     */
+    public synchronized long trimTo(long targetBytes) {
+        long freed = 0;
+        while (currentBytes > targetBytes && !insertionOrder.isEmpty()) {
+            Bitmap oldest = insertionOrder.pollFirst();
+            int size = oldest.getAllocationByteCount();
+            Deque<Bitmap> bucket = buckets.get(size);
+            if (bucket != null) {
+                bucket.remove(oldest);
+                if (bucket.isEmpty()) {
+                    buckets.remove(size);
+                }
+            }
+            currentBytes -= size;
+            freed += size;
+        }
+        return freed;
+    }
+
+    /**
+     * Bytes que ocupa ahora la reserva.
+     *
+     * @return Bytes en la reserva.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        return config == Bitmap.Config.RGB_565 ? 2 : 4;
+    }
+}
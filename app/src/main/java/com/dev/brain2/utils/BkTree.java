@@ -0,0 +1,184 @@
+package com.dev.brain2.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Árbol BK de palabras para buscar las que están a pocas ediciones (distancia de Levenshtein)
+ * de una consulta. Cada hijo cuelga de su padre según la distancia entre ambos, y por la
+ * desigualdad triangular solo hay que bajar por los hijos cuya distancia está a menos de
+ * la tolerancia de la distancia de la consulta al padre; el resto del árbol no se compara.
+ */
+public class BkTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Añade una palabra si no estaba.
+     *
+     * @param term Palabra.
+     * @return true si se añadió.
+     */
+    public boolean add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            // La distancia nunca supera la longitud de la palabra más larga
+            int distance = distance(term, node.term, Math.max(term.length(), node.term.length()));
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(term));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Busca las palabras a una distancia máxima de la consulta.
+     *
+     * @param query       Consulta.
+     * @param maxDistance Número máximo de ediciones.
+     * @return Palabras encontradas con su distancia, de más cercana a más lejana.
+     */
+    public List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            // Basta calcular la distancia hasta donde todavía puede elegir hijos
+            int limit = node.maxChildDistance + maxDistance;
+            int distance = distance(query, node.term, limit);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.term, distance));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        matches.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance)
+                : a.term.compareTo(b.term));
+        return matches;
+    }
+
+    /**
+     * Número de palabras del árbol.
+     *
+     * @return Número de palabras.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Distancia de Levenshtein entre dos palabras, dejando de calcular al pasar de un límite.
+     *
+     * @param a     Primera palabra.
+     * @param b     Segunda palabra.
+     * @param limit Distancia a partir de la cual el valor exacto no interesa.
+     * @return Distancia, o limit + 1 si es mayor que el límite.
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;   // Ninguna fila posterior puede bajar del límite
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    /**
+     * Palabra encontrada y su distancia a la consulta.
+     */
+    public static final class Match {
+        private final String term;
+        private final int distance;
+
+        Match(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    /**
+     * Nodo del árbol: una palabra y sus hijos por distancia.
+     */
+    private static final class Node {
+        final String term;
+        int[] distances = new int[0];
+        Node[] children = new Node[0];
+        int childCount;
+        int maxChildDistance;   // Mayor distancia de un hijo
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (childCount == distances.length) {
+                int capacity = Math.max(2, childCount * 2);
+                distances = Arrays.copyOf(distances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            distances[childCount] = distance;
+            children[childCount] = child;
+            childCount++;
+            maxChildDistance = Math.max(maxChildDistance, distance);
+        }
+    }
+}
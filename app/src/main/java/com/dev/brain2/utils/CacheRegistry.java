@@ -0,0 +1,140 @@
+package com.dev.brain2.utils;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import com.dev.brain2.interfaces.TrimmableCache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registro central de las cachés en memoria. Cuando el sistema avisa de falta de memoria,
+ * se liberan por orden: primero lo que cuesta poco reconstruir y, solo si la presión es alta,
+ * lo que cuesta más.
+ */
+public class CacheRegistry {
+
+    private static final String TAG = "CacheRegistry";
+
+    /**
+     * Coste de reconstruir una caché. Se libera en este orden.
+     */
+    public enum Tier {
+        CHEAP,      // Se rehace sin leer disco: reservas de bitmaps, cachés de consultas
+        MEDIUM,     // Hay que volver a decodificar: miniaturas, imagen a pantalla completa
+        COSTLY      // Hay que volver a leer la biblioteca: modelo en memoria, índices de búsqueda
+    }
+
+    private static CacheRegistry instance;
+
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor.
+     */
+    CacheRegistry() {
+    }
+
+    /**
+     * Obtiene la instancia compartida.
+     *
+     * @return Registro de cachés.
+     */
+    public static synchronized CacheRegistry getInstance() {
+        if (instance == null) {
+            instance = new CacheRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Registra una caché.
+     *
+     * @param name  Nombre para las métricas.
+     * @param tier  Coste de reconstruirla.
+     * @param cache Caché a registrar.
+     */
+    public void register(String name, Tier tier, TrimmableCache cache) {
+        entries.add(new Entry(name, tier, cache));
+    }
+
+    /**
+     * Quita una caché del registro. Se usa con las cachés que viven menos que la aplicación.
+     *
+     * @param cache Caché registrada.
+     */
+    public void unregister(TrimmableCache cache) {
+        for (Entry entry : entries) {
+            if (entry.cache == cache) {
+                entries.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Libera memoria según el nivel de presión, en orden de coste de reconstrucción.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados en total (aproximados).
+     */
+    public long onTrimMemory(int level) {
+        Tier maxTier = tierFor(level);
+        if (maxTier == null) {
+            return 0;
+        }
+
+        List<Entry> ordered = new ArrayList<>(entries);
+        ordered.sort(Comparator.comparing(entry -> entry.tier));
+        long total = 0;
+        for (Entry entry : ordered) {
+            if (entry.tier.compareTo(maxTier) > 0) {
+                break;
+            }
+            long freed = entry.cache.trimMemory(level);
+            Metrics.recordValue("memory.trim." + entry.name, freed);
+            total += freed;
+        }
+        Metrics.recordValue("memory.trim.total", total);
+        Log.i(TAG, "Nivel " + level + ": liberados " + total / 1024 + " KB");
+        return total;
+    }
+
+    /**
+     * Cachés que se liberan en cada nivel de presión.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Coste máximo de las cachés a liberar, o null si no hace falta liberar nada.
+     */
+    static Tier tierFor(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return Tier.COSTLY;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            // RUNNING_LOW, UI_HIDDEN y BACKGROUND
+            return Tier.MEDIUM;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return Tier.CHEAP;
+        }
+        return null;
+    }
+
+    /**
+     * Caché registrada.
+     */
+    private static final class Entry {
+        private final String name;
+        private final Tier tier;
+        private final TrimmableCache cache;
+
+        Entry(String name, Tier tier, TrimmableCache cache) {
+            this.name = name;
+            this.tier = tier;
+            this.cache = cache;
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.dev.brain2.utils;
 
 import android.content.Context;
+import android.util.Log;
 
 import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.LibraryManifest;
+import com.dev.brain2.models.ScanCache;
+import com.dev.brain2.models.SearchIndexSnapshot;
+import com.dev.brain2.models.TagDictionary;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,8 +33,25 @@ import java.util.Map;
  */
 public class DataStorage {
 
-    private static final String FOLDERS_FILE_NAME = "folders.json";
+    private static final String TAG = "DataStorage";
+    private static final String LEGACY_FOLDERS_FILE_NAME = "folders.json";
+    private static final String LEGACY_SUMMARIES_FILE_NAME = "folder_summaries.json";
+    private static final String LEGACY_BACKUP_SUFFIX = ".migrated";
+    private static final String LIBRARY_DIR_NAME = "library";
+    private static final String MANIFEST_FILE_NAME = "manifest.json";
+    private static final String SHARDS_DIR_NAME = "folders";
+    private static final String SHARD_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
     private static final String SETTINGS_FILE_NAME = "settings.json";
+    private static final String SCAN_CACHE_FILE_NAME = "scan_cache.json";
+    private static final String SEARCH_INDEX_FILE_NAME = "search_index.json";
+    private static final String SEARCH_JOURNAL_FILE_NAME = "search_index.journal";
+    private static final String EXPORT_DIR_NAME = "diagnostics";
+    // Campos del JSON de una carpeta que se reescriben para guardar las etiquetas por número
+    private static final String FOLDER_IMAGES_FIELD = "images";
+    private static final String FOLDER_TAG_NAMES_FIELD = "tagNames";
+    private static final String IMAGE_TAG_IDS_FIELD = "tagIds";
+    private static final String IMAGE_LEGACY_TAGS_FIELD = "tags";
 
     private final Context appContext;
     private final Gson gson;
@@ -34,40 +66,266 @@ public class DataStorage {
         this.gson = new Gson();
     }
 
-    // Métodos para manejar los datos de Folder
+    // Métodos para manejar la biblioteca por carpetas
 
     /**
-     * Lee la lista de carpetas desde el archivo JSON.
+     * Lee el manifiesto de la biblioteca.
      *
-     * @return Lista de carpetas.
+     * @return Manifiesto, o null si la biblioteca todavía no usa el formato por carpetas.
      */
-    public List<Folder> readFolders() {
-        File dataFile = getDataFile(FOLDERS_FILE_NAME);
+    public LibraryManifest readManifest() {
+        MainThreadIoGuard.onDiskRead();
+        File dataFile = getManifestFile();
 
         if (!dataFile.exists()) {
             return null;
         }
 
+        long start = Metrics.startTimer();
         try (FileReader reader = new FileReader(dataFile)) {
-            return gson.fromJson(reader, new TypeToken<List<Folder>>() {}.getType());
-        } catch (IOException e) {
+            return gson.fromJson(reader, LibraryManifest.class);
+        } catch (IOException | JsonParseException e) {
             e.printStackTrace();
             return null;
+        } finally {
+            recordIo("storage.readManifest", dataFile, start);
         }
     }
 
     /**
-     * Escribe la lista de carpetas al archivo JSON.
+     * Escribe el manifiesto de la biblioteca.
      *
-     * @param folders Lista de carpetas a guardar.
+     * @param manifest Manifiesto a guardar.
      */
-    public void writeFolders(List<Folder> folders) {
-        File dataFile = getDataFile(FOLDERS_FILE_NAME);
+    public void writeManifest(LibraryManifest manifest) {
+        MainThreadIoGuard.onDiskWrite();
+        File dataFile = getManifestFile();
 
-        try (FileWriter writer = new FileWriter(dataFile)) {
-            gson.toJson(folders, writer);
-        } catch (IOException e) {
+        long start = Metrics.startTimer();
+        writeJsonAtomically(dataFile, manifest);
+        recordIo("storage.writeManifest", dataFile, start);
+    }
+
+    /**
+     * Lee el archivo de una carpeta, con todas sus imágenes. Las etiquetas guardadas por número
+     * se traducen a los números del TagDictionary de este proceso.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Carpeta, o null si no existe o no se pudo leer.
+     */
+    public Folder readFolderShard(String folderId) {
+        MainThreadIoGuard.onDiskRead();
+        File dataFile = getShardFile(folderId);
+
+        if (!dataFile.exists()) {
+            return null;
+        }
+
+        long start = Metrics.startTimer();
+        try (FileReader reader = new FileReader(dataFile)) {
+            JsonObject folderJson = JsonParser.parseReader(reader).getAsJsonObject();
+            unpackTags(folderJson);
+            return gson.fromJson(folderJson, Folder.class);
+        } catch (IOException | JsonParseException | IllegalStateException | IndexOutOfBoundsException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            recordIo("storage.readFolderShard", dataFile, start);
+        }
+    }
+
+    /**
+     * Escribe el archivo de una carpeta. Solo se reescribe esa carpeta. Cada etiqueta distinta
+     * se escribe una vez en la cabecera y las imágenes guardan su posición en ella.
+     *
+     * @param folder Carpeta a guardar.
+     */
+    public void writeFolderShard(Folder folder) {
+        MainThreadIoGuard.onDiskWrite();
+        File dataFile = getShardFile(folder.getId());
+
+        long start = Metrics.startTimer();
+        JsonObject folderJson = gson.toJsonTree(folder).getAsJsonObject();
+        packTags(folderJson);
+        writeJsonAtomically(dataFile, folderJson);
+        recordIo("storage.writeFolderShard", dataFile, start);
+    }
+
+    /**
+     * Sustituye las etiquetas de cada imagen por posiciones en una tabla de etiquetas de la carpeta.
+     * Así el archivo no depende de la numeración del proceso que lo escribió.
+     *
+     * @param folderJson Carpeta serializada.
+     */
+    private static void packTags(JsonObject folderJson) {
+        JsonArray images = folderJson.getAsJsonArray(FOLDER_IMAGES_FIELD);
+        if (images == null) {
+            return;
+        }
+        TagDictionary dictionary = TagDictionary.getInstance();
+        Map<String, Integer> localIds = new LinkedHashMap<>();
+        for (JsonElement element : images) {
+            JsonObject image = element.getAsJsonObject();
+            JsonArray packed = new JsonArray();
+            // Una imagen que nunca se tocó puede tener aún sus etiquetas en texto
+            JsonArray legacyTags = image.getAsJsonArray(IMAGE_LEGACY_TAGS_FIELD);
+            JsonArray tagIds = image.getAsJsonArray(IMAGE_TAG_IDS_FIELD);
+            if (legacyTags != null) {
+                for (JsonElement tag : legacyTags) {
+                    packed.add(localIds.computeIfAbsent(tag.getAsString(), key -> localIds.size()));
+                }
+            } else if (tagIds != null) {
+                for (JsonElement tagId : tagIds) {
+                    String tag = dictionary.get(tagId.getAsInt());
+                    packed.add(localIds.computeIfAbsent(tag, key -> localIds.size()));
+                }
+            }
+            image.remove(IMAGE_LEGACY_TAGS_FIELD);
+            image.add(IMAGE_TAG_IDS_FIELD, packed);
+        }
+        JsonArray tagNames = new JsonArray();
+        for (String tag : localIds.keySet()) {
+            tagNames.add(tag);
+        }
+        folderJson.add(FOLDER_TAG_NAMES_FIELD, tagNames);
+    }
+
+    /**
+     * Traduce las posiciones de la tabla de etiquetas de la carpeta a números del TagDictionary.
+     * Los archivos sin tabla son de versiones anteriores y guardan las etiquetas en texto.
+     *
+     * @param folderJson Carpeta leída.
+     */
+    private static void unpackTags(JsonObject folderJson) {
+        JsonArray tagNames = folderJson.getAsJsonArray(FOLDER_TAG_NAMES_FIELD);
+        JsonArray images = folderJson.getAsJsonArray(FOLDER_IMAGES_FIELD);
+        if (tagNames == null || images == null) {
+            return;
+        }
+        TagDictionary dictionary = TagDictionary.getInstance();
+        int[] dictionaryIds = new int[tagNames.size()];
+        for (int i = 0; i < dictionaryIds.length; i++) {
+            dictionaryIds[i] = dictionary.intern(tagNames.get(i).getAsString());
+        }
+        for (JsonElement element : images) {
+            JsonArray tagIds = element.getAsJsonObject().getAsJsonArray(IMAGE_TAG_IDS_FIELD);
+            if (tagIds == null) {
+                continue;
+            }
+            for (int i = 0; i < tagIds.size(); i++) {
+                tagIds.set(i, new JsonPrimitive(dictionaryIds[tagIds.get(i).getAsInt()]));
+            }
+        }
+        folderJson.remove(FOLDER_TAG_NAMES_FIELD);
+    }
+
+    /**
+     * Borra el archivo de una carpeta.
+     *
+     * @param folderId ID de la carpeta.
+     */
+    public void deleteFolderShard(String folderId) {
+        MainThreadIoGuard.onDiskWrite();
+        File dataFile = getShardFile(folderId);
+        if (dataFile.exists() && !dataFile.delete()) {
+            Log.w(TAG, "No se pudo borrar " + dataFile);
+        }
+    }
+
+    /**
+     * Escribe una biblioteca completa: un archivo por carpeta y el manifiesto.
+     *
+     * @param folders Carpetas en orden de almacenamiento.
+     * @return Manifiesto escrito.
+     */
+    public LibraryManifest writeLibrary(List<Folder> folders) {
+        long now = System.currentTimeMillis();
+        List<FolderSummary> summaries = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            writeFolderShard(folder);
+            summaries.add(FolderSummary.of(folder, now));
+        }
+        // El manifiesto va al final: si el proceso muere antes, la migración se repite
+        LibraryManifest manifest = new LibraryManifest(summaries);
+        writeManifest(manifest);
+        return manifest;
+    }
+
+    /**
+     * Pasa la biblioteca del antiguo folders.json único al formato por carpetas.
+     * El archivo antiguo se conserva renombrado como copia de seguridad.
+     *
+     * @return Manifiesto de la biblioteca migrada; vacío si no había biblioteca anterior.
+     */
+    public LibraryManifest migrateToShardedLayout() {
+        File legacyFile = getDataFile(LEGACY_FOLDERS_FILE_NAME);
+        List<Folder> legacyFolders = readLegacyFolders(legacyFile);
+        LibraryManifest manifest = writeLibrary(legacyFolders != null ? legacyFolders : new ArrayList<>());
+
+        if (legacyFile.exists() && !legacyFile.renameTo(getDataFile(LEGACY_FOLDERS_FILE_NAME + LEGACY_BACKUP_SUFFIX))) {
+            Log.w(TAG, "No se pudo retirar " + legacyFile);
+        }
+        // Los resúmenes ahora viven en el manifiesto
+        getDataFile(LEGACY_SUMMARIES_FILE_NAME).delete();
+        Log.i(TAG, "Biblioteca migrada al formato por carpetas: " + manifest.getFolders().size() + " carpetas");
+        return manifest;
+    }
+
+    /**
+     * Lee la biblioteca JSON completa para pasarla a otro almacenamiento: el formato por carpetas
+     * si existe y, si no, el antiguo folders.json.
+     *
+     * @return Carpetas en orden, o null si no hay biblioteca JSON.
+     */
+    public List<Folder> readJsonLibrary() {
+        LibraryManifest manifest = readManifest();
+        if (manifest == null) {
+            return readLegacyFolders(getDataFile(LEGACY_FOLDERS_FILE_NAME));
+        }
+        List<Folder> folders = new ArrayList<>(manifest.getFolders().size());
+        for (FolderSummary summary : manifest.getFolders()) {
+            Folder folder = readFolderShard(summary.getId());
+            if (folder != null) {
+                folders.add(folder);
+            }
+        }
+        return folders;
+    }
+
+    /**
+     * Retira la biblioteca JSON después de pasarla a otro almacenamiento. Los archivos se
+     * conservan renombrados como copia de seguridad.
+     */
+    public void retireJsonLibrary() {
+        MainThreadIoGuard.onDiskWrite();
+        File legacyFile = getDataFile(LEGACY_FOLDERS_FILE_NAME);
+        if (legacyFile.exists() && !legacyFile.renameTo(getDataFile(LEGACY_FOLDERS_FILE_NAME + LEGACY_BACKUP_SUFFIX))) {
+            Log.w(TAG, "No se pudo retirar " + legacyFile);
+        }
+        File libraryDir = getDataFile(LIBRARY_DIR_NAME);
+        if (libraryDir.exists() && !libraryDir.renameTo(getDataFile(LIBRARY_DIR_NAME + LEGACY_BACKUP_SUFFIX))) {
+            Log.w(TAG, "No se pudo retirar " + libraryDir);
+        }
+        getDataFile(LEGACY_SUMMARIES_FILE_NAME).delete();
+    }
+
+    /**
+     * Lee la lista de carpetas del formato antiguo.
+     *
+     * @param dataFile Archivo folders.json.
+     * @return Lista de carpetas, o null si no existe.
+     */
+    private List<Folder> readLegacyFolders(File dataFile) {
+        MainThreadIoGuard.onDiskRead();
+        if (!dataFile.exists()) {
+            return null;
+        }
+
+        try (FileReader reader = new FileReader(dataFile)) {
+            return gson.fromJson(reader, new TypeToken<List<Folder>>() {}.getType());
+        } catch (IOException | JsonParseException e) {
             e.printStackTrace();
+            return null;
         }
     }
 
@@ -79,17 +337,21 @@ public class DataStorage {
      * @return Mapa de configuraciones.
      */
     public Map<String, Object> readSettings() {
+        MainThreadIoGuard.onDiskRead();
         File dataFile = getDataFile(SETTINGS_FILE_NAME);
 
         if (!dataFile.exists()) {
             return null;
         }
 
+        long start = Metrics.startTimer();
         try (FileReader reader = new FileReader(dataFile)) {
             return gson.fromJson(reader, new TypeToken<Map<String, Object>>() {}.getType());
         } catch (IOException e) {
             e.printStackTrace();
             return null;
+        } finally {
+            recordIo("storage.readSettings", dataFile, start);
         }
     }
 
@@ -99,13 +361,269 @@ public class DataStorage {
      * @param settings Mapa de configuraciones a guardar.
      */
     public void writeSettings(Map<String, Object> settings) {
+        MainThreadIoGuard.onDiskWrite();
         File dataFile = getDataFile(SETTINGS_FILE_NAME);
 
+        long start = Metrics.startTimer();
         try (FileWriter writer = new FileWriter(dataFile)) {
             gson.toJson(settings, writer);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        recordIo("storage.writeSettings", dataFile, start);
+    }
+
+    // Métodos para manejar el índice de búsqueda guardado
+
+    /**
+     * Lee la copia del índice de búsqueda, sin los cambios posteriores.
+     *
+     * @return Copia, o null si no existe, no se pudo leer o es de otra versión del formato.
+     */
+    public SearchIndexSnapshot readSearchIndex() {
+        MainThreadIoGuard.onDiskRead();
+        File dataFile = getLibraryFile(SEARCH_INDEX_FILE_NAME);
+
+        if (!dataFile.exists()) {
+            return null;
+        }
+
+        long start = Metrics.startTimer();
+        try (FileReader reader = new FileReader(dataFile)) {
+            SearchIndexSnapshot snapshot = gson.fromJson(reader, SearchIndexSnapshot.class);
+            return snapshot != null && snapshot.getVersion() == SearchIndexSnapshot.CURRENT_VERSION ? snapshot : null;
+        } catch (IOException | JsonParseException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            recordIo("storage.readSearchIndex", dataFile, start);
+        }
+    }
+
+    /**
+     * Escribe la copia del índice de búsqueda y borra los cambios que ya incluye.
+     *
+     * @param snapshot Copia a guardar.
+     */
+    public void writeSearchIndex(SearchIndexSnapshot snapshot) {
+        MainThreadIoGuard.onDiskWrite();
+        File dataFile = getLibraryFile(SEARCH_INDEX_FILE_NAME);
+
+        long start = Metrics.startTimer();
+        writeJsonAtomically(dataFile, snapshot);
+        getLibraryFile(SEARCH_JOURNAL_FILE_NAME).delete();
+        recordIo("storage.writeSearchIndex", dataFile, start);
+    }
+
+    /**
+     * Indica si hay una copia del índice de búsqueda que actualizar.
+     *
+     * @return true si existe.
+     */
+    public boolean hasSearchIndex() {
+        return getLibraryFile(SEARCH_INDEX_FILE_NAME).exists();
+    }
+
+    /**
+     * Añade un cambio al final del registro del índice de búsqueda, sin reescribir la copia.
+     *
+     * @param change Cambio a añadir.
+     * @return Tamaño del registro en bytes después de añadirlo.
+     */
+    public long appendSearchIndexChange(SearchIndexSnapshot.Change change) {
+        MainThreadIoGuard.onDiskWrite();
+        File dataFile = getLibraryFile(SEARCH_JOURNAL_FILE_NAME);
+
+        // Una línea por cambio; una línea a medias se descarta al leer
+        try (FileWriter writer = new FileWriter(dataFile, true)) {
+            writer.write(gson.toJson(change));
+            writer.write('\n');
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return dataFile.length();
+    }
+
+    /**
+     * Lee los cambios guardados después de la copia del índice de búsqueda.
+     *
+     * @return Cambios en el orden en que se añadieron; vacía si no hay.
+     */
+    public List<SearchIndexSnapshot.Change> readSearchIndexChanges() {
+        MainThreadIoGuard.onDiskRead();
+        File dataFile = getLibraryFile(SEARCH_JOURNAL_FILE_NAME);
+        List<SearchIndexSnapshot.Change> changes = new ArrayList<>();
+
+        if (!dataFile.exists()) {
+            return changes;
+        }
+
+        long start = Metrics.startTimer();
+        try (BufferedReader reader = new BufferedReader(new FileReader(dataFile))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                SearchIndexSnapshot.Change change = gson.fromJson(line, SearchIndexSnapshot.Change.class);
+                if (change != null) {
+                    changes.add(change);
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            // La última línea pudo quedar a medias; los cambios anteriores siguen valiendo
+            Log.w(TAG, "Registro del índice de búsqueda incompleto", e);
+        } finally {
+            recordIo("storage.readSearchIndexChanges", dataFile, start);
+        }
+        return changes;
+    }
+
+    /**
+     * Tamaño de la copia del índice de búsqueda.
+     *
+     * @return Bytes, o 0 si no existe.
+     */
+    public long getSearchIndexSize() {
+        return getLibraryFile(SEARCH_INDEX_FILE_NAME).length();
+    }
+
+    /**
+     * Borra la copia del índice de búsqueda y su registro de cambios.
+     */
+    public void deleteSearchIndex() {
+        MainThreadIoGuard.onDiskWrite();
+        getLibraryFile(SEARCH_INDEX_FILE_NAME).delete();
+        getLibraryFile(SEARCH_JOURNAL_FILE_NAME).delete();
+    }
+
+    // Métodos para manejar la caché de la reconciliación
+
+    /**
+     * Lee el estado guardado de la última reconciliación.
+     *
+     * @return Estado guardado, o null si no hay o no se puede leer.
+     */
+    public ScanCache readScanCache() {
+        MainThreadIoGuard.onDiskRead();
+        File dataFile = getDataFile(SCAN_CACHE_FILE_NAME);
+
+        if (!dataFile.exists()) {
+            return null;
+        }
+
+        try (FileReader reader = new FileReader(dataFile)) {
+            return gson.fromJson(reader, ScanCache.class);
+        } catch (IOException | JsonParseException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Escribe el estado de la reconciliación.
+     *
+     * @param cache Estado a guardar.
+     */
+    public void writeScanCache(ScanCache cache) {
+        MainThreadIoGuard.onDiskWrite();
+        File dataFile = getDataFile(SCAN_CACHE_FILE_NAME);
+
+        try (FileWriter writer = new FileWriter(dataFile)) {
+            gson.toJson(cache, writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Guarda un texto exportado (por ejemplo, métricas) en el directorio de diagnóstico.
+     *
+     * @param fileName Nombre del archivo.
+     * @param content  Contenido a escribir.
+     * @return Archivo escrito, o null si hubo un error.
+     */
+    public File writeExport(String fileName, String content) {
+        MainThreadIoGuard.onDiskWrite();
+        File exportDir = appContext.getExternalFilesDir(EXPORT_DIR_NAME);
+        if (exportDir == null) {
+            return null;
+        }
+        File exportFile = new File(exportDir, fileName);
+
+        try (FileWriter writer = new FileWriter(exportFile)) {
+            writer.write(content);
+            return exportFile;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Registra la duración y el tamaño de una lectura o escritura si las métricas están activas.
+     *
+     * @param name       Nombre de la métrica.
+     * @param dataFile   Archivo leído o escrito.
+     * @param startNanos Valor devuelto por Metrics.startTimer.
+     */
+    private void recordIo(String name, File dataFile, long startNanos) {
+        if (startNanos != 0) {
+            Metrics.stopTimer(name, startNanos);
+            Metrics.recordValue(name + ".bytes", dataFile.length());
+        }
+    }
+
+    /**
+     * Escribe un objeto como JSON en un temporal y lo renombra, para no dejar archivos a medias.
+     *
+     * @param dataFile Archivo de destino.
+     * @param content  Objeto a serializar.
+     */
+    private void writeJsonAtomically(File dataFile, Object content) {
+        File parent = dataFile.getParentFile();
+        if (parent != null && !parent.isDirectory()) {
+            parent.mkdirs();
+        }
+        File tempFile = new File(parent, dataFile.getName() + TEMP_SUFFIX);
+        try (FileWriter writer = new FileWriter(tempFile)) {
+            gson.toJson(content, writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(dataFile)) {
+            Log.w(TAG, "No se pudo reemplazar " + dataFile);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Obtiene el archivo del manifiesto de la biblioteca.
+     *
+     * @return Archivo del manifiesto.
+     */
+    private File getManifestFile() {
+        return new File(new File(appContext.getFilesDir(), LIBRARY_DIR_NAME), MANIFEST_FILE_NAME);
+    }
+
+    /**
+     * Obtiene un archivo del directorio de la biblioteca.
+     *
+     * @param fileName Nombre del archivo.
+     * @return Archivo dentro del directorio de la biblioteca.
+     */
+    private File getLibraryFile(String fileName) {
+        return new File(new File(appContext.getFilesDir(), LIBRARY_DIR_NAME), fileName);
+    }
+
+    /**
+     * Obtiene el archivo de una carpeta. Los caracteres fuera de [A-Za-z0-9_-] se sustituyen
+     * para que cualquier ID sea un nombre de archivo válido.
+     *
+     * @param folderId ID de la carpeta.
+     * @return Archivo de la carpeta.
+     */
+    private File getShardFile(String folderId) {
+        File shardsDir = new File(new File(appContext.getFilesDir(), LIBRARY_DIR_NAME), SHARDS_DIR_NAME);
+        return new File(shardsDir, folderId.replaceAll("[^A-Za-z0-9_-]", "_") + SHARD_SUFFIX);
     }
 
     /**
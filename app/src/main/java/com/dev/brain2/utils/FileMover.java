@@ -0,0 +1,266 @@
+package com.dev.brain2.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Mueve archivos de forma fiable. Primero intenta un renombrado atómico y, si falla
+ * (por ejemplo entre puntos de montaje distintos), copia, verifica la suma de control y borra el origen.
+ */
+public class FileMover {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 100;
+    private static final long TRANSFER_CHUNK_BYTES = 1024 * 1024;
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * Motivos por los que un movimiento puede fallar.
+     */
+    public enum Failure {
+        SOURCE_MISSING("El archivo de origen no existe"),
+        TARGET_EXISTS("Ya existe un archivo con ese nombre en el destino"),
+        TARGET_DIR_UNAVAILABLE("No se pudo crear el directorio de destino"),
+        COPY_FAILED("No se pudo copiar el archivo"),
+        VERIFY_FAILED("La copia no coincide con el original"),
+        DELETE_FAILED("No se pudo borrar el archivo original"),
+        INTERRUPTED("El movimiento fue interrumpido");
+
+        private final String description;
+
+        Failure(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Resultado de mover un archivo.
+     */
+    public static class MoveResult {
+        private final Failure failure;
+        private final String detail;
+        private final boolean copied;
+        private final int attempts;
+
+        private MoveResult(Failure failure, String detail, boolean copied, int attempts) {
+            this.failure = failure;
+            this.detail = detail;
+            this.copied = copied;
+            this.attempts = attempts;
+        }
+
+        static MoveResult success(boolean copied, int attempts) {
+            return new MoveResult(null, null, copied, attempts);
+        }
+
+        static MoveResult failure(Failure failure, String detail, int attempts) {
+            return new MoveResult(failure, detail, false, attempts);
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        public Failure getFailure() {
+            return failure;
+        }
+
+        /**
+         * Indica si hizo falta copiar porque el renombrado no fue posible.
+         *
+         * @return true si se usó copia, verificación y borrado.
+         */
+        public boolean wasCopied() {
+            return copied;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Describe el motivo del fallo para mostrarlo al usuario.
+         *
+         * @return Descripción del fallo, o null si el movimiento tuvo éxito.
+         */
+        public String getReason() {
+            if (failure == null) {
+                return null;
+            }
+            return detail != null ? failure.getDescription() + " (" + detail + ")" : failure.getDescription();
+        }
+    }
+
+    /**
+     * Excepción interna para los fallos que no tiene sentido reintentar.
+     */
+    private static class PermanentFailure extends Exception {
+        final Failure failure;
+
+        PermanentFailure(Failure failure, String detail) {
+            super(detail);
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Mueve un archivo, reintentando los fallos transitorios.
+     *
+     * @param source Archivo de origen.
+     * @param target Archivo de destino (no debe existir).
+     * @return Resultado del movimiento.
+     */
+    public MoveResult move(File source, File target) {
+        MainThreadIoGuard.onDiskWrite();
+        if (!source.isFile()) {
+            return MoveResult.failure(Failure.SOURCE_MISSING, source.getPath(), 0);
+        }
+        if (target.exists()) {
+            return MoveResult.failure(Failure.TARGET_EXISTS, target.getName(), 0);
+        }
+        File targetDir = target.getParentFile();
+        if (targetDir != null && !targetDir.isDirectory() && !targetDir.mkdirs()) {
+            return MoveResult.failure(Failure.TARGET_DIR_UNAVAILABLE, targetDir.getPath(), 0);
+        }
+
+        if (source.renameTo(target)) {
+            return MoveResult.success(false, 1);
+        }
+
+        Failure lastFailure = Failure.COPY_FAILED;
+        String lastDetail = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                copyVerifyDelete(source, target);
+                return MoveResult.success(true, attempt);
+            } catch (PermanentFailure e) {
+                return MoveResult.failure(e.failure, e.getMessage(), attempt);
+            } catch (VerificationException e) {
+                lastFailure = Failure.VERIFY_FAILED;
+                lastDetail = e.getMessage();
+            } catch (IOException e) {
+                lastFailure = Failure.COPY_FAILED;
+                lastDetail = e.getMessage();
+            }
+
+            if (!sleepBeforeRetry(attempt)) {
+                return MoveResult.failure(Failure.INTERRUPTED, null, attempt);
+            }
+        }
+        return MoveResult.failure(lastFailure, lastDetail, MAX_ATTEMPTS);
+    }
+
+    /**
+     * Copia el archivo a un temporal, verifica la suma de control, lo coloca en su nombre final
+     * y borra el original.
+     *
+     * @param source Archivo de origen.
+     * @param target Archivo de destino.
+     * @throws IOException      Si la copia falla y se puede reintentar.
+     * @throws PermanentFailure Si el fallo no se resolverá reintentando.
+     */
+    private void copyVerifyDelete(File source, File target) throws IOException, PermanentFailure {
+        File partial = new File(target.getParentFile(), target.getName() + PARTIAL_SUFFIX);
+        try {
+            long sourceChecksum = copy(source, partial);
+            long copyChecksum = checksum(partial);
+            if (sourceChecksum != copyChecksum) {
+                throw new VerificationException(target.getName());
+            }
+            if (!partial.renameTo(target)) {
+                throw new IOException("No se pudo renombrar " + partial.getName());
+            }
+        } finally {
+            partial.delete();
+        }
+
+        if (!source.delete()) {
+            // Si el original no se puede borrar, se deshace la copia para no duplicar la imagen
+            target.delete();
+            throw new PermanentFailure(Failure.DELETE_FAILED, source.getPath());
+        }
+    }
+
+    /**
+     * Copia un archivo usando canales y calcula la suma de control del origen.
+     *
+     * @param source Archivo de origen.
+     * @param target Archivo de destino.
+     * @return Suma de control CRC32 del origen.
+     * @throws IOException Si ocurre un error de lectura o escritura.
+     */
+    private long copy(File source, File target) throws IOException {
+        long sourceChecksum = checksum(source);
+
+        try (FileChannel in = new FileInputStream(source).getChannel();
+             FileChannel out = new FileOutputStream(target).getChannel()) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK_BYTES, size - position), out);
+                if (transferred <= 0) {
+                    throw new IOException("La copia se detuvo en " + position + " de " + size + " bytes");
+                }
+                position += transferred;
+            }
+            out.force(true);
+        }
+        return sourceChecksum;
+    }
+
+    /**
+     * Calcula la suma de control CRC32 de un archivo.
+     *
+     * @param file Archivo a leer.
+     * @return Suma de control.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    private long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = new FileInputStream(file)) {
+            int length;
+            while ((length = input.read(buffer)) > 0) {
+                crc.update(buffer, 0, length);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Espera antes de reintentar, un poco más en cada intento.
+     *
+     * @param attempt Número del intento que acaba de fallar.
+     * @return false si el hilo fue interrumpido.
+     */
+    private boolean sleepBeforeRetry(int attempt) {
+        if (attempt == MAX_ATTEMPTS) {
+            return true;
+        }
+        try {
+            Thread.sleep(RETRY_DELAY_MS * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * La copia no coincide con el original.
+     */
+    private static class VerificationException extends IOException {
+        VerificationException(String message) {
+            super(message);
+        }
+    }
+}
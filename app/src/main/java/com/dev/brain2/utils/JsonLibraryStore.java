@@ -0,0 +1,78 @@
+package com.dev.brain2.utils;
+
+import android.content.Context;
+
+import com.dev.brain2.interfaces.LibraryStore;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.LibraryManifest;
+
+import java.util.List;
+
+/**
+ * Biblioteca guardada en archivos JSON: un manifiesto con los resúmenes y un archivo por carpeta.
+ * No tiene índices en disco, así que no es consultable: las búsquedas necesitan la biblioteca
+ * completa en memoria.
+ */
+public class JsonLibraryStore implements LibraryStore {
+
+    private final DataStorage dataStorage;
+    private long generation = -1;   // -1 hasta leer el manifiesto
+
+    /**
+     * Constructor.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    public JsonLibraryStore(Context context) {
+        this.dataStorage = new DataStorage(context);
+    }
+
+    @Override
+    public List<FolderSummary> loadSummaries() {
+        LibraryManifest manifest = dataStorage.readManifest();
+        if (manifest == null) {
+            manifest = dataStorage.migrateToShardedLayout();
+        }
+        return manifest.getFolders();
+    }
+
+    @Override
+    public Folder readFolder(String folderId) {
+        return dataStorage.readFolderShard(folderId);
+    }
+
+    @Override
+    public void saveFolders(List<Folder> folders, List<FolderSummary> summaries) {
+        for (Folder folder : folders) {
+            dataStorage.writeFolderShard(folder);
+        }
+        // El manifiesto va al final para no apuntar a carpetas sin archivo
+        dataStorage.writeManifest(new LibraryManifest(summaries, nextGeneration()));
+    }
+
+    @Override
+    public void deleteFolder(String folderId, List<FolderSummary> summaries) {
+        dataStorage.writeManifest(new LibraryManifest(summaries, nextGeneration()));
+        dataStorage.deleteFolderShard(folderId);
+    }
+
+    @Override
+    public synchronized long getGeneration() {
+        if (generation < 0) {
+            LibraryManifest manifest = dataStorage.readManifest();
+            generation = manifest != null ? manifest.getGeneration() : 0;
+        }
+        return generation;
+    }
+
+    /**
+     * Avanza la generación para el manifiesto que se va a escribir.
+     *
+     * @return Nueva generación.
+     */
+    private synchronized long nextGeneration() {
+        generation = getGeneration() + 1;
+        return generation;
+    }
+}
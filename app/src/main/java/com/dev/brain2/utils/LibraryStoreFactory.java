@@ -0,0 +1,51 @@
+package com.dev.brain2.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.dev.brain2.fragments.SettingsFragment;
+import com.dev.brain2.interfaces.LibraryStore;
+
+/**
+ * Único sitio donde se elige el almacenamiento de la biblioteca. Por defecto son los archivos
+ * JSON por carpeta (JsonLibraryStore); la base de datos SQLite (SqliteLibraryStore) se usa si
+ * se activa en los ajustes o si la biblioteca ya se migró a ella, porque la migración retira
+ * los archivos JSON.
+ */
+public final class LibraryStoreFactory {
+
+    private static final String TAG = "LibraryStoreFactory";
+
+    private static LibraryStore store;
+
+    private LibraryStoreFactory() {
+    }
+
+    /**
+     * Obtiene el almacenamiento de la biblioteca. Se elige una sola vez por proceso, así que
+     * un cambio en los ajustes se aplica al reiniciar la aplicación.
+     *
+     * @param context Contexto de la aplicación.
+     * @return Almacenamiento compartido.
+     */
+    public static synchronized LibraryStore get(Context context) {
+        if (store == null) {
+            Context appContext = context.getApplicationContext();
+            boolean useSqlite = isSqliteLibrary(appContext)
+                    || new SettingsPrefHelper(appContext).getBoolean(SettingsFragment.KEY_SQLITE_LIBRARY, false);
+            store = useSqlite ? SqliteLibraryStore.getInstance(appContext) : new JsonLibraryStore(appContext);
+            Log.i(TAG, "Biblioteca en " + (useSqlite ? "SQLite" : "JSON"));
+        }
+        return store;
+    }
+
+    /**
+     * Indica si la biblioteca ya está en la base de datos y, por tanto, no puede volver a JSON.
+     *
+     * @param context Contexto de la aplicación.
+     * @return true si existe la base de datos.
+     */
+    public static boolean isSqliteLibrary(Context context) {
+        return SqliteLibraryStore.exists(context);
+    }
+}
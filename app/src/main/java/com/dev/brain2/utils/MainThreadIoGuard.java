@@ -0,0 +1,244 @@
+package com.dev.brain2.utils;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.strictmode.DiskReadViolation;
+import android.os.strictmode.DiskWriteViolation;
+import android.os.strictmode.Violation;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detecta lecturas y escrituras de disco y decodificaciones de imágenes en el hilo principal
+ * en las compilaciones de depuración. Cada infracción se atribuye al método de la aplicación
+ * que la provocó y se agrupa en un informe.
+ */
+public final class MainThreadIoGuard {
+
+    private static final String TAG = "MainThreadIoGuard";
+    private static final String APP_PACKAGE = "com.dev.brain2.";
+    private static final String UTILS_PACKAGE = "com.dev.brain2.utils.";
+
+    /**
+     * Tipos de operación vigilados.
+     */
+    public enum Kind {
+        DISK_READ,
+        DISK_WRITE,
+        BITMAP_DECODE,
+        OTHER
+    }
+
+    private static volatile boolean enabled;
+    // Con StrictMode informando (API 28+) las comprobaciones manuales de disco sobran
+    private static volatile boolean strictModeReporting;
+
+    private static final Map<String, AtomicInteger> violations = new ConcurrentHashMap<>();
+
+    private MainThreadIoGuard() {
+    }
+
+    /**
+     * Activa la vigilancia si la aplicación es depurable. No hace nada en las versiones de lanzamiento.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    public static void install(Context context) {
+        boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (!debuggable || enabled) {
+            return;
+        }
+        enabled = true;
+
+        StrictMode.ThreadPolicy.Builder policy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectCustomSlowCalls();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            policy.penaltyListener(Executors.newSingleThreadExecutor(), MainThreadIoGuard::onStrictModeViolation);
+            strictModeReporting = true;
+        } else {
+            policy.penaltyLog();
+        }
+        StrictMode.setThreadPolicy(policy.build());
+    }
+
+    /**
+     * Activa o desactiva la vigilancia sin StrictMode (para pruebas).
+     *
+     * @param isEnabled true para registrar infracciones.
+     */
+    static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    /**
+     * Indica si la vigilancia está activa.
+     *
+     * @return true si está activa.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marca una lectura de disco. Si ocurre en el hilo principal se registra como infracción.
+     */
+    public static void onDiskRead() {
+        if (enabled && !strictModeReporting && isMainThread()) {
+            record(Kind.DISK_READ, Thread.currentThread().getStackTrace());
+        }
+    }
+
+    /**
+     * Marca una escritura de disco. Si ocurre en el hilo principal se registra como infracción.
+     */
+    public static void onDiskWrite() {
+        if (enabled && !strictModeReporting && isMainThread()) {
+            record(Kind.DISK_WRITE, Thread.currentThread().getStackTrace());
+        }
+    }
+
+    /**
+     * Marca la decodificación de una imagen. StrictMode no la detecta, así que siempre se comprueba aquí.
+     */
+    public static void onBitmapDecode() {
+        if (enabled && isMainThread()) {
+            record(Kind.BITMAP_DECODE, Thread.currentThread().getStackTrace());
+        }
+    }
+
+    /**
+     * Número total de infracciones registradas.
+     *
+     * @return Total de infracciones.
+     */
+    public static int getViolationCount() {
+        int total = 0;
+        for (AtomicInteger count : violations.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    /**
+     * Borra las infracciones registradas.
+     */
+    public static void reset() {
+        violations.clear();
+    }
+
+    /**
+     * Resume las infracciones, de la más frecuente a la menos, una por línea.
+     *
+     * @return Informe de infracciones.
+     */
+    public static String summarize() {
+        List<Map.Entry<String, AtomicInteger>> entries = new ArrayList<>(violations.entrySet());
+        Collections.sort(entries, (a, b) -> Integer.compare(b.getValue().get(), a.getValue().get()));
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "E/S en hilo principal: %d%n", getViolationCount()));
+        for (Map.Entry<String, AtomicInteger> entry : entries) {
+            builder.append(String.format(Locale.ROOT, "%5d  %s%n", entry.getValue().get(), entry.getKey()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Recibe las infracciones de StrictMode.
+     *
+     * @param violation Infracción detectada.
+     */
+    private static void onStrictModeViolation(Violation violation) {
+        Kind kind = Kind.OTHER;
+        if (violation instanceof DiskReadViolation) {
+            kind = Kind.DISK_READ;
+        } else if (violation instanceof DiskWriteViolation) {
+            kind = Kind.DISK_WRITE;
+        }
+        record(kind, violation.getStackTrace());
+    }
+
+    /**
+     * Registra una infracción agrupándola por tipo, punto de E/S y método responsable.
+     *
+     * @param kind  Tipo de operación.
+     * @param stack Pila de llamadas en el momento de la infracción.
+     */
+    private static void record(Kind kind, StackTraceElement[] stack) {
+        String key = kind + " " + attribute(stack);
+        AtomicInteger count = violations.computeIfAbsent(key, k -> new AtomicInteger());
+        if (count.incrementAndGet() == 1) {
+            // Solo se registra la pila la primera vez para no inundar el log
+            Throwable trace = new Throwable(key);
+            trace.setStackTrace(stack);
+            Log.w(TAG, "E/S en el hilo principal: " + key, trace);
+        }
+    }
+
+    /**
+     * Atribuye una infracción a partir de la pila: el primer método de la aplicación (donde ocurre la E/S)
+     * y el primer método fuera de utils (el gestor o la pantalla que lo pidió).
+     *
+     * @param stack Pila de llamadas.
+     * @return Descripción del origen, por ejemplo "DataStorage.readFolderShard <- FolderManager.ensureFolderLoaded".
+     */
+    static String attribute(StackTraceElement[] stack) {
+        String site = null;
+        String owner = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith(APP_PACKAGE) || className.startsWith(MainThreadIoGuard.class.getName())) {
+                continue;
+            }
+            if (site == null) {
+                site = describe(frame);
+            }
+            if (!className.startsWith(UTILS_PACKAGE)) {
+                owner = describe(frame);
+                break;
+            }
+        }
+        if (site == null) {
+            return "desconocido";
+        }
+        return owner == null || owner.equals(site) ? site : site + " <- " + owner;
+    }
+
+    /**
+     * Describe un marco de la pila como Clase.método, sin paquete ni clases anónimas.
+     *
+     * @param frame Marco de la pila.
+     * @return Descripción del marco.
+     */
+    private static String describe(StackTraceElement frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        if (nested > 0) {
+            simpleName = simpleName.substring(0, nested);
+        }
+        return simpleName + "." + frame.getMethodName();
+    }
+
+    /**
+     * Indica si el hilo actual es el hilo principal.
+     *
+     * @return true si es el hilo principal.
+     */
+    private static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+}
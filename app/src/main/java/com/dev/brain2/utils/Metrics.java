@@ -0,0 +1,239 @@
+package com.dev.brain2.utils;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registro ligero de métricas de rendimiento: contadores e histogramas de latencia.
+ * Cuando está desactivado, cada llamada se reduce a leer un booleano.
+ */
+public final class Metrics {
+
+    private static volatile boolean enabled;
+
+    private static final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Histograma con cubetas en potencias de dos, suficiente para estimar percentiles
+     * sin guardar cada muestra.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * Registra un valor.
+         *
+         * @param value Valor a registrar (no negativo).
+         */
+        void record(long value) {
+            long sample = Math.max(0, value);
+            // La cubeta i guarda los valores entre 2^i y 2^(i+1) - 1
+            buckets.incrementAndGet(sample == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(sample));
+            count.incrementAndGet();
+            sum.addAndGet(sample);
+            long currentMax;
+            while (sample > (currentMax = max.get()) && !max.compareAndSet(currentMax, sample)) {
+                // Reintenta hasta actualizar el máximo
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getSum() {
+            return sum.get();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long samples = count.get();
+            return samples == 0 ? 0 : (double) sum.get() / samples;
+        }
+
+        /**
+         * Estima un percentil como el límite superior de la cubeta que lo contiene.
+         *
+         * @param percentile Percentil entre 0 y 100.
+         * @return Valor estimado del percentil.
+         */
+        public long getPercentile(double percentile) {
+            long samples = count.get();
+            if (samples == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(samples * percentile / 100d);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return i >= BUCKETS - 2 ? max.get() : Math.min(max.get(), (1L << (i + 1)) - 1);
+                }
+            }
+            return max.get();
+        }
+    }
+
+    /**
+     * Activa o desactiva el registro de métricas.
+     *
+     * @param isEnabled true para registrar métricas.
+     */
+    public static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    /**
+     * Indica si el registro de métricas está activado.
+     *
+     * @return true si está activado.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marca el inicio de una medición.
+     *
+     * @return Instante actual en nanosegundos, o 0 si las métricas están desactivadas.
+     */
+    public static long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Termina una medición iniciada con startTimer y la registra en microsegundos.
+     *
+     * @param name       Nombre de la métrica.
+     * @param startNanos Valor devuelto por startTimer.
+     */
+    public static void stopTimer(String name, long startNanos) {
+        if (enabled && startNanos != 0) {
+            recordDuration(name, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Registra una duración ya medida, en microsegundos.
+     *
+     * @param name          Nombre de la métrica.
+     * @param durationNanos Duración en nanosegundos.
+     */
+    public static void recordDuration(String name, long durationNanos) {
+        if (enabled) {
+            histogram(name + ".us").record(durationNanos / 1000);
+        }
+    }
+
+    /**
+     * Registra un valor en un histograma (por ejemplo, bytes o número de resultados).
+     *
+     * @param name  Nombre de la métrica.
+     * @param value Valor a registrar.
+     */
+    public static void recordValue(String name, long value) {
+        if (enabled) {
+            histogram(name).record(value);
+        }
+    }
+
+    /**
+     * Incrementa un contador.
+     *
+     * @param name  Nombre del contador.
+     * @param delta Cantidad a sumar.
+     */
+    public static void increment(String name, long delta) {
+        if (enabled) {
+            counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    /**
+     * Obtiene el histograma con el nombre dado, creándolo si no existe.
+     *
+     * @param name Nombre del histograma.
+     * @return Histograma.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Borra todas las métricas registradas.
+     */
+    public static void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    /**
+     * Resume las métricas en texto, una por línea, para mostrarlas en pantalla.
+     *
+     * @return Resumen de las métricas.
+     */
+    public static String summarize() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            builder.append(entry.getKey()).append(": ").append(entry.getValue().get()).append('\n');
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            builder.append(String.format(Locale.ROOT, "%s: n=%d media=%.0f p50=%d p90=%d p99=%d max=%d%n",
+                    entry.getKey(), histogram.getCount(), histogram.getMean(),
+                    histogram.getPercentile(50), histogram.getPercentile(90),
+                    histogram.getPercentile(99), histogram.getMax()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Exporta las métricas en formato JSON.
+     *
+     * @return JSON con contadores e histogramas.
+     */
+    public static String exportJson() {
+        Map<String, Object> export = new TreeMap<>();
+        Map<String, Long> counterValues = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().get());
+        }
+
+        Map<String, Map<String, Object>> histogramValues = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            Map<String, Object> values = new TreeMap<>();
+            values.put("count", histogram.getCount());
+            values.put("sum", histogram.getSum());
+            values.put("mean", histogram.getMean());
+            values.put("p50", histogram.getPercentile(50));
+            values.put("p90", histogram.getPercentile(90));
+            values.put("p99", histogram.getPercentile(99));
+            values.put("max", histogram.getMax());
+            histogramValues.put(entry.getKey(), values);
+        }
+
+        export.put("timestamp", System.currentTimeMillis());
+        export.put("counters", counterValues);
+        export.put("histograms", histogramValues);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(export);
+    }
+}
@@ -1,10 +1,13 @@
 package com.dev.brain2.utils;
 
 import android.content.Context;
+import android.view.View;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 
+import com.google.android.material.snackbar.Snackbar;
+
 /**
  * Esta clase proporciona métodos estáticos para mostrar diferentes tipos de notificaciones
  * al usuario de manera consistente en toda la aplicación.
@@ -45,6 +48,20 @@ public class Notifier {
         ).show();
     }
 
+    /**
+     * Muestra un mensaje con una acción para deshacer la operación.
+     *
+     * @param anchor     Vista sobre la que se muestra el mensaje.
+     * @param message    Mensaje a mostrar.
+     * @param durationMs Tiempo en milisegundos durante el que se puede deshacer.
+     * @param onUndo     Acción a ejecutar si el usuario pulsa "Deshacer".
+     */
+    public static void showUndo(View anchor, String message, int durationMs, Runnable onUndo) {
+        Snackbar.make(anchor, message, durationMs)
+                .setAction("Deshacer", v -> onUndo.run())
+                .show();
+    }
+
     /**
      * Muestra un diálogo de confirmación para eliminar elementos.
      * Este diálogo muestra dos botones: Eliminar y Cancelar.
@@ -0,0 +1,223 @@
+package com.dev.brain2.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Árbol de prefijos con un peso por término, para autocompletar. Cada nodo guarda el mayor peso
+ * de su subárbol, así que las mejores terminaciones de un prefijo se encuentran visitando solo
+ * las ramas que pueden mejorarlas, sin recorrer todos los términos que empiezan por él.
+ * Los hijos se guardan en arrays ordenados por carácter, sin un mapa por nodo.
+ */
+public class PrefixTrie {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+    private int size;   // Términos con peso
+
+    /**
+     * Suma peso a un término; si queda en cero o menos, el término se quita.
+     *
+     * @param term  Término.
+     * @param delta Peso a sumar (negativo para restar).
+     */
+    public void add(String term, int delta) {
+        if (term.isEmpty() || delta == 0) {
+            return;
+        }
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            Node child = node.child(term.charAt(i));
+            if (child == null) {
+                if (delta < 0) {
+                    return;     // El término no estaba
+                }
+                child = node.addChild(term.charAt(i));
+            }
+            node = child;
+            path[i + 1] = node;
+        }
+
+        int previous = node.weight;
+        node.weight = Math.max(0, previous + delta);
+        node.term = node.weight > 0 ? term : null;
+        if (previous == 0 && node.weight > 0) {
+            size++;
+        } else if (previous > 0 && node.weight == 0) {
+            size--;
+        }
+
+        // Se recalcula el mejor peso de abajo arriba y se podan las ramas vacías
+        for (int depth = term.length(); depth >= 0; depth--) {
+            Node current = path[depth];
+            current.updateMaxWeight();
+            if (depth > 0 && current.maxWeight == 0) {
+                path[depth - 1].removeChild(term.charAt(depth - 1));
+            }
+        }
+    }
+
+    /**
+     * Peso de un término.
+     *
+     * @param term Término.
+     * @return Peso, o 0 si no está.
+     */
+    public int getWeight(String term) {
+        Node node = find(term);
+        return node != null ? node.weight : 0;
+    }
+
+    /**
+     * Busca los términos de más peso que empiezan por un prefijo.
+     *
+     * @param prefix Prefijo.
+     * @param limit  Número máximo de términos.
+     * @return Términos de más a menos peso; a igual peso, en orden alfabético.
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        Node start = find(prefix);
+        if (start == null || limit <= 0) {
+            return completions;
+        }
+        // Se sacan nodos por su mejor peso posible; un término sale cuando su peso
+        // es mayor o igual que el de cualquier rama pendiente
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(start, prefix, false, start.maxWeight));
+        while (!queue.isEmpty() && completions.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node;
+            if (candidate.isTerm) {
+                completions.add(node.term);
+                continue;
+            }
+            if (node.weight > 0) {
+                queue.add(new Candidate(node, candidate.path, true, node.weight));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                queue.add(new Candidate(node.children[i], candidate.path + node.labels[i], false,
+                        node.children[i].maxWeight));
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * Número de términos con peso.
+     *
+     * @return Número de términos.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vacía el árbol.
+     */
+    public void clear() {
+        root.labels = NO_LABELS;
+        root.children = NO_CHILDREN;
+        root.childCount = 0;
+        root.weight = 0;
+        root.maxWeight = 0;
+        size = 0;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Nodo del árbol: un carácter del término desde la raíz.
+     */
+    private static final class Node {
+        char[] labels = NO_LABELS;      // Carácter de cada hijo, ordenados
+        Node[] children = NO_CHILDREN;  // Hijo de cada carácter
+        int childCount;
+        int weight;                     // Peso del término que acaba aquí (0 si no acaba)
+        int maxWeight;                  // Mayor peso del subárbol
+        String term;                    // Término que acaba aquí
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char label) {
+            int index = -Arrays.binarySearch(labels, 0, childCount, label) - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, index, labels, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            Node child = new Node();
+            labels[index] = label;
+            children[index] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(labels, index + 1, labels, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        void updateMaxWeight() {
+            int best = weight;
+            for (int i = 0; i < childCount; i++) {
+                best = Math.max(best, children[i].maxWeight);
+            }
+            maxWeight = best;
+        }
+    }
+
+    /**
+     * Entrada de la búsqueda: una rama por explorar o un término listo para devolver.
+     * A igual peso salen en orden alfabético del camino: las ramas solo contienen términos
+     * que empiezan por su camino, así que los términos también salen en orden alfabético.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final Node node;
+        final String path;      // Caracteres desde la raíz hasta el nodo
+        final boolean isTerm;
+        final int weight;
+
+        Candidate(Node node, String path, boolean isTerm, int weight) {
+            this.node = node;
+            this.path = path;
+            this.isTerm = isTerm;
+            this.weight = weight;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (weight != other.weight) {
+                return Integer.compare(other.weight, weight);
+            }
+            int byPath = path.compareTo(other.path);
+            if (byPath != 0) {
+                return byPath;
+            }
+            return isTerm == other.isTerm ? 0 : (isTerm ? -1 : 1);
+        }
+    }
+}
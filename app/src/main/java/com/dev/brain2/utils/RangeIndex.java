@@ -0,0 +1,120 @@
+package com.dev.brain2.utils;
+
+import com.dev.brain2.models.ImageIdSet;
+
+import java.util.Arrays;
+
+/**
+ * Índice secundario de un dato numérico de las imágenes (fecha, tamaño, dimensiones), por
+ * ordinal. Para responder a un rango se guardan los ordinales ordenados por su valor y se
+ * buscan los extremos por bisección, sin recorrer las imágenes. El orden se rehace en la
+ * primera consulta después de un cambio, no en cada cambio.
+ * El valor 0 significa desconocido: esas imágenes no están en ningún rango.
+ */
+public class RangeIndex {
+
+    private long[] values = new long[0];    // Ordinal -> valor
+    private int[] sortedOrdinals = new int[0];
+    private long[] sortedValues = new long[0];
+    private boolean dirty;
+
+    /**
+     * Cambia el valor de un ordinal.
+     *
+     * @param ordinal Ordinal de la imagen.
+     * @param value   Valor, o 0 si no se conoce.
+     */
+    public void set(int ordinal, long value) {
+        if (ordinal >= values.length) {
+            if (value == 0) {
+                return;
+            }
+            values = Arrays.copyOf(values, Math.max(ordinal + 1, values.length * 2));
+        }
+        if (values[ordinal] != value) {
+            values[ordinal] = value;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Obtiene los ordinales cuyo valor está en un rango.
+     *
+     * @param min Valor mínimo, incluido.
+     * @param max Valor máximo, incluido.
+     * @return Ordinales con valor conocido dentro del rango.
+     */
+    public ImageIdSet select(long min, long max) {
+        if (dirty) {
+            sort();
+        }
+        ImageIdSet selected = new ImageIdSet();
+        for (int i = lowerBound(Math.max(min, 1)); i < sortedValues.length && sortedValues[i] <= max; i++) {
+            selected.add(sortedOrdinals[i]);
+        }
+        return selected;
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public void clear() {
+        values = new long[0];
+        sortedOrdinals = new int[0];
+        sortedValues = new long[0];
+        dirty = false;
+    }
+
+    /**
+     * Tamaño aproximado en memoria.
+     *
+     * @return Bytes.
+     */
+    public long getSizeInBytes() {
+        return values.length * 8L + sortedOrdinals.length * 4L + sortedValues.length * 8L;
+    }
+
+    /**
+     * Ordena los ordinales con valor conocido por su valor.
+     */
+    private void sort() {
+        int known = 0;
+        for (long value : values) {
+            if (value != 0) {
+                known++;
+            }
+        }
+        Integer[] ordinals = new Integer[known];
+        int next = 0;
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            if (values[ordinal] != 0) {
+                ordinals[next++] = ordinal;
+            }
+        }
+        Arrays.sort(ordinals, (a, b) -> Long.compare(values[a], values[b]));
+        sortedOrdinals = new int[known];
+        sortedValues = new long[known];
+        for (int i = 0; i < known; i++) {
+            sortedOrdinals[i] = ordinals[i];
+            sortedValues[i] = values[ordinals[i]];
+        }
+        dirty = false;
+    }
+
+    /**
+     * Primera posición con un valor mayor o igual que el dado.
+     */
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
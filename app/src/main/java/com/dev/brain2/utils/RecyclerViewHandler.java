@@ -52,13 +52,14 @@ public class RecyclerViewHandler {
     }
 
     /**
-     * Configura el adaptador para el RecyclerView.
+     * Configura el adaptador para el RecyclerView y la carga anticipada de miniaturas.
      *
      * @param images Lista de imágenes a mostrar.
      */
     private void setupAdapter(List<Image> images) {
         imageAdapter = new ImageAdapter(appContext, images, listener);
         recyclerView.setAdapter(imageAdapter);
+        ScrollPrefetcher.attach(recyclerView, imageAdapter, ThumbnailLoader.getInstance(appContext));
     }
 
     /**
@@ -69,4 +70,13 @@ public class RecyclerViewHandler {
     public void updateUIWithResults(List<Image> filteredImages) {
         imageAdapter.updateImages(filteredImages);
     }
+
+    /**
+     * Añade al final de la lista la siguiente página de resultados.
+     *
+     * @param moreImages Imágenes a añadir.
+     */
+    public void appendResults(List<Image> moreImages) {
+        imageAdapter.appendImages(moreImages);
+    }
 }
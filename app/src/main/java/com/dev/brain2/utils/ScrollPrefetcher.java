@@ -0,0 +1,199 @@
+package com.dev.brain2.utils;
+
+import android.os.Debug;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.dev.brain2.adapters.ImageAdapter;
+import com.dev.brain2.models.Image;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pide por adelantado las miniaturas que se van a mostrar según la dirección y la velocidad
+ * del desplazamiento. La siguiente pantalla va antes que las lejanas; durante un desplazamiento
+ * rápido se pausan las lejanas y se cancelan las de celdas que ya se han dejado atrás.
+ * Mide el tiempo que las celdas pasan vacías y las recolecciones de basura en cada
+ * desplazamiento rápido.
+ */
+public class ScrollPrefetcher extends RecyclerView.OnScrollListener {
+
+    // Pantallas que se piden como máximo por delante de las visibles
+    private static final int MAX_SCREENS_AHEAD = 3;
+    // Píxeles por evento de desplazamiento a partir de los cuales se pide otra pantalla más
+    private static final int FAST_SCROLL_PX = 80;
+
+    private final ImageAdapter adapter;
+    private final ThumbnailLoader thumbnailLoader;
+
+    private Map<Integer, Image> requested = new HashMap<>();
+    private boolean flinging;
+    private long gcCountAtFlingStart;
+
+    /**
+     * Constructor.
+     *
+     * @param adapter         Adaptador de la lista.
+     * @param thumbnailLoader Cargador de miniaturas.
+     */
+    public ScrollPrefetcher(ImageAdapter adapter, ThumbnailLoader thumbnailLoader) {
+        this.adapter = adapter;
+        this.thumbnailLoader = thumbnailLoader;
+    }
+
+    /**
+     * Crea un prefetcher y lo añade a un RecyclerView con LinearLayoutManager o GridLayoutManager.
+     *
+     * @param recyclerView    Lista a observar.
+     * @param adapter         Adaptador de la lista.
+     * @param thumbnailLoader Cargador de miniaturas.
+     * @return Prefetcher añadido.
+     */
+    public static ScrollPrefetcher attach(RecyclerView recyclerView, ImageAdapter adapter,
+                                          ThumbnailLoader thumbnailLoader) {
+        ScrollPrefetcher prefetcher = new ScrollPrefetcher(adapter, thumbnailLoader);
+        recyclerView.addOnScrollListener(prefetcher);
+        return prefetcher;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_SETTLING && !flinging) {
+            flinging = true;
+            thumbnailLoader.takeBlankTimeNanos();   // Se empieza a medir con el contador a cero
+            thumbnailLoader.setLowPriorityPaused(true);
+            gcCountAtFlingStart = readGcCount();
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            if (flinging) {
+                flinging = false;
+                thumbnailLoader.setLowPriorityPaused(false);
+                Metrics.recordDuration("grid.fling.blank", thumbnailLoader.takeBlankTimeNanos());
+                long gcCount = readGcCount();
+                if (gcCount >= 0 && gcCountAtFlingStart >= 0) {
+                    Metrics.recordValue("grid.fling.gc", gcCount - gcCountAtFlingStart);
+                }
+            }
+            // Parado, se prepara una pantalla a cada lado
+            prefetch(recyclerView, 0, 0);
+        }
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        int delta = dy != 0 ? dy : dx;
+        if (delta != 0) {
+            prefetch(recyclerView, Integer.signum(delta), Math.abs(delta));
+        }
+    }
+
+    /**
+     * Pide las miniaturas de la ventana prevista y cancela las que han quedado fuera.
+     *
+     * @param recyclerView Lista observada.
+     * @param direction    1 hacia el final, -1 hacia el principio, 0 en reposo.
+     * @param speed        Píxeles desplazados en el último evento.
+     */
+    private void prefetch(RecyclerView recyclerView, int direction, int speed) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        Map<Integer, ThumbnailLoader.Priority> window = predictWindow(first, last, direction,
+                screensAhead(speed), adapter.getItemCount());
+        Map<Integer, Image> nowRequested = new HashMap<>();
+        for (Map.Entry<Integer, ThumbnailLoader.Priority> entry : window.entrySet()) {
+            Image image = adapter.getImage(entry.getKey());
+            if (image != null) {
+                thumbnailLoader.prefetch(image, entry.getValue());
+                nowRequested.put(entry.getKey(), image);
+            }
+        }
+
+        // Lo pedido que ya no está en la ventana ni en pantalla se ha dejado atrás
+        for (Map.Entry<Integer, Image> entry : requested.entrySet()) {
+            int position = entry.getKey();
+            if (!nowRequested.containsKey(position) && (position < first || position > last)) {
+                thumbnailLoader.cancel(entry.getValue());
+            }
+        }
+        requested = nowRequested;
+    }
+
+    /**
+     * Lee el número de recolecciones de basura del proceso.
+     *
+     * @return Recolecciones hasta ahora, o -1 si el sistema no lo informa.
+     */
+    private static long readGcCount() {
+        try {
+            String value = Debug.getRuntimeStat("art.gc.gc-count");
+            return value != null ? Long.parseLong(value) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Número de pantallas a pedir por delante según la velocidad.
+     *
+     * @param speed Píxeles desplazados en el último evento.
+     * @return Pantallas por delante, entre 1 y MAX_SCREENS_AHEAD.
+     */
+    static int screensAhead(int speed) {
+        return Math.min(MAX_SCREENS_AHEAD, 1 + speed / FAST_SCROLL_PX);
+    }
+
+    /**
+     * Calcula las posiciones que se van a mostrar próximamente y su prioridad. Las visibles
+     * no se incluyen: las pide el adaptador al vincularlas.
+     *
+     * @param first        Primera posición visible.
+     * @param last         Última posición visible.
+     * @param direction    1 hacia el final, -1 hacia el principio, 0 en reposo.
+     * @param screensAhead Pantallas a pedir en la dirección del desplazamiento.
+     * @param itemCount    Número de elementos de la lista.
+     * @return Posiciones en orden de necesidad, con su prioridad.
+     */
+    static Map<Integer, ThumbnailLoader.Priority> predictWindow(int first, int last, int direction,
+                                                               int screensAhead, int itemCount) {
+        Map<Integer, ThumbnailLoader.Priority> window = new LinkedHashMap<>();
+        int screen = last - first + 1;
+        if (direction == 0) {
+            addRange(window, last + 1, last + screen, ThumbnailLoader.Priority.NEXT_SCREEN, itemCount);
+            addRange(window, first - screen, first - 1, ThumbnailLoader.Priority.NEXT_SCREEN, itemCount);
+        } else if (direction > 0) {
+            addRange(window, last + 1, last + screen, ThumbnailLoader.Priority.NEXT_SCREEN, itemCount);
+            addRange(window, last + screen + 1, last + screen * screensAhead,
+                    ThumbnailLoader.Priority.BEYOND, itemCount);
+        } else {
+            addRangeBackwards(window, first - 1, first - screen, ThumbnailLoader.Priority.NEXT_SCREEN);
+            addRangeBackwards(window, first - screen - 1, first - screen * screensAhead,
+                    ThumbnailLoader.Priority.BEYOND);
+        }
+        return window;
+    }
+
+    private static void addRange(Map<Integer, ThumbnailLoader.Priority> window, int from, int to,
+                                 ThumbnailLoader.Priority priority, int itemCount) {
+        for (int position = Math.max(0, from); position <= Math.min(to, itemCount - 1); position++) {
+            window.put(position, priority);
+        }
+    }
+
+    private static void addRangeBackwards(Map<Integer, ThumbnailLoader.Priority> window, int from, int to,
+                                          ThumbnailLoader.Priority priority) {
+        for (int position = from; position >= Math.max(0, to); position--) {
+            window.put(position, priority);
+        }
+    }
+}
@@ -1,16 +1,43 @@
 package com.dev.brain2.utils;
 
 import com.dev.brain2.models.Image;
+import com.dev.brain2.models.TagDictionary;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Clase que maneja la lógica de búsqueda entre las imágenes.
+ * Con muchas imágenes, la comprobación de cada una se reparte en trozos entre los hilos del
+ * grupo fork/join; con pocas se hace en el hilo que llama, porque repartir cuesta más.
  */
 public class SearchHandler {
 
+    // Puntos por el tipo de coincidencia. Entre dos tipos hay más distancia que la suma
+    // de las bonificaciones, que solo ordenan dentro de cada tipo.
+    static final int SCORE_EXACT = 600;   // El nombre es la consulta
+    static final int SCORE_PREFIX = 500;  // El nombre empieza por la consulta
+    static final int SCORE_TOKEN = 400;   // Una palabra del nombre empieza por la consulta
+    static final int SCORE_INFIX = 300;   // La consulta está dentro del nombre
+    static final int SCORE_TAG = 200;     // Una etiqueta empieza por la consulta
+    static final int SCORE_FUZZY = 100;   // Coincidencia aproximada, sin ediciones
+    // Puntos que resta cada edición de una coincidencia aproximada
+    static final int FUZZY_EDIT_PENALTY = 10;
+    // Bonificaciones máximas por antigüedad de la imagen y por carpeta abierta hace poco
+    static final int RECENCY_BOOST = 40;
+    static final int RECENT_FOLDER_BOOST = 40;
+    // A partir de este número de imágenes la comprobación se reparte entre varios hilos
+    static final int PARALLEL_THRESHOLD = 8192;
+    // Imágenes que comprueba cada tarea sin volver a dividirse
+    static final int CHUNK_SIZE = 2048;
+
     private final List<Image> allImages;
+    private final ForkJoinPool pool;
 
     /**
      * Constructor.
@@ -18,7 +45,18 @@ public class SearchHandler {
      * @param allImages Lista de todas las imágenes disponibles.
      */
     public SearchHandler(List<Image> allImages) {
+        this(allImages, null);
+    }
+
+    /**
+     * Constructor con un grupo de hilos concreto, por ejemplo para medir con distintos núcleos.
+     *
+     * @param allImages Lista de todas las imágenes disponibles.
+     * @param pool      Grupo fork/join, o null para usar el de AppExecutors.
+     */
+    public SearchHandler(List<Image> allImages, ForkJoinPool pool) {
         this.allImages = new ArrayList<>(allImages);
+        this.pool = pool;
     }
 
     /**
@@ -28,21 +66,162 @@ public class SearchHandler {
      * @return Lista de imágenes que coinciden con la consulta.
      */
     public List<Image> performSearch(String query) {
-        return filterImages(query.toLowerCase());
+        long start = Metrics.startTimer();
+        List<Image> results = filterImages(TextNormalizer.fold(query.trim()));
+        if (start != 0) {
+            Metrics.stopTimer("search.perform", start);
+            Metrics.recordValue("search.results", results.size());
+        }
+        return results;
+    }
+
+    /**
+     * Puntúa los resultados de una búsqueda: primero por el tipo de coincidencia con el nombre
+     * o las etiquetas, y dentro de cada tipo por lo reciente que es la imagen y lo reciente
+     * que se abrió su carpeta. Los candidatos que no coinciden con el texto solo reciben las
+     * bonificaciones.
+     *
+     * @param candidates      Imágenes encontradas.
+     * @param query           Consulta; vacía para ordenar solo por las bonificaciones.
+     * @param folderIds       Carpeta de cada candidato (null si se desconoce).
+     * @param ages            Imágenes añadidas después a la carpeta de cada candidato.
+     * @param recentFolderIds Carpetas abiertas hace poco, de más a menos reciente.
+     * @return Puntuación de cada candidato, en el mismo orden.
+     */
+    public static int[] score(List<Image> candidates, String query, String[] folderIds, int[] ages,
+                              List<String> recentFolderIds) {
+        return score(candidates, query, folderIds, ages, recentFolderIds, Collections.emptyMap());
+    }
+
+    /**
+     * Puntúa los resultados de una búsqueda que incluye coincidencias aproximadas. Las que no
+     * coinciden con el texto de otra forma quedan por debajo de las de etiqueta, con menos
+     * puntos cuantas más ediciones necesitan.
+     *
+     * @param candidates      Imágenes encontradas.
+     * @param query           Consulta; vacía para ordenar solo por las bonificaciones.
+     * @param folderIds       Carpeta de cada candidato (null si se desconoce).
+     * @param ages            Imágenes añadidas después a la carpeta de cada candidato.
+     * @param recentFolderIds Carpetas abiertas hace poco, de más a menos reciente.
+     * @param fuzzyDistances  Ediciones de cada coincidencia aproximada, por ID de imagen.
+     * @return Puntuación de cada candidato, en el mismo orden.
+     */
+    public static int[] score(List<Image> candidates, String query, String[] folderIds, int[] ages,
+                              List<String> recentFolderIds, Map<String, Integer> fuzzyDistances) {
+        long start = Metrics.startTimer();
+        String foldedQuery = TextNormalizer.fold(query.trim());
+        Map<String, Integer> folderBoosts = new HashMap<>();
+        for (int i = 0; i < recentFolderIds.size(); i++) {
+            folderBoosts.putIfAbsent(recentFolderIds.get(i),
+                    RECENT_FOLDER_BOOST * (recentFolderIds.size() - i) / recentFolderIds.size());
+        }
+
+        int[] scores = new int[candidates.size()];
+        // Cada trozo escribe solo sus posiciones, así que no hay nada que juntar
+        forEachChunk(null, scores.length, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Image image = candidates.get(i);
+                int score = foldedQuery.isEmpty() ? 0 : matchScore(image, foldedQuery);
+                Integer distance = score == 0 ? fuzzyDistances.get(image.getId()) : null;
+                if (distance != null) {
+                    score = fuzzyScore(distance);
+                }
+                // La bonificación se reduce a la mitad cada 10 imágenes añadidas después
+                score += ages[i] == Integer.MAX_VALUE ? 0 : RECENCY_BOOST * 10 / (10 + ages[i]);
+                Integer folderBoost = folderIds[i] != null ? folderBoosts.get(folderIds[i]) : null;
+                score += folderBoost != null ? folderBoost : 0;
+                scores[i] = score;
+            }
+        });
+        Metrics.stopTimer("search.score", start);
+        return scores;
+    }
+
+    /**
+     * Puntos por el tipo de coincidencia de una imagen con la consulta.
+     *
+     * @param image       Imagen.
+     * @param foldedQuery Consulta normalizada.
+     * @return Puntos del mejor tipo de coincidencia, o 0 si no coincide.
+     */
+    static int matchScore(Image image, String foldedQuery) {
+        String name = image.getFoldedName();
+        if (name.equals(foldedQuery)) {
+            return SCORE_EXACT;
+        }
+        if (name.startsWith(foldedQuery)) {
+            return SCORE_PREFIX;
+        }
+        if (startsWord(name, foldedQuery)) {
+            return SCORE_TOKEN;
+        }
+        if (name.contains(foldedQuery)) {
+            return SCORE_INFIX;
+        }
+        TagDictionary dictionary = TagDictionary.getInstance();
+        for (int t = 0; t < image.getTagCount(); t++) {
+            if (dictionary.getFolded(image.getTagId(t)).startsWith(foldedQuery)) {
+                return SCORE_TAG;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Puntos de una coincidencia aproximada. Nunca llegan a los de una etiqueta ni bajan de una
+     * edición por encima de no coincidir.
+     *
+     * @param distance Ediciones en total.
+     * @return Puntos.
+     */
+    static int fuzzyScore(int distance) {
+        return Math.max(SCORE_FUZZY - distance * FUZZY_EDIT_PENALTY, FUZZY_EDIT_PENALTY);
+    }
+
+    /**
+     * Indica si alguna palabra del texto empieza por la consulta.
+     *
+     * @param text  Texto normalizado.
+     * @param query Consulta normalizada.
+     * @return true si la consulta aparece al principio de una palabra.
+     */
+    private static boolean startsWord(String text, String query) {
+        for (int index = text.indexOf(query); index >= 0; index = text.indexOf(query, index + 1)) {
+            if (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Filtra las imágenes que coinciden con la consulta.
      *
-     * @param query Consulta en minúsculas.
+     * @param query Consulta normalizada.
      * @return Lista de imágenes filtradas.
      */
     private List<Image> filterImages(String query) {
-        List<Image> filteredImages = new ArrayList<>();
-        for (Image image : allImages) {
-            if (matchesQuery(image, query)) {
-                filteredImages.add(image);
+        TagDictionary dictionary = TagDictionary.getInstance();
+        // Cada trozo guarda sus coincidencias aparte y se juntan en orden al final
+        List<List<Image>> buffers = new ArrayList<>(Collections.nCopies(chunkCount(allImages.size()), null));
+        forEachChunk(pool, allImages.size(), (chunk, from, to) -> {
+            List<Image> matches = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Image image = allImages.get(i);
+                if (matchesQuery(image, query, dictionary)) {
+                    matches.add(image);
+                }
             }
+            buffers.set(chunk, matches);
+        });
+
+        int total = 0;
+        for (List<Image> matches : buffers) {
+            total += matches.size();
+        }
+        List<Image> filteredImages = new ArrayList<>(total);
+        for (List<Image> matches : buffers) {
+            filteredImages.addAll(matches);
         }
         return filteredImages;
     }
@@ -50,11 +229,95 @@ public class SearchHandler {
     /**
      * Verifica si una imagen coincide con la consulta.
      *
-     * @param image Imagen a verificar.
-     * @param query Consulta en minúsculas.
+     * @param image      Imagen a verificar.
+     * @param query      Consulta normalizada.
+     * @param dictionary Diccionario con las etiquetas ya normalizadas.
      * @return Verdadero si coincide, falso de lo contrario.
      */
-    private boolean matchesQuery(Image image, String query) {
-        return image.getName().toLowerCase().contains(query) || image.getTags().contains(query);
+    private boolean matchesQuery(Image image, String query, TagDictionary dictionary) {
+        if (image.getFoldedName().contains(query)) {
+            return true;
+        }
+        // Solo se comparan textos ya normalizados, sin crear objetos
+        for (int t = 0; t < image.getTagCount(); t++) {
+            if (dictionary.getFolded(image.getTagId(t)).equals(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recorre las posiciones [0, count) por trozos de CHUNK_SIZE. Por debajo de
+     * PARALLEL_THRESHOLD, o con un solo hilo, los trozos se recorren en orden en el hilo que
+     * llama; si no, se reparten en el grupo fork/join y se espera a que acaben todos.
+     *
+     * @param pool  Grupo fork/join, o null para usar el de AppExecutors.
+     * @param count Número de posiciones.
+     * @param body  Trabajo de cada trozo.
+     */
+    private static void forEachChunk(ForkJoinPool pool, int count, ChunkBody body) {
+        int chunks = chunkCount(count);
+        if (count < PARALLEL_THRESHOLD) {
+            runChunks(body, count, 0, chunks);
+            return;
+        }
+        ForkJoinPool target = pool != null ? pool : AppExecutors.getInstance().compute();
+        if (target.getParallelism() == 1) {
+            runChunks(body, count, 0, chunks);
+            return;
+        }
+        long start = Metrics.startTimer();
+        target.invoke(new ChunkTask(body, count, 0, chunks));
+        if (start != 0) {
+            Metrics.stopTimer("search.parallel", start);
+            Metrics.recordValue("search.parallel.chunks", chunks);
+        }
+    }
+
+    private static int chunkCount(int count) {
+        return (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static void runChunks(ChunkBody body, int count, int firstChunk, int endChunk) {
+        for (int chunk = firstChunk; chunk < endChunk; chunk++) {
+            body.run(chunk, chunk * CHUNK_SIZE, Math.min(count, (chunk + 1) * CHUNK_SIZE));
+        }
+    }
+
+    /**
+     * Trabajo sobre un trozo de posiciones.
+     */
+    private interface ChunkBody {
+        void run(int chunk, int from, int to);
+    }
+
+    /**
+     * Tarea que divide sus trozos en dos mitades hasta quedarse con uno. Una mitad se deja
+     * en la cola para que otro hilo la robe y la otra se hace en el hilo actual.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private final ChunkBody body;
+        private final int count;
+        private final int firstChunk;
+        private final int endChunk;
+
+        ChunkTask(ChunkBody body, int count, int firstChunk, int endChunk) {
+            this.body = body;
+            this.count = count;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (endChunk - firstChunk <= 1) {
+                runChunks(body, count, firstChunk, endChunk);
+                return;
+            }
+            int middle = (firstChunk + endChunk) >>> 1;
+            invokeAll(new ChunkTask(body, count, firstChunk, middle),
+                    new ChunkTask(body, count, middle, endChunk));
+        }
     }
 }
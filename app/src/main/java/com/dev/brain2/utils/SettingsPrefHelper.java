@@ -2,25 +2,57 @@ package com.dev.brain2.utils;
 
 import android.content.Context;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Clase que ayuda a manejar las preferencias de configuración.
+ * Todas las instancias comparten una única copia en memoria del archivo, que se carga una vez por proceso.
  */
 public class SettingsPrefHelper {
 
+    private static final Object LOCK = new Object();
+    private static Map<String, Object> sharedCache;
+    private static List<Runnable> pendingCallbacks = new ArrayList<>();
+
     private final DataStorage dataStorage;
-    private Map<String, Object> settingsCache;
 
     /**
-     * Constructor.
+     * Constructor. No lee el archivo: la lectura ocurre en el primer acceso si nadie la ha precargado.
      *
      * @param context Contexto de la aplicación.
      */
     public SettingsPrefHelper(Context context) {
         this.dataStorage = new DataStorage(context);
-        this.settingsCache = loadSettingsFromFile();
+    }
+
+    /**
+     * Carga las configuraciones en segundo plano para que estén listas al abrir la primera pantalla.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    public static void preload(Context context) {
+        DataStorage dataStorage = new DataStorage(context);
+        AppExecutors.getInstance().parallelIO().execute(() -> getSharedCache(dataStorage));
+    }
+
+    /**
+     * Ejecuta una acción en el hilo principal cuando las configuraciones estén cargadas.
+     * Si ya lo están, la acción se ejecuta inmediatamente.
+     *
+     * @param action Acción a ejecutar.
+     */
+    public static void whenLoaded(Runnable action) {
+        synchronized (LOCK) {
+            if (sharedCache == null) {
+                pendingCallbacks.add(action);
+                return;
+            }
+        }
+        action.run();
     }
 
     /**
@@ -30,7 +62,7 @@ public class SettingsPrefHelper {
      * @param value Valor entero a guardar.
      */
     public void saveInt(String key, int value) {
-        settingsCache.put(key, value);
+        settings().put(key, value);
         saveSettingsToFile();
     }
 
@@ -42,7 +74,7 @@ public class SettingsPrefHelper {
      * @return Valor entero almacenado o el predeterminado.
      */
     public int getInt(String key, int defaultValue) {
-        Object value = settingsCache.get(key);
+        Object value = settings().get(key);
         return value instanceof Number ? ((Number) value).intValue() : defaultValue;
     }
 
@@ -53,7 +85,7 @@ public class SettingsPrefHelper {
      * @param value Valor booleano a guardar.
      */
     public void saveBoolean(String key, boolean value) {
-        settingsCache.put(key, value);
+        settings().put(key, value);
         saveSettingsToFile();
     }
 
@@ -65,7 +97,7 @@ public class SettingsPrefHelper {
      * @return Valor booleano almacenado o el predeterminado.
      */
     public boolean getBoolean(String key, boolean defaultValue) {
-        Object value = settingsCache.get(key);
+        Object value = settings().get(key);
         return value instanceof Boolean ? (Boolean) value : defaultValue;
     }
 
@@ -76,7 +108,7 @@ public class SettingsPrefHelper {
      * @param value Valor String a guardar.
      */
     public void saveString(String key, String value) {
-        settingsCache.put(key, value);
+        settings().put(key, value);
         saveSettingsToFile();
     }
 
@@ -88,7 +120,7 @@ public class SettingsPrefHelper {
      * @return Valor String almacenado o el predeterminado.
      */
     public String getString(String key, String defaultValue) {
-        Object value = settingsCache.get(key);
+        Object value = settings().get(key);
         return value instanceof String ? (String) value : defaultValue;
     }
 
@@ -96,24 +128,62 @@ public class SettingsPrefHelper {
      * Limpia todas las configuraciones guardadas.
      */
     public void clear() {
-        settingsCache.clear();
+        settings().clear();
         saveSettingsToFile();
     }
 
+    /**
+     * Obtiene las configuraciones compartidas, leyéndolas del archivo si todavía no se han cargado.
+     *
+     * @return Mapa de configuraciones.
+     */
+    private Map<String, Object> settings() {
+        return getSharedCache(dataStorage);
+    }
+
+    /**
+     * Obtiene la copia compartida de las configuraciones, cargándola la primera vez.
+     *
+     * @param dataStorage Almacenamiento del que leer.
+     * @return Mapa de configuraciones.
+     */
+    private static Map<String, Object> getSharedCache(DataStorage dataStorage) {
+        List<Runnable> callbacks;
+        synchronized (LOCK) {
+            if (sharedCache != null) {
+                return sharedCache;
+            }
+            sharedCache = Collections.synchronizedMap(loadSettingsFromFile(dataStorage));
+            callbacks = pendingCallbacks;
+            pendingCallbacks = new ArrayList<>();
+        }
+        for (Runnable callback : callbacks) {
+            AppExecutors.getInstance().runOnMainThread(callback);
+        }
+        return sharedCache;
+    }
+
     /**
      * Carga las configuraciones desde el archivo JSON.
      *
+     * @param dataStorage Almacenamiento del que leer.
      * @return Mapa de configuraciones.
      */
-    private Map<String, Object> loadSettingsFromFile() {
+    private static Map<String, Object> loadSettingsFromFile(DataStorage dataStorage) {
         Map<String, Object> settings = dataStorage.readSettings();
         return settings != null ? settings : new HashMap<>();
     }
 
     /**
-     * Guarda las configuraciones al archivo JSON.
+     * Guarda una copia de las configuraciones en segundo plano. El ejecutor de disco
+     * es de un solo hilo, así que las escrituras se aplican en orden.
      */
     private void saveSettingsToFile() {
-        dataStorage.writeSettings(settingsCache);
+        Map<String, Object> settings = settings();
+        Map<String, Object> snapshot;
+        synchronized (settings) {
+            snapshot = new HashMap<>(settings);
+        }
+        AppExecutors.getInstance().diskIO().execute(() -> dataStorage.writeSettings(snapshot));
     }
 }
@@ -0,0 +1,607 @@
+package com.dev.brain2.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.util.Log;
+
+import com.dev.brain2.interfaces.QueryableLibraryStore;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.TagDictionary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Biblioteca guardada en la base de datos SQLite de la plataforma, con tablas de carpetas,
+ * imágenes y etiquetas. Cada operación toca solo las filas de la carpeta afectada y las
+ * búsquedas usan índices, sin cargar la biblioteca en memoria.
+ */
+public class SqliteLibraryStore implements QueryableLibraryStore {
+
+    private static final String TAG = "SqliteLibraryStore";
+    private static final String DATABASE_NAME = "library.db";
+    private static final int DATABASE_VERSION = 6;
+
+    private static final String IMAGE_COLUMNS = "i.id, i.name, i.uri, i.imported_at, i.byte_size, i.width, i.height";
+    private static final String IMAGES_IN_ORDER =
+            "SELECT " + IMAGE_COLUMNS + " FROM images i JOIN folders f ON f.id = i.folder_id"
+                    + " WHERE %s ORDER BY f.position, i.position";
+    private static final String TAGS_OF_IMAGES =
+            "SELECT it.image_id, t.name FROM image_tags it JOIN tags t ON t.id = it.tag_id"
+                    + " WHERE it.image_id IN (SELECT i.id FROM images i WHERE %s) ORDER BY it.image_id, it.position";
+    private static final String IMAGES_WITH_TAG =
+            "i.id IN (SELECT it.image_id FROM image_tags it JOIN tags t ON t.id = it.tag_id WHERE t.folded = ?)";
+
+    private static final String GENERATION_KEY = "generation";
+
+    private static SqliteLibraryStore instance;
+
+    private final LibraryDatabase database;
+    private final DataStorage dataStorage;
+    private boolean migrationChecked;
+
+    /**
+     * Base de datos de la biblioteca.
+     */
+    private static class LibraryDatabase extends SQLiteOpenHelper {
+
+        LibraryDatabase(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onConfigure(SQLiteDatabase db) {
+            db.setForeignKeyConstraintsEnabled(true);
+            // Las lecturas no esperan a las escrituras de otro hilo
+            db.enableWriteAheadLogging();
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE folders ("
+                    + "id TEXT PRIMARY KEY, "
+                    + "name TEXT NOT NULL, "
+                    + "color TEXT, "
+                    + "position INTEGER NOT NULL, "
+                    + "image_count INTEGER NOT NULL DEFAULT 0, "
+                    + "last_modified INTEGER NOT NULL DEFAULT 0, "
+                    + "cover_image_id TEXT)");
+            db.execSQL("CREATE TABLE images ("
+                    + "_id INTEGER PRIMARY KEY, "
+                    + "id TEXT NOT NULL UNIQUE, "
+                    + "folder_id TEXT NOT NULL REFERENCES folders(id) ON DELETE CASCADE, "
+                    + "position INTEGER NOT NULL, "
+                    + "name TEXT NOT NULL, "
+                    + "uri TEXT NOT NULL, "
+                    + "imported_at INTEGER NOT NULL DEFAULT 0, "
+                    + "byte_size INTEGER NOT NULL DEFAULT 0, "
+                    + "width INTEGER NOT NULL DEFAULT 0, "
+                    + "height INTEGER NOT NULL DEFAULT 0, "
+                    + "folded_name TEXT NOT NULL DEFAULT '')");
+            db.execSQL("CREATE INDEX images_folder_idx ON images(folder_id, position)");
+            db.execSQL("CREATE INDEX images_name_idx ON images(name COLLATE NOCASE)");
+            createTagTables(db);
+            createNameSearchTable(db);
+            createMetaTable(db);
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            if (oldVersion < 2) {
+                // La versión 1 guardaba el texto de la etiqueta en cada fila
+                db.execSQL("ALTER TABLE image_tags RENAME TO image_tags_v1");
+                db.execSQL("DROP INDEX IF EXISTS image_tags_tag_idx");
+                createTagTables(db);
+                db.execSQL("INSERT OR IGNORE INTO tags (name) SELECT DISTINCT tag FROM image_tags_v1");
+                db.execSQL("INSERT INTO image_tags (image_id, position, tag_id)"
+                        + " SELECT v.image_id, v.position, t.id FROM image_tags_v1 v JOIN tags t ON t.name = v.tag");
+                db.execSQL("DROP TABLE image_tags_v1");
+            }
+            if (oldVersion < 3) {
+                // La versión 2 no guardaba el texto normalizado de las etiquetas
+                if (oldVersion == 2) {
+                    db.execSQL("ALTER TABLE tags ADD COLUMN folded TEXT NOT NULL DEFAULT ''");
+                    db.execSQL("CREATE INDEX tags_folded_idx ON tags(folded)");
+                }
+                fillFoldedTags(db);
+            }
+            if (oldVersion < 4) {
+                createMetaTable(db);
+            }
+            if (oldVersion < 5) {
+                // La versión 4 no guardaba los datos del archivo; las imágenes existentes quedan a 0
+                db.execSQL("ALTER TABLE images ADD COLUMN imported_at INTEGER NOT NULL DEFAULT 0");
+                db.execSQL("ALTER TABLE images ADD COLUMN byte_size INTEGER NOT NULL DEFAULT 0");
+                db.execSQL("ALTER TABLE images ADD COLUMN width INTEGER NOT NULL DEFAULT 0");
+                db.execSQL("ALTER TABLE images ADD COLUMN height INTEGER NOT NULL DEFAULT 0");
+            }
+            if (oldVersion < 6) {
+                // La versión 5 indexaba palabras enteras, así que no encontraba partes de palabras
+                db.execSQL("ALTER TABLE images ADD COLUMN folded_name TEXT NOT NULL DEFAULT ''");
+                db.execSQL("DROP TABLE images_fts");
+                createNameSearchTable(db);
+                fillNameSearch(db);
+            }
+        }
+
+        /**
+         * Crea la tabla de datos de la biblioteca, con la generación a 0.
+         *
+         * @param db Base de datos.
+         */
+        private static void createMetaTable(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE library_meta ("
+                    + "key TEXT PRIMARY KEY, "
+                    + "value INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO library_meta (key, value) VALUES ('" + GENERATION_KEY + "', 0)");
+        }
+
+        /**
+         * Crea el índice de texto completo de los nombres. Guarda los trigramas de cada palabra
+         * del nombre normalizado (ver toTrigrams); el docid es el _id de la imagen.
+         *
+         * @param db Base de datos.
+         */
+        private static void createNameSearchTable(SQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE images_fts USING fts4(grams)");
+        }
+
+        /**
+         * Calcula el nombre normalizado y los trigramas de las imágenes guardadas sin ellos.
+         *
+         * @param db Base de datos.
+         */
+        private static void fillNameSearch(SQLiteDatabase db) {
+            try (Cursor cursor = db.rawQuery("SELECT _id, name FROM images", null);
+                 SQLiteStatement update = db.compileStatement("UPDATE images SET folded_name = ? WHERE _id = ?");
+                 SQLiteStatement insertFts = db.compileStatement("INSERT INTO images_fts (docid, grams) VALUES (?, ?)")) {
+                while (cursor.moveToNext()) {
+                    String folded = TextNormalizer.fold(cursor.getString(1).trim());
+                    update.bindString(1, folded);
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                    insertFts.bindLong(1, cursor.getLong(0));
+                    insertFts.bindString(2, toTrigrams(folded));
+                    insertFts.executeInsert();
+                }
+            }
+        }
+
+        /**
+         * Calcula el texto normalizado de las etiquetas guardadas sin él.
+         *
+         * @param db Base de datos.
+         */
+        private static void fillFoldedTags(SQLiteDatabase db) {
+            try (Cursor cursor = db.rawQuery("SELECT id, name FROM tags", null);
+                 SQLiteStatement update = db.compileStatement("UPDATE tags SET folded = ? WHERE id = ?")) {
+                while (cursor.moveToNext()) {
+                    update.bindString(1, TextNormalizer.fold(cursor.getString(1).trim()));
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                }
+            }
+        }
+
+        /**
+         * Crea el diccionario de etiquetas y la relación entre imágenes y etiquetas.
+         *
+         * @param db Base de datos.
+         */
+        private static void createTagTables(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE tags ("
+                    + "id INTEGER PRIMARY KEY, "
+                    + "name TEXT NOT NULL UNIQUE, "
+                    + "folded TEXT NOT NULL DEFAULT '')");
+            db.execSQL("CREATE TABLE image_tags ("
+                    + "image_id TEXT NOT NULL REFERENCES images(id) ON DELETE CASCADE, "
+                    + "position INTEGER NOT NULL, "
+                    + "tag_id INTEGER NOT NULL REFERENCES tags(id), "
+                    + "PRIMARY KEY (image_id, position))");
+            db.execSQL("CREATE INDEX image_tags_tag_idx ON image_tags(tag_id)");
+            // Las búsquedas comparan la etiqueta normalizada, calculada al guardarla
+            db.execSQL("CREATE INDEX tags_folded_idx ON tags(folded)");
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    SqliteLibraryStore(Context context) {
+        this.database = new LibraryDatabase(context.getApplicationContext());
+        this.dataStorage = new DataStorage(context);
+    }
+
+    /**
+     * Obtiene la instancia compartida. Solo debe haber una conexión abierta por proceso.
+     *
+     * @param context Contexto de la aplicación.
+     * @return Almacenamiento SQLite de la biblioteca.
+     */
+    public static synchronized SqliteLibraryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SqliteLibraryStore(context);
+            // Caché de páginas de SQLite: se vuelve a leer del archivo cuando haga falta
+            CacheRegistry.getInstance().register("sqlite", CacheRegistry.Tier.CHEAP,
+                    level -> SQLiteDatabase.releaseMemory());
+        }
+        return instance;
+    }
+
+    /**
+     * Indica si la biblioteca ya está en la base de datos, sin abrirla.
+     *
+     * @param context Contexto de la aplicación.
+     * @return true si existe el archivo de la base de datos.
+     */
+    public static boolean exists(Context context) {
+        MainThreadIoGuard.onDiskRead();
+        return context.getDatabasePath(DATABASE_NAME).exists();
+    }
+
+    @Override
+    public List<FolderSummary> loadSummaries() {
+        migrateFromJsonIfNeeded();
+        MainThreadIoGuard.onDiskRead();
+
+        List<FolderSummary> summaries = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT id, name, color, image_count, last_modified, cover_image_id"
+                        + " FROM folders ORDER BY position", null)) {
+            while (cursor.moveToNext()) {
+                summaries.add(new FolderSummary(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getInt(3), cursor.getLong(4), cursor.getString(5)));
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public Folder readFolder(String folderId) {
+        MainThreadIoGuard.onDiskRead();
+        long start = Metrics.startTimer();
+        SQLiteDatabase db = database.getReadableDatabase();
+
+        Folder folder;
+        try (Cursor cursor = db.rawQuery("SELECT name, color FROM folders WHERE id = ?", new String[]{folderId})) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            folder = new Folder(cursor.getString(0), cursor.getString(1));
+            folder.setId(folderId);
+        }
+        for (Image image : readImages(db, "i.folder_id = ?", new String[]{folderId})) {
+            folder.addImage(image);
+        }
+
+        if (start != 0) {
+            Metrics.stopTimer("store.readFolder", start);
+        }
+        return folder;
+    }
+
+    @Override
+    public List<Image> readImagePage(String folderId, int offset, int limit) {
+        MainThreadIoGuard.onDiskRead();
+        long start = Metrics.startTimer();
+        // Las posiciones de una carpeta son consecutivas, así que la página sale del índice por carpeta
+        List<Image> page = readImages(database.getReadableDatabase(),
+                "i.folder_id = ? AND i.position >= ? AND i.position < ?",
+                new String[]{folderId, String.valueOf(offset), String.valueOf(offset + limit)});
+        if (start != 0) {
+            Metrics.stopTimer("store.readImagePage", start);
+        }
+        return page;
+    }
+
+    @Override
+    public void saveFolders(List<Folder> folders, List<FolderSummary> summaries) {
+        MainThreadIoGuard.onDiskWrite();
+        long start = Metrics.startTimer();
+        SQLiteDatabase db = database.getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            try (SQLiteStatement insertFolder = db.compileStatement(
+                    "INSERT OR IGNORE INTO folders (id, name, color, position) VALUES (?, ?, ?, 0)")) {
+                for (Folder folder : folders) {
+                    insertFolder.bindString(1, folder.getId());
+                    insertFolder.bindString(2, folder.getName());
+                    bindNullable(insertFolder, 3, folder.getColor());
+                    insertFolder.executeInsert();
+                    writeImages(db, folder);
+                }
+            }
+            writeSummaries(db, summaries);
+            incrementGeneration(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (start != 0) {
+            Metrics.stopTimer("store.saveFolders", start);
+        }
+    }
+
+    @Override
+    public void deleteFolder(String folderId, List<FolderSummary> summaries) {
+        MainThreadIoGuard.onDiskWrite();
+        SQLiteDatabase db = database.getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            String[] args = {folderId};
+            db.execSQL("DELETE FROM images_fts WHERE docid IN (SELECT _id FROM images WHERE folder_id = ?)", args);
+            // Las imágenes y sus etiquetas se borran en cascada
+            db.execSQL("DELETE FROM folders WHERE id = ?", args);
+            writeSummaries(db, summaries);
+            incrementGeneration(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public long getGeneration() {
+        MainThreadIoGuard.onDiskRead();
+        return DatabaseUtils.longForQuery(database.getReadableDatabase(),
+                "SELECT value FROM library_meta WHERE key = ?", new String[]{GENERATION_KEY});
+    }
+
+    @Override
+    public List<Image> searchImages(String query) {
+        MainThreadIoGuard.onDiskRead();
+        long start = Metrics.startTimer();
+        String normalized = TextNormalizer.fold(query.trim());
+
+        List<Image> results;
+        if (normalized.isEmpty()) {
+            results = readImages(database.getReadableDatabase(), "1", null);
+        } else {
+            // Como SearchHandler: el nombre contiene la consulta o una etiqueta es igual a ella.
+            // Los trigramas descartan con el índice los nombres que no pueden contenerla;
+            // instr comprueba el resto. Sin trigramas (palabras de menos de tres letras) se
+            // comprueban todos los nombres
+            String grams = toTrigrams(normalized);
+            String where = grams.isEmpty()
+                    ? "(instr(i.folded_name, ?) > 0 OR " + IMAGES_WITH_TAG + ")"
+                    : "((i._id IN (SELECT docid FROM images_fts WHERE images_fts MATCH ?)"
+                    + " AND instr(i.folded_name, ?) > 0) OR " + IMAGES_WITH_TAG + ")";
+            String[] args = grams.isEmpty()
+                    ? new String[]{normalized, normalized}
+                    : new String[]{grams, normalized, normalized};
+            results = readImages(database.getReadableDatabase(), where, args);
+        }
+
+        if (start != 0) {
+            Metrics.stopTimer("store.search", start);
+            Metrics.recordValue("search.results", results.size());
+        }
+        return results;
+    }
+
+    @Override
+    public Image findImage(String imageId) {
+        MainThreadIoGuard.onDiskRead();
+        List<Image> images = readImages(database.getReadableDatabase(), "i.id = ?", new String[]{imageId});
+        return images.isEmpty() ? null : images.get(0);
+    }
+
+    @Override
+    public String findFolderIdForImage(String imageId) {
+        MainThreadIoGuard.onDiskRead();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT folder_id FROM images WHERE id = ?", new String[]{imageId})) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    /**
+     * Pasa la biblioteca JSON a la base de datos la primera vez que se abre.
+     * Los archivos JSON se conservan renombrados como copia de seguridad.
+     */
+    private synchronized void migrateFromJsonIfNeeded() {
+        if (migrationChecked) {
+            return;
+        }
+        migrationChecked = true;
+        if (DatabaseUtils.queryNumEntries(database.getReadableDatabase(), "folders") > 0) {
+            return;
+        }
+
+        List<Folder> folders = dataStorage.readJsonLibrary();
+        if (folders == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<FolderSummary> summaries = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            summaries.add(FolderSummary.of(folder, now));
+        }
+        saveFolders(folders, summaries);
+        dataStorage.retireJsonLibrary();
+        Log.i(TAG, "Biblioteca migrada a SQLite: " + folders.size() + " carpetas");
+    }
+
+    /**
+     * Reescribe las imágenes de una carpeta con sus etiquetas y su entrada de texto completo.
+     *
+     * @param db     Base de datos, dentro de una transacción.
+     * @param folder Carpeta a escribir.
+     */
+    private void writeImages(SQLiteDatabase db, Folder folder) {
+        String[] folderArgs = {folder.getId()};
+        db.execSQL("DELETE FROM images_fts WHERE docid IN (SELECT _id FROM images WHERE folder_id = ?)", folderArgs);
+        db.execSQL("DELETE FROM images WHERE folder_id = ?", folderArgs);
+
+        // Una imagen movida todavía puede estar en su carpeta anterior si esta no se ha guardado aún
+        try (SQLiteStatement unlinkFts = db.compileStatement(
+                "DELETE FROM images_fts WHERE docid IN (SELECT _id FROM images WHERE id = ?)");
+             SQLiteStatement unlinkImage = db.compileStatement("DELETE FROM images WHERE id = ?");
+             SQLiteStatement insertImage = db.compileStatement(
+                     "INSERT INTO images (id, folder_id, position, name, uri, imported_at, byte_size, width, height,"
+                             + " folded_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             SQLiteStatement insertFts = db.compileStatement("INSERT INTO images_fts (docid, grams) VALUES (?, ?)");
+             SQLiteStatement insertTagName = db.compileStatement("INSERT OR IGNORE INTO tags (name, folded) VALUES (?, ?)");
+             SQLiteStatement findTagName = db.compileStatement("SELECT id FROM tags WHERE name = ?");
+             SQLiteStatement insertTag = db.compileStatement(
+                     "INSERT INTO image_tags (image_id, position, tag_id) VALUES (?, ?, ?)")) {
+            // Número en la base de datos de cada etiqueta del TagDictionary usada en esta carpeta
+            Map<Integer, Long> rowIdsByTagId = new HashMap<>();
+            TagDictionary dictionary = TagDictionary.getInstance();
+            List<Image> images = folder.getImages();
+            for (int i = 0; i < images.size(); i++) {
+                Image image = images.get(i);
+                unlinkFts.bindString(1, image.getId());
+                unlinkFts.executeUpdateDelete();
+                unlinkImage.bindString(1, image.getId());
+                unlinkImage.executeUpdateDelete();
+
+                insertImage.bindString(1, image.getId());
+                insertImage.bindString(2, folder.getId());
+                insertImage.bindLong(3, i);
+                insertImage.bindString(4, image.getName());
+                insertImage.bindString(5, image.getUri().toString());
+                insertImage.bindLong(6, image.getImportedAt());
+                insertImage.bindLong(7, image.getByteSize());
+                insertImage.bindLong(8, image.getWidth());
+                insertImage.bindLong(9, image.getHeight());
+                insertImage.bindString(10, image.getFoldedName());
+                long rowId = insertImage.executeInsert();
+
+                insertFts.bindLong(1, rowId);
+                insertFts.bindString(2, toTrigrams(image.getFoldedName()));
+                insertFts.executeInsert();
+
+                for (int t = 0; t < image.getTagCount(); t++) {
+                    int tagId = image.getTagId(t);
+                    Long tagRowId = rowIdsByTagId.get(tagId);
+                    if (tagRowId == null) {
+                        String tag = dictionary.get(tagId);
+                        insertTagName.bindString(1, tag);
+                        insertTagName.bindString(2, dictionary.getFolded(tagId));
+                        insertTagName.executeInsert();
+                        findTagName.bindString(1, tag);
+                        tagRowId = findTagName.simpleQueryForLong();
+                        rowIdsByTagId.put(tagId, tagRowId);
+                    }
+                    insertTag.bindString(1, image.getId());
+                    insertTag.bindLong(2, t);
+                    insertTag.bindLong(3, tagRowId);
+                    insertTag.executeInsert();
+                }
+            }
+        }
+    }
+
+    /**
+     * Avanza la generación de la biblioteca dentro de la misma transacción que el cambio.
+     *
+     * @param db Base de datos, dentro de una transacción.
+     */
+    private static void incrementGeneration(SQLiteDatabase db) {
+        db.execSQL("UPDATE library_meta SET value = value + 1 WHERE key = ?", new String[]{GENERATION_KEY});
+    }
+
+    /**
+     * Actualiza el orden y el resumen de todas las carpetas.
+     *
+     * @param db        Base de datos, dentro de una transacción.
+     * @param summaries Resúmenes en orden.
+     */
+    private void writeSummaries(SQLiteDatabase db, List<FolderSummary> summaries) {
+        try (SQLiteStatement update = db.compileStatement("UPDATE folders SET name = ?, color = ?, position = ?,"
+                + " image_count = ?, last_modified = ?, cover_image_id = ? WHERE id = ?")) {
+            for (int i = 0; i < summaries.size(); i++) {
+                FolderSummary summary = summaries.get(i);
+                update.bindString(1, summary.getName());
+                bindNullable(update, 2, summary.getColor());
+                update.bindLong(3, i);
+                update.bindLong(4, summary.getImageCount());
+                update.bindLong(5, summary.getLastModified());
+                bindNullable(update, 6, summary.getCoverImageId());
+                update.bindString(7, summary.getId());
+                update.executeUpdateDelete();
+            }
+        }
+    }
+
+    /**
+     * Lee imágenes con sus etiquetas en el orden de la biblioteca.
+     *
+     * @param db    Base de datos.
+     * @param where Condición sobre la tabla images (alias i).
+     * @param args  Argumentos de la condición.
+     * @return Imágenes encontradas.
+     */
+    private List<Image> readImages(SQLiteDatabase db, String where, String[] args) {
+        Map<String, List<String>> tagsByImageId = new HashMap<>();
+        try (Cursor cursor = db.rawQuery(String.format(TAGS_OF_IMAGES, where), args)) {
+            while (cursor.moveToNext()) {
+                tagsByImageId.computeIfAbsent(cursor.getString(0), id -> new ArrayList<>()).add(cursor.getString(1));
+            }
+        }
+
+        List<Image> images = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(String.format(IMAGES_IN_ORDER, where), args)) {
+            while (cursor.moveToNext()) {
+                String imageId = cursor.getString(0);
+                List<String> tags = tagsByImageId.get(imageId);
+                Image image = new Image(imageId, Uri.parse(cursor.getString(2)), cursor.getString(1),
+                        tags != null ? tags : new ArrayList<>());
+                image.setImportedAt(cursor.getLong(3));
+                image.setFileInfo(cursor.getLong(4), cursor.getInt(5), cursor.getInt(6));
+                images.add(image);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Obtiene los trigramas distintos de las palabras de un texto normalizado, separados por
+     * espacios. Si un nombre contiene una consulta, contiene todos los trigramas de las palabras
+     * de la consulta, así que como expresión de MATCH (todas deben estar) sirven de filtro previo.
+     *
+     * @param folded Texto normalizado con TextNormalizer.fold.
+     * @return Trigramas, o cadena vacía si ninguna palabra tiene tres letras.
+     */
+    static String toTrigrams(String folded) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : TextNormalizer.split(folded)) {
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                grams.add(word.substring(i, i + 3));
+            }
+        }
+        return String.join(" ", grams);
+    }
+
+    /**
+     * Enlaza un texto que puede ser nulo.
+     *
+     * @param statement Sentencia compilada.
+     * @param index     Índice del parámetro.
+     * @param value     Valor o null.
+     */
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dev.brain2.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Mide los hitos del arranque en frío desde el inicio del proceso: el primer fotograma
+ * y el momento en que la cuadrícula de carpetas muestra datos.
+ */
+public final class StartupTracker {
+
+    private static final String TAG = "StartupTracker";
+
+    private static boolean firstFrameRecorded;
+    private static boolean foldersVisibleRecorded;
+
+    private StartupTracker() {
+    }
+
+    /**
+     * Registra el primer fotograma dibujado. Solo cuenta la primera vez.
+     */
+    public static synchronized void onFirstFrame() {
+        if (!firstFrameRecorded) {
+            firstFrameRecorded = true;
+            record("startup.firstFrame");
+        }
+    }
+
+    /**
+     * Registra que las carpetas ya están visibles. Solo cuenta la primera vez.
+     */
+    public static synchronized void onFoldersVisible() {
+        if (!foldersVisibleRecorded) {
+            foldersVisibleRecorded = true;
+            record("startup.foldersVisible");
+        }
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde el inicio del proceso.
+     *
+     * @param name Nombre del hito.
+     */
+    private static void record(String name) {
+        long elapsedMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        Metrics.recordDuration(name, elapsedMs * 1_000_000L);
+        Log.i(TAG, name + ": " + elapsedMs + " ms");
+    }
+}
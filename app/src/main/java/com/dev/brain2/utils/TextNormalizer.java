@@ -0,0 +1,60 @@
+package com.dev.brain2.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza textos para compararlos en las búsquedas: sin acentos ni diferencias entre
+ * mayúsculas y minúsculas, sea cual sea el idioma del dispositivo. "Café" y "cafe" quedan igual.
+ * Los nombres y las etiquetas se normalizan una sola vez, al crearlos o cambiarlos; en cada
+ * búsqueda solo se normaliza la consulta.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Quita los acentos y pasa el texto a minúsculas.
+     *
+     * @param text Texto original.
+     * @return Texto normalizado.
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide un texto en palabras normalizadas.
+     *
+     * @param text Texto original.
+     * @return Palabras sin acentos y en minúsculas, en el orden del texto.
+     */
+    public static List<String> tokens(String text) {
+        return split(fold(text));
+    }
+
+    /**
+     * Divide en palabras un texto que ya está normalizado, como los que guardan Image y
+     * TagDictionary.
+     *
+     * @param folded Texto normalizado con fold.
+     * @return Palabras en el orden del texto.
+     */
+    public static List<String> split(String folded) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,542 @@
+package com.dev.brain2.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.dev.brain2.models.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodifica miniaturas reducidas de las imágenes fuera del hilo principal y las guarda
+ * en una caché limitada por memoria. Las listas muestran miniaturas, nunca la imagen completa.
+ * Las decodificaciones van a una cola de prioridad: primero las celdas visibles, después las de
+ * la siguiente pantalla y por último las más lejanas, que se pueden pausar o cancelar.
+ * Los bitmaps que salen de la caché y ya no se muestran vuelven a una BitmapPool para
+ * decodificar encima las siguientes miniaturas sin asignar memoria nueva.
+ */
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+    public static final int THUMBNAIL_SIZE_PX = 256;
+    // Fracción de la memoria de la aplicación que puede ocupar la caché
+    private static final int CACHE_MEMORY_DIVISOR = 8;
+
+    /**
+     * Prioridad de una decodificación, de mayor a menor urgencia.
+     */
+    public enum Priority {
+        VISIBLE,        // Celdas en pantalla
+        NEXT_SCREEN,    // Celdas de la siguiente pantalla en la dirección del desplazamiento
+        BEYOND          // Celdas más lejanas
+    }
+
+    private static ThumbnailLoader instance;
+
+    private final Context appContext;
+    private final AppExecutors executors;
+    private final ThreadPoolExecutor decoder;
+    private final LruCache<String, Bitmap> cache;
+    private final BitmapPool bitmapPool;
+
+    private final Map<String, DecodeTask> pending = new ConcurrentHashMap<>();
+    private final List<DecodeTask> deferred = new ArrayList<>();     // Tareas pausadas
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean lowPriorityPaused;
+    private volatile boolean discardRemoved;    // Al liberar memoria no se llena la reserva
+
+    // Tiempo que las celdas pasan vacías; solo se usa desde el hilo principal
+    private final Map<ImageView, Long> blankSince = new WeakHashMap<>();
+    private long blankNanos;
+    // Bitmap que muestra cada vista; solo se usa desde el hilo principal
+    private final Map<ImageView, Bitmap> displayed = new WeakHashMap<>();
+    // Bitmaps con una entrega en cola -> número de entregas; no pueden ir a la reserva
+    private final Map<Bitmap, Integer> pendingDeliveries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param context Contexto de la aplicación.
+     */
+    private ThumbnailLoader(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.executors = AppExecutors.getInstance();
+        this.decoder = executors.decodeIO();
+        this.bitmapPool = BitmapPool.forDevice(appContext);
+        int cacheBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / CACHE_MEMORY_DIVISOR, Integer.MAX_VALUE);
+        this.cache = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue && !discardRemoved) {
+                    executors.runOnMainThread(() -> recycleIfHidden(oldValue));
+                }
+            }
+        };
+        CacheRegistry registry = CacheRegistry.getInstance();
+        registry.register("thumbnail.pool", CacheRegistry.Tier.CHEAP, level -> bitmapPool.trimTo(0));
+        registry.register("thumbnail.cache", CacheRegistry.Tier.MEDIUM, this::trimCache);
+    }
+
+    /**
+     * Obtiene la instancia compartida.
+     *
+     * @param context Contexto de la aplicación.
+     * @return Cargador de miniaturas.
+     */
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailLoader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Muestra la miniatura de una imagen. Si no está en caché se decodifica en segundo plano
+     * con prioridad de celda visible y se descarta si la vista ya se reutilizó para otra imagen.
+     * Se llama desde el hilo principal.
+     *
+     * @param image  Imagen a mostrar.
+     * @param target Vista de destino.
+     */
+    public void load(Image image, ImageView target) {
+        String key = keyOf(image);
+        target.setTag(key);
+
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            Metrics.increment("thumbnail.cache.hit", 1);
+            show(target, cached);
+            return;
+        }
+        Metrics.increment("thumbnail.cache.miss", 1);
+        markBlank(target);
+        enqueue(key, image.getUri(), Priority.VISIBLE, target);
+    }
+
+    /**
+     * Deja una celda vacía mientras se carga su contenido. Cuenta como tiempo en blanco.
+     * Se llama desde el hilo principal.
+     *
+     * @param target Vista de destino.
+     */
+    public void showPlaceholder(ImageView target) {
+        target.setTag(null);
+        markBlank(target);
+    }
+
+    /**
+     * Pide por adelantado la miniatura de una imagen que probablemente se mostrará pronto.
+     * Si ya estaba pedida con otra prioridad, se conserva la más urgente.
+     *
+     * @param image    Imagen a preparar.
+     * @param priority Prioridad de la decodificación.
+     */
+    public void prefetch(Image image, Priority priority) {
+        String key = keyOf(image);
+        if (cache.get(key) == null) {
+            enqueue(key, image.getUri(), priority, null);
+        }
+    }
+
+    /**
+     * Cancela la decodificación pendiente de una imagen, si todavía no ha empezado.
+     *
+     * @param image Imagen que ya no hace falta.
+     */
+    public void cancel(Image image) {
+        DecodeTask task = pending.remove(keyOf(image));
+        if (task != null) {
+            decoder.remove(task);
+            synchronized (deferred) {
+                deferred.remove(task);
+            }
+            Metrics.increment("thumbnail.decode.cancelled", 1);
+        }
+    }
+
+    /**
+     * Pausa o reanuda las decodificaciones de celdas lejanas (BEYOND). Se pausan durante un
+     * desplazamiento rápido para que los hilos atiendan a lo que está en pantalla; las de la
+     * siguiente pantalla siguen, porque es justo lo que se mostrará a continuación.
+     *
+     * @param paused true para pausar.
+     */
+    public void setLowPriorityPaused(boolean paused) {
+        lowPriorityPaused = paused;
+        if (paused) {
+            return;
+        }
+        List<DecodeTask> resumed;
+        synchronized (deferred) {
+            resumed = new ArrayList<>(deferred);
+            deferred.clear();
+        }
+        for (DecodeTask task : resumed) {
+            if (pending.get(task.key) == task) {
+                decoder.execute(task);
+            }
+        }
+    }
+
+    /**
+     * Devuelve el tiempo acumulado con celdas vacías desde la última llamada y lo pone a cero.
+     * Las celdas que siguen vacías cuentan hasta este momento. Se llama desde el hilo principal.
+     *
+     * @return Tiempo en blanco en nanosegundos, sumado entre todas las celdas.
+     */
+    public long takeBlankTimeNanos() {
+        long now = System.nanoTime();
+        for (Map.Entry<ImageView, Long> entry : blankSince.entrySet()) {
+            blankNanos += now - entry.getValue();
+            entry.setValue(now);
+        }
+        long total = blankNanos;
+        blankNanos = 0;
+        return total;
+    }
+
+    /**
+     * Libera de la caché las miniaturas de imágenes que ya no se van a mostrar pronto
+     * y cancela las que aún estaban pendientes.
+     *
+     * @param images Imágenes a liberar.
+     */
+    public void release(List<Image> images) {
+        for (Image image : images) {
+            cancel(image);
+            cache.remove(keyOf(image));
+        }
+    }
+
+    /**
+     * Reduce la caché de miniaturas. Con presión moderada se queda en la mitad; si no, se vacía.
+     * Los bitmaps que salen no pasan a la reserva, que se vacía antes.
+     *
+     * @param level Nivel de ComponentCallbacks2.onTrimMemory.
+     * @return Bytes liberados.
+     */
+    private long trimCache(int level) {
+        long before = cache.size();
+        discardRemoved = true;
+        try {
+            if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                cache.trimToSize(cache.maxSize() / 2);
+            } else {
+                cache.evictAll();
+            }
+        } finally {
+            discardRemoved = false;
+        }
+        return before - cache.size();
+    }
+
+    /**
+     * Pone en cola una decodificación, o sube la prioridad de la que ya estaba pendiente.
+     *
+     * @param key      Clave de la caché.
+     * @param uri      URI de la imagen.
+     * @param priority Prioridad pedida.
+     * @param target   Vista que espera el resultado, o null si solo se prepara la caché.
+     */
+    private void enqueue(String key, Uri uri, Priority priority, ImageView target) {
+        DecodeTask task = pending.get(key);
+        if (task != null) {
+            if (target != null) {
+                task.targets.add(target);
+            }
+            if (priority.compareTo(task.priority) < 0) {
+                raisePriority(task, priority);
+            }
+            return;
+        }
+        task = new DecodeTask(key, uri, priority, sequence.incrementAndGet());
+        if (target != null) {
+            task.targets.add(target);
+        }
+        pending.put(key, task);
+        decoder.execute(task);
+    }
+
+    /**
+     * Sube la prioridad de una tarea pendiente. Si ya está en marcha no hace falta moverla.
+     *
+     * @param task     Tarea pendiente.
+     * @param priority Nueva prioridad.
+     */
+    private void raisePriority(DecodeTask task, Priority priority) {
+        boolean wasDeferred;
+        synchronized (deferred) {
+            wasDeferred = deferred.remove(task);
+        }
+        if (wasDeferred || decoder.remove(task)) {
+            task.priority = priority;
+            decoder.execute(task);
+        }
+    }
+
+    /**
+     * Entrega una miniatura a las vistas que la esperan. Se llama desde el hilo principal.
+     *
+     * @param task   Tarea terminada.
+     * @param bitmap Miniatura decodificada.
+     */
+    private void deliver(DecodeTask task, Bitmap bitmap) {
+        for (ImageView target : task.targets) {
+            if (task.key.equals(target.getTag())) {
+                show(target, bitmap);
+            }
+        }
+        unmarkPendingDelivery(bitmap);
+    }
+
+    /**
+     * Muestra una miniatura en una celda.
+     *
+     * @param target Vista de la celda.
+     * @param bitmap Miniatura.
+     */
+    private void show(ImageView target, Bitmap bitmap) {
+        target.setImageBitmap(bitmap);
+        displayed.put(target, bitmap);
+        markFilled(target);
+    }
+
+    /**
+     * Vacía una celda y abre su intervalo en blanco.
+     *
+     * @param target Vista de la celda.
+     */
+    private void markBlank(ImageView target) {
+        markFilled(target);
+        target.setImageDrawable(null);
+        displayed.remove(target);
+        blankSince.put(target, System.nanoTime());
+    }
+
+    /**
+     * Devuelve a la reserva un bitmap que salió de la caché, salvo que alguna vista lo siga
+     * mostrando o tenga una entrega en cola: otra decodificación podría pisarlo antes de que
+     * se muestre. Se llama desde el hilo principal.
+     *
+     * @param bitmap Bitmap que salió de la caché.
+     */
+    private void recycleIfHidden(Bitmap bitmap) {
+        if (!displayed.containsValue(bitmap) && !pendingDeliveries.containsKey(bitmap)) {
+            bitmapPool.put(bitmap);
+        }
+    }
+
+    /**
+     * Cierra el intervalo en blanco de una celda, si lo tenía.
+     *
+     * @param target Vista de la celda.
+     */
+    private void markFilled(ImageView target) {
+        Long since = blankSince.remove(target);
+        if (since != null) {
+            blankNanos += System.nanoTime() - since;
+        }
+    }
+
+    /**
+     * Decodificación pendiente de una miniatura. Se ordena por prioridad y, a igual prioridad,
+     * por orden de llegada.
+     */
+    private final class DecodeTask implements Runnable, Comparable<DecodeTask> {
+        private final String key;
+        private final Uri uri;
+        private final long order;
+        private final List<ImageView> targets = new CopyOnWriteArrayList<>();
+        private volatile Priority priority;
+
+        DecodeTask(String key, Uri uri, Priority priority, long order) {
+            this.key = key;
+            this.uri = uri;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public void run() {
+            if (pending.get(key) != this) {
+                return;     // Cancelada
+            }
+            if (lowPriorityPaused && priority == Priority.BEYOND) {
+                synchronized (deferred) {
+                    deferred.add(this);
+                }
+                return;
+            }
+
+            Bitmap bitmap = cache.get(key);
+            if (bitmap != null) {
+                markPendingDelivery(bitmap);
+                // Si salió de la caché antes de marcarlo, pudo llegar a la reserva: se decodifica otra vez
+                if (cache.get(key) != bitmap) {
+                    unmarkPendingDelivery(bitmap);
+                    bitmap = null;
+                }
+            }
+            if (bitmap == null) {
+                bitmap = decodeAndCache(key, uri);
+            }
+            pending.remove(key, this);
+            if (bitmap != null) {
+                // Se entrega aunque no haya vistas todavía: pueden añadirse desde el hilo
+                // principal hasta que se ejecute la entrega
+                Bitmap result = bitmap;
+                executors.runOnMainThread(() -> deliver(this, result));
+            }
+        }
+
+        @Override
+        public int compareTo(DecodeTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Decodifica una miniatura y la guarda en caché, ya marcada con una entrega en cola.
+     *
+     * @param key Clave de la caché.
+     * @param uri URI de la imagen.
+     * @return Miniatura, o null si no se pudo leer.
+     */
+    private Bitmap decodeAndCache(String key, Uri uri) {
+        Bitmap bitmap = decodeThumbnail(uri);
+        if (bitmap != null) {
+            // Se marca antes de entrar en la caché, que puede echarlo en cualquier momento
+            markPendingDelivery(bitmap);
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Anota que un bitmap tiene una entrega más en cola.
+     *
+     * @param bitmap Bitmap que se va a entregar.
+     */
+    private void markPendingDelivery(Bitmap bitmap) {
+        pendingDeliveries.merge(bitmap, 1, Integer::sum);
+    }
+
+    /**
+     * Anota que se hizo o se descartó una de las entregas en cola de un bitmap.
+     *
+     * @param bitmap Bitmap entregado.
+     */
+    private void unmarkPendingDelivery(Bitmap bitmap) {
+        pendingDeliveries.computeIfPresent(bitmap, (b, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Decodifica una imagen reducida a un tamaño cercano al de la miniatura.
+     *
+     * @param uri URI de la imagen.
+     * @return Miniatura, o null si no se pudo leer.
+     */
+    private Bitmap decodeThumbnail(Uri uri) {
+        MainThreadIoGuard.onBitmapDecode();
+        long start = Metrics.startTimer();
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            decodeStream(uri, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
+
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, THUMBNAIL_SIZE_PX);
+            // Mutable para que pueda volver a la reserva cuando salga de la caché
+            options.inMutable = true;
+            options.inBitmap = bitmapPool.get(divideRoundingUp(options.outWidth, options.inSampleSize),
+                    divideRoundingUp(options.outHeight, options.inSampleSize), Bitmap.Config.ARGB_8888);
+            Bitmap bitmap;
+            try {
+                bitmap = decodeStream(uri, options);
+            } catch (IllegalArgumentException e) {
+                // El formato no admite decodificar sobre el bitmap elegido
+                options.inBitmap = null;
+                bitmap = decodeStream(uri, options);
+            }
+            if (bitmap != null && options.inBitmap == null) {
+                Metrics.recordValue("thumbnail.decode.allocated", bitmap.getAllocationByteCount());
+            }
+            return bitmap;
+        } catch (IOException | SecurityException e) {
+            Log.w(TAG, "No se pudo leer la miniatura de " + uri, e);
+            return null;
+        } finally {
+            Metrics.stopTimer("thumbnail.decode", start);
+        }
+    }
+
+    /**
+     * Decodifica una imagen con las opciones indicadas.
+     *
+     * @param uri     URI de la imagen.
+     * @param options Opciones de decodificación.
+     * @return Bitmap decodificado, o null si el formato no se reconoce.
+     * @throws IOException Si no se puede leer.
+     */
+    private Bitmap decodeStream(Uri uri, BitmapFactory.Options options) throws IOException {
+        try (InputStream input = appContext.getContentResolver().openInputStream(uri)) {
+            return BitmapFactory.decodeStream(input, null, options);
+        }
+    }
+
+    private static int divideRoundingUp(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Calcula el mayor factor de reducción (potencia de dos) que deja el lado menor
+     * de la imagen por encima del tamaño pedido.
+     *
+     * @param width      Ancho original.
+     * @param height     Alto original.
+     * @param targetSize Tamaño deseado del lado menor.
+     * @return Factor de reducción para BitmapFactory.
+     */
+    static int calculateInSampleSize(int width, int height, int targetSize) {
+        int sampleSize = 1;
+        int shortSide = Math.min(width, height);
+        while (shortSide / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Clave de caché de una imagen. Se usa la URI para que un renombrado no muestre una miniatura antigua.
+     *
+     * @param image Imagen.
+     * @return Clave de la caché.
+     */
+    private static String keyOf(Image image) {
+        return image.getUri().toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.dev.brain2;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.managers.LibraryIndex;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.utils.JsonLibraryStore;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class FolderSummaryTest {
+
+    private FolderManager folderManager;
+    private DataStorage dataStorage;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        LibraryIndex.getInstance().invalidate();
+        dataStorage = new DataStorage(context);
+        dataStorage.writeLibrary(new ArrayList<>());
+        folderManager = new FolderManager(context, new JsonLibraryStore(context));
+    }
+
+    @Test
+    public void testSummariesFollowSavedFolders() {
+        Folder folder = new Folder("Viajes", "#FF0000");
+        Image cover = new Image(Uri.parse("file:///viajes/playa.jpg"), "playa");
+        folder.addImage(new Image(Uri.parse("file:///viajes/rio.jpg"), "rio"));
+        folder.addImage(cover);
+        folderManager.addFolder(folder);
+
+        List<FolderSummary> stored = dataStorage.readManifest().getFolders();
+        assertNotNull("El manifiesto debería guardarse", stored);
+        assertEquals("Debería haber un resumen por carpeta", 1, stored.size());
+        assertEquals("El resumen debería contar las imágenes", 2, stored.get(0).getImageCount());
+        assertEquals("La portada debería ser la imagen más reciente", cover.getId(), stored.get(0).getCoverImageId());
+    }
+
+    @Test
+    public void testUnchangedFolderKeepsTimestamp() {
+        Folder first = new Folder("Viajes", "#FF0000");
+        folderManager.addFolder(first);
+        long firstModified = dataStorage.readManifest().getFolders().get(0).getLastModified();
+
+        Folder second = new Folder("Recibos", "#00FF00");
+        folderManager.addFolder(second);
+
+        List<FolderSummary> summaries = new ArrayList<>();
+        folderManager.loadFolderSummariesAsync(summaries::addAll);
+        assertEquals("Deberían cargarse los dos resúmenes", 2, summaries.size());
+        assertEquals("Una carpeta sin cambios conserva su fecha de modificación",
+                firstModified, summaries.get(0).getLastModified());
+    }
+}
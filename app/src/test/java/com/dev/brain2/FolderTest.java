@@ -0,0 +1,76 @@
+package com.dev.brain2;
+
+import android.net.Uri;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class FolderTest {
+
+    private Folder folder;
+    private Image beach;
+    private Image mountain;
+    private Image city;
+
+    @Before
+    public void setUp() {
+        folder = new Folder("Viajes", "#FF0000");
+        folder.setId("folder-1");
+        beach = new Image(Uri.parse("file:///viajes/playa.jpg"), "playa");
+        mountain = new Image(Uri.parse("file:///viajes/montaña.jpg"), "montaña");
+        city = new Image(Uri.parse("file:///viajes/ciudad.jpg"), "ciudad");
+        folder.addImage(beach);
+        folder.addImage(mountain);
+        folder.addImage(city);
+    }
+
+    @Test
+    public void testFindFollowsAddAndRemove() {
+        assertSame("La imagen debería encontrarse por su ID", mountain, folder.findImageById(mountain.getId()));
+
+        folder.removeImageById(mountain.getId());
+        Image forest = new Image(Uri.parse("file:///viajes/bosque.jpg"), "bosque");
+        folder.addImage(forest);
+
+        assertNull("La imagen eliminada no debería encontrarse", folder.findImageById(mountain.getId()));
+        assertSame("La imagen añadida debería encontrarse", forest, folder.findImageById(forest.getId()));
+        assertFalse("Eliminarla otra vez no debería hacer nada", folder.removeImageById(mountain.getId()));
+    }
+
+    @Test
+    public void testRemoveImagesByIdKeepsOrder() {
+        int removed = folder.removeImagesById(Arrays.asList(beach.getId(), city.getId(), "no-existe"));
+
+        assertEquals("Deberían eliminarse las dos imágenes que estaban", 2, removed);
+        assertEquals("Debería quedar solo una imagen", 1, folder.getImageCount());
+        assertSame("Debería quedar la imagen no eliminada", mountain, folder.getImages().get(0));
+        assertNull("La imagen eliminada no debería encontrarse", folder.findImageById(beach.getId()));
+    }
+
+    @Test
+    public void testFindAfterDeserialization() {
+        Gson gson = new Gson();
+        folder.findImageById(beach.getId());
+        Folder copy = gson.fromJson(gson.toJson(folder), Folder.class);
+
+        assertNotNull("La copia deserializada debería encontrar sus imágenes", copy.findImageById(city.getId()));
+        assertEquals("El índice por ID no debería guardarse", -1, gson.toJson(folder).indexOf("imagesById"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.dev.brain2;
+
+import com.dev.brain2.models.ImageIdSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImageIdSetTest {
+
+    @Test
+    public void testSetOperationsAcrossBlocks() {
+        // 70000 cae en el segundo bloque de 65536
+        ImageIdSet a = ImageIdSet.of(1, 5, 9, 70000);
+        ImageIdSet b = ImageIdSet.of(5, 9, 10, 70001);
+
+        assertEquals("Intersección", 2, a.and(b).cardinality());
+        assertEquals("Tamaño de la intersección sin construirla", 2, a.andCardinality(b));
+        assertEquals("Unión", 6, a.or(b).cardinality());
+        ImageIdSet difference = a.andNot(b);
+        assertEquals("Diferencia", 2, difference.cardinality());
+        assertTrue(difference.contains(70000));
+        assertEquals("Las operaciones no deberían modificar los originales", 4, a.cardinality());
+    }
+
+    @Test
+    public void testDenseBlockSwitchesRepresentationBothWays() {
+        ImageIdSet even = new ImageIdSet();
+        for (int id = 0; id < 20000; id += 2) {
+            even.add(id);
+        }
+        long denseBytes = even.getSizeInBytes();
+        ImageIdSet firstHundred = new ImageIdSet();
+        for (int id = 0; id < 100; id++) {
+            firstHundred.add(id);
+        }
+
+        assertEquals(10000, even.cardinality());
+        assertEquals("Pares entre 0 y 99", 50, even.and(firstHundred).cardinality());
+        assertTrue("Un bloque denso debería ocupar como mucho el mapa de bits", denseBytes < 9000);
+        for (int id = 0; id < 19000; id += 2) {
+            assertTrue(even.remove(id));
+        }
+        assertFalse(even.contains(0));
+        assertEquals("Se recorre en orden desde el primero que queda", 19000, even.nextId(0));
+        assertEquals(500, even.cardinality());
+    }
+
+    @Test
+    public void testIterationVisitsIdsInOrder() {
+        ImageIdSet set = ImageIdSet.of(131072, 3, 65535, 65536);
+        StringBuilder visited = new StringBuilder();
+        for (int id = set.nextId(0); id >= 0; id = set.nextId(id + 1)) {
+            visited.append(id).append(' ');
+        }
+
+        assertEquals("3 65535 65536 131072 ", visited.toString());
+    }
+}
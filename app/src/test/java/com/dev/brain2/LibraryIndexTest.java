@@ -0,0 +1,82 @@
+package com.dev.brain2;
+
+import android.net.Uri;
+
+import com.dev.brain2.managers.LibraryIndex;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class LibraryIndexTest {
+
+    private LibraryIndex index;
+    private Folder folder;
+    private Image image;
+
+    @Before
+    public void setUp() {
+        index = LibraryIndex.getInstance();
+        folder = new Folder("Viajes", "#FF0000");
+        folder.setId("folder-1");
+        image = new Image(Uri.parse("file:///viajes/playa.jpg"), "playa");
+        folder.addImage(image);
+        index.load(Collections.singletonList(folder));
+    }
+
+    @Test
+    public void testLookupById() {
+        assertSame("La carpeta debería encontrarse por su ID", folder, index.getFolder("folder-1"));
+        assertSame("La imagen debería encontrarse por su ID", image, index.getImage(image.getId()));
+        assertEquals("La imagen debería pertenecer a la carpeta", "folder-1", index.getFolderIdForImage(image.getId()));
+    }
+
+    @Test
+    public void testRemoveDeserializedCopy() {
+        Gson gson = new Gson();
+        Image copy = gson.fromJson(gson.toJson(image), Image.class);
+
+        assertTrue("La copia deserializada debería eliminarse", folder.removeImage(copy));
+        index.putFolder(folder);
+
+        assertNull("La imagen ya no debería estar indexada", index.getImage(image.getId()));
+        assertNull("La imagen ya no debería tener carpeta", index.getFolderIdForImage(image.getId()));
+    }
+
+    @Test
+    public void testMoveBetweenFolders() {
+        Folder target = new Folder("Playa", "#00FF00");
+        target.setId("folder-2");
+        index.putFolder(target);
+
+        folder.removeImage(image);
+        target.addImage(image);
+        index.putFolder(folder);
+        index.putFolder(target);
+
+        assertEquals("La imagen debería pertenecer a la carpeta destino", "folder-2", index.getFolderIdForImage(image.getId()));
+        assertEquals("El índice debería seguir teniendo una imagen", 1, index.getImageCount());
+    }
+
+    @Test
+    public void testRemoveFolder() {
+        index.removeFolder("folder-1");
+
+        assertNull("La carpeta eliminada no debería encontrarse", index.getFolder("folder-1"));
+        assertNull("Las imágenes de la carpeta deberían desindexarse", index.getImage(image.getId()));
+    }
+}
@@ -0,0 +1,35 @@
+package com.dev.brain2;
+
+import com.dev.brain2.models.SearchQuery;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SearchQueryTest {
+
+    @Test
+    public void testParseSeparatesFiltersFromText() {
+        SearchQuery query = SearchQuery.parse("folder:\"Mis Viajes\" playa tag:Montaña size:>5MB");
+
+        assertEquals("El texto libre no debería incluir los filtros", "playa", query.getText());
+        assertEquals(Collections.singletonList("mis viajes"), query.getFolders());
+        assertEquals(Collections.singletonList("montana"), query.getTags());
+        List<SearchQuery.Range> ranges = query.getRanges();
+        assertEquals(1, ranges.size());
+        assertEquals(SearchQuery.Property.BYTE_SIZE, ranges.get(0).getProperty());
+        assertEquals("size:>5MB debería excluir exactamente 5MB", (5L << 20) + 1, ranges.get(0).getMin());
+    }
+
+    @Test
+    public void testInvalidFiltersAreSearchedAsText() {
+        SearchQuery query = SearchQuery.parse("after:ayer size:grande 10:30");
+
+        assertFalse("Un valor no válido no debería filtrar", query.hasFilters());
+        assertEquals("after:ayer size:grande 10:30", query.getText());
+    }
+}
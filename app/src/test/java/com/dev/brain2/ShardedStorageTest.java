@@ -0,0 +1,114 @@
+package com.dev.brain2;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.dev.brain2.managers.FolderManager;
+import com.dev.brain2.managers.LibraryIndex;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.DataStorage;
+import com.dev.brain2.utils.JsonLibraryStore;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ShardedStorageTest {
+
+    private Context context;
+    private DataStorage dataStorage;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        LibraryIndex.getInstance().invalidate();
+        deleteRecursively(new File(context.getFilesDir(), "library"));
+        dataStorage = new DataStorage(context);
+
+        Folder trips = new Folder("Viajes", "#FF0000");
+        trips.setId("folder-1");
+        trips.addImage(new Image(Uri.parse("file:///viajes/playa.jpg"), "playa"));
+        Folder receipts = new Folder("Recibos", "#00FF00");
+        receipts.setId("folder-2");
+        receipts.addImage(new Image(Uri.parse("file:///recibos/luz.jpg"), "luz"));
+
+        try (FileWriter writer = new FileWriter(new File(context.getFilesDir(), "folders.json"))) {
+            new Gson().toJson(Arrays.asList(trips, receipts), writer);
+        }
+    }
+
+    @Test
+    public void testLegacyLibraryIsMigrated() {
+        FolderManager folderManager = new FolderManager(context, new JsonLibraryStore(context));
+
+        assertEquals("Deberían migrarse las dos carpetas", 2, folderManager.getFolders().size());
+        assertNotNull("Debería existir el manifiesto", dataStorage.readManifest());
+        assertNotNull("Cada carpeta debería tener su archivo", dataStorage.readFolderShard("folder-2"));
+        assertFalse("El folders.json antiguo debería retirarse",
+                new File(context.getFilesDir(), "folders.json").exists());
+    }
+
+    @Test
+    public void testOpeningFolderLoadsOnlyItsShard() {
+        FolderManager folderManager = new FolderManager(context, new JsonLibraryStore(context));
+
+        Folder folder = folderManager.getFolderById("folder-1");
+
+        assertEquals("La carpeta debería cargarse con sus imágenes", 1, folder.getImageCount());
+        assertFalse("El resto de la biblioteca no debería cargarse", LibraryIndex.getInstance().isLoaded());
+        assertNull("La otra carpeta no debería estar en memoria", LibraryIndex.getInstance().getFolder("folder-2"));
+    }
+
+    @Test
+    public void testTagsAreWrittenOncePerShard() throws IOException {
+        Folder tagged = new Folder("Etiquetas", "#0000FF");
+        tagged.setId("folder-3");
+        for (int i = 0; i < 3; i++) {
+            Image image = new Image(Uri.parse("file:///etiquetas/" + i + ".jpg"), "foto " + i);
+            image.addTag("vacaciones");
+            tagged.addImage(image);
+        }
+
+        dataStorage.writeFolderShard(tagged);
+        String json = new String(Files.readAllBytes(
+                new File(context.getFilesDir(), "library/folders/folder-3.json").toPath()));
+        Folder read = dataStorage.readFolderShard("folder-3");
+
+        assertEquals("El texto de la etiqueta debería guardarse una sola vez",
+                json.indexOf("vacaciones"), json.lastIndexOf("vacaciones"));
+        assertEquals(Arrays.asList("vacaciones"), read.getImages().get(2).getTags());
+    }
+
+    /**
+     * Borra un directorio y su contenido.
+     *
+     * @param file Archivo o directorio.
+     */
+    private void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,102 @@
+package com.dev.brain2;
+
+import android.net.Uri;
+
+import com.dev.brain2.managers.TagIndex;
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.SearchQuery;
+import com.dev.brain2.models.TagFacet;
+import com.dev.brain2.models.TagFilter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class TagIndexTest {
+
+    private TagIndex index;
+    private Folder trips;
+    private Folder receipts;
+    private Image beach;
+
+    @Before
+    public void setUp() {
+        index = TagIndex.getInstance();
+        trips = new Folder("Viajes", "#FF0000");
+        trips.setId("folder-1");
+        beach = image("playa", "verano", "mar");
+        trips.addImage(beach);
+        trips.addImage(image("montaña", "verano"));
+        trips.addImage(image("nieve", "invierno"));
+        receipts = new Folder("Recibos", "#00FF00");
+        receipts.setId("folder-2");
+        receipts.addImage(image("luz", "casa"));
+        index.load(Arrays.asList(trips, receipts));
+    }
+
+    @Test
+    public void testFilterCombinesTags() {
+        List<String> none = Collections.emptyList();
+
+        assertEquals("AND: deberían quedar las imágenes con las dos etiquetas", 1,
+                index.filter(new TagFilter(Arrays.asList("verano", "mar"), none, none)).cardinality());
+        assertEquals("OR: deberían quedar las imágenes con alguna etiqueta", 3,
+                index.filter(new TagFilter(none, Arrays.asList("verano", "invierno"), none)).cardinality());
+        assertEquals("NOT: deberían quedar las imágenes sin la etiqueta", 2,
+                index.filter(new TagFilter(none, none, Collections.singletonList("verano"))).cardinality());
+        assertEquals("Una etiqueta desconocida no debería dar resultados", 0,
+                index.filter(new TagFilter(Collections.singletonList("otoño"), none, none)).cardinality());
+    }
+
+    @Test
+    public void testFacetsFollowIncrementalUpdates() {
+        trips.removeImage(beach);
+        receipts.addImage(beach);
+        index.putFolder(receipts);
+        index.putFolder(trips);
+        index.removeFolder("folder-2");
+
+        List<TagFacet> facets = index.getFacets(null, 10);
+
+        assertEquals("Solo deberían quedar las etiquetas de la carpeta de viajes", 2, facets.size());
+        assertEquals("invierno", facets.get(0).getTag());
+        assertEquals("verano", facets.get(1).getTag());
+        assertEquals(1, facets.get(1).getCount());
+    }
+
+    @Test
+    public void testQueryFiltersIntersectSecondaryIndexes() {
+        beach.setFileInfo(6L << 20, 4000, 3000);
+        trips.getImages().get(1).setFileInfo(1L << 20, 800, 600);
+        index.putFolder(trips);
+        List<String> trip = Collections.singletonList("folder-1");
+
+        assertEquals("Solo la playa es de verano y pesa más de 5MB", 1,
+                index.filter(SearchQuery.parse("tag:Verano size:>5MB"), trip).cardinality());
+        assertEquals("Las imágenes sin tamaño conocido no deberían cumplir el rango", 2,
+                index.filter(SearchQuery.parse("size:<10MB"), null).cardinality());
+        assertEquals("Ninguna imagen de recibos tiene esas dimensiones", 0,
+                index.filter(SearchQuery.parse("dims:>=800x600"), Collections.singletonList("folder-2")).cardinality());
+        assertEquals("Todas las imágenes se importaron después de 2024", 4,
+                index.filter(SearchQuery.parse("after:2024-01-01"), null).cardinality());
+    }
+
+    private static Image image(String name, String... tags) {
+        Image image = new Image(Uri.parse("file:///test/" + name + ".jpg"), name);
+        for (String tag : tags) {
+            image.addTag(tag);
+        }
+        return image;
+    }
+}
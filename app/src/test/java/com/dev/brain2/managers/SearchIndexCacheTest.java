@@ -0,0 +1,102 @@
+package com.dev.brain2.managers;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.dev.brain2.utils.AppExecutors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class SearchIndexCacheTest {
+
+    private SearchIndexCache cache;
+    private Folder trips;
+    private Folder receipts;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        cache = new SearchIndexCache(context);
+
+        trips = folder("folder-1", "Viajes");
+        Image beach = image("playa");
+        beach.addTag("Verano");
+        trips.addImage(beach);
+        receipts = folder("folder-2", "Recibos");
+        receipts.addImage(image("luz"));
+
+        cache.save(Arrays.asList(trips, receipts), 5);
+        waitForDiskIO();
+    }
+
+    @Test
+    public void testChangesAreAppliedOnLoad() throws Exception {
+        trips.addImage(image("Café"));
+        cache.putFolders(Collections.singletonList(trips), 6);
+        cache.removeFolder("folder-2", 7);
+        waitForDiskIO();
+
+        List<Folder> folders = cache.load(7, summaries(trips));
+
+        assertNotNull("La copia con sus cambios debería corresponder a la generación 7", folders);
+        assertEquals(1, folders.size());
+        List<Image> images = folders.get(0).getImages();
+        assertEquals("Debería incluir la imagen añadida después de la copia", 2, images.size());
+        assertEquals("cafe", images.get(1).getFoldedName());
+        assertEquals(Collections.singletonList("Verano"), images.get(0).getTags());
+    }
+
+    @Test
+    public void testOutdatedIndexIsDiscarded() {
+        assertNull("Una copia de otra generación no debería usarse", cache.load(6, summaries(trips, receipts)));
+        assertNull("La copia desactualizada debería borrarse", cache.load(5, summaries(trips, receipts)));
+    }
+
+    @Test
+    public void testMissingChangeDiscardsIndex() throws Exception {
+        cache.putFolders(Collections.singletonList(trips), 7);
+        waitForDiskIO();
+
+        assertNull("Falta el cambio de la generación 6", cache.load(7, summaries(trips, receipts)));
+    }
+
+    private static List<FolderSummary> summaries(Folder... folders) {
+        FolderSummary[] summaries = new FolderSummary[folders.length];
+        for (int i = 0; i < folders.length; i++) {
+            summaries[i] = FolderSummary.of(folders[i], 0);
+        }
+        return Arrays.asList(summaries);
+    }
+
+    private static Folder folder(String id, String name) {
+        Folder folder = new Folder(name, "#FF0000");
+        folder.setId(id);
+        return folder;
+    }
+
+    private static Image image(String name) {
+        return new Image(Uri.parse("file:///test/" + name + ".jpg"), name);
+    }
+
+    private static void waitForDiskIO() throws Exception {
+        AppExecutors.getInstance().diskIO().submit(() -> { }).get();
+    }
+}
@@ -0,0 +1,44 @@
+package com.dev.brain2.utils;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class BitmapPoolTest {
+
+    @Test
+    public void testReusesBitmapLargeEnough() {
+        BitmapPool pool = new BitmapPool(10 * 1024 * 1024);
+        Bitmap bitmap = Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+
+        assertNull("Un bitmap demasiado pequeño no debería reutilizarse",
+                pool.get(512, 512, Bitmap.Config.ARGB_8888));
+        assertSame("Debería reutilizarse el bitmap de la reserva", bitmap,
+                pool.get(200, 200, Bitmap.Config.ARGB_8888));
+        assertEquals("La reserva debería quedar vacía", 0, pool.getCurrentBytes());
+    }
+
+    @Test
+    public void testBudgetDropsOldestBitmaps() {
+        int bitmapBytes = 256 * 256 * 4;
+        BitmapPool pool = new BitmapPool(bitmapBytes * 2);
+        Bitmap oldest = Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888);
+        pool.put(oldest);
+        pool.put(Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888));
+        pool.put(Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888));
+
+        assertEquals("La reserva no debería pasar del presupuesto", bitmapBytes * 2, pool.getCurrentBytes());
+        assertFalse("Debería descartarse el más antiguo", pool.remove(oldest));
+    }
+}
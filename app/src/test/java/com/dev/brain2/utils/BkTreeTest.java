@@ -0,0 +1,40 @@
+package com.dev.brain2.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BkTreeTest {
+
+    @Test
+    public void testSearchReturnsTermsWithinDistanceByCloseness() {
+        BkTree tree = new BkTree();
+        for (String term : Arrays.asList("vacaciones", "vacacion", "vocacion", "playa", "cumpleanos")) {
+            tree.add(term);
+        }
+
+        List<BkTree.Match> matches = tree.search("vacacion", 2);
+
+        assertEquals("Deberían encontrarse las tres palabras cercanas", 3, matches.size());
+        assertEquals("vacacion", matches.get(0).getTerm());
+        assertEquals(0, matches.get(0).getDistance());
+        assertEquals("vocacion", matches.get(1).getTerm());
+        assertEquals("vacaciones", matches.get(2).getTerm());
+        assertEquals(2, matches.get(2).getDistance());
+    }
+
+    @Test
+    public void testDistanceStopsAtLimit() {
+        assertEquals(3, BkTree.distance("kitten", "sitting", 5));
+        assertEquals("Pasado el límite se devuelve límite + 1", 2, BkTree.distance("kitten", "sitting", 1));
+    }
+
+    @Test
+    public void testNormalizerFoldsAccentsAndCase() {
+        assertEquals(Arrays.asList("cumpleanos", "de", "ana"), TextNormalizer.tokens("Cumpleaños de ANA"));
+        assertEquals("cafe", TextNormalizer.fold("Café"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.dev.brain2.utils;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class CacheRegistryTest {
+
+    @Test
+    public void testCachesAreTrimmedInTierOrder() {
+        CacheRegistry registry = new CacheRegistry();
+        List<String> trimmed = new ArrayList<>();
+        registry.register("index", CacheRegistry.Tier.COSTLY, level -> { trimmed.add("index"); return 300; });
+        registry.register("thumbnails", CacheRegistry.Tier.MEDIUM, level -> { trimmed.add("thumbnails"); return 200; });
+        registry.register("pool", CacheRegistry.Tier.CHEAP, level -> { trimmed.add("pool"); return 100; });
+
+        long freed = registry.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
+        assertEquals("Debería liberarse primero lo más barato de reconstruir",
+                Arrays.asList("pool", "thumbnails", "index"), trimmed);
+        assertEquals(600, freed);
+    }
+
+    @Test
+    public void testLowPressureOnlyTrimsCheapCaches() {
+        CacheRegistry registry = new CacheRegistry();
+        registry.register("pool", CacheRegistry.Tier.CHEAP, level -> 100);
+        registry.register("thumbnails", CacheRegistry.Tier.MEDIUM, level -> 200);
+
+        assertEquals("Con presión moderada solo se liberan las cachés baratas", 100,
+                registry.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals("Al ocultar la interfaz también se liberan las miniaturas", 300,
+                registry.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+    }
+}
@@ -0,0 +1,60 @@
+package com.dev.brain2.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class MainThreadIoGuardTest {
+
+    @Before
+    public void setUp() {
+        MainThreadIoGuard.reset();
+        MainThreadIoGuard.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        MainThreadIoGuard.setEnabled(false);
+        MainThreadIoGuard.reset();
+    }
+
+    @Test
+    public void mainThreadDecodeIsRecorded() {
+        MainThreadIoGuard.onBitmapDecode();
+        MainThreadIoGuard.onDiskRead();
+
+        assertEquals("Deben registrarse las dos infracciones", 2, MainThreadIoGuard.getViolationCount());
+        assertTrue("El informe debe incluir el tipo de operación",
+                MainThreadIoGuard.summarize().contains("BITMAP_DECODE"));
+    }
+
+    @Test
+    public void backgroundThreadIsIgnored() throws InterruptedException {
+        Thread worker = new Thread(MainThreadIoGuard::onDiskWrite);
+        worker.start();
+        worker.join();
+
+        assertEquals("La E/S fuera del hilo principal no es una infracción", 0, MainThreadIoGuard.getViolationCount());
+    }
+
+    @Test
+    public void attributionNamesIoSiteAndCaller() {
+        StackTraceElement[] stack = {
+                new StackTraceElement("java.io.FileReader", "<init>", null, 0),
+                new StackTraceElement("com.dev.brain2.utils.DataStorage", "readFolderShard", null, 0),
+                new StackTraceElement("com.dev.brain2.managers.FolderManager", "ensureFolderLoaded", null, 0),
+                new StackTraceElement("com.dev.brain2.fragments.HomeFragment", "onViewCreated", null, 0)
+        };
+
+        assertEquals("Debe atribuirse al gestor que pidió la lectura",
+                "DataStorage.readFolderShard <- FolderManager.ensureFolderLoaded", MainThreadIoGuard.attribute(stack));
+    }
+}
@@ -0,0 +1,37 @@
+package com.dev.brain2.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void testCompletionsAreOrderedByWeightThenAlphabetically() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("playa", 2);
+        trie.add("playa norte", 5);
+        trie.add("plaza", 2);
+        trie.add("parque", 9);
+
+        assertEquals(Arrays.asList("playa norte", "playa", "plaza"), trie.complete("pl", 10));
+        assertEquals("Debería respetarse el límite", Collections.singletonList("parque"), trie.complete("p", 1));
+        assertEquals("Un prefijo sin términos no da resultados", Collections.emptyList(), trie.complete("x", 5));
+    }
+
+    @Test
+    public void testRemovingWeightUpdatesRanking() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("cumple", 3);
+        trie.add("cumpleaños", 1);
+
+        trie.add("cumple", -3);
+
+        assertEquals("El término sin peso debería desaparecer", 1, trie.size());
+        assertEquals(Collections.singletonList("cumpleaños"), trie.complete("cum", 5));
+        assertEquals(0, trie.getWeight("cumple"));
+    }
+}
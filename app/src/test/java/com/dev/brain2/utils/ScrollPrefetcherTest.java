@@ -0,0 +1,40 @@
+package com.dev.brain2.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ScrollPrefetcherTest {
+
+    @Test
+    public void windowFollowsScrollDirection() {
+        // Pantalla de 6 celdas (posiciones 12-17), bajando con dos pantallas por delante
+        Map<Integer, ThumbnailLoader.Priority> down = ScrollPrefetcher.predictWindow(12, 17, 1, 2, 100);
+
+        assertEquals("La siguiente pantalla debería pedirse primero", ThumbnailLoader.Priority.NEXT_SCREEN, down.get(18));
+        assertEquals(ThumbnailLoader.Priority.BEYOND, down.get(29));
+        assertFalse("Las celdas ya pasadas no deberían pedirse", down.containsKey(11));
+
+        Map<Integer, ThumbnailLoader.Priority> up = ScrollPrefetcher.predictWindow(12, 17, -1, 2, 100);
+        assertEquals("Subiendo se pide primero la celda más cercana", Arrays.asList(11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0),
+                new ArrayList<>(up.keySet()));
+    }
+
+    @Test
+    public void windowStopsAtListEnd() {
+        Map<Integer, ThumbnailLoader.Priority> window = ScrollPrefetcher.predictWindow(90, 95, 1, 3, 100);
+
+        assertEquals("No deberían pedirse posiciones fuera de la lista", 4, window.size());
+    }
+
+    @Test
+    public void fasterScrollLooksFurtherAhead() {
+        assertEquals(1, ScrollPrefetcher.screensAhead(10));
+        assertEquals(3, ScrollPrefetcher.screensAhead(1000));
+    }
+}
@@ -0,0 +1,136 @@
+package com.dev.brain2.utils;
+
+import android.net.Uri;
+
+import com.dev.brain2.models.Image;
+import com.dev.brain2.models.SearchResult;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class SearchHandlerTest {
+
+    @Test
+    public void testMatchKindsAreRankedInOrder() {
+        Image tagged = image("viaje", "Playa");
+        Image infix = image("laplaya");
+        Image token = image("Fotos de playa");
+        Image prefix = image("Playa norte");
+        Image exact = image("Playa");
+        List<Image> candidates = Arrays.asList(tagged, infix, token, prefix, exact);
+
+        SearchResult result = rank(candidates, "playa", new int[]{0, 0, 0, 0, 0}, Collections.emptyList());
+
+        assertEquals("exacta > prefijo > palabra > dentro > etiqueta",
+                Arrays.asList(exact, prefix, token, infix, tagged), result.nextPage(10));
+    }
+
+    @Test
+    public void testFuzzyMatchesRankBelowTagsByEdits() {
+        Image tagged = image("viaje", "Playa");
+        Image oneEdit = image("plaia");
+        Image twoEdits = image("plaiia");
+        Image unrelated = image("montaña");
+        List<Image> candidates = Arrays.asList(twoEdits, unrelated, oneEdit, tagged);
+        Map<String, Integer> edits = new HashMap<>();
+        edits.put(oneEdit.getId(), 1);
+        edits.put(twoEdits.getId(), 2);
+
+        int[] scores = SearchHandler.score(candidates, "playa", new String[4], new int[]{0, 0, 0, 0},
+                Collections.emptyList(), edits);
+
+        assertTrue("Las aproximadas quedan por debajo de las etiquetas", scores[3] > scores[2]);
+        assertTrue("Menos ediciones puntúan más", scores[2] > scores[0]);
+        assertTrue("Una aproximada puntúa más que no coincidir", scores[0] > scores[1]);
+    }
+
+    @Test
+    public void testBoostsOnlyReorderWithinAMatchKind() {
+        List<Image> candidates = Arrays.asList(image("playa vieja"), image("playa nueva"),
+                image("playa abierta"), image("playa"));
+        String[] folderIds = {"other", "other", "recent", "other"};
+        int[] ages = {500, 0, 500, 500};
+
+        int[] scores = SearchHandler.score(candidates, "playa", folderIds, ages, Collections.singletonList("recent"));
+
+        assertTrue("La imagen más nueva gana dentro del mismo tipo", scores[1] > scores[0]);
+        assertTrue("La carpeta abierta hace poco gana dentro del mismo tipo", scores[2] > scores[0]);
+        assertTrue("Las bonificaciones no superan un tipo de coincidencia mejor", scores[3] > scores[1]);
+        assertTrue(scores[3] > scores[2]);
+    }
+
+    @Test
+    public void testPagesFollowScoreOrder() {
+        List<Image> candidates = Arrays.asList(image("a"), image("b"), image("c"), image("d"));
+        SearchResult result = new SearchResult(candidates, new int[]{1, 3, 3, 2}, null, null, Collections.emptyList());
+
+        assertEquals(Arrays.asList(candidates.get(1), candidates.get(2)), result.nextPage(2));
+        assertEquals(Arrays.asList(candidates.get(3), candidates.get(0)), result.nextPage(2));
+        assertFalse(result.hasMore());
+    }
+
+    @Test
+    public void testSearchIgnoresAccentsAndCase() {
+        Image cafe = image("Café con leche");
+        Image mountain = image("excursión", "Montaña");
+        Image other = image("playa");
+        SearchHandler handler = new SearchHandler(Arrays.asList(cafe, mountain, other));
+
+        assertEquals("\"cafe\" encuentra \"Café\"", Collections.singletonList(cafe), handler.performSearch("CAFE"));
+        assertEquals("La etiqueta se compara sin acentos", Collections.singletonList(mountain),
+                handler.performSearch("montana"));
+
+        cafe.setName("Té verde");
+        assertEquals("El nombre normalizado se actualiza al renombrar", Collections.singletonList(cafe),
+                handler.performSearch("te"));
+    }
+
+    @Test
+    public void testParallelSearchKeepsLibraryOrder() {
+        List<Image> library = new ArrayList<>();
+        List<Image> expected = new ArrayList<>();
+        for (int i = 0; i < SearchHandler.PARALLEL_THRESHOLD + 3 * SearchHandler.CHUNK_SIZE; i++) {
+            Image image = image(i % 7 == 0 ? "playa " + i : "foto " + i);
+            library.add(image);
+            if (i % 7 == 0) {
+                expected.add(image);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals("Los trozos deberían juntarse en el orden de la biblioteca", expected,
+                    new SearchHandler(library, pool).performSearch("playa"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static SearchResult rank(List<Image> candidates, String query, int[] ages, List<String> recent) {
+        int[] scores = SearchHandler.score(candidates, query, new String[candidates.size()], ages, recent);
+        return new SearchResult(candidates, scores, null, null, Collections.emptyList());
+    }
+
+    private static Image image(String name, String... tags) {
+        Image image = new Image(Uri.parse("file:///test/" + name.replace(' ', '_') + ".jpg"), name);
+        for (String tag : tags) {
+            image.addTag(tag);
+        }
+        return image;
+    }
+}
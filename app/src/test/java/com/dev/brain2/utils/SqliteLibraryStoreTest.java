@@ -0,0 +1,140 @@
+package com.dev.brain2.utils;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.dev.brain2.models.Folder;
+import com.dev.brain2.models.FolderSummary;
+import com.dev.brain2.models.Image;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class SqliteLibraryStoreTest {
+
+    private Context context;
+    private Folder trips;
+    private Folder receipts;
+    private Image beach;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase("library.db");
+
+        trips = new Folder("Viajes", "#FF0000");
+        trips.setId("folder-1");
+        beach = new Image(Uri.parse("file:///viajes/playa_norte.jpg"), "Playa norte");
+        beach.addTag("verano");
+        trips.addImage(beach);
+        trips.addImage(new Image(Uri.parse("file:///viajes/rio.jpg"), "rio"));
+        receipts = new Folder("Recibos", "#00FF00");
+        receipts.setId("folder-2");
+        receipts.addImage(new Image(Uri.parse("file:///recibos/luz.jpg"), "luz"));
+
+        try (FileWriter writer = new FileWriter(new File(context.getFilesDir(), "folders.json"))) {
+            new Gson().toJson(Arrays.asList(trips, receipts), writer);
+        }
+    }
+
+    @Test
+    public void testLegacyLibraryIsMigrated() {
+        SqliteLibraryStore store = new SqliteLibraryStore(context);
+
+        List<FolderSummary> summaries = store.loadSummaries();
+
+        assertEquals("Deberían migrarse las dos carpetas", 2, summaries.size());
+        assertEquals("Debería conservarse el orden", "folder-1", summaries.get(0).getId());
+        assertEquals("La carpeta debería leerse con sus imágenes", 2, store.readFolder("folder-1").getImageCount());
+        assertFalse("El folders.json antiguo debería retirarse",
+                new File(context.getFilesDir(), "folders.json").exists());
+    }
+
+    @Test
+    public void testSearchMatchesNameSubstringAndTag() {
+        SqliteLibraryStore store = new SqliteLibraryStore(context);
+        store.loadSummaries();
+
+        List<Image> byName = store.searchImages("play");
+        List<Image> byInfix = store.searchImages("a nor");
+        List<Image> byTag = store.searchImages("VERANO");
+
+        assertEquals("Debería encontrarse por el comienzo de una palabra del nombre", 1, byName.size());
+        assertEquals("La imagen encontrada conserva su ID", beach.getId(), byName.get(0).getId());
+        assertEquals("Debería encontrarse por una parte del nombre", 1, byInfix.size());
+        assertEquals("Debería encontrarse por etiqueta, sin mayúsculas", 1, byTag.size());
+        assertEquals("Una parte de una etiqueta no basta", 0, store.searchImages("veran").size());
+        assertEquals("Sin consulta se devuelven todas las imágenes", 3, store.searchImages("").size());
+    }
+
+    @Test
+    public void testSearchAgreesWithInMemorySearch() {
+        SqliteLibraryStore store = new SqliteLibraryStore(context);
+        store.loadSummaries();
+        SearchHandler handler = new SearchHandler(Arrays.asList(
+                trips.getImages().get(0), trips.getImages().get(1), receipts.getImages().get(0)));
+
+        for (String query : Arrays.asList("orte", "lu", "Río", "verano", "o", "playa norte", "xyz")) {
+            assertEquals("Ambas búsquedas deberían encontrar lo mismo para \"" + query + "\"",
+                    ids(handler.performSearch(query)), ids(store.searchImages(query)));
+        }
+    }
+
+    @Test
+    public void testMovedImageChangesFolder() {
+        SqliteLibraryStore store = new SqliteLibraryStore(context);
+        List<FolderSummary> summaries = store.loadSummaries();
+
+        trips.removeImage(beach);
+        receipts.addImage(beach);
+        // La carpeta de destino se guarda antes que la de origen
+        store.saveFolders(Arrays.asList(receipts, trips), summaries);
+
+        assertEquals("La imagen debería pertenecer a la nueva carpeta", "folder-2", store.findFolderIdForImage(beach.getId()));
+        assertEquals("La carpeta de origen debería perder la imagen", 1, store.readFolder("folder-1").getImageCount());
+        assertEquals("La etiqueta debería mantenerse", Arrays.asList("verano"),
+                store.findImage(beach.getId()).getTags());
+    }
+
+    @Test
+    public void testImagePageReadsOnlyRequestedRange() {
+        SqliteLibraryStore store = new SqliteLibraryStore(context);
+        store.loadSummaries();
+
+        List<Image> page = store.readImagePage("folder-1", 1, 10);
+
+        assertEquals("La página debería empezar en la posición pedida", 1, page.size());
+        assertEquals("rio", page.get(0).getName());
+    }
+
+    @Test
+    public void testTrigramsOfEachWord() {
+        assertEquals("pla lay aya nor", SqliteLibraryStore.toTrigrams("playa, nor"));
+        assertEquals("Las palabras cortas no tienen trigramas", "", SqliteLibraryStore.toTrigrams("a-b lu"));
+    }
+
+    private static List<String> ids(List<Image> images) {
+        List<String> ids = new ArrayList<>();
+        for (Image image : images) {
+            ids.add(image.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,16 @@
+package com.dev.brain2.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThumbnailLoaderTest {
+
+    @Test
+    public void sampleSizeKeepsShortSideAboveTarget() {
+        assertEquals("Una foto de 4000x3000 debería reducirse a un octavo", 8,
+                ThumbnailLoader.calculateInSampleSize(4000, 3000, 256));
+        assertEquals("Una imagen pequeña no debería reducirse", 1,
+                ThumbnailLoader.calculateInSampleSize(300, 200, 256));
+    }
+}